@@ -0,0 +1,261 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.digitalstrom.internal.client.job;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+import org.openhab.binding.digitalstrom.internal.client.DigitalSTROMAPI;
+import org.openhab.binding.digitalstrom.internal.client.constants.SensorIndexEnum;
+import org.openhab.binding.digitalstrom.internal.client.entity.DSID;
+import org.openhab.binding.digitalstrom.internal.client.entity.Device;
+import org.openhab.binding.digitalstrom.internal.client.job.SensorJobExecutor.Priority;
+import org.openhab.binding.digitalstrom.internal.client.job.SensorJobExecutor.SessionTokenProvider;
+
+/**
+ * Tests the {@link SensorJobExecutor} against a mocked {@link DigitalSTROMAPI}, which records the
+ * sensor reads and blocks them on demand.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class SensorJobExecutorTest {
+
+    private static final long TIMEOUT = 5000;
+
+    private static final String CIRCUIT_1 = "000000a1";
+    private static final String CIRCUIT_2 = "000000a2";
+
+    private final MockAPI api = new MockAPI();
+    private final SensorJobExecutor executor = new SensorJobExecutor(api.proxy(), new SessionTokenProvider() {
+        @Override
+        public String getSessionToken() {
+            return "token";
+        }
+    }, 0);
+
+    @After
+    public void shutdown() {
+        api.release();
+        executor.shutdown();
+    }
+
+    @Test
+    public void testDuplicateJobIsDropped() throws Exception {
+        api.block();
+        assertTrue(executor.addJob(job("00000001", CIRCUIT_1), Priority.LOW));
+        api.awaitCalls(1);
+
+        // the first job is running, so the lane holds the others back
+        assertTrue(executor.addJob(job("00000002", CIRCUIT_1), Priority.LOW));
+        assertFalse(executor.addJob(job("00000002", CIRCUIT_1), Priority.LOW));
+        assertFalse(executor.addJob(job("00000002", CIRCUIT_1), Priority.HIGH));
+        assertEquals(1, executor.getPendingJobCount());
+
+        api.release();
+        api.awaitCalls(2);
+        assertEquals(Arrays.asList("00000001", "00000002"), api.getDevices());
+
+        // once it is running, the same job can be added again
+        assertTrue(executor.addJob(job("00000002", CIRCUIT_1), Priority.LOW));
+        api.awaitCalls(3);
+    }
+
+    @Test
+    public void testPriorityOrderWithinLane() throws Exception {
+        api.block();
+        executor.addJob(job("00000001", CIRCUIT_1), Priority.LOW);
+        api.awaitCalls(1);
+
+        executor.addJob(job("00000002", CIRCUIT_1), Priority.LOW);
+        executor.addJob(job("00000003", CIRCUIT_1), Priority.MEDIUM);
+        executor.addJob(job("00000004", CIRCUIT_1), Priority.LOW);
+        executor.addJob(job("00000005", CIRCUIT_1), Priority.HIGH);
+        executor.addJob(job("00000006", CIRCUIT_1), Priority.MEDIUM);
+
+        api.release();
+        api.awaitCalls(6);
+        assertEquals(Arrays.asList("00000001", "00000005", "00000003", "00000006", "00000002", "00000004"),
+                api.getDevices());
+    }
+
+    @Test
+    public void testNoConcurrentCallsPerCircuit() throws Exception {
+        api.setCallDuration(5);
+        for (int device = 0; device < 8; device++) {
+            for (String circuit : Arrays.asList(CIRCUIT_1, CIRCUIT_2)) {
+                executor.addJob(job("00000" + circuit.substring(6) + device, circuit), Priority.MEDIUM);
+            }
+        }
+
+        api.awaitCalls(16);
+        assertEquals(1, api.getMaxConcurrentCalls(CIRCUIT_1));
+        assertEquals(1, api.getMaxConcurrentCalls(CIRCUIT_2));
+    }
+
+    @Test
+    public void testCircuitsRunInParallel() throws Exception {
+        api.block();
+        executor.addJob(job("00000001", CIRCUIT_1), Priority.LOW);
+        api.awaitCalls(1);
+
+        // the first circuit is blocked, the second one isn't held back by it
+        executor.addJob(job("00000002", CIRCUIT_2), Priority.LOW);
+        api.awaitCalls(2);
+    }
+
+    private Device device(final String dsid, final String meterDsid) {
+        api.meters.put(new DSID(dsid), meterDsid);
+        return (Device) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Device.class },
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (method.getName().equals("getDSID")) {
+                            return new DSID(dsid);
+                        } else if (method.getName().equals("getMeterDSID")) {
+                            return new DSID(meterDsid);
+                        } else if (method.getName().equals("getName")) {
+                            return dsid;
+                        }
+                        return defaultValue(method.getReturnType());
+                    }
+                });
+    }
+
+    private SensorJob job(String dsid, String meterDsid) {
+        return new DeviceSensorValueJob(device(dsid, meterDsid), SensorIndexEnum.TEMPERATURE_INDOORS);
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == short.class) {
+            return (short) 0;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+    /**
+     * Mocks the sensor reads of the {@link DigitalSTROMAPI}. Every read is recorded with the
+     * number of reads running on the same circuit at that time.
+     */
+    private static class MockAPI implements InvocationHandler {
+
+        private final Map<DSID, String> meters = new ConcurrentHashMap<DSID, String>();
+        private final ConcurrentMap<String, AtomicInteger> running = new ConcurrentHashMap<String, AtomicInteger>();
+        private final ConcurrentMap<String, AtomicInteger> maxRunning = new ConcurrentHashMap<String, AtomicInteger>();
+        private final List<String> devices = Collections.synchronizedList(new ArrayList<String>());
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private volatile CountDownLatch gate = new CountDownLatch(0);
+        private volatile long callDuration = 0;
+
+        DigitalSTROMAPI proxy() {
+            return (DigitalSTROMAPI) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] { DigitalSTROMAPI.class }, this);
+        }
+
+        /**
+         * Blocks the reads until {@link #release()} is called.
+         */
+        void block() {
+            gate = new CountDownLatch(1);
+        }
+
+        void release() {
+            gate.countDown();
+        }
+
+        void setCallDuration(long callDuration) {
+            this.callDuration = callDuration;
+        }
+
+        /**
+         * Waits until the given number of reads has started.
+         */
+        void awaitCalls(int count) throws InterruptedException {
+            long end = System.currentTimeMillis() + TIMEOUT;
+            synchronized (calls) {
+                while (calls.get() < count && System.currentTimeMillis() < end) {
+                    calls.wait(end - System.currentTimeMillis());
+                }
+            }
+            assertEquals("sensor reads started", count, calls.get());
+        }
+
+        List<String> getDevices() {
+            synchronized (devices) {
+                List<String> result = new ArrayList<String>();
+                for (String dsid : devices) {
+                    result.add(dsid.substring(dsid.length() - 8));
+                }
+                return result;
+            }
+        }
+
+        int getMaxConcurrentCalls(String circuit) {
+            return maxRunning.get(new DSID(circuit).getValue()).get();
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if (!method.getName().equals("getDeviceSensorValue")) {
+                return defaultValue(method.getReturnType());
+            }
+            DSID dsid = (DSID) args[1];
+            String circuit = new DSID(meters.get(dsid)).getValue();
+            running.putIfAbsent(circuit, new AtomicInteger());
+            maxRunning.putIfAbsent(circuit, new AtomicInteger());
+
+            int concurrent = running.get(circuit).incrementAndGet();
+            AtomicInteger max = maxRunning.get(circuit);
+            int previous;
+            while (concurrent > (previous = max.get()) && !max.compareAndSet(previous, concurrent)) {
+            }
+            devices.add(dsid.getValue());
+            synchronized (calls) {
+                calls.incrementAndGet();
+                calls.notifyAll();
+            }
+            try {
+                gate.await(TIMEOUT, TimeUnit.MILLISECONDS);
+                if (callDuration > 0) {
+                    Thread.sleep(callDuration);
+                }
+            } catch (InterruptedException e) {
+                // the executor was shut down
+                Thread.currentThread().interrupt();
+            } finally {
+                running.get(circuit).decrementAndGet();
+            }
+            return (short) 0;
+        }
+    }
+}
@@ -106,6 +106,7 @@ public enum JSONApiResponseKeysEnum {
     DEVICE_IS_PRESENT_QUERY("present"),
     DEVICE_ZONE_ID("zoneID"),
     DEVICE_ZONE_ID_QUERY("ZoneID"),
+    DEVICE_METER_ID("meterDSID"),
     DEVICE_GROUPS("groups"),
 
     // DeviceSpec
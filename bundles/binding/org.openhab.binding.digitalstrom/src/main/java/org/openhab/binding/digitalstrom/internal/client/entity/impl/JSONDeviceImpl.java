@@ -41,6 +41,8 @@ public class JSONDeviceImpl implements Device {
 
     private int zoneId = 0;
 
+    private DSID meterDSID = null;
+
     private boolean isPresent = false;
 
     private boolean isOn = false;
@@ -108,6 +110,10 @@ public class JSONDeviceImpl implements Device {
             zoneStr = object.get(JSONApiResponseKeysEnum.DEVICE_ZONE_ID_QUERY.getKey()).toString();
         }
 
+        if (object.get(JSONApiResponseKeysEnum.DEVICE_METER_ID.getKey()) != null) {
+            this.meterDSID = new DSID(object.get(JSONApiResponseKeysEnum.DEVICE_METER_ID.getKey()).toString());
+        }
+
         if (zoneStr != null) {
             try {
                 this.zoneId = Integer.parseInt(zoneStr);
@@ -178,6 +184,11 @@ public class JSONDeviceImpl implements Device {
         return dsid;
     }
 
+    @Override
+    public DSID getMeterDSID() {
+        return meterDSID;
+    }
+
     @Override
     public String getName() {
         return name;
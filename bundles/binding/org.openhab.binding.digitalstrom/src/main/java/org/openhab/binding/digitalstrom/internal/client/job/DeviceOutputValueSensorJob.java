@@ -66,8 +66,18 @@ public class DeviceOutputValueSensorJob implements SensorJob {
         return false;
     }
 
+    @Override
+    public int hashCode() {
+        return (this.device.getDSID().getValue() + this.index).hashCode();
+    }
+
     @Override
     public DSID getDsid() {
         return device.getDSID();
     }
+
+    @Override
+    public DSID getMeterDsid() {
+        return device.getMeterDSID();
+    }
 }
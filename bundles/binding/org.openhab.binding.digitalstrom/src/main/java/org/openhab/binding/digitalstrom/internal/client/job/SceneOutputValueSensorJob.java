@@ -61,9 +61,19 @@ public class SceneOutputValueSensorJob implements SensorJob {
         return false;
     }
 
+    @Override
+    public int hashCode() {
+        return (this.device.getDSID().getValue() + "-" + this.sceneId).hashCode();
+    }
+
     @Override
     public DSID getDsid() {
         return device.getDSID();
     }
 
+    @Override
+    public DSID getMeterDsid() {
+        return device.getMeterDSID();
+    }
+
 }
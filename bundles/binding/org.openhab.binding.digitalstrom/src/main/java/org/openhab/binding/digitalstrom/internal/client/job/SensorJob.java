@@ -19,6 +19,11 @@ import org.openhab.binding.digitalstrom.internal.client.entity.DSID;
 public interface SensorJob {
     public DSID getDsid();
 
+    /**
+     * @return dsid of the dSM whose circuit the job reads from, or null if unknown
+     */
+    public DSID getMeterDsid();
+
     public void execute(DigitalSTROMAPI digitalSTROM, String token);
 
 }
@@ -0,0 +1,256 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.digitalstrom.internal.client.job;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openhab.binding.digitalstrom.internal.client.DigitalSTROMAPI;
+import org.openhab.binding.digitalstrom.internal.client.entity.DSID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes the sensor jobs. The dSM of every circuit reads the sensors of its
+ * devices one after the other over its bus, so the jobs run in one lane per
+ * circuit, with a minimum time between two jobs of the same lane. The lanes of
+ * different circuits run in parallel.
+ *
+ * A job which is already waiting is not added again, and within a lane the
+ * jobs with higher priority are executed first.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class SensorJobExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(SensorJobExecutor.class);
+
+    /** lane for the devices whose dSM is not known */
+    private static final String UNKNOWN_CIRCUIT = "unknown";
+
+    public enum Priority {
+        HIGH,
+        MEDIUM,
+        LOW
+    }
+
+    /**
+     * Provides the current session token of the dSS
+     */
+    public interface SessionTokenProvider {
+        public String getSessionToken();
+    }
+
+    private final DigitalSTROMAPI digitalSTROM;
+    private final SessionTokenProvider tokenProvider;
+    private final long minJobInterval;
+
+    private final ConcurrentMap<String, Lane> lanes = new ConcurrentHashMap<String, Lane>();
+    private final ConcurrentMap<SensorJob, QueuedJob> pendingJobs = new ConcurrentHashMap<SensorJob, QueuedJob>();
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong duplicateCount = new AtomicLong();
+
+    private volatile boolean shutdown = false;
+
+    /**
+     * @param digitalSTROM the API to execute the jobs with
+     * @param tokenProvider provides the session token for the jobs
+     * @param minJobInterval minimum time in milliseconds between two jobs of the same circuit
+     */
+    public SensorJobExecutor(DigitalSTROMAPI digitalSTROM, SessionTokenProvider tokenProvider, long minJobInterval) {
+        this.digitalSTROM = digitalSTROM;
+        this.tokenProvider = tokenProvider;
+        this.minJobInterval = minJobInterval;
+    }
+
+    /**
+     * Adds a job to the lane of its circuit, unless the same job is already
+     * waiting.
+     *
+     * @param job the job to execute
+     * @param priority the priority of the job within its lane
+     * @return true if the job was added, false if it is a duplicate or the
+     *         executor is shut down
+     */
+    public boolean addJob(SensorJob job, Priority priority) {
+        if (shutdown) {
+            return false;
+        }
+        QueuedJob queuedJob = new QueuedJob(job, priority, sequence.incrementAndGet(), System.currentTimeMillis());
+        if (pendingJobs.putIfAbsent(job, queuedJob) != null) {
+            duplicateCount.incrementAndGet();
+            return false;
+        }
+        Lane lane = getLane(job.getMeterDsid());
+        if (lane == null) {
+            pendingJobs.remove(job, queuedJob);
+            return false;
+        }
+        lane.queue.add(queuedJob);
+        return true;
+    }
+
+    /**
+     * Removes all waiting jobs of a device.
+     *
+     * @param dsid the dsid of the device
+     */
+    public void removeJobs(DSID dsid) {
+        for (Lane lane : lanes.values()) {
+            for (Iterator<QueuedJob> iter = lane.queue.iterator(); iter.hasNext();) {
+                QueuedJob queuedJob = iter.next();
+                if (queuedJob.job.getDsid().equals(dsid)) {
+                    iter.remove();
+                    pendingJobs.remove(queuedJob.job, queuedJob);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return number of jobs waiting in all lanes
+     */
+    public int getPendingJobCount() {
+        return pendingJobs.size();
+    }
+
+    /**
+     * @return a summary of the executed jobs and their queue latency per circuit
+     */
+    public String getStatistics() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("sensor jobs: ").append(pendingJobs.size()).append(" waiting, ").append(duplicateCount.get())
+                .append(" duplicates dropped");
+        for (Lane lane : lanes.values()) {
+            sb.append("; circuit ").append(lane.circuit).append(": ").append(lane.getStatistics());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Stops all lanes, the waiting jobs are discarded.
+     */
+    public void shutdown() {
+        shutdown = true;
+        for (Lane lane : lanes.values()) {
+            lane.interrupt();
+        }
+        lanes.clear();
+        pendingJobs.clear();
+    }
+
+    private Lane getLane(DSID meterDsid) {
+        String circuit = meterDsid != null ? meterDsid.getValue() : UNKNOWN_CIRCUIT;
+        Lane lane = lanes.get(circuit);
+        if (lane == null) {
+            Lane newLane = new Lane(circuit);
+            lane = lanes.putIfAbsent(circuit, newLane);
+            if (lane == null) {
+                lane = newLane;
+                lane.start();
+                if (shutdown) {
+                    // shut down while the lane was created
+                    lane.interrupt();
+                    lanes.remove(circuit);
+                    return null;
+                }
+            }
+        }
+        return lane;
+    }
+
+    private static class QueuedJob implements Comparable<QueuedJob> {
+        private final SensorJob job;
+        private final Priority priority;
+        private final long sequence;
+        private final long queuedAt;
+
+        QueuedJob(SensorJob job, Priority priority, long sequence, long queuedAt) {
+            this.job = job;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.queuedAt = queuedAt;
+        }
+
+        @Override
+        public int compareTo(QueuedJob other) {
+            int result = priority.compareTo(other.priority);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * Executes the jobs of one circuit
+     */
+    private class Lane extends Thread {
+        private final String circuit;
+        private final PriorityBlockingQueue<QueuedJob> queue = new PriorityBlockingQueue<QueuedJob>();
+
+        private long lastJobTime = 0;
+
+        private long executedCount = 0;
+        private long totalLatency = 0;
+        private long maxLatency = 0;
+
+        Lane(String circuit) {
+            super("digitalSTROM sensor jobs " + circuit);
+            this.circuit = circuit;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!shutdown) {
+                    QueuedJob queuedJob = queue.take();
+
+                    long wait = lastJobTime + minJobInterval - System.currentTimeMillis();
+                    if (wait > 0) {
+                        sleep(wait);
+                        // a job with higher priority may have come in meanwhile
+                        queue.add(queuedJob);
+                        queuedJob = queue.take();
+                    }
+
+                    // from now on the same job can be added again, as this
+                    // one may read the value before it changed
+                    pendingJobs.remove(queuedJob.job, queuedJob);
+
+                    long now = System.currentTimeMillis();
+                    recordLatency(now - queuedJob.queuedAt);
+                    lastJobTime = now;
+
+                    try {
+                        queuedJob.job.execute(digitalSTROM, tokenProvider.getSessionToken());
+                    } catch (RuntimeException e) {
+                        logger.error("sensor job for dsid {} failed", queuedJob.job.getDsid(), e);
+                    }
+                }
+            } catch (InterruptedException e) {
+                logger.debug("sensor job lane for circuit {} stopped", circuit);
+            }
+        }
+
+        private synchronized void recordLatency(long latency) {
+            executedCount++;
+            totalLatency += latency;
+            maxLatency = Math.max(maxLatency, latency);
+        }
+
+        synchronized String getStatistics() {
+            return String.format("%d executed, %d waiting, latency avg %d ms max %d ms", executedCount, queue.size(),
+                    executedCount > 0 ? totalLatency / executedCount : 0, maxLatency);
+        }
+    }
+}
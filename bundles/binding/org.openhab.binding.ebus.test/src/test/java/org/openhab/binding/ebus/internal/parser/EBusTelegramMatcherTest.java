@@ -0,0 +1,179 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.ebus.internal.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+import org.openhab.binding.ebus.internal.EBusTelegram;
+import org.openhab.binding.ebus.internal.configuration.TelegramConfiguration;
+import org.openhab.binding.ebus.internal.utils.EBusUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Replays a capture of bus telegrams, as logged by the Analyses logger, through
+ * the regular expression filters and the {@link EBusTelegramMatcher}. Both must
+ * return the same configurations in the same order. Also logs the time needed
+ * per telegram.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class EBusTelegramMatcherTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(EBusTelegramMatcherTest.class);
+
+    private static final String[] CONFIGURATIONS = { "common", "vaillant-bai00", "vaillant-vr90", "vaillant-vrc430",
+            "vaillant-vrc470", "vaillant-vrc630", "wolf-cgb2", "wolf-cgb2_hc", "wolf-sm1", "_testing", "_vaillant",
+            "_vaillant-vrc470", "_wolf-35", "_wolf", "_wolf-test" };
+
+    // a telegram as hex dump, after the log prefix
+    private static final Pattern P_HEX_DUMP = Pattern.compile("([0-9A-F]{2} )+[0-9A-F]{2}$");
+
+    private static final int ROUNDS = 20;
+
+    private static URL getConfiguration(String name) {
+        URL url = EBusTelegramMatcherTest.class.getResource("/" + name + "-configuration.json");
+        assertTrue("Configuration " + name, url != null);
+        return url;
+    }
+
+    private static EBusConfigurationProvider loadConfigurations() throws IOException {
+        EBusConfigurationProvider provider = new EBusConfigurationProvider();
+        for (String name : CONFIGURATIONS) {
+            provider.loadConfigurationFile(getConfiguration(name));
+        }
+        return provider;
+    }
+
+    private static List<byte[]> readCapture() throws IOException {
+        List<byte[]> telegrams = new ArrayList<byte[]>();
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(EBusTelegramMatcherTest.class.getResourceAsStream("/ebus-capture.log"), "UTF-8"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Matcher matcher = P_HEX_DUMP.matcher(line);
+                if (matcher.find()) {
+                    telegrams.add(EBusUtils.toByteArray(matcher.group()));
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return telegrams;
+    }
+
+    private static ByteBuffer toBuffer(byte[] telegram) {
+        ByteBuffer buffer = ByteBuffer.allocate(telegram.length);
+        buffer.put(telegram);
+        return buffer;
+    }
+
+    private static List<TelegramConfiguration> matchByFilter(EBusConfigurationProvider provider, ByteBuffer buffer) {
+        return provider.getCommandsByFilter(EBusUtils.toHexDumpString(buffer).toString());
+    }
+
+    @Test
+    public void testCaptureMatchesFilters() throws IOException {
+        EBusConfigurationProvider provider = loadConfigurations();
+        List<byte[]> telegrams = readCapture();
+        assertEquals("Telegrams", 1500, telegrams.size());
+
+        int known = 0;
+        for (byte[] telegram : telegrams) {
+            ByteBuffer buffer = toBuffer(telegram);
+            List<TelegramConfiguration> expected = matchByFilter(provider, buffer);
+            assertEquals(EBusUtils.toHexDumpString(buffer).toString(), expected,
+                    provider.getCommandsByTelegram(buffer));
+            if (!expected.isEmpty()) {
+                known++;
+            }
+        }
+
+        // the capture contains telegrams of the configurations and unknown telegrams
+        assertTrue("Known telegrams " + known, known > 500 && known < telegrams.size());
+    }
+
+    @Test
+    public void testLoadReplacesMatcher() throws IOException {
+        EBusConfigurationProvider provider = new EBusConfigurationProvider();
+        provider.loadConfigurationFile(getConfiguration("common"));
+
+        // <Service Data> Aussentemperatur of common, a parameter of wolf-cgb2
+        ByteBuffer outsideTemperature = toBuffer(EBusUtils.toByteArray("10 FE 03 01 0E 2E 00 00 00"));
+        ByteBuffer parameter = toBuffer(EBusUtils.toByteArray("FF 08 50 22 03 CC 1A 27 00"));
+        assertEquals(matchByFilter(provider, outsideTemperature), provider.getCommandsByTelegram(outsideTemperature));
+        assertFalse(provider.getCommandsByTelegram(outsideTemperature).isEmpty());
+        assertTrue(provider.getCommandsByTelegram(parameter).isEmpty());
+
+        // the matcher is replaced as soon as a file is loaded
+        provider.loadConfigurationFile(getConfiguration("wolf-cgb2"));
+        assertEquals(matchByFilter(provider, parameter), provider.getCommandsByTelegram(parameter));
+        assertFalse(provider.getCommandsByTelegram(parameter).isEmpty());
+
+        provider.clear();
+        assertTrue(provider.getCommandsByTelegram(outsideTemperature).isEmpty());
+        assertTrue(provider.getCommandsByTelegram(parameter).isEmpty());
+    }
+
+    @Test
+    public void testReplay() throws IOException {
+        EBusConfigurationProvider provider = loadConfigurations();
+        EBusTelegramParser parser = new EBusTelegramParser(provider);
+        List<byte[]> telegrams = readCapture();
+
+        long filterTime = 0;
+        long matcherTime = 0;
+        long parserTime = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            // only the last round is measured, the others warm up the jvm
+            filterTime = 0;
+            matcherTime = 0;
+            parserTime = 0;
+
+            for (byte[] telegram : telegrams) {
+                ByteBuffer buffer = toBuffer(telegram);
+
+                long start = System.nanoTime();
+                matchByFilter(provider, buffer);
+                filterTime += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                provider.getCommandsByTelegram(buffer);
+                matcherTime += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                try {
+                    parser.parse(new EBusTelegram(buffer));
+                } catch (RuntimeException e) {
+                    // unsupported data types, same as without the matcher
+                }
+                parserTime += System.nanoTime() - start;
+            }
+        }
+
+        int n = telegrams.size();
+        logger.debug("eBus replay of {} telegrams: filter {} ns, matcher {} ns, parser {} ns per telegram", n,
+                filterTime / n, matcherTime / n, parserTime / n);
+    }
+}
@@ -29,6 +29,7 @@ public class TelegramValue {
     private Integer bit;
     private CompiledScript csript;
     private String debug;
+    private TelegramValueDecoder decoder;
     private BigDecimal factor;
     private String label;
     private Map<String, String> mapping;
@@ -68,6 +69,15 @@ public class TelegramValue {
         return debug;
     }
 
+    /**
+     * Returns the decoder resolved from type and position
+     * 
+     * @return
+     */
+    public TelegramValueDecoder getDecoder() {
+        return decoder;
+    }
+
     /**
      * Returns factor
      * 
@@ -188,6 +198,13 @@ public class TelegramValue {
         this.debug = debug;
     }
 
+    /**
+     * @param decoder
+     */
+    public void setDecoder(TelegramValueDecoder decoder) {
+        this.decoder = decoder;
+    }
+
     /**
      * @param factor
      */
@@ -0,0 +1,179 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.ebus.internal.configuration;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+
+import org.openhab.binding.ebus.internal.utils.EBusCodecUtils;
+import org.openhab.binding.ebus.internal.utils.NumberUtils;
+
+/**
+ * Decodes a value of a telegram. The data type, the position and the limits
+ * of the value configuration are resolved once, so the value is read straight
+ * from the telegram buffer. The results are the same as decoding by type name
+ * with {@link EBusCodecUtils#decode(String, byte[], Number)}.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public final class TelegramValueDecoder {
+
+    private enum DataType {
+        BIT,
+        BCD,
+        CHAR,
+        DATA1B,
+        DATA1C,
+        DATA2B,
+        DATA2C,
+        UCHAR,
+        WORD
+    }
+
+    private final DataType type;
+    private final int pos;
+    private final int bit;
+    private final double replaceValue;
+    private final BigDecimal factor;
+    private final BigDecimal min;
+    private final BigDecimal max;
+
+    private TelegramValueDecoder(DataType type, TelegramValue value, Number defaultReplaceValue) {
+        this.type = type;
+        this.pos = value.getPos() != null ? value.getPos() : -1;
+        this.bit = type == DataType.BIT ? value.getBit() : 0;
+        this.replaceValue = value.getReplaceValue() != null ? value.getReplaceValue().doubleValue()
+                : defaultReplaceValue.doubleValue();
+        this.factor = value.getFactor();
+        this.min = value.getMin();
+        this.max = value.getMax();
+    }
+
+    /**
+     * Creates the decoder for a value configuration.
+     *
+     * @param value The value configuration
+     * @return The decoder or <code>null</code> if the data type can only be
+     *         decoded by its name
+     */
+    public static TelegramValueDecoder create(TelegramValue value) {
+
+        if (value.getType() == null) {
+            return null;
+        }
+
+        String type = value.getType().toLowerCase();
+
+        if (type.equals("bit")) {
+            return value.getBit() != null ? new TelegramValueDecoder(DataType.BIT, value, 0) : null;
+        } else if (type.equals("bcd")) {
+            return new TelegramValueDecoder(DataType.BCD, value, 255);
+        } else if (type.equals("char")) {
+            return new TelegramValueDecoder(DataType.CHAR, value, 255);
+        } else if (type.equals("data1b")) {
+            return new TelegramValueDecoder(DataType.DATA1B, value, -128);
+        } else if (type.equals("data1c")) {
+            return new TelegramValueDecoder(DataType.DATA1C, value, 255);
+        } else if (type.equals("data2b")) {
+            return new TelegramValueDecoder(DataType.DATA2B, value, -128);
+        } else if (type.equals("data2c")) {
+            return new TelegramValueDecoder(DataType.DATA2C, value, -2048);
+        } else if (type.equals("uchar") || type.equals("byte")) {
+            return new TelegramValueDecoder(DataType.UCHAR, value, 255);
+        } else if (type.equals("word") || type.equals("uint")) {
+            return new TelegramValueDecoder(DataType.WORD, value, 65535);
+        }
+
+        // unknown types and "int" (which fails with one byte) are left to EBusCodecUtils
+        return null;
+    }
+
+    /**
+     * Decodes the value from a telegram.
+     *
+     * @param byteBuffer The telegram
+     * @return A Boolean for bits, a BigDecimal for numbers or <code>null</code>
+     *         if the value is the replace value or out of range
+     */
+    public Object decode(ByteBuffer byteBuffer) {
+
+        double n;
+
+        switch (type) {
+            case BIT:
+                return (byteBuffer.get(pos - 1) >> bit & 0x1) == 1;
+
+            case BCD:
+                n = EBusCodecUtils.decodeBCD(byteBuffer.get(pos - 1));
+                break;
+
+            case CHAR:
+                n = EBusCodecUtils.decodeChar(byteBuffer.get(pos - 1));
+                break;
+
+            case DATA1B:
+                n = EBusCodecUtils.decodeDATA1b(byteBuffer.get(pos - 1));
+                break;
+
+            case DATA1C:
+                n = EBusCodecUtils.decodeDATA1c(byteBuffer.get(pos - 1));
+                break;
+
+            case UCHAR:
+                n = EBusCodecUtils.decodeUChar(byteBuffer.get(pos - 1));
+                break;
+
+            case DATA2B:
+                n = decodeInt(byteBuffer) / 256f;
+                break;
+
+            case DATA2C:
+                n = decodeInt(byteBuffer) / 16f;
+                break;
+
+            case WORD:
+                n = decodeInt(byteBuffer);
+                break;
+
+            default:
+                return null;
+        }
+
+        // equals replace value, skip value
+        if (n == replaceValue) {
+            return null;
+        }
+
+        // the float types keep the representation of the float value
+        BigDecimal b = type == DataType.DATA1C || type == DataType.DATA2B || type == DataType.DATA2C
+                ? NumberUtils.toBigDecimal((float) n) : BigDecimal.valueOf((long) n);
+
+        // multiply before check min and max
+        if (factor != null) {
+            b = b.multiply(factor);
+        }
+
+        // value is below min value or above max value, skip value
+        if (min != null && b.compareTo(min) == -1) {
+            return null;
+        } else if (max != null && b.compareTo(max) == 1) {
+            return null;
+        }
+
+        return b;
+    }
+
+    /**
+     * Reads the two bytes before and at the position, low byte first.
+     */
+    private short decodeInt(ByteBuffer byteBuffer) {
+        return (short) (byteBuffer.get(pos) << 8 | byteBuffer.get(pos - 1) & 0xFF);
+    }
+}
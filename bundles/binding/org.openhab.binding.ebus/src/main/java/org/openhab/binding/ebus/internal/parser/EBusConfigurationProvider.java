@@ -11,6 +11,7 @@ package org.openhab.binding.ebus.internal.parser;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -32,6 +33,7 @@ import org.codehaus.jackson.map.ObjectMapper;
 import org.codehaus.jackson.type.TypeReference;
 import org.openhab.binding.ebus.internal.configuration.TelegramConfiguration;
 import org.openhab.binding.ebus.internal.configuration.TelegramValue;
+import org.openhab.binding.ebus.internal.configuration.TelegramValueDecoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -62,6 +64,10 @@ public class EBusConfigurationProvider {
 
     private Map<String, String> loadedFilters = new HashMap<String, String>();
 
+    // The compiled filters of the registry, replaced whenever the registry changes
+    private volatile EBusTelegramMatcher telegramMatcher = new EBusTelegramMatcher(
+            new ArrayList<TelegramConfiguration>());
+
     // The script engine if available
     private Compilable compEngine;
 
@@ -97,10 +103,11 @@ public class EBusConfigurationProvider {
     /**
      * Clears all loaded configurations
      */
-    public void clear() {
+    public synchronized void clear() {
         if (telegramRegistry != null) {
             telegramRegistry.clear();
         }
+        telegramMatcher = new EBusTelegramMatcher(telegramRegistry);
     }
 
     /**
@@ -110,7 +117,7 @@ public class EBusConfigurationProvider {
      * @throws IOException Unable to read configuration file
      * @throws ParseException A invalid json file
      */
-    public void loadConfigurationFile(URL url) throws IOException {
+    public synchronized void loadConfigurationFile(URL url) throws IOException {
 
         final ObjectMapper mapper = new ObjectMapper(); // can reuse, share globally
         final InputStream inputStream = url.openConnection().getInputStream();
@@ -136,6 +143,9 @@ public class EBusConfigurationProvider {
 
         if (loadedTelegramRegistry != null && !loadedTelegramRegistry.isEmpty()) {
             telegramRegistry.addAll(loadedTelegramRegistry);
+
+            // compile the filters here, the parser only uses the complete matcher
+            telegramMatcher = new EBusTelegramMatcher(telegramRegistry);
         }
     }
 
@@ -186,6 +196,10 @@ public class EBusConfigurationProvider {
         if (configurationEntry.getValues() != null && !configurationEntry.getValues().isEmpty()) {
             Map<String, TelegramValue> values = configurationEntry.getValues();
             for (Entry<String, TelegramValue> entry : values.entrySet()) {
+
+                // resolve the data type once
+                entry.getValue().setDecoder(TelegramValueDecoder.create(entry.getValue()));
+
                 if (StringUtils.isNotEmpty(entry.getValue().getScript())) {
                     String script = entry.getValue().getScript();
 
@@ -246,6 +260,17 @@ public class EBusConfigurationProvider {
         return matchedTelegramRegistry;
     }
 
+    /**
+     * Return all configuration which filter match the telegram, same as
+     * {@link #getCommandsByFilter(String)} with the hex string of the telegram
+     * 
+     * @param byteBuffer The telegram, the bytes up to the position are checked
+     * @return All configurations with matching filter
+     */
+    public List<TelegramConfiguration> getCommandsByTelegram(ByteBuffer byteBuffer) {
+        return telegramMatcher.match(byteBuffer);
+    }
+
     /**
      * Return all configurations by command id and class
      * 
@@ -0,0 +1,264 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.ebus.internal.parser;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.openhab.binding.ebus.internal.configuration.TelegramConfiguration;
+import org.openhab.binding.ebus.internal.utils.EBusUtils;
+
+/**
+ * Finds the configurations matching a telegram without converting the telegram
+ * to a hex string. The filters are compiled to the bytes they expect and
+ * indexed by the command bytes (PB SB) and the first data byte, only the
+ * configurations of the same command and first data byte (or with placeholders
+ * at these positions) are compared with a telegram.
+ *
+ * Filters which are not a plain sequence of bytes and placeholders are
+ * matched by their regular expression like before.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+class EBusTelegramMatcher {
+
+    // filter: ?? after compilation
+    private static final String PLACEHOLDER = "[0-9A-Z]{2}";
+
+    // filter: a hex byte as written by the hex dump
+    private static final Pattern P_HEX_BYTE = Pattern.compile("[0-9A-F]{2}");
+
+    private static final int POS_PRIMARY_COMMAND = 2;
+    private static final int POS_SECONDARY_COMMAND = 3;
+    private static final int POS_FIRST_DATA_BYTE = 5;
+
+    private static final Comparator<Filter> BY_REGISTRY_ORDER = new Comparator<Filter>() {
+        @Override
+        public int compare(Filter f1, Filter f2) {
+            return f1.index < f2.index ? -1 : (f1.index == f2.index ? 0 : 1);
+        }
+    };
+
+    // configurations by command bytes
+    private final Map<Integer, Node> nodesByCommand = new HashMap<Integer, Node>();
+
+    // configurations with placeholders for the command or with a regular expression
+    private final Node anyCommand = new Node();
+
+    /**
+     * Compiles the filters of all configurations.
+     *
+     * @param telegramRegistry The configurations in the order of the registry
+     */
+    EBusTelegramMatcher(List<TelegramConfiguration> telegramRegistry) {
+        for (int i = 0; i < telegramRegistry.size(); i++) {
+            TelegramConfiguration configuration = telegramRegistry.get(i);
+            if (configuration.getFilterPattern() == null) {
+                continue;
+            }
+
+            Filter filter = Filter.compile(i, configuration);
+
+            Node node = anyCommand;
+            if (filter.isFixed(POS_PRIMARY_COMMAND) && filter.isFixed(POS_SECONDARY_COMMAND)) {
+                int command = toKey(filter.values[POS_PRIMARY_COMMAND], filter.values[POS_SECONDARY_COMMAND]);
+                node = nodesByCommand.get(command);
+                if (node == null) {
+                    node = new Node();
+                    nodesByCommand.put(command, node);
+                }
+            }
+            node.add(filter);
+        }
+    }
+
+    /**
+     * Returns all configurations matching a telegram.
+     *
+     * @param byteBuffer The telegram, the bytes up to the position are matched
+     * @return The matching configurations in the order of the registry
+     */
+    List<TelegramConfiguration> match(ByteBuffer byteBuffer) {
+
+        final Telegram telegram = new Telegram(byteBuffer);
+        final List<Filter> matches = new ArrayList<Filter>(2);
+
+        if (telegram.length > POS_SECONDARY_COMMAND) {
+            Node node = nodesByCommand
+                    .get(toKey(byteBuffer.get(POS_PRIMARY_COMMAND), byteBuffer.get(POS_SECONDARY_COMMAND)));
+            if (node != null) {
+                node.match(telegram, matches);
+            }
+        }
+        anyCommand.match(telegram, matches);
+
+        if (matches.size() > 1) {
+            Collections.sort(matches, BY_REGISTRY_ORDER);
+        }
+
+        List<TelegramConfiguration> result = new ArrayList<TelegramConfiguration>(matches.size());
+        for (Filter filter : matches) {
+            result.add(filter.configuration);
+        }
+        return result;
+    }
+
+    private static int toKey(byte primaryCommand, byte secondaryCommand) {
+        return (primaryCommand & 0xFF) << 8 | secondaryCommand & 0xFF;
+    }
+
+    /**
+     * The configurations of one command, by first data byte
+     */
+    private static class Node {
+
+        private final Map<Integer, List<Filter>> filtersByFirstDataByte = new HashMap<Integer, List<Filter>>();
+
+        // configurations with a placeholder for the first data byte
+        private final List<Filter> anyFirstDataByte = new ArrayList<Filter>();
+
+        void add(Filter filter) {
+            if (filter.isFixed(POS_FIRST_DATA_BYTE)) {
+                int key = filter.values[POS_FIRST_DATA_BYTE] & 0xFF;
+                List<Filter> filters = filtersByFirstDataByte.get(key);
+                if (filters == null) {
+                    filters = new ArrayList<Filter>(2);
+                    filtersByFirstDataByte.put(key, filters);
+                }
+                filters.add(filter);
+            } else {
+                anyFirstDataByte.add(filter);
+            }
+        }
+
+        void match(Telegram telegram, List<Filter> matches) {
+            if (telegram.firstDataByte != -1) {
+                List<Filter> filters = filtersByFirstDataByte.get(telegram.firstDataByte);
+                if (filters != null) {
+                    match(filters, telegram, matches);
+                }
+            }
+            match(anyFirstDataByte, telegram, matches);
+        }
+
+        private static void match(List<Filter> filters, Telegram telegram, List<Filter> matches) {
+            for (Filter filter : filters) {
+                if (filter.matches(telegram)) {
+                    matches.add(filter);
+                }
+            }
+        }
+    }
+
+    /**
+     * The telegram to match, the hex string is only created for the filters
+     * with a regular expression
+     */
+    private static class Telegram {
+
+        final ByteBuffer byteBuffer;
+        final int length;
+        final int firstDataByte;
+
+        private String bufferString;
+
+        Telegram(ByteBuffer byteBuffer) {
+            this.byteBuffer = byteBuffer;
+            this.length = byteBuffer.position();
+            this.firstDataByte = length > POS_FIRST_DATA_BYTE ? byteBuffer.get(POS_FIRST_DATA_BYTE) & 0xFF : -1;
+        }
+
+        String getBufferString() {
+            if (bufferString == null) {
+                bufferString = EBusUtils.toHexDumpString(byteBuffer).toString();
+            }
+            return bufferString;
+        }
+    }
+
+    /**
+     * A compiled filter, either the expected bytes and a mask for the
+     * placeholders or the regular expression
+     */
+    private static class Filter {
+
+        final int index;
+        final TelegramConfiguration configuration;
+
+        final byte[] values;
+        final byte[] masks;
+
+        // the filter ends with " .*", at least one more byte must follow
+        final boolean open;
+
+        // only set if the filter is not a plain sequence of bytes
+        final Pattern pattern;
+
+        private Filter(int index, TelegramConfiguration configuration, byte[] values, byte[] masks, boolean open,
+                Pattern pattern) {
+            this.index = index;
+            this.configuration = configuration;
+            this.values = values;
+            this.masks = masks;
+            this.open = open;
+            this.pattern = pattern;
+        }
+
+        static Filter compile(int index, TelegramConfiguration configuration) {
+            Pattern pattern = configuration.getFilterPattern();
+            String[] tokens = pattern.pattern().split(" ", -1);
+
+            boolean open = tokens.length > 1 && tokens[tokens.length - 1].equals(".*");
+            int length = open ? tokens.length - 1 : tokens.length;
+
+            byte[] values = new byte[length];
+            byte[] masks = new byte[length];
+            for (int i = 0; i < length; i++) {
+                if (tokens[i].equals(PLACEHOLDER)) {
+                    continue;
+                }
+                if (!P_HEX_BYTE.matcher(tokens[i]).matches()) {
+                    // any other regular expression
+                    return new Filter(index, configuration, new byte[0], new byte[0], false, pattern);
+                }
+                values[i] = (byte) Integer.parseInt(tokens[i], 16);
+                masks[i] = (byte) 0xFF;
+            }
+
+            return new Filter(index, configuration, values, masks, open, null);
+        }
+
+        boolean isFixed(int pos) {
+            return pos < masks.length && masks[pos] != 0;
+        }
+
+        boolean matches(Telegram telegram) {
+            if (pattern != null) {
+                // same as EBusConfigurationProvider.getCommandsByFilter
+                return pattern.matcher(telegram.getBufferString()).matches();
+            }
+            if (open ? telegram.length <= values.length : telegram.length != values.length) {
+                return false;
+            }
+            for (int i = 0; i < values.length; i++) {
+                if ((telegram.byteBuffer.get(i) & masks[i]) != values[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
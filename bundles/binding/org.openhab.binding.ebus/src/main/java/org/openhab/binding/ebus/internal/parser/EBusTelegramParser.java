@@ -83,16 +83,21 @@ public class EBusTelegramParser {
      */
     private Object getValue(ByteBuffer byteBuffer, TelegramValue telegramValue) {
 
-        String type = telegramValue.getType().toLowerCase();
         int pos = telegramValue.getPos() != null ? telegramValue.getPos() : -1;
 
-        Object value = null;
-
         // requested pos is greater as whole buffer
         if (pos > byteBuffer.position()) {
             logger.warn("eBus buffer pos error! Can happen ...");
         }
 
+        // use the decoder resolved while loading the configuration
+        if (telegramValue.getDecoder() != null) {
+            return telegramValue.getDecoder().decode(byteBuffer);
+        }
+
+        String type = telegramValue.getType().toLowerCase();
+        Object value = null;
+
         // replace similar data types
         if (type.equals("uint")) {
             type = "word";
@@ -267,14 +272,13 @@ public class EBusTelegramParser {
         // Get as byte buffer
         final ByteBuffer byteBuffer = telegram.getBuffer();
 
-        // Get hex string for debugging
-        final String bufferString = EBusUtils.toHexDumpString(byteBuffer).toString();
-
         // queries the configuration provider for matching registry entries
         final List<TelegramConfiguration> matchedTelegramRegistry = configurationProvider
-                .getCommandsByFilter(bufferString);
+                .getCommandsByTelegram(byteBuffer);
 
-        loggerAnalyses.debug(bufferString);
+        if (loggerAnalyses.isDebugEnabled()) {
+            loggerAnalyses.debug(EBusUtils.toHexDumpString(byteBuffer).toString());
+        }
 
         // No registry entries found, so this is a unknown telegram
         if (matchedTelegramRegistry.isEmpty()) {
@@ -285,7 +289,7 @@ public class EBusTelegramParser {
 
             loggerAnalyses.debug("  >>> Unknown ----------------------------------------");
             if (loggerBrutforce.isTraceEnabled()) {
-                loggerBrutforce.trace(bufferString);
+                loggerBrutforce.trace(EBusUtils.toHexDumpString(byteBuffer).toString());
                 bruteforceEBusTelegram(telegram);
             }
 
@@ -359,24 +363,26 @@ public class EBusTelegramParser {
                 }
 
                 // debug
-                String label = StringUtils.defaultString(settings.getLabel());
-                String format = String.format("%-35s%-10s%s", uniqueKey, value, label);
-                String alias = null;
-
-                if (settings.getMapping() != null) {
-                    Map<String, String> mapping = settings.getMapping();
-                    alias = mapping.get(value.toString());
-                }
-
-                if (debugLevel >= 2) {
-                    loggerAnalyses.debug("    >>> " + format);
-                    if (alias != null) {
-                        loggerAnalyses.debug("      >>> " + alias);
+                if (debugLevel >= 2 ? loggerAnalyses.isDebugEnabled() : loggerAnalyses.isTraceEnabled()) {
+                    String label = StringUtils.defaultString(settings.getLabel());
+                    String format = String.format("%-35s%-10s%s", uniqueKey, value, label);
+                    String alias = null;
+
+                    if (settings.getMapping() != null) {
+                        Map<String, String> mapping = settings.getMapping();
+                        alias = mapping.get(value.toString());
                     }
-                } else {
-                    loggerAnalyses.trace("    >>> " + format);
-                    if (alias != null) {
-                        loggerAnalyses.trace("      >>> " + alias);
+
+                    if (debugLevel >= 2) {
+                        loggerAnalyses.debug("    >>> " + format);
+                        if (alias != null) {
+                            loggerAnalyses.debug("      >>> " + alias);
+                        }
+                    } else {
+                        loggerAnalyses.trace("    >>> " + format);
+                        if (alias != null) {
+                            loggerAnalyses.trace("      >>> " + alias);
+                        }
                     }
                 }
 
@@ -420,7 +426,7 @@ public class EBusTelegramParser {
                     // Add result to registry
                     valueRegistry.put(uniqueKey, value);
 
-                    if (debugLevel >= 2) {
+                    if (debugLevel >= 2 && loggerAnalyses.isDebugEnabled()) {
                         String label = StringUtils.defaultString(settings.getLabel());
                         String format = String.format("%-35s%-10s%s", uniqueKey, value, label);
                         loggerAnalyses.debug("    >>> " + format);
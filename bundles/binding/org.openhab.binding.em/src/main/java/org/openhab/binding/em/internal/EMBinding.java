@@ -44,7 +44,7 @@ public class EMBinding extends AbstractBinding<EMBindingProvider>implements Mana
 
     public EMBinding() {
         culHandlerLifecycle = new CULLifecycleManager(CULMode.SLOW_RF,
-                new CULLifecycleListenerListenerRegisterer(this));
+                new CULLifecycleListenerListenerRegisterer(this, "E"));
     }
 
     @Override
@@ -0,0 +1,242 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.expire.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tests that the {@link ExpireScheduler} expires items in the order of their
+ * deadlines, not before their deadline and only once, and that rescheduling
+ * and cancelling are honoured while an entry is queued. Also logs the time
+ * needed to reschedule an item, compared to re-queueing it on every update.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class ExpireSchedulerTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpireSchedulerTest.class);
+
+    private static final int ITEMS = 1000;
+    private static final int UPDATES = 200;
+
+    /** the expired items with the time they expired at */
+    private final BlockingQueue<Object[]> expired = new LinkedBlockingQueue<Object[]>();
+
+    private ExpireScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = new ExpireScheduler(new ExpireScheduler.ExpireListener() {
+            @Override
+            public void expire(String itemName) {
+                expired.add(new Object[] { itemName, System.currentTimeMillis() });
+            }
+        });
+        scheduler.start();
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * Waits for the next expired item and checks that it didn't expire before
+     * its deadline.
+     */
+    private String nextExpired(long deadline) throws InterruptedException {
+        Object[] item = expired.poll(5, TimeUnit.SECONDS);
+        assertTrue("An item expired", item != null);
+        assertTrue(item[0] + " expired too early", (Long) item[1] >= deadline);
+        return (String) item[0];
+    }
+
+    @Test
+    public void testFiringOrder() throws InterruptedException {
+        long now = System.currentTimeMillis();
+        scheduler.schedule("third", now + 300);
+        scheduler.schedule("first", now + 100);
+        scheduler.schedule("second", now + 200);
+
+        assertEquals("first", nextExpired(now + 100));
+        assertEquals("second", nextExpired(now + 200));
+        assertEquals("third", nextExpired(now + 300));
+        assertNull(expired.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testRescheduleLater() throws InterruptedException {
+        long now = System.currentTimeMillis();
+        scheduler.schedule("item", now + 100);
+        scheduler.schedule("other", now + 200);
+
+        // the entry stays queued with the first deadline and is put back when due
+        scheduler.schedule("item", now + 400);
+        assertEquals("other", nextExpired(now + 200));
+        assertEquals("item", nextExpired(now + 400));
+        assertNull(expired.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testRescheduleEarlier() throws InterruptedException {
+        long now = System.currentTimeMillis();
+        scheduler.schedule("item", now + 60000);
+        scheduler.schedule("item", now + 100);
+
+        assertEquals("item", nextExpired(now + 100));
+        assertNull(expired.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testFrequentUpdates() throws InterruptedException {
+        long deadline = 0;
+        for (int i = 0; i < 10; i++) {
+            deadline = System.currentTimeMillis() + 100;
+            scheduler.schedule("item", deadline);
+            Thread.sleep(20);
+        }
+
+        // the item expires once, after the last update
+        assertEquals("item", nextExpired(deadline));
+        assertNull(expired.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testCancel() throws InterruptedException {
+        long now = System.currentTimeMillis();
+        scheduler.schedule("cancelled", now + 100);
+        scheduler.schedule("item", now + 200);
+        scheduler.cancel("cancelled");
+        scheduler.cancel("unknown");
+
+        assertEquals("item", nextExpired(now + 200));
+        assertNull(expired.poll(200, TimeUnit.MILLISECONDS));
+
+        // a cancelled item can be scheduled again
+        now = System.currentTimeMillis();
+        scheduler.schedule("cancelled", now + 50);
+        assertEquals("cancelled", nextExpired(now + 50));
+    }
+
+    @Test
+    public void testListenerError() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler = new ExpireScheduler(new ExpireScheduler.ExpireListener() {
+            @Override
+            public void expire(String itemName) {
+                if (itemName.equals("failing")) {
+                    throw new IllegalStateException("expected");
+                }
+                expired.add(new Object[] { itemName, System.currentTimeMillis() });
+            }
+        });
+        scheduler.start();
+
+        long now = System.currentTimeMillis();
+        scheduler.schedule("failing", now + 50);
+        scheduler.schedule("item", now + 100);
+        assertEquals("item", nextExpired(now + 100));
+    }
+
+    @Test
+    public void testShutdown() throws InterruptedException {
+        scheduler.schedule("item", System.currentTimeMillis() + 100);
+        scheduler.shutdown();
+        scheduler.join(1000);
+
+        assertFalse(scheduler.isAlive());
+        assertNull(expired.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testPerformance() throws InterruptedException {
+        long schedulerTime = 0;
+        long requeueTime = 0;
+        for (int round = 0; round < 3; round++) {
+            // only the last round is measured, the others warm up the jvm
+            long deadline = System.currentTimeMillis() + 60000;
+            long start = System.nanoTime();
+            for (int update = 0; update < UPDATES; update++) {
+                for (int i = 0; i < ITEMS; i++) {
+                    scheduler.schedule("item" + i, deadline + update);
+                }
+            }
+            schedulerTime = System.nanoTime() - start;
+            for (int i = 0; i < ITEMS; i++) {
+                scheduler.cancel("item" + i);
+            }
+
+            // the same updates with an entry which is re-queued on every update
+            DelayQueue<Deadline> queue = new DelayQueue<Deadline>();
+            Deadline[] entries = new Deadline[ITEMS];
+            start = System.nanoTime();
+            for (int update = 0; update < UPDATES; update++) {
+                for (int i = 0; i < ITEMS; i++) {
+                    String itemName = "item" + i;
+                    if (entries[i] != null) {
+                        queue.remove(entries[i]);
+                    }
+                    entries[i] = new Deadline(itemName, deadline + update);
+                    queue.offer(entries[i]);
+                }
+            }
+            requeueTime = System.nanoTime() - start;
+        }
+
+        long count = (long) ITEMS * UPDATES;
+        logger.debug("Expire reschedule of {} items: {} ns with the scheduler, {} ns with re-queueing", ITEMS,
+                schedulerTime / count, requeueTime / count);
+    }
+
+    /**
+     * A queue entry with a fixed deadline, which has to be re-queued for a new deadline.
+     */
+    private static class Deadline implements Delayed {
+
+        private final String itemName;
+        private final long deadline;
+
+        Deadline(String itemName, long deadline) {
+            this.itemName = itemName;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            long otherDeadline = ((Deadline) other).deadline;
+            return deadline < otherDeadline ? -1 : (deadline == otherDeadline ? 0 : 1);
+        }
+
+        @Override
+        public String toString() {
+            return itemName;
+        }
+    }
+}
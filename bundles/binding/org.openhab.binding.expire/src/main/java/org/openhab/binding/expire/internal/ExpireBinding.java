@@ -9,10 +9,9 @@
 package org.openhab.binding.expire.internal;
 
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.openhab.binding.expire.ExpireBindingProvider;
-import org.openhab.core.binding.AbstractActiveBinding;
+import org.openhab.core.binding.AbstractBinding;
 import org.openhab.core.types.Command;
 import org.openhab.core.types.State;
 import org.osgi.framework.BundleContext;
@@ -21,26 +20,23 @@ import org.slf4j.LoggerFactory;
 
 /**
  * This binding monitors state changes and sets the state to "Undefined" (or any other configured expired state)
- * if not state change occurs within the configured time
+ * if not state change occurs within the configured time.
+ *
+ * Deadlines are tracked by an {@link ExpireScheduler}, so each update or command only records a new deadline and
+ * items expire exactly when their deadline passes.
  *
  * @author Michael Wyraz
  * @author John Cocula - minor refactoring
  * @since 1.9.0
  */
-public class ExpireBinding extends AbstractActiveBinding<ExpireBindingProvider> {
+public class ExpireBinding extends AbstractBinding<ExpireBindingProvider> {
 
     private static final Logger logger = LoggerFactory.getLogger(ExpireBinding.class);
 
     /**
-     * The refresh interval is used to check if any of the bound items is expired.
-     * One second should be fine for all use cases, so it's final and cannot be configured.
-     */
-    private static final long refreshInterval = 1000;
-
-    /**
-     * Mapping of item names to future timestamps (in milliseconds) to expire them.
+     * Schedules the future timestamps (in milliseconds) to expire items at.
      */
-    private Map<String, Long> itemExpireMap = new ConcurrentHashMap<String, Long>();
+    private volatile ExpireScheduler scheduler;
 
     public ExpireBinding() {
     }
@@ -60,7 +56,13 @@ public class ExpireBinding extends AbstractActiveBinding<ExpireBindingProvider>
      * @param configuration Configuration properties for this component obtained from the ConfigAdmin service
      */
     public void activate(final BundleContext bundleContext, final Map<String, Object> configuration) {
-        setProperlyConfigured(true);
+        scheduler = new ExpireScheduler(new ExpireScheduler.ExpireListener() {
+            @Override
+            public void expire(String itemName) {
+                ExpireBinding.this.expire(itemName);
+            }
+        });
+        scheduler.start();
     }
 
     /**
@@ -90,33 +92,13 @@ public class ExpireBinding extends AbstractActiveBinding<ExpireBindingProvider>
     public void deactivate(final int reason) {
         // deallocate resources here that are no longer needed and
         // should be reset when activating this binding again
-        itemExpireMap.clear();
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    protected long getRefreshInterval() {
-        return refreshInterval;
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    protected String getName() {
-        return "Expire Refresh Service";
-    }
-
-    private boolean isReadyToExpire(String itemName) {
-        Long nextExpireTs = itemExpireMap.get(itemName);
-        return (nextExpireTs != null) && (nextExpireTs <= System.currentTimeMillis());
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
     }
 
     private void expire(String itemName, ExpireBindingProvider provider) {
-        itemExpireMap.remove(itemName); // disable expire trigger until next update or command
-
         Command expireCommand = provider.getExpireCommand(itemName);
         State expireState = provider.getExpireState(itemName);
 
@@ -132,21 +114,16 @@ public class ExpireBinding extends AbstractActiveBinding<ExpireBindingProvider>
     }
 
     /**
-     * {@inheritDoc}
+     * Called by the {@link ExpireScheduler} once the deadline of an item has passed.
+     * Items which are no longer bound are ignored.
+     *
+     * @param itemName the expired item
      */
-    @Override
-    protected void execute() {
-        logger.trace("Executing...");
-
-        // only bother to iterate if there is any possible work to do
-        if (!itemExpireMap.isEmpty()) {
-
-            for (ExpireBindingProvider provider : providers) {
-                for (String itemName : provider.getItemNames()) {
-                    if (isReadyToExpire(itemName)) {
-                        expire(itemName, provider);
-                    }
-                }
+    private void expire(String itemName) {
+        for (ExpireBindingProvider provider : providers) {
+            if (provider.providesBindingFor(itemName)) {
+                expire(itemName, provider);
+                return;
             }
         }
     }
@@ -157,6 +134,10 @@ public class ExpireBinding extends AbstractActiveBinding<ExpireBindingProvider>
     @Override
     protected void internalReceiveCommand(final String itemName, final Command newCommand) {
         logger.trace("Received command '{}' for item {}", newCommand, itemName);
+        ExpireScheduler scheduler = this.scheduler;
+        if (scheduler == null) {
+            return;
+        }
         for (ExpireBindingProvider provider : providers) {
             if (provider.providesBindingFor(itemName)) {
 
@@ -166,13 +147,13 @@ public class ExpireBinding extends AbstractActiveBinding<ExpireBindingProvider>
                 if ((expireCommand != null && expireCommand.equals(newCommand))
                         || (expireState != null && expireState.equals(newCommand))) {
                     // New command is expired command or state -> no further action needed
-                    itemExpireMap.remove(itemName); // remove expire trigger until next update or command
+                    scheduler.cancel(itemName); // remove expire trigger until next update or command
                     logger.debug("Item {} received command '{}'; stopping any future expiration.", itemName,
                             newCommand);
                 } else {
-                    // New command is not the expired command or state, so add the trigger to the map
+                    // New command is not the expired command or state, so schedule the trigger
                     long duration = provider.getDuration(itemName);
-                    itemExpireMap.put(itemName, System.currentTimeMillis() + duration);
+                    scheduler.schedule(itemName, System.currentTimeMillis() + duration);
                     logger.debug("Item {} will expire (with '{}' {}) in {} ms", itemName,
                             expireCommand == null ? expireState : expireCommand,
                             expireCommand == null ? "state" : "command", duration);
@@ -188,6 +169,10 @@ public class ExpireBinding extends AbstractActiveBinding<ExpireBindingProvider>
     @Override
     protected void internalReceiveUpdate(final String itemName, final State newState) {
         logger.trace("Received update '{}' for item {}", newState, itemName);
+        ExpireScheduler scheduler = this.scheduler;
+        if (scheduler == null) {
+            return;
+        }
         for (ExpireBindingProvider provider : providers) {
             if (provider.providesBindingFor(itemName)) {
 
@@ -197,12 +182,12 @@ public class ExpireBinding extends AbstractActiveBinding<ExpireBindingProvider>
                 if ((expireCommand != null && expireCommand.equals(newState))
                         || (expireState != null && expireState.equals(newState))) {
                     // New state is expired command or state -> no further action needed
-                    itemExpireMap.remove(itemName); // remove expire trigger until next update or command
+                    scheduler.cancel(itemName); // remove expire trigger until next update or command
                     logger.debug("Item {} received update '{}'; stopping any future expiration.", itemName, newState);
                 } else {
-                    // New state is not the expired command or state, so add the trigger to the map
+                    // New state is not the expired command or state, so schedule the trigger
                     long duration = provider.getDuration(itemName);
-                    itemExpireMap.put(itemName, System.currentTimeMillis() + duration);
+                    scheduler.schedule(itemName, System.currentTimeMillis() + duration);
                     logger.debug("Item {} will expire (with '{}' {}) in {} ms", itemName,
                             expireCommand == null ? expireState : expireCommand,
                             expireCommand == null ? "state" : "command", duration);
@@ -0,0 +1,184 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.expire.internal;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Schedules the expiration of items by deadline.
+ *
+ * Every item with a pending expiration has one entry in a {@link DelayQueue}.
+ * Rescheduling an item to a later deadline - the usual case, as every update
+ * or command pushes the deadline further out - only records the new deadline
+ * on the entry. When the queued entry becomes due it is put back into the
+ * queue with the recorded deadline, so frequently updated items don't cause
+ * any queue operations. Only moving a deadline to an earlier point in time
+ * requires the entry to be re-queued.
+ *
+ * The scheduler thread blocks until the earliest entry is due, so items
+ * expire at their deadline and no CPU is used while nothing is due.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+class ExpireScheduler extends Thread {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpireScheduler.class);
+
+    /** deadline value of an entry without a pending expiration */
+    private static final long NO_DEADLINE = -1;
+
+    /**
+     * Receives the items whose deadline has passed.
+     */
+    interface ExpireListener {
+
+        /**
+         * Called by the scheduler thread when the deadline of an item has passed.
+         *
+         * @param itemName the name of the expired item
+         */
+        void expire(String itemName);
+    }
+
+    private final ExpireListener listener;
+    private final ConcurrentMap<String, ExpireEntry> entries = new ConcurrentHashMap<String, ExpireEntry>();
+    private final DelayQueue<ExpireEntry> queue = new DelayQueue<ExpireEntry>();
+
+    private volatile boolean running = true;
+
+    ExpireScheduler(ExpireListener listener) {
+        super("Expire Scheduler");
+        setDaemon(true);
+        this.listener = listener;
+    }
+
+    /**
+     * Schedules the expiration of an item, replacing any pending expiration.
+     *
+     * @param itemName the name of the item
+     * @param deadline the time (in milliseconds) at which the item expires
+     */
+    void schedule(String itemName, long deadline) {
+        ExpireEntry entry = entries.get(itemName);
+        if (entry == null) {
+            ExpireEntry newEntry = new ExpireEntry(itemName);
+            entry = entries.putIfAbsent(itemName, newEntry);
+            if (entry == null) {
+                entry = newEntry;
+            }
+        }
+
+        synchronized (entry) {
+            entry.deadline = deadline;
+            if (!entry.queued) {
+                entry.queuedDeadline = deadline;
+                entry.queued = true;
+                queue.offer(entry);
+            } else if (deadline < entry.queuedDeadline) {
+                // the entry would be due too late, so it has to be re-queued
+                queue.remove(entry);
+                entry.queuedDeadline = deadline;
+                queue.offer(entry);
+            }
+        }
+    }
+
+    /**
+     * Cancels a pending expiration of an item.
+     *
+     * @param itemName the name of the item
+     */
+    void cancel(String itemName) {
+        ExpireEntry entry = entries.get(itemName);
+        if (entry != null) {
+            synchronized (entry) {
+                entry.deadline = NO_DEADLINE;
+            }
+        }
+    }
+
+    /**
+     * Stops the scheduler thread. Pending expirations are dropped.
+     */
+    void shutdown() {
+        running = false;
+        interrupt();
+        queue.clear();
+        entries.clear();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            ExpireEntry entry;
+            try {
+                entry = queue.take();
+            } catch (InterruptedException e) {
+                continue;
+            }
+
+            synchronized (entry) {
+                entry.queued = false;
+                if (entry.deadline == NO_DEADLINE) {
+                    continue;
+                }
+                if (entry.deadline > System.currentTimeMillis()) {
+                    // the deadline was moved out while the entry was queued
+                    entry.queuedDeadline = entry.deadline;
+                    entry.queued = true;
+                    queue.offer(entry);
+                    continue;
+                }
+                entry.deadline = NO_DEADLINE;
+            }
+
+            try {
+                listener.expire(entry.itemName);
+            } catch (RuntimeException e) {
+                logger.error("Error expiring item {}", entry.itemName, e);
+            }
+        }
+    }
+
+    /**
+     * The expiration state of one item. The delay reported to the queue is
+     * derived from <code>queuedDeadline</code>, which must not change while
+     * the entry is queued; <code>deadline</code> is the actual deadline.
+     */
+    private static class ExpireEntry implements Delayed {
+
+        private final String itemName;
+        private long deadline = NO_DEADLINE;
+        private long queuedDeadline;
+        private boolean queued = false;
+
+        ExpireEntry(String itemName) {
+            this.itemName = itemName;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(queuedDeadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            long otherDeadline = ((ExpireEntry) other).queuedDeadline;
+            return queuedDeadline < otherDeadline ? -1 : (queuedDeadline == otherDeadline ? 0 : 1);
+        }
+    }
+}
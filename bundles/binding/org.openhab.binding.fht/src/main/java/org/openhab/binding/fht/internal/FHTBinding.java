@@ -111,7 +111,7 @@ public class FHTBinding extends AbstractActiveBinding<FHTBindingProvider>impleme
 
             @Override
             public void open(CULHandler cul) throws CULCommunicationException {
-                cul.registerListener(FHTBinding.this);
+                cul.registerListener(FHTBinding.this, "T");
                 cul.send("T01" + housecode);
             }
 
@@ -15,9 +15,10 @@ import org.openhab.binding.fs20.FS20BindingProvider;
 import org.openhab.core.binding.AbstractBinding;
 import org.openhab.core.types.Command;
 import org.openhab.io.transport.cul.CULCommunicationException;
+import org.openhab.io.transport.cul.CULFrame;
+import org.openhab.io.transport.cul.CULFrameListener;
 import org.openhab.io.transport.cul.CULLifecycleListenerListenerRegisterer;
 import org.openhab.io.transport.cul.CULLifecycleManager;
-import org.openhab.io.transport.cul.CULListener;
 import org.openhab.io.transport.cul.CULMode;
 import org.osgi.service.cm.ConfigurationException;
 import org.osgi.service.cm.ManagedService;
@@ -31,7 +32,7 @@ import org.slf4j.LoggerFactory;
  * @author Till Klocke
  * @since 1.4.0
  */
-public class FS20Binding extends AbstractBinding<FS20BindingProvider>implements ManagedService, CULListener {
+public class FS20Binding extends AbstractBinding<FS20BindingProvider>implements ManagedService, CULFrameListener {
 
     private static final Logger logger = LoggerFactory.getLogger(FS20Binding.class);
 
@@ -39,7 +40,7 @@ public class FS20Binding extends AbstractBinding<FS20BindingProvider>implements
 
     public FS20Binding() {
         culHandlerLifecycle = new CULLifecycleManager(CULMode.SLOW_RF,
-                new CULLifecycleListenerListenerRegisterer(this));
+                new CULLifecycleListenerListenerRegisterer(this, "F"));
     }
 
     @Override
@@ -96,19 +97,23 @@ public class FS20Binding extends AbstractBinding<FS20BindingProvider>implements
 
     @Override
     public void dataReceived(String data) {
+        frameReceived(new CULFrame(data));
+    }
+
+    @Override
+    public void frameReceived(CULFrame frame) {
         // It is possible that we see here messages of other protocols
-        if (data.startsWith("F")) {
-            logger.debug("Received FS20 message: " + data);
-            handleReceivedMessage(data);
+        if (frame.getProtocol() == 'F' && frame.length() >= 9) {
+            logger.debug("Received FS20 message: " + frame);
+            handleReceivedMessage(frame);
         }
 
     }
 
-    private void handleReceivedMessage(String message) {
-        String houseCode = (message.substring(1, 5));
-        String address = (message.substring(5, 7));
-        String command = message.substring(7, 9);
-        String fullAddress = houseCode + address;
+    private void handleReceivedMessage(CULFrame frame) {
+        // housecode and address
+        String fullAddress = frame.getAddress();
+        String command = frame.getData().substring(7, 9);
         FS20BindingConfig config = null;
         for (FS20BindingProvider provider : providers) {
             config = provider.getConfigForAddress(fullAddress);
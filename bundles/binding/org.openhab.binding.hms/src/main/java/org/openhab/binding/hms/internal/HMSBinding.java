@@ -40,7 +40,7 @@ public class HMSBinding extends AbstractBinding<HMSBindingProvider>implements Ma
 
     public HMSBinding() {
         culHandlerLifecycle = new CULLifecycleManager(CULMode.SLOW_RF,
-                new CULLifecycleListenerListenerRegisterer(this));
+                new CULLifecycleListenerListenerRegisterer(this, "H"));
     }
 
     @Override
@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.test.binrpc;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+import org.openhab.binding.homematic.internal.binrpc.BinRpcRequest;
+import org.openhab.binding.homematic.internal.binrpc.BinRpcResponse;
+
+import junit.framework.Assert;
+
+/**
+ * Testcases for encoding and decoding BIN-RPC messages.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class BinRpcCodecTest {
+
+    private BinRpcResponse roundTrip(BinRpcRequest request) throws Exception {
+        return new BinRpcResponse(new ByteArrayInputStream(request.createMessage()), true);
+    }
+
+    @Test
+    public void testHeader() throws Exception {
+        BinRpcRequest request = new BinRpcRequest("init");
+        request.addArg("xmlrpc_bin://127.0.0.1:9123");
+        byte[] message = request.createMessage();
+
+        Assert.assertEquals('B', message[0]);
+        Assert.assertEquals('i', message[1]);
+        Assert.assertEquals('n', message[2]);
+        Assert.assertEquals(0, message[3]);
+        int length = ((message[4] & 0xFF) << 24) | ((message[5] & 0xFF) << 16) | ((message[6] & 0xFF) << 8)
+                | (message[7] & 0xFF);
+        Assert.assertEquals(message.length - 8, length);
+    }
+
+    @Test
+    public void testScalars() throws Exception {
+        BinRpcRequest request = new BinRpcRequest("setValue");
+        request.addArg("KEQ0123456:1");
+        request.addArg(Integer.valueOf(-42));
+        request.addArg(Integer.valueOf(70000));
+        request.addArg(Boolean.TRUE);
+        request.addArg(Double.valueOf(21.5));
+        request.addArg(Double.valueOf(-0.125));
+
+        BinRpcResponse response = roundTrip(request);
+        Assert.assertEquals("setValue", response.getMethodName());
+
+        Object[] data = response.getResponseData();
+        Assert.assertEquals(6, data.length);
+        Assert.assertEquals("KEQ0123456:1", data[0]);
+        Assert.assertEquals(-42, data[1]);
+        Assert.assertEquals(70000, data[2]);
+        Assert.assertEquals(Boolean.TRUE, data[3]);
+        Assert.assertEquals(21.5, data[4]);
+        Assert.assertEquals(-0.125, data[5]);
+    }
+
+    @Test
+    public void testStructAndArray() throws Exception {
+        Map<String, Object> struct = new HashMap<String, Object>();
+        struct.put("TYPE", "HM-CC-RT-DN");
+        struct.put("LEVEL", Double.valueOf(0.5));
+        List<Object> list = new ArrayList<Object>();
+        list.add("a");
+        list.add(Integer.valueOf(1));
+        list.add(struct);
+
+        BinRpcRequest request = new BinRpcRequest("event");
+        request.addArg(list);
+
+        Object[] data = roundTrip(request).getResponseData();
+        Assert.assertEquals(1, data.length);
+
+        Object[] array = (Object[]) data[0];
+        Assert.assertEquals("a", array[0]);
+        Assert.assertEquals(1, array[1]);
+
+        Map<?, ?> decoded = (Map<?, ?>) array[2];
+        Assert.assertEquals(2, decoded.size());
+        Assert.assertEquals("HM-CC-RT-DN", decoded.get("TYPE"));
+        Assert.assertEquals(0.5, decoded.get("LEVEL"));
+    }
+
+    @Test
+    public void testDoubleRounding() throws Exception {
+        Random random = new Random(1);
+        ByteBuffer payload = ByteBuffer.allocate(12);
+        for (int i = 0; i < 100000; i++) {
+            int mantissa = random.nextInt();
+            int exponent = random.nextInt(40) - 20;
+            if (i % 2 == 0) {
+                // a value with few binary fraction digits, like most values of the devices
+                mantissa &= 0xFFFF0000;
+            }
+            payload.clear();
+            payload.putInt(4).putInt(mantissa).putInt(exponent).flip();
+
+            double value = (double) mantissa / (double) (1 << 30) * Math.pow(2, exponent);
+            double expected = new BigDecimal(value).setScale(6, RoundingMode.HALF_DOWN).doubleValue();
+            Object[] data = new BinRpcResponse(payload, false).getResponseData();
+            Assert.assertEquals(mantissa + "/" + exponent, Double.valueOf(expected), data[0]);
+        }
+    }
+
+    @Test
+    public void testRepeatedStrings() throws Exception {
+        BinRpcRequest request = new BinRpcRequest("event");
+        request.addArg("KEQ0123456:1");
+        request.addArg("LEVEL");
+
+        Object[] first = roundTrip(request).getResponseData();
+        Object[] second = roundTrip(request).getResponseData();
+        Assert.assertEquals("KEQ0123456:1", second[0]);
+        Assert.assertEquals("LEVEL", second[1]);
+        Assert.assertSame(first[1], second[1]);
+    }
+
+    @Test(expected = EOFException.class)
+    public void testTruncatedMessage() throws Exception {
+        BinRpcRequest request = new BinRpcRequest("setValue");
+        request.addArg("KEQ0123456:1");
+        byte[] message = request.createMessage();
+        new BinRpcResponse(new ByteArrayInputStream(Arrays.copyOf(message, message.length - 2)), true);
+    }
+}
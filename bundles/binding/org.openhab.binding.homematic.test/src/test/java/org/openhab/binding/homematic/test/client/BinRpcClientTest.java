@@ -0,0 +1,230 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.test.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.homematic.internal.binrpc.BinRpcRequest;
+import org.openhab.binding.homematic.internal.binrpc.BinRpcResponse;
+import org.openhab.binding.homematic.internal.communicator.client.BinRpcClient;
+import org.openhab.binding.homematic.internal.communicator.client.BinRpcConnectionPool;
+import org.openhab.binding.homematic.internal.communicator.client.HomematicClientException;
+import org.openhab.binding.homematic.internal.model.HmInterface;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import junit.framework.Assert;
+
+/**
+ * Testcases for the pooled connections of the {@link BinRpcClient}, against a
+ * fake Homematic server on a local port. Also measures the round trip of a
+ * pooled call and of a call on a new connection.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class BinRpcClientTest {
+    private static final Logger logger = LoggerFactory.getLogger(BinRpcClientTest.class);
+
+    private static final byte[] BIN_EMPTY_STRING = { 'B', 'i', 'n', 1, 0, 0, 0, 8, 0, 0, 0, 3, 0, 0, 0, 0 };
+    private static final int ROUND_TRIPS = 2000;
+
+    private FakeCcu ccu;
+    private BinRpcClient client;
+
+    @Before
+    public void start() throws IOException {
+        ccu = new FakeCcu();
+        client = new BinRpcClient(new BinRpcConnectionPool("127.0.0.1", 5000) {
+            @Override
+            protected int getPort(HmInterface hmInterface) {
+                return ccu.getPort();
+            }
+        });
+    }
+
+    @After
+    public void stop() throws Exception {
+        client.shutdown();
+        ccu.close();
+    }
+
+    @Test
+    public void testConnectionIsReused() throws Exception {
+        client.setDatapointValue(HmInterface.RF, "KEQ0123456:1", "STATE", Boolean.TRUE);
+        client.setDatapointValue(HmInterface.RF, "KEQ0123456:1", "STATE", Boolean.FALSE);
+
+        Assert.assertEquals(1, ccu.connections.get());
+        Assert.assertEquals(2, ccu.requests.get());
+    }
+
+    @Test
+    public void testClosedConnectionIsReplaced() throws Exception {
+        client.setDatapointValue(HmInterface.RF, "KEQ0123456:1", "STATE", Boolean.TRUE);
+        ccu.closeConnections();
+
+        client.setDatapointValue(HmInterface.RF, "KEQ0123456:1", "STATE", Boolean.FALSE);
+        Assert.assertEquals(2, ccu.connections.get());
+        Assert.assertEquals(2, ccu.requests.get());
+    }
+
+    @Test
+    public void testNoResendAfterWrite() throws Exception {
+        client.setDatapointValue(HmInterface.RF, "KEQ0123456:1", "STATE", Boolean.TRUE);
+
+        // the request is received, but the connection is closed instead of answering
+        ccu.dropResponses = true;
+        try {
+            client.setDatapointValue(HmInterface.RF, "KEQ0123456:1", "STATE", Boolean.FALSE);
+            Assert.fail("HomematicClientException expected");
+        } catch (HomematicClientException ex) {
+            // expected
+        }
+        Assert.assertEquals(2, ccu.requests.get());
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        BinRpcRequest request = new BinRpcRequest("setValue");
+        request.addArg("KEQ0123456:1");
+        request.addArg("LEVEL");
+        request.addArg(Double.valueOf(0.5));
+        byte[] message = request.createMessage();
+
+        // warm up
+        newConnectionRoundTrips(message, ROUND_TRIPS / 4);
+        pooledRoundTrips(ROUND_TRIPS / 4);
+
+        long start = System.nanoTime();
+        newConnectionRoundTrips(message, ROUND_TRIPS);
+        long newConnection = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        pooledRoundTrips(ROUND_TRIPS);
+        long pooled = System.nanoTime() - start;
+
+        Assert.assertEquals(ROUND_TRIPS * 5 / 4 + 1, ccu.connections.get());
+        logger.debug("BIN-RPC round trip: {} us on a new connection, {} us pooled",
+                newConnection / ROUND_TRIPS / 1000, pooled / ROUND_TRIPS / 1000);
+    }
+
+    private void newConnectionRoundTrips(byte[] message, int count) throws Exception {
+        for (int i = 0; i < count; i++) {
+            Socket socket = new Socket("127.0.0.1", ccu.getPort());
+            try {
+                socket.getOutputStream().write(message);
+                new BinRpcResponse(socket.getInputStream(), false);
+            } finally {
+                socket.close();
+            }
+        }
+    }
+
+    private void pooledRoundTrips(int count) throws Exception {
+        for (int i = 0; i < count; i++) {
+            client.setDatapointValue(HmInterface.RF, "KEQ0123456:1", "LEVEL", Double.valueOf(0.5));
+        }
+    }
+
+    /**
+     * Answers every BIN-RPC request with an empty string and keeps the
+     * connection open until the client closes it.
+     */
+    private static class FakeCcu implements Runnable {
+        private final ServerSocket serverSocket = new ServerSocket(0);
+        private final List<Socket> sockets = new ArrayList<Socket>();
+        private final AtomicInteger connections = new AtomicInteger();
+        private final AtomicInteger requests = new AtomicInteger();
+        private volatile boolean dropResponses;
+
+        FakeCcu() throws IOException {
+            Thread thread = new Thread(this, "Fake CCU");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    final Socket socket = serverSocket.accept();
+                    connections.incrementAndGet();
+                    synchronized (sockets) {
+                        sockets.add(socket);
+                    }
+                    Thread thread = new Thread("Fake CCU connection") {
+                        @Override
+                        public void run() {
+                            serve(socket);
+                        }
+                    };
+                    thread.setDaemon(true);
+                    thread.start();
+                }
+            } catch (IOException ex) {
+                // closed
+            }
+        }
+
+        private void serve(Socket socket) {
+            try {
+                while (true) {
+                    new BinRpcResponse(socket.getInputStream(), true);
+                    requests.incrementAndGet();
+                    if (dropResponses) {
+                        break;
+                    }
+                    socket.getOutputStream().write(BIN_EMPTY_STRING);
+                }
+            } catch (Exception ex) {
+                // closed by the client
+            } finally {
+                close(socket);
+            }
+        }
+
+        /**
+         * Closes all open connections, like the server does after a while.
+         */
+        void closeConnections() {
+            synchronized (sockets) {
+                for (Socket socket : sockets) {
+                    close(socket);
+                }
+                sockets.clear();
+            }
+        }
+
+        void close() {
+            close(serverSocket);
+            closeConnections();
+        }
+
+        private static void close(Closeable closeable) {
+            try {
+                closeable.close();
+            } catch (IOException ex) {
+                // ignore
+            }
+        }
+    }
+}
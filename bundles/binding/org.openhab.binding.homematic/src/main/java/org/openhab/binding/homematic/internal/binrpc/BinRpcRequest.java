@@ -11,6 +11,7 @@ package org.openhab.binding.homematic.internal.binrpc;
 import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -53,42 +54,48 @@ public class BinRpcRequest {
      * Generates the binrpc data.
      */
     public byte[] createMessage() {
+        // reserve the space for the signature and length, which are filled in last
         data = new byte[256];
+        dataoffset = 8;
         if (methodName != null) {
-            addInt(methodName.length());
             addString(methodName);
             addInt(args.size());
         }
 
         addList(args);
 
-        byte fullreq[] = new byte[dataoffset + 8];
-        System.arraycopy(data, 0, fullreq, 8, dataoffset);
-        fullreq[0] = 'B';
-        fullreq[1] = 'i';
-        fullreq[2] = 'n';
-        addInt(dataoffset);
-        System.arraycopy(data, dataoffset - 4, fullreq, 4, 4);
+        int length = dataoffset - 8;
+        data[0] = 'B';
+        data[1] = 'i';
+        data[2] = 'n';
+        data[3] = 0;
+        data[4] = (byte) (length >>> 24);
+        data[5] = (byte) (length >>> 16);
+        data[6] = (byte) (length >>> 8);
+        data[7] = (byte) length;
+
+        byte fullreq[] = data.length == dataoffset ? data : Arrays.copyOf(data, dataoffset);
+        data = null;
         return fullreq;
     }
 
-    private void addByte(byte b) {
-        if (dataoffset == data.length) {
-            byte newdata[] = new byte[data.length * 2];
-            System.arraycopy(data, 0, newdata, 0, data.length);
-            data = newdata;
+    private void ensureCapacity(int bytes) {
+        if (dataoffset + bytes > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, dataoffset + bytes));
         }
+    }
+
+    private void addByte(byte b) {
+        ensureCapacity(1);
         data[dataoffset++] = b;
     }
 
     private void addInt(int n) {
-        byte d[] = BigInteger.valueOf(n).toByteArray();
-        for (int c = 0; c < 4 - d.length; c++) {
-            addByte(n < 0 ? (byte) 0xFF : (byte) 0);
-        }
-        for (byte s : d) {
-            addByte(s);
-        }
+        ensureCapacity(4);
+        data[dataoffset++] = (byte) (n >>> 24);
+        data[dataoffset++] = (byte) (n >>> 16);
+        data[dataoffset++] = (byte) (n >>> 8);
+        data[dataoffset++] = (byte) n;
     }
 
     private void addDouble(double v) {
@@ -113,6 +120,9 @@ public class BinRpcRequest {
         addInt(exp);
     }
 
+    /**
+     * Adds the length of the string followed by its characters.
+     */
     private void addString(String s) {
         byte sd[];
         try {
@@ -121,18 +131,17 @@ public class BinRpcRequest {
             // Really shouldn't happen, fall back silently to platform encoding
             sd = s.getBytes();
         }
-        for (byte ch : sd) {
-            addByte(ch);
-        }
+        addInt(sd.length);
+        ensureCapacity(sd.length);
+        System.arraycopy(sd, 0, data, dataoffset, sd.length);
+        dataoffset += sd.length;
     }
 
     private void addList(Collection<?> args) {
         for (Object o : args) {
             if (o.getClass() == String.class) {
                 addInt(3);
-                String s = (String) o;
-                addInt(s.length());
-                addString(s);
+                addString((String) o);
             } else if (o.getClass() == Boolean.class) {
                 addInt(2);
                 addByte(((Boolean) o).booleanValue() ? (byte) 1 : (byte) 0);
@@ -155,9 +164,7 @@ public class BinRpcRequest {
                 addInt(0x101);
                 addInt(l.size());
                 for (Map.Entry<?, ?> me : l.entrySet()) {
-                    String key = (String) me.getKey();
-                    addInt(key.length());
-                    addString(key);
+                    addString((String) me.getKey());
                     addList(Collections.singleton(me.getValue()));
                 }
             }
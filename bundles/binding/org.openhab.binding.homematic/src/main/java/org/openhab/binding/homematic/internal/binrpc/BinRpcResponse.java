@@ -13,11 +13,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
-import java.math.BigInteger;
 import java.math.RoundingMode;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.text.ParseException;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -27,7 +27,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Decodes a BIN-RPC message from the Homematic server.
+ * Decodes a BIN-RPC message from the Homematic server. Values are read
+ * directly from a {@link ByteBuffer} over the received message.
  *
  * @author Gerhard Riegler
  * @since 1.5.0
@@ -35,8 +36,17 @@ import org.slf4j.LoggerFactory;
 public class BinRpcResponse {
     private final static Logger logger = LoggerFactory.getLogger(BinRpcResponse.class);
 
-    private byte data[];
-    private int dataoffset = 0;
+    private static final String CHARSET = "ISO-8859-1";
+    private static final int MAX_CACHED_STRING_LENGTH = 32;
+
+    /**
+     * The short strings decoded last, by a hash of their bytes. Method names,
+     * struct keys, addresses and datapoint names repeat in every message, so
+     * they are taken from here instead of creating a new String each time.
+     */
+    private static final String[] stringCache = new String[512];
+
+    private ByteBuffer data;
     private String methodName;
     private Object[] responseData;
 
@@ -44,44 +54,55 @@ public class BinRpcResponse {
      * Decodes a BIN-RPC message from the given InputStream.
      */
     public BinRpcResponse(InputStream is, boolean methodHeader) throws IOException, ParseException {
-        byte sig[] = new byte[4];
-        int l = is.read(sig);
-        if (l != sig.length) {
-            throw new EOFException("Only " + l + " bytes received reading signature");
-        }
-        if (sig[0] != 'B' || sig[1] != 'i' || sig[2] != 'n') {
+        byte header[] = new byte[8];
+        readFully(is, header, "header");
+        if (header[0] != 'B' || header[1] != 'i' || header[2] != 'n') {
             throw new UnsupportedEncodingException("No BinX signature");
         }
-        l = is.read(sig);
-        if (l != sig.length) {
-            throw new EOFException("Only " + l + " bytes received reading length");
+        int datasize = ByteBuffer.wrap(header, 4, 4).getInt();
+        byte buffer[] = new byte[datasize];
+        readFully(is, buffer, "data");
+        decode(ByteBuffer.wrap(buffer), methodHeader);
+    }
+
+    /**
+     * Decodes the payload of a BIN-RPC message (the data following the
+     * signature and length) from the given buffer. The buffer is read from its
+     * current position to its limit.
+     */
+    public BinRpcResponse(ByteBuffer payload, boolean methodHeader) throws IOException, ParseException {
+        decode(payload, methodHeader);
+    }
+
+    private void decode(ByteBuffer payload, boolean methodHeader) throws IOException, ParseException {
+        data = payload;
+        try {
+            if (methodHeader) {
+                methodName = readString();
+                data.getInt();
+            }
+
+            List<Object> values = new ArrayList<Object>();
+            while (data.hasRemaining()) {
+                values.add(readRpcValue());
+            }
+            responseData = values.toArray();
+        } catch (BufferUnderflowException ex) {
+            throw new EOFException("Truncated BIN-RPC message");
+        } finally {
+            data = null;
         }
-        int datasize = (new BigInteger(sig)).intValue();
-        data = new byte[datasize];
+    }
+
+    private static void readFully(InputStream is, byte[] buffer, String part) throws IOException {
         int offset = 0;
-        while (datasize > 0) {
-            int r = is.read(data, offset, datasize);
+        while (offset < buffer.length) {
+            int r = is.read(buffer, offset, buffer.length - offset);
             if (r < 1) {
-                throw new EOFException("EOF while reading data");
+                throw new EOFException("Only " + offset + " bytes received reading " + part);
             }
-            datasize -= r;
             offset += r;
         }
-
-        if (methodHeader) {
-            int slen = readInt();
-            methodName = new String(data, dataoffset, slen, "ISO-8859-1");
-            dataoffset += slen;
-            readInt();
-        }
-
-        List<Object> values = new ArrayList<Object>();
-        while (dataoffset < data.length) {
-            values.add(readRpcValue());
-        }
-        responseData = values.toArray();
-        values.clear();
-        data = null;
     }
 
     /**
@@ -98,54 +119,98 @@ public class BinRpcResponse {
         return responseData;
     }
 
-    private int readInt() {
-        byte bi[] = new byte[4];
-        System.arraycopy(data, dataoffset, bi, 0, 4);
-        dataoffset += 4;
-        return (new BigInteger(bi)).intValue();
+    private String readString() throws UnsupportedEncodingException {
+        int len = data.getInt();
+        if (len > data.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] array = data.array();
+        int offset = data.arrayOffset() + data.position();
+        data.position(data.position() + len);
+        if (len > MAX_CACHED_STRING_LENGTH) {
+            return new String(array, offset, len, CHARSET);
+        }
+
+        int hash = len;
+        for (int i = 0; i < len; i++) {
+            hash = 31 * hash + array[offset + i];
+        }
+        int slot = (hash ^ (hash >>> 16)) & (stringCache.length - 1);
+        String cached = stringCache[slot];
+        if (cached != null && equals(cached, array, offset, len)) {
+            return cached;
+        }
+        String s = new String(array, offset, len, CHARSET);
+        stringCache[slot] = s;
+        return s;
+    }
+
+    private static boolean equals(String s, byte[] array, int offset, int len) {
+        if (s.length() != len) {
+            return false;
+        }
+        for (int i = 0; i < len; i++) {
+            if (s.charAt(i) != (array[offset + i] & 0xFF)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads a double rounded to six decimals. Values with at most six binary
+     * fraction digits, like 0.5 or 21.25, have at most six decimals and are
+     * returned as they are; only the others are rounded through BigDecimal.
+     */
+    private double readDouble() {
+        int mantissa = data.getInt();
+        int exponent = data.getInt();
+        double value = (double) mantissa / (double) (1 << 30) * Math.pow(2, exponent);
+        if (value == 0.0) {
+            return 0.0;
+        }
+        double scaled = value * 64;
+        if (scaled == Math.rint(scaled)) {
+            return value;
+        }
+        BigDecimal bd = new BigDecimal(value);
+        return bd.setScale(6, RoundingMode.HALF_DOWN).doubleValue();
     }
 
     private Object readRpcValue() throws UnsupportedEncodingException, ParseException {
-        int type = readInt();
+        int type = data.getInt();
         switch (type) {
             case 1:
-                return new Integer(readInt());
+                return Integer.valueOf(data.getInt());
             case 2:
-                return data[dataoffset++] != 0 ? Boolean.TRUE : Boolean.FALSE;
+                return data.get() != 0 ? Boolean.TRUE : Boolean.FALSE;
             case 3:
-                int len = readInt();
-                dataoffset += len;
-                return new String(data, dataoffset - len, len, "ISO-8859-1");
+                return readString();
             case 4:
-                int mantissa = readInt();
-                int exponent = readInt();
-                BigDecimal bd = new BigDecimal((double) mantissa / (double) (1 << 30) * Math.pow(2, exponent));
-                return bd.setScale(6, RoundingMode.HALF_DOWN).doubleValue();
+                return readDouble();
             case 5:
-                return new Date(readInt() * 1000);
+                return new Date(data.getInt() * 1000L);
             case 0x100:
                 // Array
-                int numElements = readInt();
-                Collection<Object> array = new ArrayList<Object>();
-                while (numElements-- > 0) {
-                    array.add(readRpcValue());
+                int numElements = data.getInt();
+                Object[] array = new Object[numElements];
+                for (int i = 0; i < numElements; i++) {
+                    array[i] = readRpcValue();
                 }
-                return array.toArray();
+                return array;
             case 0x101:
                 // Struct
-                numElements = readInt();
+                numElements = data.getInt();
                 Map<String, Object> struct = new TreeMap<String, Object>();
                 while (numElements-- > 0) {
-                    int slen = readInt();
-                    String name = new String(data, dataoffset, slen, "ISO-8859-1");
-                    dataoffset += slen;
+                    String name = readString();
                     struct.put(name, readRpcValue());
                 }
                 return struct;
 
             default:
-                for (int x = 0; x < data.length; x++) {
-                    logger.info(Integer.toHexString(data[x]) + " " + (char) data[x]);
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Unknown data type {} in BIN-RPC message at offset {}", type, data.position() - 4);
                 }
                 throw new ParseException("Unknown data type " + type, type);
         }
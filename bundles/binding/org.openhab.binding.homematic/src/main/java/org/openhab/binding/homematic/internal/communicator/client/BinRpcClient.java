@@ -11,12 +11,14 @@ package org.openhab.binding.homematic.internal.communicator.client;
 import java.io.IOException;
 import java.net.ConnectException;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.openhab.binding.homematic.internal.binrpc.BinRpcRequest;
 import org.openhab.binding.homematic.internal.binrpc.BinRpcResponse;
 import org.openhab.binding.homematic.internal.common.HomematicContext;
+import org.openhab.binding.homematic.internal.communicator.client.BinRpcConnectionPool.Connection;
 import org.openhab.binding.homematic.internal.communicator.client.interfaces.RpcClient;
 import org.openhab.binding.homematic.internal.model.HmInterface;
 import org.openhab.binding.homematic.internal.model.HmRssiInfo;
@@ -25,7 +27,7 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Client implementation for sending messages via BIN-RPC to the Homematic
- * server.
+ * server. Connections are kept open in a {@link BinRpcConnectionPool}.
  *
  * @author Gerhard Riegler
  * @since 1.5.0
@@ -35,6 +37,18 @@ public class BinRpcClient implements RpcClient {
     private final static boolean TRACE_ENABLED = logger.isTraceEnabled();
 
     private HomematicContext context = HomematicContext.getInstance();
+    private BinRpcConnectionPool connectionPool;
+
+    public BinRpcClient() {
+    }
+
+    /**
+     * Creates a client which sends the messages over the connections of the
+     * given pool.
+     */
+    public BinRpcClient(BinRpcConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
 
     /**
      * {@inheritDoc}
@@ -48,8 +62,22 @@ public class BinRpcClient implements RpcClient {
      * {@inheritDoc}
      */
     @Override
-    public void shutdown() throws HomematicClientException {
-        // nothing todo
+    public synchronized void shutdown() throws HomematicClientException {
+        if (connectionPool != null) {
+            connectionPool.shutdown();
+            connectionPool = null;
+        }
+    }
+
+    /**
+     * Returns the connection pool, creating it on first use.
+     */
+    private synchronized BinRpcConnectionPool getConnectionPool() {
+        if (connectionPool == null) {
+            connectionPool = new BinRpcConnectionPool(context.getConfig().getHost(),
+                    context.getConfig().getTimeout() * 1000);
+        }
+        return connectionPool;
     }
 
     /**
@@ -183,19 +211,41 @@ public class BinRpcClient implements RpcClient {
 
     /**
      * Sends a BIN-RPC message and parses the response to see if there was an
-     * error.
+     * error. Connections are taken from the pool; if a reused connection turns
+     * out to be closed by the server while the message is written, it is sent
+     * once more on a new connection. Once the message is written, it is never
+     * sent again, as the server may already have executed it.
      */
-    private synchronized Object[] sendMessage(HmInterface hmInterface, BinRpcRequest request)
-            throws HomematicClientException {
-        Socket socket = null;
+    private Object[] sendMessage(HmInterface hmInterface, BinRpcRequest request) throws HomematicClientException {
+        BinRpcConnectionPool pool = getConnectionPool();
         try {
             if (TRACE_ENABLED) {
                 logger.trace("Client BinRpcRequest {}", request);
             }
-            socket = new Socket(context.getConfig().getHost(), hmInterface.getPort());
-            socket.setSoTimeout(context.getConfig().getTimeout() * 1000);
-            socket.getOutputStream().write(request.createMessage());
-            BinRpcResponse resp = new BinRpcResponse(socket.getInputStream(), false);
+            byte[] message = request.createMessage();
+
+            BinRpcResponse resp;
+            while (true) {
+                Connection connection = pool.borrow(hmInterface);
+                boolean reusable = false;
+                boolean written = false;
+                try {
+                    Socket socket = connection.getSocket();
+                    socket.getOutputStream().write(message);
+                    written = true;
+                    resp = new BinRpcResponse(socket.getInputStream(), false);
+                    reusable = true;
+                    break;
+                } catch (IOException ex) {
+                    if (written || !connection.isReused() || ex instanceof SocketTimeoutException) {
+                        throw ex;
+                    }
+                    logger.trace("Pooled connection to interface {} closed, reconnecting: {}", hmInterface,
+                            ex.getMessage());
+                } finally {
+                    pool.release(connection, reusable);
+                }
+            }
 
             if (TRACE_ENABLED) {
                 logger.trace("Client BinRpcResponse: {}", resp.toString());
@@ -224,14 +274,6 @@ public class BinRpcClient implements RpcClient {
                     cex);
         } catch (Exception ex) {
             throw new HomematicClientException(ex.getMessage() + " (sending " + request + ")", ex);
-        } finally {
-            try {
-                if (socket != null) {
-                    socket.close();
-                }
-            } catch (IOException ex) {
-                // ignore
-            }
         }
     }
 
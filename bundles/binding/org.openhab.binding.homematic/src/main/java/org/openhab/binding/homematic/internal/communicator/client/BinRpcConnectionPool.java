@@ -0,0 +1,235 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.client;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.openhab.binding.homematic.internal.model.HmInterface;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps BIN-RPC connections to the Homematic server open for reuse. Each
+ * interface has its own limited number of connections, so calls to different
+ * interfaces and concurrent calls to the same interface don't wait for each
+ * other. Idle connections are closed after a while, as the server may drop
+ * them.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class BinRpcConnectionPool {
+    private final static Logger logger = LoggerFactory.getLogger(BinRpcConnectionPool.class);
+
+    private static final int MAX_CONNECTIONS_PER_INTERFACE = 3;
+    private static final long MAX_IDLE_TIME = 10000;
+
+    private final Map<HmInterface, BlockingQueue<Connection>> idleConnections = new ConcurrentHashMap<HmInterface, BlockingQueue<Connection>>();
+    private final Map<HmInterface, Semaphore> permits = new ConcurrentHashMap<HmInterface, Semaphore>();
+
+    private final String host;
+    private final int timeout;
+
+    /**
+     * Creates a pool for connections to the given host.
+     *
+     * @param host the Homematic server
+     * @param timeout the socket timeout in milliseconds, also used as the
+     *            maximum time to wait for a free connection
+     */
+    public BinRpcConnectionPool(String host, int timeout) {
+        this.host = host;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Returns an open connection to the interface, waiting if all connections
+     * are in use. The connection must be handed back with
+     * {@link #release(Connection, boolean)}.
+     */
+    public Connection borrow(HmInterface hmInterface) throws IOException {
+        Semaphore semaphore = getPermits(hmInterface);
+        try {
+            if (!semaphore.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+                throw new IOException("Timeout waiting for a connection to interface " + hmInterface);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for a connection to interface " + hmInterface);
+        }
+
+        try {
+            BlockingQueue<Connection> idle = getIdleConnections(hmInterface);
+            Connection connection;
+            while ((connection = idle.poll()) != null) {
+                if (System.currentTimeMillis() - connection.lastUsed < MAX_IDLE_TIME && isOpen(connection)) {
+                    connection.reused = true;
+                    return connection;
+                }
+                close(connection);
+            }
+
+            InetSocketAddress address = new InetSocketAddress(host, getPort(hmInterface));
+            if (address.isUnresolved()) {
+                throw new UnknownHostException(host);
+            }
+            Socket socket = SocketChannel.open().socket();
+            try {
+                socket.setSoTimeout(timeout);
+                socket.setTcpNoDelay(true);
+                socket.connect(address, timeout);
+            } catch (IOException ex) {
+                socket.close();
+                throw ex;
+            }
+            return new Connection(hmInterface, socket);
+        } catch (IOException ex) {
+            semaphore.release();
+            throw ex;
+        } catch (RuntimeException ex) {
+            semaphore.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Hands a connection back to the pool.
+     *
+     * @param connection the connection returned by {@link #borrow(HmInterface)}
+     * @param reusable false if the connection is in an undefined state and must
+     *            be closed
+     */
+    public void release(Connection connection, boolean reusable) {
+        if (reusable) {
+            connection.lastUsed = System.currentTimeMillis();
+            getIdleConnections(connection.hmInterface).offer(connection);
+        } else {
+            close(connection);
+        }
+        getPermits(connection.hmInterface).release();
+    }
+
+    /**
+     * Closes all idle connections.
+     */
+    public void shutdown() {
+        for (BlockingQueue<Connection> idle : idleConnections.values()) {
+            Connection connection;
+            while ((connection = idle.poll()) != null) {
+                close(connection);
+            }
+        }
+    }
+
+    /**
+     * Returns the port of the interface on the Homematic server.
+     */
+    protected int getPort(HmInterface hmInterface) {
+        return hmInterface.getPort();
+    }
+
+    /**
+     * Returns true if the server has not closed the idle connection. The
+     * server never sends anything unasked, so the connection is read without
+     * blocking: nothing to read means it is still open, the end of the stream
+     * or unexpected data means it can't be used anymore.
+     */
+    private boolean isOpen(Connection connection) {
+        SocketChannel channel = connection.socket.getChannel();
+        if (!channel.isOpen()) {
+            return false;
+        }
+        try {
+            synchronized (channel.blockingLock()) {
+                channel.configureBlocking(false);
+                try {
+                    return channel.read(ByteBuffer.allocate(1)) == 0;
+                } finally {
+                    channel.configureBlocking(true);
+                }
+            }
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    private BlockingQueue<Connection> getIdleConnections(HmInterface hmInterface) {
+        BlockingQueue<Connection> idle = idleConnections.get(hmInterface);
+        if (idle == null) {
+            synchronized (idleConnections) {
+                idle = idleConnections.get(hmInterface);
+                if (idle == null) {
+                    idle = new LinkedBlockingQueue<Connection>();
+                    idleConnections.put(hmInterface, idle);
+                }
+            }
+        }
+        return idle;
+    }
+
+    private Semaphore getPermits(HmInterface hmInterface) {
+        Semaphore semaphore = permits.get(hmInterface);
+        if (semaphore == null) {
+            synchronized (permits) {
+                semaphore = permits.get(hmInterface);
+                if (semaphore == null) {
+                    semaphore = new Semaphore(MAX_CONNECTIONS_PER_INTERFACE, true);
+                    permits.put(hmInterface, semaphore);
+                }
+            }
+        }
+        return semaphore;
+    }
+
+    private void close(Connection connection) {
+        try {
+            connection.socket.close();
+        } catch (IOException ex) {
+            logger.trace("Error closing connection to interface {}: {}", connection.hmInterface, ex.getMessage());
+        }
+    }
+
+    /**
+     * A connection to one interface of the Homematic server.
+     */
+    public static class Connection {
+        private final HmInterface hmInterface;
+        private final Socket socket;
+        private long lastUsed;
+        private boolean reused;
+
+        private Connection(HmInterface hmInterface, Socket socket) {
+            this.hmInterface = hmInterface;
+            this.socket = socket;
+        }
+
+        public Socket getSocket() {
+            return socket;
+        }
+
+        /**
+         * Returns true if the connection has been used before and may have been
+         * closed by the server in the meantime.
+         */
+        public boolean isReused() {
+            return reused;
+        }
+    }
+}
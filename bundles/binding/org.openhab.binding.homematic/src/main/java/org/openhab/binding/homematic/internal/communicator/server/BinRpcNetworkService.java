@@ -11,8 +11,10 @@ package org.openhab.binding.homematic.internal.communicator.server;
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
 import org.openhab.binding.homematic.internal.common.HomematicContext;
@@ -30,8 +32,19 @@ import org.slf4j.LoggerFactory;
 public class BinRpcNetworkService implements Runnable {
     private static final Logger logger = LoggerFactory.getLogger(BinRpcNetworkService.class);
 
+    private static final int CALLBACK_THREADS = 4;
+    private static final int CALLBACK_QUEUE_SIZE = 100;
+
     private ServerSocket serverSocket;
-    private final ExecutorService pool = Executors.newCachedThreadPool();
+
+    /**
+     * Bounded pool for handling callbacks. If the queue is full, the accepting
+     * thread handles the callback itself, which stops accepting further
+     * connections until the backlog is processed.
+     */
+    private final ExecutorService pool = new ThreadPoolExecutor(CALLBACK_THREADS, CALLBACK_THREADS, 60L,
+            TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(CALLBACK_QUEUE_SIZE),
+            new ThreadPoolExecutor.CallerRunsPolicy());
     private boolean accept = true;
     private HomematicCallbackReceiver callbackReceiver;
 
@@ -0,0 +1,269 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.http.internal;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.http.internal.HttpPoller.ResponseCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import junit.framework.Assert;
+
+/**
+ * Tests the {@link HttpPoller} against a local stub server.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class HttpPollerTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpPollerTest.class);
+
+    private static final String[] PROXY_PROPERTIES = { "http.proxySet", "http.proxyHost", "http.proxyPort",
+            "http.proxyUser", "http.proxyPassword", "http.nonProxyHosts" };
+
+    private StubServer server;
+    private HttpPoller poller;
+
+    @Before
+    public void init() throws IOException {
+        server = new StubServer();
+        server.start();
+        poller = new HttpPoller(10, 10, 5000);
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        poller.shutdown();
+        server.close();
+        for (String property : PROXY_PROPERTIES) {
+            System.clearProperty(property);
+        }
+    }
+
+    @Test
+    public void testNonProxyHosts() {
+        Assert.assertTrue(HttpPoller.shouldUseProxy("example.org", null));
+        Assert.assertTrue(HttpPoller.shouldUseProxy("example.org", "localhost|192.168.*"));
+        Assert.assertFalse(HttpPoller.shouldUseProxy("localhost", "localhost|192.168.*"));
+        Assert.assertFalse(HttpPoller.shouldUseProxy("192.168.1.20", "localhost|192.168.*"));
+        Assert.assertFalse(HttpPoller.shouldUseProxy("nas.fritz.box", "*.fritz.box"));
+        Assert.assertTrue(HttpPoller.shouldUseProxy("fritzXbox", "*.fritz.box"));
+    }
+
+    @Test
+    public void testProxy() throws InterruptedException {
+        // the stub server acts as the proxy and requires proxy credentials
+        System.setProperty("http.proxySet", "true");
+        System.setProperty("http.proxyHost", "127.0.0.1");
+        System.setProperty("http.proxyPort", Integer.toString(server.getPort()));
+        System.setProperty("http.proxyUser", "user");
+        System.setProperty("http.proxyPassword", "secret");
+        System.setProperty("http.nonProxyHosts", "localhost|127.0.0.*");
+        poller.shutdown();
+        poller = new HttpPoller(10, 10, 5000);
+
+        Assert.assertEquals("body:http://remote.invalid/proxied", fetch("http://remote.invalid/proxied"));
+        Assert.assertEquals("body:/direct", fetch(server.getUrl("/direct")));
+        Assert.assertEquals(1, server.proxyChallengeCount.get());
+    }
+
+    @Test
+    public void testConditionalRequest() throws InterruptedException {
+        String url = server.getUrl("/etag");
+
+        Assert.assertEquals("body:/etag", fetch(url));
+        Assert.assertEquals("body:/etag", fetch(url));
+
+        Assert.assertEquals(2, poller.getRequestCount());
+        Assert.assertEquals(1, poller.getNotModifiedCount());
+        Assert.assertEquals(1, server.notModifiedCount.get());
+    }
+
+    @Test
+    public void testRequestsAreMerged() throws InterruptedException {
+        server.delay = 200;
+
+        int items = 500;
+        int urls = 5;
+        final CountDownLatch latch = new CountDownLatch(items);
+        final AtomicInteger failed = new AtomicInteger();
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < items; i++) {
+            final String path = "/item" + (i % urls);
+            poller.fetch(server.getUrl(path), null, 5000, new ResponseCallback() {
+                @Override
+                public void responseReceived(String response) {
+                    if (!("body:" + path).equals(response)) {
+                        failed.incrementAndGet();
+                    }
+                    latch.countDown();
+                }
+            });
+        }
+
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        logger.info("refreshed {} items from {} urls in {}ms", items, urls, System.currentTimeMillis() - start);
+
+        Assert.assertEquals(0, failed.get());
+        Assert.assertEquals(urls, poller.getRequestCount());
+        Assert.assertEquals(items - urls, poller.getMergedCount());
+    }
+
+    private String fetch(String url) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final String[] result = new String[1];
+        poller.fetch(url, null, 5000, new ResponseCallback() {
+            @Override
+            public void responseReceived(String response) {
+                result[0] = response;
+                latch.countDown();
+            }
+        });
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        return result[0];
+    }
+
+    /**
+     * Minimal keep-alive HTTP server which answers every GET with the body
+     * <code>body:&lt;path&gt;</code> and an ETag derived from the path. Requests
+     * for absolute urls are treated as proxy requests and need basic proxy
+     * authorization.
+     */
+    private static class StubServer extends Thread {
+
+        // user:secret
+        private static final String PROXY_AUTHORIZATION = "Basic dXNlcjpzZWNyZXQ=";
+
+        private final ServerSocket serverSocket;
+        private final Map<Socket, Boolean> sockets = new ConcurrentHashMap<Socket, Boolean>();
+        private final AtomicInteger notModifiedCount = new AtomicInteger();
+        private final AtomicInteger proxyChallengeCount = new AtomicInteger();
+        private volatile int delay = 0;
+
+        StubServer() throws IOException {
+            super("HttpPollerTest stub server");
+            serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            setDaemon(true);
+        }
+
+        String getUrl(String path) {
+            return "http://127.0.0.1:" + getPort() + path;
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        void close() throws IOException {
+            serverSocket.close();
+            for (Socket socket : sockets.keySet()) {
+                socket.close();
+            }
+        }
+
+        @Override
+        public void run() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    final Socket socket = serverSocket.accept();
+                    sockets.put(socket, Boolean.TRUE);
+                    Thread handler = new Thread() {
+                        @Override
+                        public void run() {
+                            handle(socket);
+                        }
+                    };
+                    handler.setDaemon(true);
+                    handler.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void handle(Socket socket) {
+            try {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+                OutputStream output = socket.getOutputStream();
+
+                String requestLine;
+                while ((requestLine = reader.readLine()) != null) {
+                    String path = requestLine.split(" ")[1];
+                    String etag = "\"" + path.hashCode() + "\"";
+
+                    boolean notModified = false;
+                    boolean proxyAuthorized = false;
+                    String header;
+                    while ((header = reader.readLine()) != null && !header.isEmpty()) {
+                        if (header.toLowerCase().startsWith("if-none-match:")
+                                && header.substring(14).trim().equals(etag)) {
+                            notModified = true;
+                        }
+                        if (header.toLowerCase().startsWith("proxy-authorization:")
+                                && header.substring(20).trim().equals(PROXY_AUTHORIZATION)) {
+                            proxyAuthorized = true;
+                        }
+                    }
+
+                    if (path.startsWith("http://") && !proxyAuthorized) {
+                        proxyChallengeCount.incrementAndGet();
+                        output.write(("HTTP/1.1 407 Proxy Authentication Required\r\n"
+                                + "Proxy-Authenticate: Basic realm=\"stub\"\r\nContent-Length: 0\r\n\r\n")
+                                        .getBytes("UTF-8"));
+                        output.flush();
+                        continue;
+                    }
+
+                    if (delay > 0) {
+                        Thread.sleep(delay);
+                    }
+
+                    String response;
+                    if (notModified) {
+                        notModifiedCount.incrementAndGet();
+                        response = "HTTP/1.1 304 Not Modified\r\nETag: " + etag + "\r\n\r\n";
+                    } else {
+                        String body = "body:" + path;
+                        response = "HTTP/1.1 200 OK\r\nETag: " + etag + "\r\nContent-Type: text/plain\r\n"
+                                + "Content-Length: " + body.length() + "\r\n\r\n" + body;
+                    }
+                    output.write(response.getBytes("UTF-8"));
+                    output.flush();
+                }
+            } catch (IOException e) {
+                // connection closed
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                sockets.remove(socket);
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+    }
+}
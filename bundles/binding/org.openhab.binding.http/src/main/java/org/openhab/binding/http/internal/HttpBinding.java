@@ -12,17 +12,21 @@ import static org.apache.commons.lang.StringUtils.isNotBlank;
 import static org.openhab.binding.http.internal.HttpGenericBindingProvider.CHANGED_COMMAND_KEY;
 
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Dictionary;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang.StringUtils;
 import org.openhab.binding.http.HttpBindingProvider;
+import org.openhab.binding.http.internal.HttpPoller.ResponseCallback;
 import org.openhab.core.binding.AbstractActiveBinding;
 import org.openhab.core.transform.TransformationException;
 import org.openhab.core.transform.TransformationHelper;
@@ -53,6 +57,8 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider> impl
     protected static final String CONFIG_TIMEOUT = "timeout";
     protected static final String CONFIG_GRANULARITY = "granularity";
     protected static final String CONFIG_FORMAT = "format";
+    protected static final String CONFIG_MAX_CONNECTIONS = "maxConnections";
+    protected static final String CONFIG_MAX_CONNECTIONS_PER_HOST = "maxConnectionsPerHost";
 
     /** the timeout to use for connecting to a given host (defaults to 5000 milliseconds) */
     private int timeout = 5000;
@@ -63,7 +69,19 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider> impl
     /** whether to substitute time and/or state into the URL */
     private boolean format = true;
 
-    private Map<String, Long> lastUpdateMap = new HashMap<String, Long>();
+    /** the maximum number of concurrent refresh requests (defaults to 10) */
+    private int maxConnections = 10;
+
+    /** the maximum number of concurrent refresh requests to one host (defaults to 2) */
+    private int maxConnectionsPerHost = 2;
+
+    /** executes the refresh requests of the in-bindings */
+    private volatile HttpPoller poller;
+
+    private Map<String, Long> lastUpdateMap = new ConcurrentHashMap<String, Long>();
+
+    /** items with a refresh request in flight */
+    private Set<String> pendingItems = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
     /** RegEx to extract a parse a function String <code>'(.*?)\((.*)\)'</code> */
     private static final Pattern EXTRACT_FUNCTION_PATTERN = Pattern.compile("(.*?)\\((.*)\\)");
@@ -97,9 +115,31 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider> impl
     @Override
     public void activate() {
         super.activate();
+        restartPoller();
         setProperlyConfigured(true);
     }
 
+    @Override
+    public void deactivate() {
+        super.deactivate();
+        HttpPoller oldPoller = poller;
+        poller = null;
+        if (oldPoller != null) {
+            oldPoller.shutdown();
+        }
+    }
+
+    /**
+     * Replaces the poller by one using the current configuration.
+     */
+    private void restartPoller() {
+        HttpPoller oldPoller = poller;
+        poller = new HttpPoller(maxConnections, maxConnectionsPerHost, timeout);
+        if (oldPoller != null) {
+            oldPoller.shutdown();
+        }
+    }
+
     protected void addBindingProvider(HttpBindingProvider bindingProvider) {
         super.addBindingProvider(bindingProvider);
     }
@@ -129,10 +169,19 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider> impl
      */
     @Override
     public void execute() {
+        HttpPoller currentPoller = poller;
+        if (currentPoller == null) {
+            return;
+        }
 
         for (HttpBindingProvider provider : providers) {
             for (String itemName : provider.getInBindingItemNames()) {
 
+                // the previous refresh of this item is still in flight
+                if (pendingItems.contains(itemName)) {
+                    continue;
+                }
+
                 String url = provider.getUrl(itemName);
                 if (format) {
                     url = String.format(url, Calendar.getInstance().getTime());
@@ -152,64 +201,76 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider> impl
 
                 if (needsUpdate) {
 
-                    String response = null;
+                    ItemRefresh refresh = new ItemRefresh(provider, itemName, url, transformation);
 
                     // check if special URL is used and data should get from
                     // cache rather than directly from server
                     if (isCacheConfig(url)) {
                         logger.debug("item '{}' is fetched from cache", itemName);
-                        response = getCacheData(url);
+                        pendingItems.add(itemName);
+                        getCacheData(currentPoller, url, refresh);
                     } else if (isValidUrl(url)) {
                         logger.debug("item '{}' is about to be refreshed now", itemName);
-                        response = HttpUtil.executeUrl("GET", url, headers, null, null, timeout);
+                        pendingItems.add(itemName);
+                        currentPoller.fetch(url, headers, timeout, refresh);
                     } else {
                         logger.debug("item '{}' is not a valid URL or is a cache id yet to be initialised ({})",
                                 itemName, url);
                         continue;
                     }
+                }
+            }
+        }
+    }
 
-                    if (response == null) {
-                        logger.error("No response received from '{}'", url);
-                    } else {
-                        String transformedResponse;
-                        try {
-                            String[] parts = splitTransformationConfig(transformation);
-                            String transformationType = parts[0];
-                            String transformationFunction = parts[1];
-
-                            TransformationService transformationService = TransformationHelper
-                                    .getTransformationService(HttpActivator.getContext(), transformationType);
-                            if (transformationService != null) {
-                                transformedResponse = transformationService.transform(transformationFunction, response);
-                            } else {
-                                transformedResponse = response;
-                                logger.warn(
-                                        "couldn't transform response because transformationService of type '{}' is unavailable",
-                                        transformationType);
-                            }
-                        } catch (TransformationException te) {
-                            logger.error("transformation throws exception [transformation=" + transformation
-                                    + ", response=" + response + "]", te);
-
-                            // in case of an error we return the response without any
-                            // transformation
-                            transformedResponse = response;
-                        }
+    /**
+     * Transforms the response of a refresh request and posts the resulting
+     * state to the event bus.
+     *
+     * @param provider the provider of the item
+     * @param itemName the refreshed item
+     * @param url the requested url
+     * @param transformation the transformation configured for the item
+     * @param response the response or <code>null</code> if the request failed
+     */
+    private void processResponse(HttpBindingProvider provider, String itemName, String url, String transformation,
+            String response) {
+        if (response == null) {
+            logger.error("No response received from '{}'", url);
+            return;
+        }
 
-                        logger.debug("transformed response is '{}'", transformedResponse);
+        String transformedResponse;
+        try {
+            String[] parts = splitTransformationConfig(transformation);
+            String transformationType = parts[0];
+            String transformationFunction = parts[1];
+
+            TransformationService transformationService = TransformationHelper
+                    .getTransformationService(HttpActivator.getContext(), transformationType);
+            if (transformationService != null) {
+                transformedResponse = transformationService.transform(transformationFunction, response);
+            } else {
+                transformedResponse = response;
+                logger.warn("couldn't transform response because transformationService of type '{}' is unavailable",
+                        transformationType);
+            }
+        } catch (TransformationException te) {
+            logger.error("transformation throws exception [transformation=" + transformation + ", response="
+                    + response + "]", te);
 
-                        State state = provider.getState(itemName, transformedResponse);
-                        if (state != null) {
-                            eventPublisher.postUpdate(itemName, state);
-                        } else {
-                            logger.debug("Couldn't create state for item '{}' from string '{}'", itemName,
-                                    transformedResponse);
-                        }
-                    }
+            // in case of an error we return the response without any
+            // transformation
+            transformedResponse = response;
+        }
 
-                    lastUpdateMap.put(itemName, System.currentTimeMillis());
-                }
-            }
+        logger.debug("transformed response is '{}'", transformedResponse);
+
+        State state = provider.getState(itemName, transformedResponse);
+        if (state != null) {
+            eventPublisher.postUpdate(itemName, state);
+        } else {
+            logger.debug("Couldn't create state for item '{}' from string '{}'", itemName, transformedResponse);
         }
     }
 
@@ -322,39 +383,49 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider> impl
 
     /**
      * Synchronized access to the item cache. Checks the <code>cacheId</code>
-     * is a cached item and returns the cached value. If the cache has
-     * expired, refresh the cache value by making a new HTTP request.
+     * is a cached item and hands the cached value to the callback. If the cache
+     * has expired, the cache value is refreshed by an asynchronous HTTP request
+     * first. The request is not made while holding the cache lock.
      *
+     * @param currentPoller the poller to refresh the cache with
      * @param cacheId
-     * @return the cached (or refreshed) dats
+     * @param callback receives the cached (or refreshed) data
      */
-    private String getCacheData(String cacheId) {
+    private void getCacheData(HttpPoller currentPoller, String cacheId, final ResponseCallback callback) {
+        final CacheConfig cacheConfig;
+        boolean cacheNeedsUpdate = false;
+        String data = null;
+
         synchronized (itemCacheLock) {
             // check again in case the cache was cleared in between taking
             // the lock when checking in isCacheConfig() and now
-            if (!itemCache.containsKey(cacheId)) {
-                return null;
+            cacheConfig = itemCache.get(cacheId);
+            if (cacheConfig != null) {
+                long cacheAge = System.currentTimeMillis() - cacheConfig.lastUpdate;
+                cacheNeedsUpdate = cacheAge >= cacheConfig.updateInterval;
+                data = cacheConfig.data;
             }
+        }
 
-            CacheConfig cacheConfig = itemCache.get(cacheId);
-
-            long cacheAge = System.currentTimeMillis() - cacheConfig.lastUpdate;
-            boolean cacheNeedsUpdate = cacheAge >= cacheConfig.updateInterval;
-
-            if (cacheNeedsUpdate) {
-
-                // update and store data on cache
-                logger.debug("updating cache for '{}' ('{}')", cacheId, cacheConfig.url);
-                cacheConfig.data = HttpUtil.executeUrl("GET", cacheConfig.url, cacheConfig.headers, null, null,
-                        timeout);
+        if (!cacheNeedsUpdate) {
+            callback.responseReceived(data);
+            return;
+        }
 
-                if (cacheConfig.data != null) {
-                    cacheConfig.lastUpdate = System.currentTimeMillis();
+        // update and store data on cache
+        logger.debug("updating cache for '{}' ('{}')", cacheId, cacheConfig.url);
+        currentPoller.fetch(cacheConfig.url, cacheConfig.headers, timeout, new ResponseCallback() {
+            @Override
+            public void responseReceived(String response) {
+                synchronized (itemCacheLock) {
+                    cacheConfig.data = response;
+                    if (response != null) {
+                        cacheConfig.lastUpdate = System.currentTimeMillis();
+                    }
                 }
+                callback.responseReceived(response);
             }
-
-            return cacheConfig.data;
-        }
+        });
     }
 
     /**
@@ -383,6 +454,17 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider> impl
                     format = formatString.equalsIgnoreCase("true");
                 }
 
+                String maxConnectionsString = Objects.toString(config.get(CONFIG_MAX_CONNECTIONS), null);
+                if (StringUtils.isNotBlank(maxConnectionsString)) {
+                    maxConnections = Integer.parseInt(maxConnectionsString);
+                }
+
+                String maxConnectionsPerHostString = Objects.toString(config.get(CONFIG_MAX_CONNECTIONS_PER_HOST),
+                        null);
+                if (StringUtils.isNotBlank(maxConnectionsPerHostString)) {
+                    maxConnectionsPerHost = Integer.parseInt(maxConnectionsPerHostString);
+                }
+
                 // Parse page cache config
 
                 @SuppressWarnings("unchecked")
@@ -393,7 +475,9 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider> impl
 
                     // the config-key enumeration contains additional keys that we
                     // don't want to process here ...
-                    if (CONFIG_TIMEOUT.equals(key) || CONFIG_GRANULARITY.equals(key) || "service.pid".equals(key)) {
+                    if (CONFIG_TIMEOUT.equals(key) || CONFIG_GRANULARITY.equals(key) || CONFIG_FORMAT.equals(key)
+                            || CONFIG_MAX_CONNECTIONS.equals(key) || CONFIG_MAX_CONNECTIONS_PER_HOST.equals(key)
+                            || "service.pid".equals(key)) {
                         continue;
                     }
 
@@ -437,6 +521,11 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider> impl
                 }
             }
         }
+
+        // apply the new timeout and connection limits
+        if (poller != null) {
+            restartPoller();
+        }
     }
 
     private Properties parseHttpHeaders(String group) {
@@ -459,6 +548,34 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider> impl
         return headers;
     }
 
+    /**
+     * Processes the response of a refresh request for one item.
+     */
+    private class ItemRefresh implements ResponseCallback {
+
+        private final HttpBindingProvider provider;
+        private final String itemName;
+        private final String url;
+        private final String transformation;
+
+        ItemRefresh(HttpBindingProvider provider, String itemName, String url, String transformation) {
+            this.provider = provider;
+            this.itemName = itemName;
+            this.url = url;
+            this.transformation = transformation;
+        }
+
+        @Override
+        public void responseReceived(String response) {
+            try {
+                processResponse(provider, itemName, url, transformation, response);
+            } finally {
+                lastUpdateMap.put(itemName, System.currentTimeMillis());
+                pendingItems.remove(itemName);
+            }
+        }
+    }
+
     /**
      * Internal data structure for data cache purposes
      *
@@ -0,0 +1,406 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.http.internal;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.httpclient.Credentials;
+import org.apache.commons.httpclient.Header;
+import org.apache.commons.httpclient.HostConfiguration;
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpState;
+import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.UsernamePasswordCredentials;
+import org.apache.commons.httpclient.auth.AuthScope;
+import org.apache.commons.httpclient.methods.GetMethod;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes the GET requests of the in-bindings asynchronously.
+ *
+ * All requests share one {@link HttpClient} with a pooled keep-alive
+ * connection manager which limits the number of concurrent connections in
+ * total and per host. Requests for the same URL and headers which are issued
+ * while a request is still in flight are merged, so many items bound to the
+ * same URL cause only one request. The <code>ETag</code> and
+ * <code>Last-Modified</code> headers of every response are remembered and sent
+ * back as conditional request headers; on <code>304 Not Modified</code> the
+ * last response body is returned.
+ *
+ * Like <code>HttpUtil</code>, requests are sent through the proxy configured by
+ * the <code>http.proxySet</code>, <code>http.proxyHost</code>,
+ * <code>http.proxyPort</code>, <code>http.proxyUser</code> and
+ * <code>http.proxyPassword</code> system properties, except for the hosts
+ * listed in <code>http.nonProxyHosts</code>.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class HttpPoller {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpPoller.class);
+
+    /**
+     * Receives the result of a request issued through
+     * {@link HttpPoller#fetch(String, Properties, int, ResponseCallback)}.
+     */
+    public interface ResponseCallback {
+
+        /**
+         * Called once the request has completed.
+         *
+         * @param response the response body or <code>null</code> if the
+         *            request failed
+         */
+        void responseReceived(String response);
+    }
+
+    private final HttpClient httpClient;
+    private final MultiThreadedHttpConnectionManager connectionManager;
+    private final ExecutorService executor;
+
+    /** the host configuration of requests which bypass the proxy */
+    private final HostConfiguration directConfiguration = new HostConfiguration();
+
+    private String nonProxyHosts;
+    private Credentials proxyCredentials;
+
+    /** requests currently in flight, keyed by url and headers */
+    private final Map<String, PendingRequest> pendingRequests = new ConcurrentHashMap<String, PendingRequest>();
+
+    /** the validators and body of the last successful response, keyed by url and headers */
+    private final Map<String, CachedResponse> responseCache = new ConcurrentHashMap<String, CachedResponse>();
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong mergedCount = new AtomicLong();
+    private final AtomicLong notModifiedCount = new AtomicLong();
+
+    /**
+     * @param maxConnections the maximum number of concurrent requests in total
+     * @param maxConnectionsPerHost the maximum number of concurrent requests to
+     *            one host
+     * @param timeout the timeout in milliseconds for connecting and for
+     *            waiting for a pooled connection
+     */
+    public HttpPoller(int maxConnections, int maxConnectionsPerHost, int timeout) {
+        connectionManager = new MultiThreadedHttpConnectionManager();
+        HttpConnectionManagerParams params = connectionManager.getParams();
+        params.setMaxTotalConnections(maxConnections);
+        params.setDefaultMaxConnectionsPerHost(maxConnectionsPerHost);
+        params.setStaleCheckingEnabled(true);
+        params.setConnectionTimeout(timeout);
+
+        httpClient = new HttpClient(connectionManager);
+        httpClient.getParams().setConnectionManagerTimeout(timeout);
+        configureProxy();
+
+        executor = Executors.newFixedThreadPool(maxConnections);
+    }
+
+    /**
+     * Requests the given url asynchronously. If a request for the same url and
+     * headers is already in flight the callback is attached to it instead of
+     * issuing another request.
+     *
+     * @param url the url to request
+     * @param headers the HTTP headers to send, may be <code>null</code>
+     * @param timeout the timeout in milliseconds for reading the response
+     * @param callback receives the response
+     */
+    public void fetch(String url, Properties headers, int timeout, ResponseCallback callback) {
+        String key = getRequestKey(url, headers);
+
+        PendingRequest request;
+        synchronized (pendingRequests) {
+            request = pendingRequests.get(key);
+            if (request != null) {
+                request.callbacks.add(callback);
+                mergedCount.incrementAndGet();
+                return;
+            }
+            request = new PendingRequest(key, url, headers, timeout);
+            request.callbacks.add(callback);
+            pendingRequests.put(key, request);
+        }
+
+        try {
+            executor.execute(request);
+        } catch (RejectedExecutionException e) {
+            logger.debug("request for '{}' rejected as the poller is shut down", url);
+            request.complete(null);
+        }
+    }
+
+    /**
+     * Stops all worker threads and closes the pooled connections.
+     */
+    public void shutdown() {
+        for (Runnable request : executor.shutdownNow()) {
+            // release the callbacks of requests which never ran
+            ((PendingRequest) request).complete(null);
+        }
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        connectionManager.shutdown();
+        pendingRequests.clear();
+        responseCache.clear();
+    }
+
+    /**
+     * @return the number of HTTP requests sent
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @return the number of fetches that were merged into a request already in
+     *         flight
+     */
+    public long getMergedCount() {
+        return mergedCount.get();
+    }
+
+    /**
+     * @return the number of requests answered with <code>304 Not Modified</code>
+     */
+    public long getNotModifiedCount() {
+        return notModifiedCount.get();
+    }
+
+    private String getRequestKey(String url, Properties headers) {
+        if (headers == null || headers.isEmpty()) {
+            return url;
+        }
+        // sort the headers so that equal header sets produce equal keys
+        return url + new TreeMap<Object, Object>(headers).toString();
+    }
+
+    private void configureProxy() {
+        if (!"true".equalsIgnoreCase(System.getProperty("http.proxySet"))) {
+            return;
+        }
+        String proxyHost = System.getProperty("http.proxyHost");
+        if (StringUtils.isBlank(proxyHost)) {
+            return;
+        }
+        int proxyPort = 80;
+        String proxyPortString = System.getProperty("http.proxyPort");
+        if (StringUtils.isNotBlank(proxyPortString)) {
+            try {
+                proxyPort = Integer.parseInt(proxyPortString);
+            } catch (NumberFormatException e) {
+                logger.warn("'{}' is not a valid proxy port - using port 80 instead", proxyPortString);
+            }
+        }
+        httpClient.getHostConfiguration().setProxy(proxyHost, proxyPort);
+        nonProxyHosts = System.getProperty("http.nonProxyHosts");
+
+        String proxyUser = System.getProperty("http.proxyUser");
+        if (StringUtils.isNotBlank(proxyUser)) {
+            proxyCredentials = new UsernamePasswordCredentials(proxyUser, System.getProperty("http.proxyPassword"));
+            httpClient.getState().setProxyCredentials(AuthScope.ANY, proxyCredentials);
+        }
+    }
+
+    /**
+     * Checks whether a request to the given host goes through the proxy.
+     *
+     * @param host the host of the request
+     * @param nonProxyHosts the hosts which are reached directly, separated by
+     *            <code>|</code> and with <code>*</code> as wildcard
+     * @return <code>false</code> if the host is listed in nonProxyHosts
+     */
+    static boolean shouldUseProxy(String host, String nonProxyHosts) {
+        if (StringUtils.isBlank(nonProxyHosts)) {
+            return true;
+        }
+        for (String nonProxyHost : nonProxyHosts.split("\\|")) {
+            nonProxyHost = nonProxyHost.trim();
+            if (nonProxyHost.contains("*")) {
+                // mask the dots and turn the wildcards into regular expressions
+                String regex = nonProxyHost.replaceAll("\\.", "\\\\.").replaceAll("\\*", ".*");
+                if (host.matches(regex)) {
+                    return false;
+                }
+            } else if (host.equalsIgnoreCase(nonProxyHost)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String execute(String key, String url, Properties headers, int timeout) {
+        GetMethod method;
+        HttpState state = null;
+        HostConfiguration hostConfiguration = httpClient.getHostConfiguration();
+        try {
+            URL parsedUrl = new URL(url);
+            String userInfo = parsedUrl.getUserInfo();
+            if (userInfo != null) {
+                // the credentials are sent through the http state, so strip them from the url
+                url = StringUtils.replaceOnce(url, userInfo + "@", "");
+                state = new HttpState();
+                state.setCredentials(AuthScope.ANY, new UsernamePasswordCredentials(userInfo));
+                if (proxyCredentials != null) {
+                    state.setProxyCredentials(AuthScope.ANY, proxyCredentials);
+                }
+            }
+            if (hostConfiguration.getProxyHost() != null && !shouldUseProxy(parsedUrl.getHost(), nonProxyHosts)) {
+                hostConfiguration = directConfiguration;
+            }
+            method = new GetMethod(url);
+        } catch (MalformedURLException e) {
+            logger.warn("'{}' is not a valid url: {}", url, e.getMessage());
+            return null;
+        } catch (IllegalArgumentException e) {
+            logger.warn("'{}' is not a valid url: {}", url, e.getMessage());
+            return null;
+        }
+
+        method.getParams().setSoTimeout(timeout);
+        method.setDoAuthentication(state != null || proxyCredentials != null);
+
+        if (headers != null) {
+            for (String name : headers.stringPropertyNames()) {
+                method.addRequestHeader(name, headers.getProperty(name));
+            }
+        }
+
+        CachedResponse cached = responseCache.get(key);
+        if (cached != null) {
+            if (cached.etag != null) {
+                method.setRequestHeader("If-None-Match", cached.etag);
+            }
+            if (cached.lastModified != null) {
+                method.setRequestHeader("If-Modified-Since", cached.lastModified);
+            }
+        }
+
+        try {
+            requestCount.incrementAndGet();
+            int statusCode = httpClient.executeMethod(hostConfiguration, method, state);
+
+            if (statusCode == HttpStatus.SC_NOT_MODIFIED && cached != null) {
+                notModifiedCount.incrementAndGet();
+                logger.trace("'{}' is not modified", url);
+                return cached.body;
+            }
+
+            if (statusCode != HttpStatus.SC_OK) {
+                logger.warn("Method failed: {}", method.getStatusLine());
+            }
+
+            String body = method.getResponseBodyAsString();
+            if (body == null) {
+                return null;
+            }
+
+            Header etag = method.getResponseHeader("ETag");
+            Header lastModified = method.getResponseHeader("Last-Modified");
+            if (statusCode == HttpStatus.SC_OK && (etag != null || lastModified != null)) {
+                responseCache.put(key, new CachedResponse(etag == null ? null : etag.getValue(),
+                        lastModified == null ? null : lastModified.getValue(), body));
+            } else {
+                responseCache.remove(key);
+            }
+
+            return body;
+        } catch (IOException e) {
+            logger.error("Fatal transport error: {}", e.getMessage());
+            return null;
+        } finally {
+            method.releaseConnection();
+        }
+    }
+
+    /**
+     * A request in flight together with all callbacks waiting for it.
+     */
+    private class PendingRequest implements Runnable {
+
+        private final String key;
+        private final String url;
+        private final Properties headers;
+        private final int timeout;
+        private final List<ResponseCallback> callbacks = new ArrayList<ResponseCallback>();
+
+        PendingRequest(String key, String url, Properties headers, int timeout) {
+            this.key = key;
+            this.url = url;
+            this.headers = headers;
+            this.timeout = timeout;
+        }
+
+        @Override
+        public void run() {
+            String response = null;
+            try {
+                response = execute(key, url, headers, timeout);
+            } finally {
+                complete(response);
+            }
+        }
+
+        /**
+         * Removes this request from the requests in flight and hands the
+         * response to all waiting callbacks.
+         */
+        void complete(String response) {
+            List<ResponseCallback> waiting;
+            synchronized (pendingRequests) {
+                pendingRequests.remove(key);
+                waiting = new ArrayList<ResponseCallback>(callbacks);
+            }
+            for (ResponseCallback callback : waiting) {
+                try {
+                    callback.responseReceived(response);
+                } catch (RuntimeException e) {
+                    logger.error("Error processing response of '{}'", url, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * The validators and body of a response.
+     */
+    private static class CachedResponse {
+
+        private final String etag;
+        private final String lastModified;
+        private final String body;
+
+        CachedResponse(String etag, String lastModified, String body) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.body = body;
+        }
+    }
+}
@@ -11,6 +11,8 @@ package org.openhab.binding.hue.internal;
 import java.io.IOException;
 import java.util.Dictionary;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.lang.StringUtils;
@@ -60,6 +62,10 @@ public class HueBinding extends AbstractActiveBinding<HueBindingProvider>impleme
     // expensive.
     private HashMap<String, HueBulb> bulbCache = new HashMap<String, HueBulb>();
 
+    // The state of every bulb as reported by the last poll, to update only the
+    // items of bulbs whose state has changed since.
+    private Map<String, Map<String, Object>> lastBulbStates = new HashMap<String, Map<String, Object>>();
+
     /**
      * Default constructor for the Hue binding.
      */
@@ -82,6 +88,17 @@ public class HueBinding extends AbstractActiveBinding<HueBindingProvider>impleme
         return "Hue Refresh Service";
     }
 
+    /**
+     * @{inheritDoc}
+     */
+    @Override
+    public void deactivate() {
+        super.deactivate();
+        if (activeBridge != null) {
+            activeBridge.dispose();
+        }
+    }
+
     /**
      * Get current hue settings of the bulbs and update the items that are connected with the bulb.
      * The refreshinterval determines the polling frequency.
@@ -102,7 +119,12 @@ public class HueBinding extends AbstractActiveBinding<HueBindingProvider>impleme
                 return;
             }
             Set<String> keys = settings.getKeys();
+            Set<String> changedBulbs = new HashSet<String>();
             for (String key : keys) {
+                Map<String, Object> state = settings.getState(key);
+                if (!state.equals(lastBulbStates.put(key, state))) {
+                    changedBulbs.add(key);
+                }
                 try {
                     HueBulb bulb = bulbCache.get(key);
                     if (bulb == null) {
@@ -121,7 +143,9 @@ public class HueBinding extends AbstractActiveBinding<HueBindingProvider>impleme
                 for (String hueItemName : provider.getInBindingItemNames()) {
                     HueBindingConfig deviceConfig = getConfigForItemName(hueItemName);
 
-                    if (deviceConfig != null) {
+                    // items which have been updated before only need an update if their bulb changed
+                    if (deviceConfig != null && (deviceConfig.itemStateOnOffType == null
+                            || changedBulbs.contains(deviceConfig.getDeviceId()))) {
                         HueBulb bulb = bulbCache.get(deviceConfig.getDeviceId());
                         if (bulb != null) {
 
@@ -179,7 +203,8 @@ public class HueBinding extends AbstractActiveBinding<HueBindingProvider>impleme
                     }
                 }
             }
-            logger.debug("Done Hue data refresh.");
+            logger.debug("Done Hue data refresh, {} of {} bulbs changed. Commands: {}", changedBulbs.size(),
+                    keys.size(), activeBridge.getCommandStatistics());
         }
     }
 
@@ -295,7 +320,13 @@ public class HueBinding extends AbstractActiveBinding<HueBindingProvider>impleme
 
             // connect the Hue bridge with the new configs
             if (this.bridgeIP != null) {
-                activeBridge = null;
+                if (activeBridge != null) {
+                    activeBridge.dispose();
+                    activeBridge = null;
+                }
+                // the cached bulbs send their commands through the previous bridge
+                bulbCache.clear();
+                lastBulbStates.clear();
                 String secret = (String) config.get("secret");
                 HueBridge bridge = new HueBridge(bridgeIP, secret);
                 if (bridge.isAuthorized()) {
@@ -9,6 +9,10 @@
 package org.openhab.binding.hue.internal.data;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -38,6 +42,8 @@ public class HueSettings {
 
     static final Logger logger = LoggerFactory.getLogger(HueSettings.class);
 
+    private static final ObjectMapper mapper = new ObjectMapper();
+
     private SettingsTree settingsData = null;
     private static final int ERROR_TYPE_UNAUTHORIZED_USER = 1;
     private boolean isAuthorized = false;
@@ -51,7 +57,6 @@ public class HueSettings {
      */
     @SuppressWarnings("unchecked")
     public HueSettings(String settings) {
-        ObjectMapper mapper = new ObjectMapper();
         try {
             JsonNode rootNode = mapper.readTree(settings);
             if (!isAuthorizationError(rootNode)) {
@@ -247,6 +252,53 @@ public class HueSettings {
         }
     }
 
+    /**
+     * Returns the state of the given bulb as reported by the bridge, to find
+     * out whether the bulb changed between two polls.
+     * 
+     * @param deviceId
+     *            The bulb id the bridge has filed the bulb under.
+     * @return The attributes of the state. Empty if the bulb is unknown.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> getState(String deviceId) {
+        if (settingsData == null || !isValidId(deviceId)) {
+            return Collections.emptyMap();
+        }
+        Object state = settingsData.node("lights").node(deviceId).value("state");
+        return state instanceof Map ? (Map<String, Object>) state : Collections.<String, Object> emptyMap();
+    }
+
+    /**
+     * Returns the groups of lights defined on the bridge, including the group
+     * "0" which always contains all lights.
+     * 
+     * @return The ids of the lights by group id. Empty if Hue bridge is not
+     *         initialized correctly.
+     */
+    public Map<String, Set<String>> getGroups() {
+        Map<String, Set<String>> groups = new HashMap<String, Set<String>>();
+        if (settingsData == null || settingsData.node("lights") == null) {
+            return groups;
+        }
+        groups.put("0", new HashSet<String>(getKeys()));
+
+        SettingsTree groupsNode = settingsData.node("groups");
+        if (groupsNode != null) {
+            for (String groupId : groupsNode.getKeys()) {
+                Object lights = groupsNode.node(groupId).value("lights");
+                if (lights instanceof List) {
+                    Set<String> lightIds = new HashSet<String>();
+                    for (Object lightId : (List<?>) lights) {
+                        lightIds.add(lightId.toString());
+                    }
+                    groups.put(groupId, lightIds);
+                }
+            }
+        }
+        return groups;
+    }
+
     /**
      * The SettingsTree represents the settings Json as a tree with some
      * convenience methods to get subtrees and the values of interest easily.
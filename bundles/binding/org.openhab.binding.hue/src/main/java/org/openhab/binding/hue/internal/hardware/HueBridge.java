@@ -9,6 +9,7 @@
 package org.openhab.binding.hue.internal.hardware;
 
 import java.io.IOException;
+import java.util.Map;
 
 import org.apache.commons.lang.StringUtils;
 import org.codehaus.jackson.JsonNode;
@@ -31,14 +32,19 @@ import com.sun.jersey.api.client.WebResource;
  * @since 1.2.0
  *
  */
-public class HueBridge {
+public class HueBridge implements HueCommandQueue.Sender {
 
     private static final Logger logger = LoggerFactory.getLogger(HueBridge.class);
 
     private final String ip;
     private final String secret;
 
-    private Client client;
+    /** the client for all requests to the bridge, including the commands of the bulbs */
+    private final Client client;
+
+    private final HueCommandQueue commandQueue;
+
+    private static final ObjectMapper mapper = new ObjectMapper();
 
     private static final int RETRY_INTERVAL_IN_SEC = 5;
 
@@ -58,6 +64,8 @@ public class HueBridge {
         this.secret = secret;
         client = Client.create();
         client.setConnectTimeout(5000);
+        client.setReadTimeout(5000);
+        commandQueue = new HueCommandQueue(ip, this);
     }
 
     /**
@@ -90,7 +98,71 @@ public class HueBridge {
      */
     public HueSettings getSettings() {
         String json = getSettingsJson();
-        return json != null ? new HueSettings(json) : null;
+        if (json == null) {
+            return null;
+        }
+        HueSettings settings = new HueSettings(json);
+        commandQueue.setGroups(settings.getGroups());
+        return settings;
+    }
+
+    /**
+     * Queues a change of the state of a light. The changes are sent at the
+     * rate the bridge can handle, changes of a light which is still waiting
+     * are merged.
+     *
+     * @param deviceId
+     *            The id of the light.
+     * @param state
+     *            The attributes of the state to change.
+     */
+    public void setLightState(String deviceId, Map<String, Object> state) {
+        commandQueue.add(deviceId, state);
+    }
+
+    /**
+     * @return A summary of the commands sent to the bridge.
+     */
+    public String getCommandStatistics() {
+        return commandQueue.getStatistics();
+    }
+
+    /**
+     * Stops sending commands to the bridge, commands still waiting are
+     * discarded.
+     */
+    public void dispose() {
+        commandQueue.dispose();
+    }
+
+    @Override
+    public void sendLightState(String deviceId, Map<String, Object> state) {
+        putState("lights/" + deviceId + "/state", state);
+    }
+
+    @Override
+    public void sendGroupAction(String groupId, Map<String, Object> state) {
+        putState("groups/" + groupId + "/action", state);
+    }
+
+    private void putState(String path, Map<String, Object> state) {
+        String targetURL = getUrl() + path;
+        try {
+            String message = mapper.writeValueAsString(state);
+            ClientResponse response = client.resource(targetURL).type("application/json")
+                    .put(ClientResponse.class, message);
+
+            logger.debug("Sent message: '" + message + "' to " + targetURL);
+
+            if (response.getStatus() != 200) {
+                logger.error("Failed to connect to Hue bridge: HTTP error code: " + response.getStatus());
+            }
+            response.close();
+        } catch (IOException e) {
+            logger.error("Could not create message for Hue bridge: {}", e.getMessage());
+        } catch (ClientHandlerException e) {
+            logger.error("Failed to connect to Hue bridge: {}", e.getMessage());
+        }
     }
 
     /**
@@ -154,7 +226,6 @@ public class HueBridge {
 
     private JsonNode convertToJsonNode(String response) throws IOException {
         JsonNode rootNode;
-        ObjectMapper mapper = new ObjectMapper();
         JsonNode arrayWrappedNode = mapper.readTree(response);
         // Hue bridge returns the complete JSON response wrapped in an array, therefore the first
         // element of the array has to be extracted
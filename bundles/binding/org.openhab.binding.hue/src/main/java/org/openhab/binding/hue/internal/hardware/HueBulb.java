@@ -8,14 +8,13 @@
  */
 package org.openhab.binding.hue.internal.hardware;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.openhab.binding.hue.internal.data.HueSettings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.sun.jersey.api.client.Client;
-import com.sun.jersey.api.client.ClientResponse;
-import com.sun.jersey.api.client.WebResource;
-
 /**
  * The representation of a physical Hue bulb, providing control of the bulbs
  * features.
@@ -58,8 +57,6 @@ public class HueBulb {
     /** The maximum saturation value of the Hue bulb */
     public static final int MAX_SATURATION = 254;
 
-    private Client client;
-
     public HueBulb(HueBridge connectedBridge, String deviceId) {
         this(connectedBridge, deviceId, connectedBridge.getSettings());
     }
@@ -76,10 +73,6 @@ public class HueBulb {
         this.bridge = connectedBridge;
         this.deviceId = deviceId;
         getStatus(settings);
-
-        this.client = Client.create();
-        this.client.setReadTimeout(1000);
-        this.client.setConnectTimeout(2000);
     }
 
     /**
@@ -164,7 +157,7 @@ public class HueBulb {
 
         if (this.brightness > 0) {
             this.isOn = true;
-            executeMessage("{\"bri\":" + this.brightness + ",\"on\":true}");
+            executeMessage(state("bri", this.brightness, "on", true));
         } else {
             // Call the switchOn method to take care of Osram bulb while dimming
             this.switchOn(false);
@@ -187,15 +180,15 @@ public class HueBulb {
         this.isOn = powerOn;
         if (powerOn) {
             if (this.isOsramPar16) {
-                executeMessage("{\"on\":true,\"bri\":254}");
+                executeMessage(state("on", true, "bri", MAX_BRIGHTNESS));
             } else {
-                executeMessage("{\"on\":true}");
+                executeMessage(state("on", true));
             }
         } else {
             if (this.isOsramPar16) {
-                executeMessage("{\"on\":false,\"transitiontime\":0}");
+                executeMessage(state("on", false, "transitiontime", 0));
             } else {
-                executeMessage("{\"on\":false}");
+                executeMessage(state("on", false));
             }
         }
         return true;
@@ -235,7 +228,7 @@ public class HueBulb {
         this.colorTemperature = this.colorTemperature < 154 ? 154 : this.colorTemperature;
         this.colorTemperature = this.colorTemperature > 500 ? 500 : this.colorTemperature;
 
-        executeMessage("{\"ct\":" + this.colorTemperature + "}");
+        executeMessage(state("ct", this.colorTemperature));
     }
 
     /**
@@ -270,29 +263,32 @@ public class HueBulb {
         this.brightness = brightness;
         this.isOn = true;
 
-        String input = "{\"hue\":" + this.hue + ",\"sat\":" + this.saturation + ",\"bri\":" + this.brightness
-                + ",\"on\":" + this.isOn + "}";
-        executeMessage(input);
+        executeMessage(state("hue", this.hue, "sat", this.saturation, "bri", this.brightness, "on", this.isOn));
     }
 
     /**
-     * Sends the message to the bulb for execution.
+     * Hands the state change to the bridge, which sends it to the bulb. The
+     * bridge merges it with changes of the bulb which haven't been sent yet.
      * 
-     * @param message
-     *            A Json message with the information that should be send to the
-     *            bulb.
+     * @param state
+     *            The attributes of the state that should be send to the bulb.
      */
-    private void executeMessage(String message) {
-        String targetURL = bridge.getUrl() + "lights/" + deviceId + "/state";
-        WebResource webResource = client.resource(targetURL);
-
-        ClientResponse response = webResource.type("application/json").put(ClientResponse.class, message);
-
-        logger.debug("Sent message: '" + message + "' to " + targetURL);
+    private void executeMessage(Map<String, Object> state) {
+        bridge.setLightState(deviceId, state);
+    }
 
-        if (response.getStatus() != 200) {
-            logger.error("Failed to connect to Hue bridge: HTTP error code: " + response.getStatus());
+    /**
+     * Creates the attributes of a state change.
+     * 
+     * @param namesAndValues
+     *            The names of the attributes, each followed by its value.
+     */
+    private static Map<String, Object> state(Object... namesAndValues) {
+        Map<String, Object> state = new LinkedHashMap<String, Object>();
+        for (int i = 0; i + 1 < namesAndValues.length; i += 2) {
+            state.put((String) namesAndValues[i], namesAndValues[i + 1]);
         }
+        return state;
     }
 
     /**
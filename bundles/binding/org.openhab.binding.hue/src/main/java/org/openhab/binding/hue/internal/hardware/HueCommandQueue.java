@@ -0,0 +1,289 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.hue.internal.hardware;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Queues the state changes for the lights of a Hue bridge and sends them at
+ * the rate the bridge can handle, which is about 10 light commands and 1 group
+ * command per second.
+ *
+ * While a state change is waiting, further changes for the same light are
+ * merged into it, the last value of every attribute wins. When several lights
+ * are waiting for the same state and they make up a group known to the
+ * bridge, a single group command is sent instead.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+class HueCommandQueue implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(HueCommandQueue.class);
+
+    static final double LIGHT_COMMANDS_PER_SECOND = 10;
+    static final double GROUP_COMMANDS_PER_SECOND = 1;
+
+    /** the minimum number of lights with the same state to send a group command */
+    static final int MIN_LIGHTS_PER_GROUP = 3;
+
+    /**
+     * Sends the state of a light or group to the bridge
+     */
+    interface Sender {
+        void sendLightState(String lightId, Map<String, Object> state);
+
+        void sendGroupAction(String groupId, Map<String, Object> state);
+    }
+
+    private final Sender sender;
+    private final String name;
+
+    /** the merged state changes by light, in the order the lights were changed first */
+    private final LinkedHashMap<String, Map<String, Object>> pendingStates = new LinkedHashMap<String, Map<String, Object>>();
+
+    /** the lights of the groups known to the bridge, by group */
+    private Map<String, Set<String>> groups = Collections.emptyMap();
+
+    private final TokenBucket lightTokens = new TokenBucket(LIGHT_COMMANDS_PER_SECOND);
+    private final TokenBucket groupTokens = new TokenBucket(GROUP_COMMANDS_PER_SECOND);
+
+    private Thread thread;
+    private boolean running = true;
+
+    private long requestedCount;
+    private long coalescedCount;
+    private long lightCommandCount;
+    private long groupCommandCount;
+
+    HueCommandQueue(String name, Sender sender) {
+        this.name = name;
+        this.sender = sender;
+    }
+
+    /**
+     * Queues a state change for a light
+     *
+     * @param lightId
+     *            the id of the light
+     * @param state
+     *            the attributes to change
+     */
+    synchronized void add(String lightId, Map<String, Object> state) {
+        if (!running) {
+            logger.debug("Discarding state {} for light {}, the bridge is disposed", state, lightId);
+            return;
+        }
+        requestedCount++;
+        Map<String, Object> pending = pendingStates.get(lightId);
+        if (pending == null) {
+            pendingStates.put(lightId, new LinkedHashMap<String, Object>(state));
+        } else {
+            pending.putAll(state);
+            coalescedCount++;
+        }
+
+        if (thread == null) {
+            thread = new Thread(this, "Hue command queue " + name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        notifyAll();
+    }
+
+    /**
+     * Sets the groups which can be used to change several lights at once
+     *
+     * @param groups
+     *            the ids of the lights by group id
+     */
+    synchronized void setGroups(Map<String, Set<String>> groups) {
+        this.groups = groups;
+    }
+
+    /**
+     * Stops sending, pending state changes are discarded
+     */
+    synchronized void dispose() {
+        running = false;
+        pendingStates.clear();
+        notifyAll();
+    }
+
+    /**
+     * Returns a summary of the commands received and sent
+     */
+    synchronized String getStatistics() {
+        return String.format("%d state changes: %d coalesced, %d sent as %d light and %d group commands, %d pending",
+                requestedCount, coalescedCount, requestedCount - coalescedCount - pendingStates.size(),
+                lightCommandCount, groupCommandCount, pendingStates.size());
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                synchronized (this) {
+                    while (running && pendingStates.isEmpty()) {
+                        wait();
+                    }
+                    if (!running) {
+                        return;
+                    }
+                }
+
+                // give further changes the chance to be merged while waiting for the bridge
+                lightTokens.acquire();
+
+                Command command;
+                synchronized (this) {
+                    command = nextCommand();
+                }
+                if (command == null) {
+                    continue;
+                }
+
+                try {
+                    if (command.groupId != null) {
+                        logger.debug("Sending state {} to group {} instead of lights {}", command.state,
+                                command.groupId, command.lightIds);
+                        sender.sendGroupAction(command.groupId, command.state);
+                    } else {
+                        sender.sendLightState(command.lightIds.get(0), command.state);
+                    }
+                } catch (RuntimeException e) {
+                    logger.error("Failed to send state {} to Hue bridge: {}", command.state, e.getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            logger.debug("Hue command queue {} interrupted", name);
+        }
+    }
+
+    /**
+     * Takes the next command to send from the pending state changes, the
+     * oldest change first.
+     */
+    private Command nextCommand() {
+        Iterator<Map.Entry<String, Map<String, Object>>> iterator = pendingStates.entrySet().iterator();
+        if (!iterator.hasNext()) {
+            return null;
+        }
+        Map.Entry<String, Map<String, Object>> first = iterator.next();
+        Map<String, Object> state = first.getValue();
+
+        // the lights waiting for the same state as the oldest change
+        Set<String> sameState = new HashSet<String>();
+        for (Map.Entry<String, Map<String, Object>> entry : pendingStates.entrySet()) {
+            if (entry.getValue().equals(state)) {
+                sameState.add(entry.getKey());
+            }
+        }
+
+        if (sameState.size() >= MIN_LIGHTS_PER_GROUP) {
+            String groupId = findLargestGroup(sameState, first.getKey());
+            if (groupId != null && groupTokens.tryAcquire()) {
+                List<String> lightIds = new ArrayList<String>(groups.get(groupId));
+                pendingStates.keySet().removeAll(lightIds);
+                groupCommandCount++;
+                return new Command(groupId, lightIds, state);
+            }
+        }
+
+        iterator.remove();
+        lightCommandCount++;
+        return new Command(null, Collections.singletonList(first.getKey()), state);
+    }
+
+    /**
+     * Finds the largest group which contains the given light and only lights
+     * of the given set
+     */
+    private String findLargestGroup(Set<String> lightIds, String lightId) {
+        String largestGroup = null;
+        int largestSize = MIN_LIGHTS_PER_GROUP - 1;
+        for (Map.Entry<String, Set<String>> group : groups.entrySet()) {
+            Set<String> groupLights = group.getValue();
+            if (groupLights.size() > largestSize && groupLights.contains(lightId) && lightIds.containsAll(groupLights)) {
+                largestGroup = group.getKey();
+                largestSize = groupLights.size();
+            }
+        }
+        return largestGroup;
+    }
+
+    private static class Command {
+        private final String groupId;
+        private final List<String> lightIds;
+        private final Map<String, Object> state;
+
+        Command(String groupId, List<String> lightIds, Map<String, Object> state) {
+            this.groupId = groupId;
+            this.lightIds = lightIds;
+            this.state = state;
+        }
+    }
+
+    /**
+     * A token bucket which allows bursts of up to one second of commands
+     */
+    static class TokenBucket {
+
+        private final double tokensPerMillisecond;
+        private final double capacity;
+        private double tokens;
+        private long lastRefill = System.currentTimeMillis();
+
+        TokenBucket(double tokensPerSecond) {
+            this.tokensPerMillisecond = tokensPerSecond / 1000;
+            this.capacity = Math.max(1, tokensPerSecond);
+            this.tokens = capacity;
+        }
+
+        synchronized boolean tryAcquire() {
+            refill();
+            if (tokens >= 1) {
+                tokens--;
+                return true;
+            }
+            return false;
+        }
+
+        void acquire() throws InterruptedException {
+            while (true) {
+                long waitTime;
+                synchronized (this) {
+                    refill();
+                    if (tokens >= 1) {
+                        tokens--;
+                        return;
+                    }
+                    waitTime = (long) Math.ceil((1 - tokens) / tokensPerMillisecond);
+                }
+                Thread.sleep(Math.max(1, waitTime));
+            }
+        }
+
+        private void refill() {
+            long now = System.currentTimeMillis();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerMillisecond);
+            lastRefill = now;
+        }
+    }
+}
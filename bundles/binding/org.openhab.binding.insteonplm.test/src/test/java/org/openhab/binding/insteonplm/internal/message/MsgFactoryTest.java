@@ -0,0 +1,265 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.insteonplm.internal.message;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.openhab.binding.insteonplm.internal.device.InsteonAddress;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tests that frames as received from the PLM are parsed by the {@link MsgFactory} into
+ * {@link Msg}s with the bytes of the frame, and that building the same message from its
+ * definition gives the same bytes again. Also logs the time needed to decode a stream of
+ * frames.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class MsgFactoryTest {
+    private static final Logger logger = LoggerFactory.getLogger(MsgFactoryTest.class);
+
+    private static final String USER_DATA = " 01 02 03 04 05 06 07 08 09 0A 0B 0C 0D 0E";
+
+    /** sample frames from the PLM with the name of their message definition */
+    private static final String[][] FRAMES = {
+            { "StandardMessageReceived", "02 50 1A 2B 3C 11 22 33 2B 11 FF" },
+            { "StandardMessageReceived", "02 50 1A 2B 3C 00 00 01 CB 11 00" },
+            { "StandardMessageReceived", "02 50 1A 2B 3C 11 22 33 41 11 01" },
+            { "ExtendedMessageReceived", "02 51 1A 2B 3C 11 22 33 1B 2E 00" + USER_DATA },
+            { "X10Received", "02 52 66 00" },
+            { "ALLLinkingCompleted", "02 53 01 01 1A 2B 3C 01 20 41" },
+            { "ALLLinkCleanupFailureReport", "02 56 01 1A 2B 3C" },
+            { "ALLLinkRecordResponse", "02 57 E2 01 1A 2B 3C 01 20 41" },
+            { "ALLLinkCleanupStatusReport", "02 58 06" },
+            { "GetIMInfoReply", "02 60 11 22 33 03 37 9C 06" },
+            { "SendStandardMessageReply", "02 62 1A 2B 3C 0F 19 00 06" },
+            { "SendExtendedMessageReply", "02 62 1A 2B 3C 1F 2E 00" + USER_DATA + " 06" },
+            { "GetFirstALLLinkRecordReply", "02 69 15" } };
+
+    private static final int STREAM_FRAMES = 20000;
+
+    private static byte[] bytes(String hex) {
+        String[] parts = hex.split(" ");
+        byte[] bytes = new byte[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(parts[i], 16);
+        }
+        return bytes;
+    }
+
+    /**
+     * Feeds the data in chunks of random length to the factory and returns the messages.
+     */
+    private static List<Msg> parse(MsgFactory factory, byte[] data, Random random, int maxChunk)
+            throws IOException {
+        List<Msg> msgs = new ArrayList<Msg>();
+        byte[] chunk = new byte[maxChunk];
+        int pos = 0;
+        while (pos < data.length) {
+            int len = Math.min(1 + random.nextInt(maxChunk), data.length - pos);
+            System.arraycopy(data, pos, chunk, 0, len);
+            pos += len;
+            factory.addData(chunk, len);
+            Msg msg;
+            while ((msg = factory.processData()) != null) {
+                msgs.add(msg);
+            }
+        }
+        return msgs;
+    }
+
+    private static Msg parseFrame(byte[] frame) throws IOException {
+        MsgFactory factory = new MsgFactory();
+        factory.addData(frame, frame.length);
+        Msg msg = factory.processData();
+        assertNull(factory.processData());
+        return msg;
+    }
+
+    /**
+     * Builds the message from its definition with the field values of the given message.
+     */
+    private static Msg build(String name, Msg values) throws IOException, FieldException {
+        Msg msg = Msg.s_makeMessage(name);
+        for (Field field : msg.getDefinition().getSortedFields()) {
+            if (field.getType() == DataType.ADDRESS) {
+                msg.setAddress(field.getName(), values.getAddress(field.getName()));
+            } else {
+                msg.setByte(field.getName(), values.getByte(field.getName()));
+            }
+        }
+        return msg;
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        for (String[] frame : FRAMES) {
+            byte[] data = bytes(frame[1]);
+            Msg msg = parseFrame(data);
+            assertNotNull(frame[1], msg);
+            assertArrayEquals(frame[1], data, msg.getData());
+
+            Msg built = build(frame[0], msg);
+            assertSame(frame[0], msg.getDefinition(), built.getDefinition());
+            assertArrayEquals(frame[0], data, built.getData());
+            assertEquals(frame[0], msg.isExtended(), built.isExtended());
+            assertEquals(frame[0], msg.isEcho(), built.isEcho());
+        }
+    }
+
+    @Test
+    public void testMessageTypes() throws Exception {
+        Msg ackOfDirect = parseFrame(bytes(FRAMES[0][1]));
+        assertTrue(ackOfDirect.isAckOfDirect());
+        assertFalse(ackOfDirect.isBroadcast());
+        assertFalse(ackOfDirect.isEcho());
+        assertEquals(new InsteonAddress("1A.2B.3C"), ackOfDirect.getAddr("fromAddress"));
+        assertEquals((byte) 0xff, ackOfDirect.getByte("command2"));
+
+        assertTrue(parseFrame(bytes(FRAMES[1][1])).isBroadcast());
+        assertTrue(parseFrame(bytes(FRAMES[2][1])).isCleanup());
+        assertTrue(parseFrame(bytes(FRAMES[3][1])).isExtended());
+        assertTrue(parseFrame(bytes(FRAMES[4][1])).isX10());
+        assertFalse(parseFrame(bytes(FRAMES[5][1])).isX10());
+        assertTrue(parseFrame(bytes(FRAMES[10][1])).isEcho());
+        assertTrue(parseFrame(bytes(FRAMES[11][1])).isExtended());
+
+        Msg pureNack = parseFrame(new byte[] { 0x15 });
+        assertTrue(pureNack.isPureNack());
+        assertTrue(pureNack.isEcho());
+    }
+
+    @Test
+    public void testDefinitionIsCopiedOnWrite() throws Exception {
+        Msg template = Msg.s_makeMessage("SendStandardMessage");
+        Msg msg = Msg.s_makeMessage("SendStandardMessage");
+        MsgDefinition shared = msg.getDefinition();
+        assertSame(template.getDefinition(), shared);
+
+        msg.setByte("command1", (byte) 0x11);
+        assertSame(shared, msg.getDefinition());
+        assertEquals(0, template.getByte("command1"));
+
+        msg.addField(new Field("extra", DataType.BYTE, 7));
+        assertTrue(msg.getDefinition() != shared);
+        assertTrue(msg.getDefinition().containsField("extra"));
+        assertEquals("extra", msg.getDefinition().getSortedFields()[msg.getDefinition().getSortedFields().length - 1]
+                .getName());
+        assertEquals((byte) 0x11, msg.getByte("command1"));
+
+        // neither the template nor the received messages see the field
+        assertFalse(shared.containsField("extra"));
+        assertFalse(Msg.s_makeMessage("SendStandardMessage").getDefinition().containsField("extra"));
+        Msg received = parseFrame(bytes(FRAMES[10][1]));
+        received.addField(new Field("extra", DataType.BYTE, 8));
+        assertFalse(parseFrame(bytes(FRAMES[10][1])).getDefinition().containsField("extra"));
+    }
+
+    @Test
+    public void testStreamInChunks() throws Exception {
+        Random random = new Random(4711);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        List<String[]> expected = new ArrayList<String[]>();
+        // more than the 4096 bytes of the receive buffer, so the unprocessed data is moved
+        for (int i = 0; i < 2000; i++) {
+            String[] frame = FRAMES[random.nextInt(FRAMES.length)];
+            byte[] data = bytes(frame[1]);
+            stream.write(data, 0, data.length);
+            expected.add(frame);
+        }
+
+        for (int maxChunk : new int[] { 1, 7, 32, 300 }) {
+            List<Msg> msgs = parse(new MsgFactory(), stream.toByteArray(), random, maxChunk);
+            assertEquals(expected.size(), msgs.size());
+            for (int i = 0; i < msgs.size(); i++) {
+                assertArrayEquals(expected.get(i)[1], bytes(expected.get(i)[1]), msgs.get(i).getData());
+            }
+        }
+    }
+
+    @Test
+    public void testGarbageIsDrained() throws Exception {
+        MsgFactory factory = new MsgFactory();
+        byte[] data = bytes("7E 7F " + FRAMES[0][1] + " 02 FD 01 " + FRAMES[9][1]);
+        factory.addData(data, data.length);
+        try {
+            factory.processData();
+            fail("IOException expected");
+        } catch (IOException e) {
+            // the leading bytes are dropped
+        }
+        assertArrayEquals(bytes(FRAMES[0][1]), factory.processData().getData());
+        try {
+            factory.processData();
+            fail("IOException expected");
+        } catch (IOException e) {
+            // unknown command code
+        }
+        assertArrayEquals(bytes(FRAMES[9][1]), factory.processData().getData());
+        assertNull(factory.processData());
+    }
+
+    @Test
+    public void testPerformance() throws Exception {
+        Random random = new Random(42);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        for (int i = 0; i < STREAM_FRAMES; i++) {
+            // mostly standard messages, some extended messages and echoes
+            byte[] data = bytes(FRAMES[random.nextInt(5) == 0 ? 10 + random.nextInt(2) : random.nextInt(4)][1]);
+            stream.write(data, 0, data.length);
+        }
+        byte[] data = stream.toByteArray();
+
+        long parseTime = 0;
+        int checksum = 0;
+        for (int round = 0; round < 5; round++) {
+            // only the last round is measured, the others warm up the jvm
+            long start = System.nanoTime();
+            for (Msg msg : parse(new MsgFactory(), data, random, 32)) {
+                // what the binding and the dispatchers look at for each message
+                if (msg.isEcho() || msg.isPureNack() || msg.isX10()) {
+                    continue;
+                }
+                checksum += msg.getAddr("fromAddress").hashCode() + msg.getByte("command1");
+                if (msg.isBroadcast() || msg.isAllLinkCleanupAckOrNack() || msg.isAckOfDirect()
+                        || msg.isCleanup() || msg.isExtended()) {
+                    checksum++;
+                }
+            }
+            parseTime = System.nanoTime() - start;
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < STREAM_FRAMES; i++) {
+            Msg msg = Msg.s_makeMessage("SendStandardMessage");
+            msg.setByte("command1", (byte) 0x19);
+            msg.setByte("messageFlags", (byte) 0x0f);
+        }
+        long buildTime = System.nanoTime() - start;
+
+        logger.debug("Insteon PLM stream of {} frames: {} ns per message parsed, {} ns per message built (check {})",
+                STREAM_FRAMES, parseTime / STREAM_FRAMES, buildTime / STREAM_FRAMES, checksum);
+    }
+}
@@ -692,6 +692,7 @@ public class InsteonPLMActiveBinding extends AbstractActiveBinding<InsteonPLMBin
                 logger.info("device {} has not responded to polls for {} sec", dev.toString(),
                         dev.getPollOverDueTime() / 3600);
             }
+            logger.debug("device {} {}", dev.getAddress(), dev.getLatencyStatistics());
         }
     }
 
@@ -51,6 +51,8 @@ public class InsteonDevice {
     private String m_productKey = null;
     private Long m_lastTimePolled = 0L;
     private Long m_lastMsgReceived = 0L;
+    private long m_lastBroadcastReceived = 0L;
+    private boolean m_lastPollSkipped = false;
     private boolean m_isModem = false;
     private PriorityQueue<QEntry> m_requestQueue = new PriorityQueue<QEntry>();
     private DeviceFeature m_featureQueried = null;
@@ -58,7 +60,15 @@ public class InsteonDevice {
     private static final int QUIET_TIME_DIRECT_MESSAGE = 2000;
     /** how far to space out poll messages */
     private static final int TIME_BETWEEN_POLL_MESSAGES = 1500;
+    /** lower bound for the quiet time after a query, however fast the device replies */
+    private static final int MIN_QUIET_TIME_DIRECT_MESSAGE = 500;
+    /** weight of a new sample in the moving average of the reply latency */
+    private static final double LATENCY_SMOOTHING = 0.2;
     private long m_lastQueryTime = 0L;
+    private double m_avgReplyLatency = -1.0; // in milliseconds, negative until the first reply
+    private long m_maxReplyLatency = 0L;
+    private int m_numReplies = 0;
+    private int m_numTimeouts = 0;
     private boolean m_hasModemDBEntry = false;
     private DeviceStatus m_status = DeviceStatus.INITIALIZED;
 
@@ -135,6 +145,37 @@ public class InsteonDevice {
         return (m_lastTimePolled - m_lastMsgReceived);
     }
 
+    /**
+     * Get the time to wait after a direct message before the next message is sent to this device.
+     * Duplicate replies arrive within about the time the device needs to reply, so the quiet time is
+     * twice the average reply latency, but no longer than the fixed quiet time used before the
+     * first reply has been measured.
+     *
+     * @return quiet time in milliseconds
+     */
+    public long getDirectQuietTime() {
+        synchronized (m_requestQueue) {
+            if (m_avgReplyLatency < 0) {
+                return QUIET_TIME_DIRECT_MESSAGE;
+            }
+            long t = Math.round(2 * m_avgReplyLatency);
+            return Math.max(MIN_QUIET_TIME_DIRECT_MESSAGE, Math.min(QUIET_TIME_DIRECT_MESSAGE, t));
+        }
+    }
+
+    /**
+     * Get the reply latency statistics of this device, for logging
+     *
+     * @return string with average and maximum latency, replies and timeouts
+     */
+    public String getLatencyStatistics() {
+        synchronized (m_requestQueue) {
+            return String.format("latency avg: %4d ms max: %4d ms, quiet time: %4d ms, replies: %5d timeouts: %3d",
+                    Math.round(Math.max(0, m_avgReplyLatency)), m_maxReplyLatency, getDirectQuietTime(),
+                    m_numReplies, m_numTimeouts);
+        }
+    }
+
     public String getPort() throws IOException {
         if (m_ports.isEmpty()) {
             throw new IOException("no ports configured for instrument " + getAddress());
@@ -248,6 +289,26 @@ public class InsteonDevice {
         }
     }
 
+    /**
+     * Called by the poller when this device is due. A device that sent a broadcast
+     * within the last half poll interval has just reported its state and is not
+     * polled, but at most one poll in a row is skipped in case the broadcast did
+     * not cover all features.
+     */
+    public void doPeriodicPoll() {
+        long now = System.currentTimeMillis();
+        synchronized (m_requestQueue) {
+            if (!m_lastPollSkipped && now - m_lastBroadcastReceived < m_pollInterval / 2) {
+                logger.debug("skipping poll of {}, it sent a broadcast {} msec ago", m_address,
+                        now - m_lastBroadcastReceived);
+                m_lastPollSkipped = true;
+                return;
+            }
+            m_lastPollSkipped = false;
+        }
+        doPoll(0);
+    }
+
     /**
      * Execute poll on this device: create an array of messages,
      * add them to the request queue, and schedule the queue
@@ -264,7 +325,7 @@ public class InsteonDevice {
                 if (i.hasListeners()) {
                     Msg m = i.makePollMsg();
                     if (m != null) {
-                        l.add(new QEntry(i, m, now + delay + spacing));
+                        l.add(new QEntry(i, m, now + delay + spacing, true));
                         spacing += TIME_BETWEEN_POLL_MESSAGES;
                     }
                 }
@@ -295,9 +356,16 @@ public class InsteonDevice {
      * @param msg the incoming message
      */
     public void handleMessage(String fromPort, Msg msg) {
+        long now = System.currentTimeMillis();
         synchronized (m_lastMsgReceived) {
-            m_lastMsgReceived = System.currentTimeMillis();
+            m_lastMsgReceived = now;
+        }
+        if (msg.isBroadcast()) {
+            synchronized (m_requestQueue) {
+                m_lastBroadcastReceived = now;
+            }
         }
+        boolean handledReply = false;
         synchronized (m_features) {
             // first update all features that are
             // not status features
@@ -307,7 +375,7 @@ public class InsteonDevice {
                         // handled a reply to a query,
                         // mark it as processed
                         logger.trace("handled reply of direct: {}", f);
-                        setFeatureQueried(null);
+                        handledReply = true;
                         break;
                     }
                 }
@@ -320,6 +388,35 @@ public class InsteonDevice {
                 }
             }
         }
+        if (handledReply) {
+            replyReceived(now);
+        }
+    }
+
+    /**
+     * Marks the pending query as answered, updates the latency statistics and
+     * reschedules the request queue right after the quiet time instead of
+     * waiting for the next retry.
+     *
+     * @param now time when the reply was received
+     */
+    private void replyReceived(long now) {
+        long nextTime;
+        synchronized (m_requestQueue) {
+            if (m_featureQueried != null && m_lastQueryTime > 0) {
+                long latency = now - m_lastQueryTime;
+                m_avgReplyLatency = m_avgReplyLatency < 0 ? latency
+                        : (1 - LATENCY_SMOOTHING) * m_avgReplyLatency + LATENCY_SMOOTHING * latency;
+                m_maxReplyLatency = Math.max(m_maxReplyLatency, latency);
+                m_numReplies++;
+            }
+            m_featureQueried = null;
+            if (m_requestQueue.isEmpty()) {
+                return;
+            }
+            nextTime = Math.max(m_lastQueryTime + getDirectQuietTime(), m_requestQueue.peek().getExpirationTime());
+        }
+        RequestQueueManager.s_instance().addQueue(this, nextTime);
     }
 
     /**
@@ -449,12 +546,15 @@ public class InsteonDevice {
                 long dt = timeNow - (m_lastQueryTime + m_featureQueried.getDirectAckTimeout());
                 if (dt < 0) {
                     logger.debug("still waiting for query reply from {} for another {} usec", m_address, -dt);
-                    return (timeNow + 2000L); // retry soon
+                    // retry soon, a reply reschedules the queue right away
+                    return (timeNow + Math.min(2000L, -dt));
                 } else {
                     logger.debug("gave up waiting for query reply from device {}", m_address);
+                    m_numTimeouts++;
+                    m_featureQueried = null;
                 }
             }
-            QEntry qe = m_requestQueue.poll(); // take it off the queue!
+            QEntry qe = takeNextEntry(timeNow);
             if (!qe.getMsg().isBroadcast()) {
                 logger.debug("qe taken off direct: {} {}", qe.getFeature(), qe.getMsg());
                 m_lastQueryTime = timeNow;
@@ -466,6 +566,9 @@ public class InsteonDevice {
                 logger.debug("qe taken off bcast: {} {}", qe.getFeature(), qe.getMsg());
             }
             long quietTime = qe.getMsg().getQuietTime();
+            if (!qe.getMsg().isBroadcast()) {
+                quietTime = Math.min(quietTime, getDirectQuietTime());
+            }
             qe.getMsg().setQuietTime(500L); // rate limiting downstream!
             try {
                 writeMessage(qe.getMsg());
@@ -481,6 +584,33 @@ public class InsteonDevice {
         }
     }
 
+    /**
+     * Takes the next entry off the request queue. Commands that are due go
+     * ahead of polls, so the user does not have to wait for a poll to finish.
+     * Must be called with the request queue locked.
+     *
+     * @param timeNow the current time
+     * @return the entry to send next
+     */
+    private QEntry takeNextEntry(long timeNow) {
+        QEntry head = m_requestQueue.peek();
+        if (head.isPoll()) {
+            QEntry command = null;
+            for (QEntry e : m_requestQueue) {
+                if (!e.isPoll() && e.getExpirationTime() <= timeNow
+                        && (command == null || e.compareTo(command) < 0)) {
+                    command = e;
+                }
+            }
+            if (command != null) {
+                logger.debug("sending command to {} ahead of poll", m_address);
+                m_requestQueue.remove(command);
+                return command;
+            }
+        }
+        return m_requestQueue.poll();
+    }
+
     /**
      * Enqueues message to be sent at the next possible time
      * 
@@ -501,7 +631,7 @@ public class InsteonDevice {
     public void enqueueDelayedMessage(Msg m, DeviceFeature f, long delay) {
         long now = System.currentTimeMillis();
         synchronized (m_requestQueue) {
-            m_requestQueue.add(new QEntry(f, m, now + delay));
+            m_requestQueue.add(new QEntry(f, m, now + delay, false));
         }
         if (!m.isBroadcast()) {
             m.setQuietTime(QUIET_TIME_DIRECT_MESSAGE);
@@ -584,6 +714,7 @@ public class InsteonDevice {
         private DeviceFeature m_feature = null;
         private Msg m_msg = null;
         private long m_expirationTime = 0L;
+        private boolean m_isPoll = false;
 
         public DeviceFeature getFeature() {
             return m_feature;
@@ -597,15 +728,20 @@ public class InsteonDevice {
             return m_expirationTime;
         }
 
-        QEntry(DeviceFeature f, Msg m, long t) {
+        public boolean isPoll() {
+            return m_isPoll;
+        }
+
+        QEntry(DeviceFeature f, Msg m, long t, boolean isPoll) {
             m_feature = f;
             m_msg = m;
             m_expirationTime = t;
+            m_isPoll = isPoll;
         }
 
         @Override
         public int compareTo(QEntry a) {
-            return (int) (m_expirationTime - a.m_expirationTime);
+            return Long.compare(m_expirationTime, a.m_expirationTime);
         }
     }
 }
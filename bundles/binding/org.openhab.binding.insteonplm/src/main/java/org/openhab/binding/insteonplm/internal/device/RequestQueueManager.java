@@ -172,7 +172,7 @@ public class RequestQueueManager {
 
         @Override
         public int compareTo(RequestQueue a) {
-            return (int) (m_expirationTime - a.m_expirationTime);
+            return Long.compare(m_expirationTime, a.m_expirationTime);
         }
     }
 
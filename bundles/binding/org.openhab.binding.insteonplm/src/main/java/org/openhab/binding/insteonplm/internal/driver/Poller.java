@@ -26,7 +26,7 @@ import org.slf4j.LoggerFactory;
  * - An entry in the poll queue corresponds to a single device, i.e. each device should
  * have exactly one entry in the poll queue. That entry is created when startPolling()
  * is called, and then re-enqueued whenever it expires.
- * - When a device comes up for polling, its doPoll() method is called, which in turn
+ * - When a device comes up for polling, its doPeriodicPoll() method is called, which in turn
  * puts an entry into that devices request queue. So the Poller class actually never
  * sends out messages directly. That is done by the device itself via its request
  * queue. The poller just reminds the device to poll.
@@ -234,7 +234,7 @@ public class Poller {
          */
         private void processQueue(long now) {
             PQEntry pqe = m_pollQueue.pollFirst();
-            pqe.getDevice().doPoll(0);
+            pqe.getDevice().doPeriodicPoll();
             addToPollQueue(pqe.getDevice(), now + pqe.getDevice().getPollInterval());
         }
     }
@@ -265,7 +265,7 @@ public class Poller {
 
         @Override
         public int compareTo(PQEntry b) {
-            return (int) (m_expirationTime - b.m_expirationTime);
+            return Long.compare(m_expirationTime, b.m_expirationTime);
         }
 
         @Override
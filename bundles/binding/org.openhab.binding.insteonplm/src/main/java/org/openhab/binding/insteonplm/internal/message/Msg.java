@@ -11,9 +11,7 @@ package org.openhab.binding.insteonplm.internal.message;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
-import java.util.Comparator;
 import java.util.HashMap;
-import java.util.TreeSet;
 
 import org.openhab.binding.insteonplm.internal.device.InsteonAddress;
 import org.openhab.binding.insteonplm.internal.utils.Utils;
@@ -66,14 +64,16 @@ public class Msg {
 
     // has the structure of all known messages
     private static final HashMap<String, Msg> s_msgMap = new HashMap<String, Msg>();
-    // maps between command number and the length of the header
-    private static final HashMap<Integer, Integer> s_headerMap = new HashMap<Integer, Integer>();
-    // has templates for all message from modem to host
-    private static final HashMap<Integer, Msg> s_replyMap = new HashMap<Integer, Msg>();
+    // maps between command number and the length of the header, -1 for unknown commands
+    private static final int[] s_headerLengths = new int[256];
+    // has templates for all message from modem to host, indexed by s_cmdToKey()
+    private static final Msg[] s_replyTemplates = new Msg[512];
 
     private int m_headerLength = -1;
     private byte[] m_data = null;
     private MsgDefinition m_definition = new MsgDefinition();
+    // true if the definition is shared with the template, it must be copied before it is changed
+    private boolean m_sharedDefinition = false;
     private Direction m_direction = Direction.TO_MODEM;
     private long m_quietTime = 0;
 
@@ -86,9 +86,22 @@ public class Msg {
      * @param dir direction of the message (from/to modem)
      */
     public Msg(int headerLength, byte[] data, int dataLength, Direction dir) {
+        this(headerLength, data, 0, dataLength, dir);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param headerLength length of message header (in bytes)
+     * @param data byte array with message
+     * @param offset offset of the message in the byte array
+     * @param dataLength length of the message (in bytes)
+     * @param dir direction of the message (from/to modem)
+     */
+    private Msg(int headerLength, byte[] data, int offset, int dataLength, Direction dir) {
         m_headerLength = headerLength;
         m_direction = dir;
-        initialize(data, 0, dataLength);
+        initialize(data, offset, dataLength);
     }
 
     /**
@@ -100,8 +113,9 @@ public class Msg {
     public Msg(Msg m) {
         m_headerLength = m.m_headerLength;
         m_data = m.m_data.clone();
-        // the message definition usually doesn't change, but just to be sure...
-        m_definition = new MsgDefinition(m.m_definition);
+        // the message definition usually doesn't change, it is copied when a field is added
+        m_definition = m.m_definition;
+        m_sharedDefinition = true;
         m_direction = m.m_direction;
     }
 
@@ -124,7 +138,7 @@ public class Msg {
             logger.error("got field exception while parsing xml insteon message definitions", e);
         }
         s_buildHeaderMap();
-        s_buildLengthMap();
+        s_buildReplyMap();
     }
 
     //
@@ -177,11 +191,12 @@ public class Msg {
         if (m_definition == null) {
             return false;
         }
-        if (!m_definition.containsField("messageFlags")) {
+        Field f = m_definition.getMessageFlagsField();
+        if (f == null) {
             return (false);
         }
         try {
-            byte flags = getByte("messageFlags");
+            byte flags = f.getByte(m_data);
             return ((flags & 0x10) == 0x10);
         } catch (FieldException e) {
             // do nothing
@@ -192,7 +207,7 @@ public class Msg {
     public boolean isUnsolicited() {
         // if the message has an ACK/NACK, it is in response to our message,
         // otherwise it is out-of-band, i.e. unsolicited
-        return (m_definition != null) && (!m_definition.containsField("ACK/NACK"));
+        return (m_definition != null) && (m_definition.getAckNackField() == null);
     }
 
     public boolean isEcho() {
@@ -200,8 +215,12 @@ public class Msg {
     }
 
     public boolean isOfType(MsgType mt) {
+        Field f = (m_definition == null) ? null : m_definition.getMessageFlagsField();
+        if (f == null) {
+            return false;
+        }
         try {
-            MsgType t = MsgType.s_fromValue(getByte("messageFlags"));
+            MsgType t = MsgType.s_fromValue(f.getByte(m_data));
             return (t == mt);
         } catch (FieldException e) {
             return false;
@@ -229,8 +248,12 @@ public class Msg {
     }
 
     public boolean isX10() {
+        Field f = (m_definition == null) ? null : m_definition.getCmdField();
+        if (f == null) {
+            return false;
+        }
         try {
-            int cmd = getByte("Cmd") & 0xff;
+            int cmd = f.getByte(m_data) & 0xff;
             if (cmd == 0x63 || cmd == 0x52) {
                 return true;
             }
@@ -241,6 +264,7 @@ public class Msg {
 
     public void setDefinition(MsgDefinition d) {
         m_definition = d;
+        m_sharedDefinition = false;
     }
 
     public void setQuietTime(long t) {
@@ -251,6 +275,10 @@ public class Msg {
         if (m_definition == null) {
             return;
         }
+        if (m_sharedDefinition) {
+            m_definition = new MsgDefinition(m_definition);
+            m_sharedDefinition = false;
+        }
         m_definition.addField(f);
     }
 
@@ -281,7 +309,7 @@ public class Msg {
      */
     private void initialize(byte[] data, int offset, int len) {
         m_data = new byte[len];
-        if (offset >= 0 && offset < data.length) {
+        if (offset >= 0 && offset + len <= data.length) {
             System.arraycopy(data, offset, m_data, 0, len);
         } else {
             logger.error("intialize(): Offset out of bounds!");
@@ -484,18 +512,7 @@ public class Msg {
         if (m_definition == null || m_data == null) {
             return toHexString();
         }
-        // need to first sort the fields by offset
-        Comparator<Field> cmp = new Comparator<Field>() {
-            @Override
-            public int compare(Field f1, Field f2) {
-                return f1.getOffset() - f2.getOffset();
-            }
-        };
-        TreeSet<Field> fields = new TreeSet<Field>(cmp);
-        for (Field f : m_definition.getFields().values()) {
-            fields.add(f);
-        }
-        for (Field f : fields) {
+        for (Field f : m_definition.getSortedFields()) {
             if (f.getName().equals("messageFlags")) {
                 byte b;
                 try {
@@ -524,10 +541,25 @@ public class Msg {
      * @return message, or null if the Msg cannot be created
      */
     public static Msg s_createMessage(byte[] m_buf, int msgLen, boolean isExtended) {
-        if (m_buf == null || m_buf.length < 2) {
+        return s_createMessage(m_buf, 0, msgLen, isExtended);
+    }
+
+    /**
+     * Factory method to create Msg from raw byte stream received from the
+     * serial port. The message is copied out of the buffer, which may be
+     * reused for the next message.
+     * 
+     * @param buf the buffer with the raw received bytes
+     * @param offset the offset of the message in the buffer
+     * @param msgLen length of the message
+     * @param isExtended whether it is an extended message or not
+     * @return message, or null if the Msg cannot be created
+     */
+    public static Msg s_createMessage(byte[] buf, int offset, int msgLen, boolean isExtended) {
+        if (buf == null || buf.length < offset + 2) {
             return null;
         }
-        Msg template = s_replyMap.get(s_cmdToKey(m_buf[1], isExtended));
+        Msg template = s_replyTemplates[s_cmdToKey(buf[offset + 1], isExtended)];
         if (template == null) {
             return null; // cannot find lookup map
         }
@@ -535,8 +567,10 @@ public class Msg {
             logger.error("expected msg {} len {}, got {}", template.getCommandNumber(), template.getLength(), msgLen);
             return null;
         }
-        Msg msg = new Msg(template.getHeaderLength(), m_buf, msgLen, Direction.FROM_MODEM);
-        msg.setDefinition(template.getDefinition());
+        Msg msg = new Msg(template.getHeaderLength(), buf, offset, msgLen, Direction.FROM_MODEM);
+        // the definitions of received messages are never changed, they can all share the template's
+        msg.m_definition = template.getDefinition();
+        msg.m_sharedDefinition = true;
         return (msg);
     }
 
@@ -547,11 +581,7 @@ public class Msg {
      * @return the length of the header to expect
      */
     public static int s_getHeaderLength(byte cmd) {
-        Integer len = s_headerMap.get(new Integer(cmd));
-        if (len == null) {
-            return (-1); // not found
-        }
-        return len;
+        return s_headerLengths[cmd & 0xff];
     }
 
     /**
@@ -562,8 +592,7 @@ public class Msg {
      * @return message length, or -1 if length cannot be determined
      */
     public static int s_getMessageLength(byte b, boolean isExtended) {
-        int key = s_cmdToKey(b, isExtended);
-        Msg msg = s_replyMap.get(key);
+        Msg msg = s_replyTemplates[s_cmdToKey(b, isExtended)];
         if (msg == null) {
             return -1;
         }
@@ -581,13 +610,28 @@ public class Msg {
      *         determined or if it is a standard message
      */
     public static boolean s_isExtended(byte[] buf, int len, int headerLength) {
+        return s_isExtended(buf, 0, len, headerLength);
+    }
+
+    /**
+     * From bytes received thus far, tries to determine if an Insteon
+     * message is extended or standard.
+     * 
+     * @param buf the buffer with the received bytes
+     * @param offset the offset of the message in the buffer
+     * @param len the number of bytes of the message received so far
+     * @param headerLength the known length of the header
+     * @return true if it is definitely extended, false if cannot be
+     *         determined or if it is a standard message
+     */
+    public static boolean s_isExtended(byte[] buf, int offset, int len, int headerLength) {
         if (headerLength <= 2) {
             return false;
         } // extended messages are longer
         if (len < headerLength) {
             return false;
         } // not enough data to tell if extended
-        byte flags = buf[headerLength - 1]; // last byte says flags
+        byte flags = buf[offset + headerLength - 1]; // last byte says flags
         boolean isExtended = (flags & 0x10) == 0x10; // bit 4 is the message
         return (isExtended);
     }
@@ -608,22 +652,22 @@ public class Msg {
     }
 
     private static int s_cmdToKey(byte cmd, boolean isExtended) {
-        return (cmd + (isExtended ? 256 : 0));
+        return ((cmd & 0xff) + (isExtended ? 256 : 0));
     }
 
     private static void s_buildHeaderMap() {
+        Arrays.fill(s_headerLengths, -1);
         for (Msg m : s_msgMap.values()) {
             if (m.getDirection() == Direction.FROM_MODEM) {
-                s_headerMap.put(new Integer(m.getCommandNumber()), m.getHeaderLength());
+                s_headerLengths[m.getCommandNumber() & 0xff] = m.getHeaderLength();
             }
         }
     }
 
-    private static void s_buildLengthMap() {
+    private static void s_buildReplyMap() {
         for (Msg m : s_msgMap.values()) {
             if (m.getDirection() == Direction.FROM_MODEM) {
-                Integer key = new Integer(s_cmdToKey(m.getCommandNumber(), m.isExtended()));
-                s_replyMap.put(key, m);
+                s_replyTemplates[s_cmdToKey(m.getCommandNumber(), m.isExtended())] = m;
             }
         }
     }
@@ -8,6 +8,8 @@
  */
 package org.openhab.binding.insteonplm.internal.message;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 
 /**
@@ -21,6 +23,12 @@ import java.util.HashMap;
 
 public class MsgDefinition {
     private HashMap<String, Field> m_fields = new HashMap<String, Field>();
+    // the fields ordered by offset
+    private Field[] m_sortedFields = new Field[0];
+    // fields that are looked at for nearly every message, resolved when the field is added
+    private Field m_cmdField = null;
+    private Field m_messageFlagsField = null;
+    private Field m_ackNackField = null;
 
     MsgDefinition() {
     }
@@ -32,18 +40,68 @@ public class MsgDefinition {
      */
     MsgDefinition(MsgDefinition m) {
         m_fields = new HashMap<String, Field>(m.m_fields);
+        m_sortedFields = m.m_sortedFields;
+        m_cmdField = m.m_cmdField;
+        m_messageFlagsField = m.m_messageFlagsField;
+        m_ackNackField = m.m_ackNackField;
     }
 
     public HashMap<String, Field> getFields() {
         return m_fields;
     }
 
+    /**
+     * @return the fields, ordered by their offset in the message
+     */
+    public Field[] getSortedFields() {
+        return m_sortedFields;
+    }
+
     public boolean containsField(String name) {
         return m_fields.containsKey(name);
     }
 
     public void addField(Field field) {
-        m_fields.put(field.getName(), field);
+        Field old = m_fields.put(field.getName(), field);
+        ArrayList<Field> sorted = new ArrayList<Field>(Arrays.asList(m_sortedFields));
+        if (old != null) {
+            sorted.remove(old);
+        }
+        int i = 0;
+        while (i < sorted.size() && sorted.get(i).getOffset() <= field.getOffset()) {
+            i++;
+        }
+        sorted.add(i, field);
+        m_sortedFields = sorted.toArray(new Field[sorted.size()]);
+
+        if (field.getName().equals("Cmd")) {
+            m_cmdField = field;
+        } else if (field.getName().equals("messageFlags")) {
+            m_messageFlagsField = field;
+        } else if (field.getName().equals("ACK/NACK")) {
+            m_ackNackField = field;
+        }
+    }
+
+    /**
+     * @return the field with the command number, or null if the message has none
+     */
+    public Field getCmdField() {
+        return m_cmdField;
+    }
+
+    /**
+     * @return the field with the message flags, or null if the message has none
+     */
+    public Field getMessageFlagsField() {
+        return m_messageFlagsField;
+    }
+
+    /**
+     * @return the field with the modem's ACK/NACK, or null if the message has none
+     */
+    public Field getAckNackField() {
+        return m_ackNackField;
     }
 
     /**
@@ -9,6 +9,7 @@
 package org.openhab.binding.insteonplm.internal.message;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import org.openhab.binding.insteonplm.internal.utils.Utils;
 import org.slf4j.Logger;
@@ -32,6 +33,7 @@ public class MsgFactory {
     // I doubt it'll ever be larger than 4k
     private final static int MAX_MSG_LEN = 4096;
     private byte[] m_buf = new byte[MAX_MSG_LEN];
+    private int m_start = 0; // offset of start of unprocessed data
     private int m_end = 0; // offset of end of buffer
 
     /**
@@ -47,6 +49,12 @@ public class MsgFactory {
      * @param len length of data to be added
      */
     public void addData(byte[] data, int len) {
+        if (len + m_end > MAX_MSG_LEN && m_start > 0) {
+            // move the unprocessed data to the front to make room
+            System.arraycopy(m_buf, m_start, m_buf, 0, m_end - m_start);
+            m_end -= m_start;
+            m_start = 0;
+        }
         if (len + m_end > MAX_MSG_LEN) {
             logger.error("warn: truncating excessively long message!");
             len = MAX_MSG_LEN - m_end;
@@ -55,7 +63,9 @@ public class MsgFactory {
         System.arraycopy(data, 0, m_buf, m_end, len);
         m_end += len;
         // copy the incoming data to the end of the buffer
-        logger.trace("read buffer: len {} data: {}", m_end, Utils.getHexString(m_buf, m_end));
+        if (logger.isTraceEnabled()) {
+            logger.trace("read buffer: len {} data: {}", m_end - m_start, getHexString());
+        }
     }
 
     /**
@@ -68,7 +78,7 @@ public class MsgFactory {
      */
     public Msg processData() throws IOException {
         // handle the case where we get a pure nack
-        if (m_end > 0 && m_buf[0] == 0x15) {
+        if (m_end > m_start && m_buf[m_start] == 0x15) {
             logger.trace("got pure nack!");
             removeFromBuffer(1);
             try {
@@ -79,7 +89,7 @@ public class MsgFactory {
             }
         }
         // drain the buffer until the first byte is 0x02
-        if (m_end > 0 && m_buf[0] != 0x02) {
+        if (m_end > m_start && m_buf[m_start] != 0x02) {
             bail("incoming message does not start with 0x02");
         }
         // Now see if we have enough data for a complete message.
@@ -87,22 +97,24 @@ public class MsgFactory {
         // when more data has come in.
         int msgLen = -1;
         boolean isExtended = false;
-        if (m_end > 1) {
+        int len = m_end - m_start;
+        if (len > 1) {
             // we have some data, but do we have enough to read the entire header?
-            int headerLength = Msg.s_getHeaderLength(m_buf[1]);
-            isExtended = Msg.s_isExtended(m_buf, m_end, headerLength);
+            byte cmd = m_buf[m_start + 1];
+            int headerLength = Msg.s_getHeaderLength(cmd);
+            isExtended = Msg.s_isExtended(m_buf, m_start, len, headerLength);
             logger.trace("header length expected: {} extended: {}", headerLength, isExtended);
             if (headerLength < 0) {
                 removeFromBuffer(1); // get rid of the leading 0x02 so draining works
-                bail("got unknown command code " + Utils.getHexByte(m_buf[1]));
+                bail("got unknown command code " + Utils.getHexByte(cmd));
             } else if (headerLength >= 2) {
-                if (m_end >= headerLength) {
+                if (len >= headerLength) {
                     // only when the header is complete do we know that isExtended is correct!
-                    msgLen = Msg.s_getMessageLength(m_buf[1], isExtended);
+                    msgLen = Msg.s_getMessageLength(cmd, isExtended);
                     if (msgLen < 0) {
                         // Cannot make sense out of the combined command code & isExtended flag.
                         removeFromBuffer(1);
-                        bail("unknown command code/ext flag: " + Utils.getHexByte(m_buf[1]));
+                        bail("unknown command code/ext flag: " + Utils.getHexByte(cmd));
                     }
                 }
             } else { // should never happen
@@ -112,11 +124,13 @@ public class MsgFactory {
         }
         logger.trace("msgLen expected: {}", msgLen);
         Msg msg = null;
-        if (msgLen > 0 && m_end >= msgLen) {
-            msg = Msg.s_createMessage(m_buf, msgLen, isExtended);
+        if (msgLen > 0 && len >= msgLen) {
+            msg = Msg.s_createMessage(m_buf, m_start, msgLen, isExtended);
             removeFromBuffer(msgLen);
         }
-        logger.trace("keeping buffer len {} data: {}", m_end, Utils.getHexString(m_buf, m_end));
+        if (logger.isTraceEnabled()) {
+            logger.trace("keeping buffer len {} data: {}", m_end - m_start, getHexString());
+        }
         return msg;
     }
 
@@ -127,16 +141,27 @@ public class MsgFactory {
     }
 
     private void drainBuffer() {
-        while (m_end > 0 && m_buf[0] != 0x02) {
-            removeFromBuffer(1);
+        while (m_end > m_start && m_buf[m_start] != 0x02) {
+            m_start++;
         }
+        removeFromBuffer(0);
     }
 
+    /**
+     * Removes data from the start of the buffer. The data isn't moved, only the start
+     * offset advances, until the buffer is empty or is compacted when new data is added.
+     * 
+     * @param len number of bytes to remove
+     */
     private void removeFromBuffer(int len) {
-        if (len > m_end) {
-            len = m_end;
+        m_start = Math.min(m_start + len, m_end);
+        if (m_start == m_end) {
+            m_start = 0;
+            m_end = 0;
         }
-        System.arraycopy(m_buf, len, m_buf, 0, m_end + 1 - len);
-        m_end -= len;
+    }
+
+    private String getHexString() {
+        return Utils.getHexString(Arrays.copyOfRange(m_buf, m_start, m_end));
     }
 }
@@ -0,0 +1,195 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.lcn.connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Hashtable;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.lcn.common.LcnAddrMod;
+import org.openhab.binding.lcn.common.PckGenerator;
+
+/**
+ * Tests when a {@link ModInfo} has to be updated next: at the deadline of the earliest
+ * request, right away while requests are deferred by the segment's {@link RequestBudget},
+ * and after the request timeout while a command waits for its acknowledge.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class ModInfoTest {
+
+    private static final long T0 = 1000000000000L;
+
+    private static final long MSEC = 1000000L;
+
+    private static final long TIMEOUT_MSEC = 1500;
+
+    /** Counts the data queued by the {@link ModInfo}s instead of sending it. */
+    private static class CountingConnection extends Connection {
+
+        int queued;
+
+        CountingConnection(ConnectionSettings sets) {
+            super(sets, null);
+        }
+
+        @Override
+        void queue(SendData data) {
+            ++this.queued;
+        }
+    }
+
+    private CountingConnection conn;
+
+    private ModInfo info;
+
+    @Before
+    public void setUp() {
+        Hashtable<String, String> config = new Hashtable<String, String>();
+        config.put("id1", "myhome");
+        config.put("address1", "localhost");
+        config.put("username1", "lcn");
+        config.put("password1", "lcn");
+        config.put("mode1", "native200");
+        config.put("timeout1", String.valueOf(TIMEOUT_MSEC));
+        this.conn = new CountingConnection(ConnectionSettings.tryParse(config, 0));
+        this.info = new ModInfo(new LcnAddrMod(0, 7));
+    }
+
+    private void update(long currTime, RequestBudget budget) {
+        this.info.update(this.conn, TIMEOUT_MSEC, currTime, budget);
+    }
+
+    private static RequestBudget unlimited(long currTime) {
+        return new RequestBudget(1000, currTime);
+    }
+
+    @Test
+    public void testDeadline() {
+        // a new module is updated right away
+        assertEquals(Long.MIN_VALUE, this.info.getNextUpdateTimeStamp());
+        this.update(T0, unlimited(T0));
+        assertEquals(Long.MAX_VALUE, this.info.getNextUpdateTimeStamp());
+
+        this.info.requestStatusRelays.nextRequestIn(5000, T0);
+        this.info.requestStatusLedsAndLogicOps.nextRequestIn(8000, T0);
+        assertEquals(T0 + 5000 * MSEC, this.info.getNextUpdateTimeStamp());
+
+        long t = T0 + 5000 * MSEC;
+        this.update(t, unlimited(t));
+        assertEquals(1, this.conn.queued);
+        assertTrue(this.info.requestStatusRelays.isPending());
+        // the response is due before the LEDs are requested
+        assertEquals(t + TIMEOUT_MSEC * MSEC, this.info.getNextUpdateTimeStamp());
+
+        this.info.requestStatusRelays.onResponseReceived(t + 100 * MSEC);
+        t += TIMEOUT_MSEC * MSEC;
+        this.update(t, unlimited(t));
+        assertEquals(1, this.conn.queued);
+        assertEquals(T0 + 8000 * MSEC, this.info.getNextUpdateTimeStamp());
+
+        t = T0 + 8000 * MSEC;
+        this.update(t, unlimited(t));
+        assertEquals(2, this.conn.queued);
+        this.info.requestStatusLedsAndLogicOps.onResponseReceived(t + 100 * MSEC);
+        t += TIMEOUT_MSEC * MSEC;
+        this.update(t, unlimited(t));
+        // the LEDs are polled every 30 s, the relays are requested after 600 s without a change
+        assertEquals(T0 + (8000 + 100 + 30000) * MSEC, this.info.getNextUpdateTimeStamp());
+    }
+
+    @Test
+    public void testDeferral() {
+        RequestBudget budget = new RequestBudget(2, T0);
+        this.info.requestStatusRelays.nextRequestIn(0, T0);
+        this.info.requestStatusBinSensors.nextRequestIn(0, T0);
+        this.info.requestStatusLedsAndLogicOps.nextRequestIn(0, T0);
+        this.info.requestStatusLockedKeys.nextRequestIn(0, T0);
+
+        this.update(T0, budget);
+        assertEquals(2, this.conn.queued);
+        assertTrue(this.info.requestStatusRelays.isPending());
+        assertTrue(this.info.requestStatusBinSensors.isPending());
+        assertFalse(this.info.requestStatusLedsAndLogicOps.isPending());
+        // the deferred requests are due right away
+        assertEquals(T0, this.info.getNextUpdateTimeStamp());
+
+        long t = T0 + 100 * MSEC;
+        this.update(t, budget);
+        assertEquals(2, this.conn.queued);
+        assertEquals(t, this.info.getNextUpdateTimeStamp());
+
+        t = T0 + 500 * MSEC;
+        this.update(t, budget);
+        assertEquals(3, this.conn.queued);
+        assertTrue(this.info.requestStatusLedsAndLogicOps.isPending());
+        assertEquals(t, this.info.getNextUpdateTimeStamp());
+
+        t = T0 + 1000 * MSEC;
+        this.update(t, budget);
+        assertEquals(4, this.conn.queued);
+        assertTrue(this.info.requestStatusLockedKeys.isPending());
+        // nothing is deferred, the first responses are due
+        assertEquals(T0 + TIMEOUT_MSEC * MSEC, this.info.getNextUpdateTimeStamp());
+    }
+
+    @Test
+    public void testCommandWithAckIsRetried() {
+        this.update(T0, unlimited(T0));
+        ByteBuffer command = ByteBuffer.wrap(PckGenerator.requestRelaysStatus().getBytes());
+
+        this.info.queuePckCommandWithAck(command, this.conn, TIMEOUT_MSEC, T0);
+        assertEquals(1, this.conn.queued);
+        // the command was sent right away, the next update only looks at the acknowledge
+        this.update(T0, unlimited(T0));
+        assertEquals(1, this.conn.queued);
+        assertEquals(T0 + TIMEOUT_MSEC * MSEC, this.info.getNextUpdateTimeStamp());
+
+        // two retries without acknowledge
+        long t = T0;
+        for (int i = 2; i <= 3; i++) {
+            t += TIMEOUT_MSEC * MSEC;
+            this.update(t, unlimited(t));
+            assertEquals(i, this.conn.queued);
+            assertEquals(t + TIMEOUT_MSEC * MSEC, this.info.getNextUpdateTimeStamp());
+        }
+
+        // the command failed and is dropped
+        t += TIMEOUT_MSEC * MSEC;
+        this.update(t, unlimited(t));
+        assertEquals(3, this.conn.queued);
+        assertEquals(Long.MAX_VALUE, this.info.getNextUpdateTimeStamp());
+    }
+
+    @Test
+    public void testNextCommandAfterAck() {
+        this.update(T0, unlimited(T0));
+        ByteBuffer command = ByteBuffer.wrap(PckGenerator.requestRelaysStatus().getBytes());
+        this.info.queuePckCommandWithAck(command, this.conn, TIMEOUT_MSEC, T0);
+        this.info.queuePckCommandWithAck(command.duplicate(), this.conn, TIMEOUT_MSEC, T0);
+        assertEquals(1, this.conn.queued);
+
+        long t = T0 + 200 * MSEC;
+        this.info.onAck(-1, this.conn, TIMEOUT_MSEC, t);
+        assertEquals(2, this.conn.queued);
+        this.update(t, unlimited(t));
+        assertEquals(t + TIMEOUT_MSEC * MSEC, this.info.getNextUpdateTimeStamp());
+
+        this.info.onAck(-1, this.conn, TIMEOUT_MSEC, t + 100 * MSEC);
+        this.update(t + 100 * MSEC, unlimited(t));
+        assertEquals(2, this.conn.queued);
+        assertEquals(Long.MAX_VALUE, this.info.getNextUpdateTimeStamp());
+    }
+}
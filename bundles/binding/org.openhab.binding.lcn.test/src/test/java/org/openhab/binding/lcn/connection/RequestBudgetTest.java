@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.lcn.connection;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests that the {@link RequestBudget} allows the configured number of requests per second,
+ * refills continuously and never holds more than one second's worth of requests.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class RequestBudgetTest {
+
+    private static final long T0 = 1000000000000L;
+
+    private static final long MSEC = 1000000L;
+
+    private static int acquireAll(RequestBudget budget, long currTime) {
+        int n = 0;
+        while (budget.tryAcquire(currTime)) {
+            ++n;
+        }
+        return n;
+    }
+
+    @Test
+    public void testStartsFull() {
+        RequestBudget budget = new RequestBudget(20, T0);
+        assertTrue(acquireAll(budget, T0) == 20);
+        assertFalse(budget.tryAcquire(T0));
+    }
+
+    @Test
+    public void testRefillsContinuously() {
+        RequestBudget budget = new RequestBudget(20, T0);
+        acquireAll(budget, T0);
+
+        // one request every 50 ms
+        assertFalse(budget.tryAcquire(T0 + 49 * MSEC));
+        assertTrue(budget.tryAcquire(T0 + 50 * MSEC));
+        assertFalse(budget.tryAcquire(T0 + 50 * MSEC));
+        assertFalse(budget.tryAcquire(T0 + 99 * MSEC));
+        assertTrue(budget.tryAcquire(T0 + 100 * MSEC));
+
+        // the fractions add up between calls
+        long t = T0 + 100 * MSEC;
+        int acquired = 0;
+        for (int i = 1; i <= 100; i++) {
+            if (budget.tryAcquire(t + i * 10 * MSEC)) {
+                ++acquired;
+            }
+        }
+        assertTrue("Requests within 1 s: " + acquired, acquired == 20);
+    }
+
+    @Test
+    public void testHoldsAtMostOneSecond() {
+        RequestBudget budget = new RequestBudget(20, T0);
+        acquireAll(budget, T0);
+
+        assertTrue(acquireAll(budget, T0 + 10000 * MSEC) == 20);
+        assertTrue(acquireAll(budget, T0 + 10500 * MSEC) == 10);
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.lcn.connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests that a response received by a {@link RequestStatus} postpones the forced update, but
+ * keeps requests which were scheduled explicitly.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class RequestStatusTest {
+
+    private static final long T0 = 1000000000000L;
+
+    private static final long MSEC = 1000000L;
+
+    private static final long TIMEOUT_MSEC = 1500;
+
+    private static final long MAX_AGE_MSEC = 600000;
+
+    private static RequestStatus sentAt(long currTime) {
+        RequestStatus r = new RequestStatus(MAX_AGE_MSEC, 3);
+        r.nextRequestIn(0, currTime);
+        assertTrue(r.shouldSendNextRequest(TIMEOUT_MSEC, currTime));
+        r.onRequestSent(currTime);
+        return r;
+    }
+
+    @Test
+    public void testForcedUpdateAfterRequest() {
+        RequestStatus r = sentAt(T0);
+        assertTrue(r.isPending());
+        assertEquals(T0 + TIMEOUT_MSEC * MSEC, r.getNextCheckTimeStamp(TIMEOUT_MSEC, T0));
+
+        r.onResponseReceived(T0 + 100 * MSEC);
+        assertFalse(r.isPending());
+        // the response postpones the forced update
+        assertEquals(T0 + (100 + MAX_AGE_MSEC) * MSEC, r.getNextCheckTimeStamp(TIMEOUT_MSEC, T0 + 100 * MSEC));
+        assertFalse(r.shouldSendNextRequest(TIMEOUT_MSEC, T0 + MAX_AGE_MSEC * MSEC));
+        assertTrue(r.shouldSendNextRequest(TIMEOUT_MSEC, T0 + (100 + MAX_AGE_MSEC) * MSEC));
+    }
+
+    @Test
+    public void testUnsolicitedResponsePostponesForcedUpdate() {
+        RequestStatus r = sentAt(T0);
+        r.onResponseReceived(T0 + 100 * MSEC);
+
+        // the module sends the value on its own after a change
+        long changed = T0 + 300000 * MSEC;
+        r.onResponseReceived(changed);
+        assertEquals(changed + MAX_AGE_MSEC * MSEC, r.getNextCheckTimeStamp(TIMEOUT_MSEC, changed));
+        assertFalse(r.shouldSendNextRequest(TIMEOUT_MSEC, T0 + (100 + MAX_AGE_MSEC) * MSEC));
+    }
+
+    @Test
+    public void testExplicitRequestIsKept() {
+        RequestStatus r = sentAt(T0);
+        r.onResponseReceived(T0 + 100 * MSEC);
+
+        // a command changed the value, its status is requested after a delay
+        long command = T0 + 5000 * MSEC;
+        r.nextRequestIn(ModInfo.STATUS_REQUEST_DELAY_AFTER_COMMAND_MSEC, command);
+        r.onResponseReceived(command + 500 * MSEC);
+        long requested = command + ModInfo.STATUS_REQUEST_DELAY_AFTER_COMMAND_MSEC * MSEC;
+        assertEquals(requested, r.getNextCheckTimeStamp(TIMEOUT_MSEC, command + 500 * MSEC));
+        assertTrue(r.shouldSendNextRequest(TIMEOUT_MSEC, requested));
+    }
+
+    @Test
+    public void testInactiveRequest() {
+        RequestStatus r = new RequestStatus(MAX_AGE_MSEC, 3);
+        r.onResponseReceived(T0);
+        assertFalse(r.isActive());
+        assertEquals(Long.MAX_VALUE, r.getNextCheckTimeStamp(TIMEOUT_MSEC, T0));
+        assertFalse(r.shouldSendNextRequest(TIMEOUT_MSEC, T0 + MAX_AGE_MSEC * MSEC));
+    }
+
+    @Test
+    public void testFailedRequestIsNotCheckedAgain() {
+        RequestStatus r = sentAt(T0);
+        long t = T0;
+        for (int i = 1; i < 3; i++) {
+            t += TIMEOUT_MSEC * MSEC;
+            assertTrue(r.shouldSendNextRequest(TIMEOUT_MSEC, t));
+            r.onRequestSent(t);
+        }
+        t += TIMEOUT_MSEC * MSEC;
+        assertTrue(r.isFailed(TIMEOUT_MSEC, t));
+        assertFalse(r.shouldSendNextRequest(TIMEOUT_MSEC, t));
+        // only the forced update is left
+        assertEquals(t - TIMEOUT_MSEC * MSEC + MAX_AGE_MSEC * MSEC, r.getNextCheckTimeStamp(TIMEOUT_MSEC, t));
+    }
+}
@@ -0,0 +1,319 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.lcn.input;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+
+import org.junit.Test;
+import org.openhab.binding.lcn.common.LcnAddrMod;
+import org.openhab.binding.lcn.common.LcnDefs;
+import org.openhab.binding.lcn.common.PckParser;
+
+/**
+ * Compares the {@link PckLexer} with a parser built from the patterns in {@link PckParser}, the
+ * way the input classes parsed the lines before the lexer. Both must create the same
+ * {@link Input}s for a corpus of valid and corrupted lines.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class PckLexerTest {
+
+    private static final String[] LINES = { "", "-", "=M", "-M000005", "-M000005!", "-M0000055", "-M000005!!",
+            "-M0000059999999999", "=M000005.SK12", "=M000005.SN1AB20E2F3C01FW190B11HW015",
+            "=M000005xSN0123456789ABFW0A1B2CHW1", "=M000005.SN0123456789ABFW0A|B2CHW1",
+            "=M000005.SN0123456789ABFW0A1B2CHW99999999999999", ":M000005A1050", ":M000005O2200",
+            ":M000005A19999999999", ":M000005Rx255", ":M000005Rx256", ":M000005Bx017", "%M000005.A0040300",
+            "%M000005.A0130042", "%M000005.S11234", "%M000005.T1230042", "%M000005.C10042", "%M000005.01234",
+            "%M000005.99999999999", "=M000005.S1000000000100002000030000400005", "=M000005.TLAEBFAAEEBBFFNTVN",
+            "=M000005.TLAEBFAAEEBBFFNTVX", "=M000005.TX255000001", "=M000005.TX255000001128",
+            "=M000005.TX256000001", "Username:", "Password:", "OK", "$io:#LCN:connected",
+            "$io:#LCN:disconnected", "$io:#LCN:unknown" };
+
+    private static final String HEX = "0123456789ABCDEF";
+
+    @Test
+    public void testKnownLines() {
+        for (String line : LINES) {
+            assertEquals(line, describe(parseWithPatterns(line)), describe(PckLexer.parse(line)));
+        }
+    }
+
+    @Test
+    public void testCorpus() {
+        Random random = new Random(1);
+        for (int i = 0; i < 20000; i++) {
+            String line = createLine(random);
+            assertEquals(line, describe(parseWithPatterns(line)), describe(PckLexer.parse(line)));
+
+            line = corrupt(random, createLine(random));
+            assertEquals(line, describe(parseWithPatterns(line)), describe(PckLexer.parse(line)));
+        }
+    }
+
+    @Test
+    public void testThresholdRegister() {
+        Collection<Input> inputs = PckLexer.parse("=M000005.S1000000000100002000030000400005");
+        assertEquals(5, inputs.size());
+        for (Input input : inputs) {
+            assertTrue(input instanceof ModStatusVar);
+        }
+    }
+
+    @Test
+    public void testCorpusCoversAllInputs() {
+        Random random = new Random(1);
+        List<String> types = new ArrayList<String>();
+        for (int i = 0; i < 2000; i++) {
+            for (Input input : PckLexer.parse(createLine(random))) {
+                if (!types.contains(input.getClass().getSimpleName())) {
+                    types.add(input.getClass().getSimpleName());
+                }
+            }
+        }
+        for (String type : Arrays.asList("AuthUsername", "AuthPassword", "AuthOk", "LcnConnState", "ModAck",
+                "ModSk", "ModSn", "ModStatusOutput", "ModStatusRelays", "ModStatusBinSensors", "ModStatusVar",
+                "ModStatusLedsAndLogicOps", "ModStatusKeyLocks", "Unknown")) {
+            assertTrue(type, types.contains(type));
+        }
+    }
+
+    /**
+     * Parses a line with the patterns of {@link PckParser}. A field which does not fit into an
+     * int made the input classes throw, the lexer reports the line as {@link Unknown} instead.
+     */
+    private static Collection<Input> parseWithPatterns(String input) {
+        try {
+            List<Input> ret = parseMatching(input);
+            return ret.isEmpty() ? Collections.<Input> singletonList(new Unknown(input)) : ret;
+        } catch (IllegalArgumentException e) {
+            return Collections.<Input> singletonList(new Unknown(input));
+        }
+    }
+
+    private static List<Input> parseMatching(String input) {
+        List<Input> ret = new ArrayList<Input>();
+        Matcher matcher;
+        if (input.equals(PckParser.AUTH_USERNAME)) {
+            ret.add(new AuthUsername());
+        } else if (input.equals(PckParser.AUTH_PASSWORD)) {
+            ret.add(new AuthPassword());
+        } else if (input.equals(PckParser.AUTH_OK)) {
+            ret.add(new AuthOk());
+        } else if (input.equals(PckParser.LCNCONNSTATE_CONNECTED)) {
+            ret.add(new LcnConnState(true));
+        } else if (input.equals(PckParser.LCNCONNSTATE_DISCONNECTED)) {
+            ret.add(new LcnConnState(false));
+        } else if ((matcher = PckParser.PATTERN_ACK_POS.matcher(input)).matches()) {
+            ret.add(new ModAck(getAddr(matcher), -1));
+        } else if ((matcher = PckParser.PATTERN_ACK_NEG.matcher(input)).matches()) {
+            ret.add(new ModAck(getAddr(matcher), getInt(matcher, "code")));
+        } else if ((matcher = PckParser.PATTERN_SK_RESPONSE.matcher(input)).matches()) {
+            ret.add(new ModSk(getAddr(matcher), getInt(matcher, "id")));
+        } else if ((matcher = PckParser.PATTERN_SN.matcher(input)).matches()) {
+            ret.add(new ModSn(getAddr(matcher), Integer.parseInt(matcher.group("swAge"), 16)));
+        } else if ((matcher = PckParser.PATTERN_STATUS_OUTPUT_PERCENT.matcher(input)).matches()) {
+            ret.add(new ModStatusOutput(getAddr(matcher), getInt(matcher, "outputId") - 1, getInt(matcher, "percent")));
+        } else if ((matcher = PckParser.PATTERN_STATUS_OUTPUT_NATIVE.matcher(input)).matches()) {
+            ret.add(new ModStatusOutput(getAddr(matcher), getInt(matcher, "outputId") - 1,
+                    (double) getInt(matcher, "value") / 2));
+        } else if ((matcher = PckParser.PATTERN_STATUS_RELAYS.matcher(input)).matches()) {
+            ret.add(new ModStatusRelays(getAddr(matcher), PckParser.getBooleanValue(getInt(matcher, "byteValue"))));
+        } else if ((matcher = PckParser.PATTERN_STATUS_BINSENSORS.matcher(input)).matches()) {
+            ret.add(new ModStatusBinSensors(getAddr(matcher),
+                    PckParser.getBooleanValue(getInt(matcher, "byteValue"))));
+        } else if ((matcher = PckParser.PATTERN_STATUS_VAR.matcher(input)).matches()) {
+            ret.add(new ModStatusVar(getAddr(matcher), LcnDefs.Var.varIdToVar(getInt(matcher, "id") - 1),
+                    getValue(matcher, "value")));
+        } else if ((matcher = PckParser.PATTERN_STATUS_SETVAR.matcher(input)).matches()) {
+            ret.add(new ModStatusVar(getAddr(matcher), LcnDefs.Var.setPointIdToVar(getInt(matcher, "id") - 1),
+                    getValue(matcher, "value")));
+        } else if ((matcher = PckParser.PATTERN_STATUS_THRS.matcher(input)).matches()) {
+            ret.add(new ModStatusVar(getAddr(matcher),
+                    LcnDefs.Var.thrsIdToVar(getInt(matcher, "registerId") - 1, getInt(matcher, "thrsId") - 1),
+                    getValue(matcher, "value")));
+        } else if ((matcher = PckParser.PATTERN_STATUS_S0INPUT.matcher(input)).matches()) {
+            ret.add(new ModStatusVar(getAddr(matcher), LcnDefs.Var.s0IdToVar(getInt(matcher, "id") - 1),
+                    getValue(matcher, "value")));
+        } else if ((matcher = PckParser.PATTERN_VAR_GENERIC.matcher(input)).matches()) {
+            ret.add(new ModStatusVar(getAddr(matcher), LcnDefs.Var.UNKNOWN, getValue(matcher, "value")));
+        } else if ((matcher = PckParser.PATTERN_THRS5.matcher(input)).matches()) {
+            for (int thrsId = 0; thrsId < 5; ++thrsId) {
+                ret.add(new ModStatusVar(getAddr(matcher), LcnDefs.Var.thrsIdToVar(0, thrsId),
+                        getValue(matcher, "value" + (thrsId + 1))));
+            }
+        } else if ((matcher = PckParser.PATTERN_STATUS_LEDSANDLOGICOPS.matcher(input)).matches()) {
+            LcnDefs.LedStatus[] statesLeds = new LcnDefs.LedStatus[12];
+            for (int i = 0; i < 12; ++i) {
+                statesLeds[i] = LcnDefs.LedStatus.values()["AEBF".indexOf(matcher.group("ledStates").charAt(i))];
+            }
+            LcnDefs.LogicOpStatus[] statesLogicOps = new LcnDefs.LogicOpStatus[4];
+            for (int i = 0; i < 4; ++i) {
+                statesLogicOps[i] = LcnDefs.LogicOpStatus.values()["NTV"
+                        .indexOf(matcher.group("logicOpStates").charAt(i))];
+            }
+            ret.add(new ModStatusLedsAndLogicOps(getAddr(matcher), statesLeds, statesLogicOps));
+        } else if ((matcher = PckParser.PATTERN_STATUS_KEYLOCKS.matcher(input)).matches()) {
+            boolean[][] states = new boolean[4][];
+            for (int i = 0; i < 4; ++i) {
+                String s = matcher.group("table" + i);
+                states[i] = s != null ? PckParser.getBooleanValue(Integer.parseInt(s)) : new boolean[8];
+            }
+            ret.add(new ModStatusKeyLocks(getAddr(matcher), states));
+        }
+        return ret;
+    }
+
+    private static LcnAddrMod getAddr(Matcher matcher) {
+        return new LcnAddrMod(getInt(matcher, "segId"), getInt(matcher, "modId"));
+    }
+
+    private static int getInt(Matcher matcher, String group) {
+        return Integer.parseInt(matcher.group(group));
+    }
+
+    private static LcnDefs.VarValue getValue(Matcher matcher, String group) {
+        return LcnDefs.VarValue.fromNative(getInt(matcher, group));
+    }
+
+    /**
+     * Describes the parsed inputs by their types and fields, as the input classes don't
+     * implement equals.
+     */
+    private static String describe(Object o) {
+        if (o == null) {
+            return "null";
+        }
+        if (o instanceof Collection) {
+            return describe(((Collection<?>) o).toArray());
+        }
+        Class<?> c = o.getClass();
+        StringBuilder sb = new StringBuilder();
+        if (c.isArray()) {
+            sb.append('[');
+            for (int i = 0; i < Array.getLength(o); i++) {
+                sb.append(describe(Array.get(o, i))).append(',');
+            }
+            return sb.append(']').toString();
+        }
+        if (o instanceof Number || o instanceof Boolean || o instanceof String || o instanceof Enum) {
+            return o.toString();
+        }
+        sb.append(c.getSimpleName()).append('{');
+        for (Class<?> k = c; k != Object.class; k = k.getSuperclass()) {
+            for (Field f : k.getDeclaredFields()) {
+                if (Modifier.isStatic(f.getModifiers())) {
+                    continue;
+                }
+                f.setAccessible(true);
+                try {
+                    sb.append(f.getName()).append('=').append(describe(f.get(o))).append(';');
+                } catch (IllegalAccessException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        }
+        return sb.append('}').toString();
+    }
+
+    private static String digits(Random random, int count) {
+        return chars(random, "0123456789", count);
+    }
+
+    private static String chars(Random random, String chars, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(chars.charAt(random.nextInt(chars.length())));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Creates a line in one of the formats of {@link PckParser}, the values are partly out of
+     * range.
+     */
+    private static String createLine(Random random) {
+        String addr = "M" + digits(random, 3) + digits(random, 3);
+        switch (random.nextInt(21)) {
+            case 0:
+                return "-" + addr + "!";
+            case 1:
+                return "-" + addr + digits(random, 1 + random.nextInt(3));
+            case 2:
+                return "=" + addr + ".SK" + digits(random, 1 + random.nextInt(3));
+            case 3:
+                return "=" + addr + ".SN" + chars(random, HEX + "|", 12) + "FW" + chars(random, HEX, 6) + "HW"
+                        + digits(random, 1 + random.nextInt(3));
+            case 4:
+                return ":" + addr + "A" + digits(random, 1) + digits(random, 1 + random.nextInt(3));
+            case 5:
+                return ":" + addr + "O" + digits(random, 1) + digits(random, 1 + random.nextInt(3));
+            case 6:
+                return ":" + addr + "Rx" + random.nextInt(300);
+            case 7:
+                return ":" + addr + "Bx" + random.nextInt(300);
+            case 8:
+                return "%" + addr + ".A" + String.format("%03d", random.nextInt(14))
+                        + digits(random, 1 + random.nextInt(5));
+            case 9:
+                return "%" + addr + ".S" + random.nextInt(4) + digits(random, 1 + random.nextInt(5));
+            case 10:
+                return "%" + addr + ".T" + random.nextInt(6) + random.nextInt(7)
+                        + digits(random, 1 + random.nextInt(5));
+            case 11:
+                return "%" + addr + ".C" + random.nextInt(6) + digits(random, 1 + random.nextInt(5));
+            case 12:
+                return "%" + addr + "." + digits(random, 1 + random.nextInt(5));
+            case 13:
+                return "=" + addr + ".S1" + digits(random, 30);
+            case 14:
+                return "=" + addr + ".TL" + chars(random, "AEBF", 12) + chars(random, "NTV", 4);
+            case 15:
+                return "=" + addr + ".TX" + String.format("%03d%03d%03d", random.nextInt(300), random.nextInt(256),
+                        random.nextInt(256));
+            case 16:
+                return "=" + addr + ".TX" + String.format("%03d%03d%03d%03d", random.nextInt(256),
+                        random.nextInt(256), random.nextInt(256), random.nextInt(300));
+            default:
+                return LINES[random.nextInt(LINES.length)];
+        }
+    }
+
+    /**
+     * Deletes, inserts or replaces one or two characters.
+     */
+    private static String corrupt(Random random, String line) {
+        StringBuilder sb = new StringBuilder(line);
+        String alphabet = "0123456789.!ABCEFHKLMNORSTVWxX|-=:%$a ";
+        for (int n = 1 + random.nextInt(2); n > 0; n--) {
+            char c = alphabet.charAt(random.nextInt(alphabet.length()));
+            int op = random.nextInt(3);
+            if (op == 0 && sb.length() > 0) {
+                sb.deleteCharAt(random.nextInt(sb.length()));
+            } else if (op == 1 || sb.length() == 0) {
+                sb.insert(random.nextInt(sb.length() + 1), c);
+            } else {
+                sb.setCharAt(random.nextInt(sb.length()), c);
+            }
+        }
+        return sb.toString();
+    }
+}
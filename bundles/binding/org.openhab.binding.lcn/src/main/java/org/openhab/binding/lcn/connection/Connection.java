@@ -19,10 +19,12 @@ import java.nio.channels.ClosedChannelException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
-import java.util.Map;
 
 import org.openhab.binding.lcn.common.LcnAddr;
 import org.openhab.binding.lcn.common.LcnAddrGrp;
@@ -40,7 +42,7 @@ import org.slf4j.LoggerFactory;
  * <li>Reconnection on connection loss
  * <li>Segment scan (to detect the local segment)
  * <li>Acknowledge handling
- * <li>Periodic value requests
+ * <li>Periodic value requests (most overdue first, limited per segment)
  * </ul>
  * It also caches runtime data about the underlying LCN bus.
  *
@@ -88,6 +90,17 @@ public class Connection {
     /** Interval between keep-alive packets (keeps the LCN-PCHK connection open). */
     private static final long PING_INTERVAL_MSEC = 600000;
 
+    /** Status requests sent to one segment per second. The rest is sent later. */
+    private static final int MAX_STATUS_REQUESTS_PER_SEC = 20;
+
+    /** Orders {@link ModInfo}s by the time they have to be updated. */
+    private static final Comparator<ModInfo> BY_NEXT_UPDATE = new Comparator<ModInfo>() {
+        @Override
+        public int compare(ModInfo a, ModInfo b) {
+            return Long.compare(a.getNextUpdateTimeStamp(), b.getNextUpdateTimeStamp());
+        }
+    };
+
     /** The connection's settings. Never changed. */
     private final ConnectionSettings sets;
 
@@ -124,12 +137,21 @@ public class Connection {
     /** Queued data that has to be sent. */
     private final LinkedList<SendData> sendQueue = new LinkedList<SendData>();
 
-    /** Buffer used in {@link #flush()}. Reused for optimization. */
+    /**
+     * Buffer used in {@link #flush()}. Reused for optimization.
+     * Holds the data not written to the {@link #channel} yet.
+     */
     private final ByteBuffer sendBuffer = ByteBuffer.allocate(1024);
 
     /** Stores information about LCN modules and coordinates status requests. */
     private final HashMap<LcnAddrMod, ModInfo> modData = new HashMap<LcnAddrMod, ModInfo>();
 
+    /** The modules to update in {@link #update()}. Reused for optimization. */
+    private final ArrayList<ModInfo> dueModData = new ArrayList<ModInfo>();
+
+    /** Budgets for status requests by segment id. */
+    private final HashMap<Integer, RequestBudget> requestBudgets = new HashMap<Integer, RequestBudget>();
+
     /**
      * Constructs a clean (disconnected) connection with the given settings.
      * This does not start the actual connection process.
@@ -157,6 +179,7 @@ public class Connection {
         this.sendQueue.clear();
         this.sendBuffer.clear();
         this.modData.clear();
+        this.requestBudgets.clear();
     }
 
     /**
@@ -232,7 +255,7 @@ public class Connection {
      */
     public void setLocalSegId(int localSegId) {
         this.localSegId = localSegId;
-        this.statusSegmentScan.onResponseReceived();
+        this.statusSegmentScan.onResponseReceived(System.nanoTime());
     }
 
     /**
@@ -457,39 +480,66 @@ public class Connection {
     /**
      * Writes all queued data.
      * Will try to write all data at once to reduce overhead.
+     * Data the channel did not accept is kept and written first in the next flush.
      */
     void flush() {
         if (this.isChannelConnected()) {
-            // Write send-queue to buffer
-            try {
-                this.sendBuffer.clear();
-                Iterator<SendData> iter = this.sendQueue.iterator();
-                while (iter.hasNext()) {
-                    try {
-                        if (!iter.next().write(this.sendBuffer, this.localSegId)) {
-                            break;
-                        }
-                    } catch (UnsupportedEncodingException ex) {
+            // Append send-queue to buffer
+            Iterator<SendData> iter = this.sendQueue.iterator();
+            while (iter.hasNext()) {
+                this.sendBuffer.mark();
+                try {
+                    if (!iter.next().write(this.sendBuffer, this.localSegId)) {
+                        break;
                     }
-                    iter.remove();
+                } catch (UnsupportedEncodingException ex) {
+                } catch (BufferOverflowException ex) {
+                    // Not critical. Our buffer is too small to hold all data.
+                    // The rest will be processed in the next flush.
+                    this.sendBuffer.reset(); // Drop the partially written packet
+                    break;
                 }
-            } catch (BufferOverflowException ex) {
-                // Not critical. Our buffer is too small to hold all data.
-                // The rest will be processed in the next flush.
+                iter.remove();
+            }
+            if (this.sendBuffer.position() == 0) {
+                return; // Nothing to write
             }
             // Write buffer to channel
             try {
                 this.sendBuffer.flip();
-                if (this.channel.write(this.sendBuffer) != this.sendBuffer.limit()) {
-                    logger.warn(String.format("Data loss while writing to channel \"%s\".", this.sets.getAddress()));
+                this.channel.write(this.sendBuffer);
+                if (this.sendBuffer.hasRemaining()) {
+                    logger.debug(String.format("Channel \"%s\" is busy, %d bytes are written with the next flush.",
+                            this.sets.getAddress(), this.sendBuffer.remaining()));
                 }
             } catch (IOException ex) {
                 logger.warn(
                         String.format("Writing to channel \"%s\" failed: %s", this.sets.getAddress(), ex.getMessage()));
+            } finally {
+                this.sendBuffer.compact();
             }
         }
     }
 
+    /**
+     * Gets the status-request budget of the given segment.
+     * 
+     * @param segId the logical segment id
+     * @param currTime the current time stamp
+     * @return the budget (never null)
+     */
+    private RequestBudget getRequestBudget(int segId, long currTime) {
+        if (segId == 0) {
+            segId = this.localSegId;
+        }
+        RequestBudget budget = this.requestBudgets.get(segId);
+        if (budget == null) {
+            budget = new RequestBudget(MAX_STATUS_REQUESTS_PER_SEC, currTime);
+            this.requestBudgets.put(segId, budget);
+        }
+        return budget;
+    }
+
     /** Must be called periodically to keep the inner logic active. */
     void update() {
         long currTime = System.nanoTime();
@@ -516,9 +566,18 @@ public class Connection {
             // LcnModInfo logic
             this.callback.updateItems(this);
             if (this.isReady()) {
-                for (Map.Entry<LcnAddrMod, ModInfo> entry : this.modData.entrySet()) {
-                    entry.getValue().update(this, this.sets.getTimeout(), currTime);
+                // Only modules with due requests, most overdue first
+                for (ModInfo info : this.modData.values()) {
+                    if (info.getNextUpdateTimeStamp() <= currTime) {
+                        this.dueModData.add(info);
+                    }
+                }
+                Collections.sort(this.dueModData, BY_NEXT_UPDATE);
+                for (ModInfo info : this.dueModData) {
+                    info.update(this, this.sets.getTimeout(), currTime,
+                            this.getRequestBudget(info.getAddr().getSegId(), currTime));
                 }
+                this.dueModData.clear();
             }
         }
     }
@@ -24,6 +24,7 @@ import org.openhab.binding.lcn.common.PckGenerator;
  * <ul>
  * <li>Stores the module's firmware version (if requested)
  * <li>Manages the scheduling of status-requests
+ * <li>Tells when the status-requests have to be checked next
  * <li>Manages the scheduling of acknowledged commands
  * </ul>
  * 
@@ -46,6 +47,12 @@ public class ModInfo {
     /** The LCN module's address. */
     private final LcnAddrMod addr;
 
+    /** The time {@link #update} has to be called next. */
+    private long nextUpdateTimeStamp = Long.MIN_VALUE;
+
+    /** true if a due status request had to wait for the segment's {@link RequestBudget}. */
+    private boolean isRequestDeferred;
+
     /** Firmware date of the LCN module. -1 means "unknown". */
     private int swAge = -1;
 
@@ -65,20 +72,22 @@ public class ModInfo {
      */
     public void setSwAge(int swAge) {
         this.swAge = swAge;
+        this.scheduleUpdate(Long.MIN_VALUE); // Variable requests might be waiting for the firmware version
     }
 
     /** Firmware version request status. */
-    public final RequestStatus requestSwAge = new RequestStatus(-1, NUM_TRIES);
+    public final RequestStatus requestSwAge = new RequestStatus(-1, NUM_TRIES, this);
 
     /** Output-port request status (0..3). */
     public final ArrayList<RequestStatus> requestStatusOutputs = new ArrayList<RequestStatus>();
 
     /** Relays request status (all 8). */
-    public final RequestStatus requestStatusRelays = new RequestStatus(MAX_STATUS_EVENTBASED_VALUEAGE_MSEC, NUM_TRIES);
+    public final RequestStatus requestStatusRelays = new RequestStatus(MAX_STATUS_EVENTBASED_VALUEAGE_MSEC, NUM_TRIES,
+            this);
 
     /** Binary-sensors request status (all 8). */
     public final RequestStatus requestStatusBinSensors = new RequestStatus(MAX_STATUS_EVENTBASED_VALUEAGE_MSEC,
-            NUM_TRIES);
+            NUM_TRIES, this);
 
     /**
      * Variables request status.
@@ -88,10 +97,11 @@ public class ModInfo {
 
     /** LEDs and logic-operations request status (all 12+4). */
     public final RequestStatus requestStatusLedsAndLogicOps = new RequestStatus(MAX_STATUS_POLLED_VALUEAGE_MSEC,
-            NUM_TRIES);
+            NUM_TRIES, this);
 
     /** Key lock-states request status (all tables, A-D). */
-    public final RequestStatus requestStatusLockedKeys = new RequestStatus(MAX_STATUS_POLLED_VALUEAGE_MSEC, NUM_TRIES);
+    public final RequestStatus requestStatusLockedKeys = new RequestStatus(MAX_STATUS_POLLED_VALUEAGE_MSEC, NUM_TRIES,
+            this);
 
     /**
      * Holds the last LCN variable requested whose response will not contain the variable's type.
@@ -107,7 +117,7 @@ public class ModInfo {
     private final LinkedList<ByteBuffer> pckCommandsWithAck = new LinkedList<ByteBuffer>();
 
     /** Status data for the currently processed {@link PckCommandWithAck}. */
-    private final RequestStatus requestCurrPckCommandWithAck = new RequestStatus(-1, NUM_TRIES);
+    private final RequestStatus requestCurrPckCommandWithAck = new RequestStatus(-1, NUM_TRIES, this);
 
     /**
      * Constructor.
@@ -117,7 +127,7 @@ public class ModInfo {
     public ModInfo(LcnAddrMod addr) {
         this.addr = addr;
         for (int i = 0; i < 4; ++i) {
-            this.requestStatusOutputs.add(new RequestStatus(MAX_STATUS_EVENTBASED_VALUEAGE_MSEC, NUM_TRIES));
+            this.requestStatusOutputs.add(new RequestStatus(MAX_STATUS_EVENTBASED_VALUEAGE_MSEC, NUM_TRIES, this));
         }
     }
 
@@ -139,6 +149,33 @@ public class ModInfo {
         this.lastRequestedVarWithoutTypeInResponse = LcnDefs.Var.UNKNOWN;
     }
 
+    /**
+     * Gets the module's address.
+     * 
+     * @return the address
+     */
+    LcnAddrMod getAddr() {
+        return this.addr;
+    }
+
+    /**
+     * Gets the time {@link #update} has to be called next.
+     * 
+     * @return the time stamp
+     */
+    long getNextUpdateTimeStamp() {
+        return this.nextUpdateTimeStamp;
+    }
+
+    /**
+     * Makes sure {@link #update} is called at the given time (or earlier).
+     * 
+     * @param timeStamp the time stamp
+     */
+    void scheduleUpdate(long timeStamp) {
+        this.nextUpdateTimeStamp = Math.min(this.nextUpdateTimeStamp, timeStamp);
+    }
+
     /**
      * Gets the last requested variable whose response will not contain the variables type.
      * 
@@ -213,38 +250,62 @@ public class ModInfo {
         }
         conn.queue(new SendData.PckSendData(this.addr, true, data));
         this.requestCurrPckCommandWithAck.onRequestSent(currTime);
+        this.scheduleUpdate(currTime + timeoutMSec * 1000000L); // Retry if there is no acknowledge
+        return true;
+    }
+
+    /**
+     * Checks whether a status request should be sent now.
+     * Due requests beyond the segment's budget are deferred to the next call of {@link #update}.
+     * 
+     * @param r the status request
+     * @param timeoutMSec the time to wait for a response before retrying a request
+     * @param currTime the current time stamp
+     * @param budget the segment's budget for status requests
+     * @return true to send the request
+     */
+    private boolean shouldSendStatusRequest(RequestStatus r, long timeoutMSec, long currTime, RequestBudget budget) {
+        if (!r.shouldSendNextRequest(timeoutMSec, currTime)) {
+            return false;
+        }
+        if (!budget.tryAcquire(currTime)) {
+            this.isRequestDeferred = true;
+            return false;
+        }
         return true;
     }
 
     /**
      * Keeps the request logic active.
-     * Must be called periodically.
+     * Must be called when {@link #getNextUpdateTimeStamp()} is due.
      * 
      * @param conn the {@link Connection} belonging to this {@link ModInfo}
      * @param timeoutMSec the time to wait for a response before retrying a request
      * @param currTime the current time stamp
+     * @param budget the segment's budget for status requests
      */
-    void update(Connection conn, long timeoutMSec, long currTime) {
+    void update(Connection conn, long timeoutMSec, long currTime, RequestBudget budget) {
+        this.isRequestDeferred = false;
         // Firmware request
         RequestStatus r;
-        if ((r = this.requestSwAge).shouldSendNextRequest(timeoutMSec, currTime)) {
+        if (this.shouldSendStatusRequest(r = this.requestSwAge, timeoutMSec, currTime, budget)) {
             conn.queue(this.addr, false, PckGenerator.requestSn());
             r.onRequestSent(currTime);
         }
         // Output-port requests
         for (int i = 0; i < 4; ++i) {
-            if ((r = this.requestStatusOutputs.get(i)).shouldSendNextRequest(timeoutMSec, currTime)) {
+            if (this.shouldSendStatusRequest(r = this.requestStatusOutputs.get(i), timeoutMSec, currTime, budget)) {
                 conn.queue(this.addr, false, PckGenerator.requestOutputStatus(i));
                 r.onRequestSent(currTime);
             }
         }
         // Relays request
-        if ((r = this.requestStatusRelays).shouldSendNextRequest(timeoutMSec, currTime)) {
+        if (this.shouldSendStatusRequest(r = this.requestStatusRelays, timeoutMSec, currTime, budget)) {
             conn.queue(this.addr, false, PckGenerator.requestRelaysStatus());
             r.onRequestSent(currTime);
         }
         // Binary-sensors request
-        if ((r = this.requestStatusBinSensors).shouldSendNextRequest(timeoutMSec, currTime)) {
+        if (this.shouldSendStatusRequest(r = this.requestStatusBinSensors, timeoutMSec, currTime, budget)) {
             conn.queue(this.addr, false, PckGenerator.requestBinSensorsStatus());
             r.onRequestSent(currTime);
         }
@@ -255,7 +316,8 @@ public class ModInfo {
                 for (LcnDefs.Var var : LcnDefs.Var.values()) {
                     if (var != LcnDefs.Var.UNKNOWN) {
                         this.requestStatusVars.put(var, new RequestStatus(swAge >= 0x170206
-                                ? MAX_STATUS_EVENTBASED_VALUEAGE_MSEC : MAX_STATUS_POLLED_VALUEAGE_MSEC, NUM_TRIES));
+                                ? MAX_STATUS_EVENTBASED_VALUEAGE_MSEC : MAX_STATUS_POLLED_VALUEAGE_MSEC, NUM_TRIES,
+                                this));
                     }
                 }
             }
@@ -268,35 +330,60 @@ public class ModInfo {
             }
             // Variables
             for (Map.Entry<LcnDefs.Var, RequestStatus> kv : this.requestStatusVars.entrySet()) {
-                if ((r = kv.getValue()).shouldSendNextRequest(timeoutMSec, currTime)) {
-                    // Detect if we can send immediately or if we have to wait for a "typeless" request first
-                    boolean hasTypeInResponse = LcnDefs.Var.hasTypeInResponse(kv.getKey(), this.swAge);
-                    if (hasTypeInResponse || this.lastRequestedVarWithoutTypeInResponse == LcnDefs.Var.UNKNOWN) {
-                        try {
-                            conn.queue(this.addr, false, PckGenerator.requestVarStatus(kv.getKey(), this.swAge));
-                            r.onRequestSent(currTime);
-                            if (!hasTypeInResponse) {
-                                this.lastRequestedVarWithoutTypeInResponse = kv.getKey();
-                            }
-                        } catch (IllegalArgumentException ex) {
-                            r.reset();
+                // Detect if we can send immediately or if we have to wait for a "typeless" request first
+                boolean hasTypeInResponse = LcnDefs.Var.hasTypeInResponse(kv.getKey(), this.swAge);
+                if ((hasTypeInResponse || this.lastRequestedVarWithoutTypeInResponse == LcnDefs.Var.UNKNOWN)
+                        && this.shouldSendStatusRequest(r = kv.getValue(), timeoutMSec, currTime, budget)) {
+                    try {
+                        conn.queue(this.addr, false, PckGenerator.requestVarStatus(kv.getKey(), this.swAge));
+                        r.onRequestSent(currTime);
+                        if (!hasTypeInResponse) {
+                            this.lastRequestedVarWithoutTypeInResponse = kv.getKey();
                         }
+                    } catch (IllegalArgumentException ex) {
+                        r.reset();
                     }
                 }
             }
         }
         // LEDs and logic-operations request
-        if ((r = this.requestStatusLedsAndLogicOps).shouldSendNextRequest(timeoutMSec, currTime)) {
+        if (this.shouldSendStatusRequest(r = this.requestStatusLedsAndLogicOps, timeoutMSec, currTime, budget)) {
             conn.queue(this.addr, false, PckGenerator.requestLedsAndLogicOpsStatus());
             r.onRequestSent(currTime);
         }
         // Key-locks request
-        if ((r = this.requestStatusLockedKeys).shouldSendNextRequest(timeoutMSec, currTime)) {
+        if (this.shouldSendStatusRequest(r = this.requestStatusLockedKeys, timeoutMSec, currTime, budget)) {
             conn.queue(this.addr, false, PckGenerator.requestKeyLocksStatus());
             r.onRequestSent(currTime);
         }
         // Try to send next acknowledged command. Will also detect failed ones.
         this.tryProcessNextCommandWithAck(conn, timeoutMSec, currTime);
+        // Schedule the next call
+        this.nextUpdateTimeStamp = this.isRequestDeferred ? currTime
+                : this.getNextCheckTimeStamp(timeoutMSec, currTime);
+    }
+
+    /**
+     * Gets the earliest time one of the requests has to be checked again.
+     * 
+     * @param timeoutMSec the time to wait for a response before retrying a request
+     * @param currTime the current time stamp
+     * @return the time stamp or {@link Long#MAX_VALUE} if there is nothing to do
+     */
+    private long getNextCheckTimeStamp(long timeoutMSec, long currTime) {
+        long ret = Math.min(this.requestSwAge.getNextCheckTimeStamp(timeoutMSec, currTime),
+                this.requestCurrPckCommandWithAck.getNextCheckTimeStamp(timeoutMSec, currTime));
+        for (RequestStatus s : this.requestStatusOutputs) {
+            ret = Math.min(ret, s.getNextCheckTimeStamp(timeoutMSec, currTime));
+        }
+        ret = Math.min(ret, this.requestStatusRelays.getNextCheckTimeStamp(timeoutMSec, currTime));
+        ret = Math.min(ret, this.requestStatusBinSensors.getNextCheckTimeStamp(timeoutMSec, currTime));
+        for (RequestStatus s : this.requestStatusVars.values()) {
+            ret = Math.min(ret, s.getNextCheckTimeStamp(timeoutMSec, currTime));
+        }
+        ret = Math.min(ret, this.requestStatusLedsAndLogicOps.getNextCheckTimeStamp(timeoutMSec, currTime));
+        ret = Math.min(ret, this.requestStatusLockedKeys.getNextCheckTimeStamp(timeoutMSec, currTime));
+        return ret;
     }
 
 }
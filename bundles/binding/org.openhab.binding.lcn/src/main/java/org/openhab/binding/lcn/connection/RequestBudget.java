@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.lcn.connection;
+
+/**
+ * Limits the number of status requests sent to one LCN segment.
+ * The requests (and their responses) share the bus with the commands and the status messages sent by the modules
+ * on their own. The budget refills continuously and holds at most one second's worth of requests.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+class RequestBudget {
+
+    /** Requests allowed per second. */
+    private final int requestsPerSec;
+
+    /** Requests left (scaled by 1s in nanoseconds to avoid fractions). */
+    private long budget;
+
+    /** The time the budget was refilled last. */
+    private long lastRefillTimeStamp;
+
+    /**
+     * Constructor.
+     *
+     * @param requestsPerSec the requests allowed per second
+     * @param currTime the current time stamp
+     */
+    RequestBudget(int requestsPerSec, long currTime) {
+        this.requestsPerSec = requestsPerSec;
+        this.budget = requestsPerSec * 1000000000L;
+        this.lastRefillTimeStamp = currTime;
+    }
+
+    /**
+     * Takes one request from the budget.
+     *
+     * @param currTime the current time stamp
+     * @return true if the request may be sent, false if it has to wait
+     */
+    boolean tryAcquire(long currTime) {
+        long max = this.requestsPerSec * 1000000000L;
+        this.budget = Math.min(max, this.budget + (currTime - this.lastRefillTimeStamp) * this.requestsPerSec);
+        this.lastRefillTimeStamp = currTime;
+        if (this.budget < 1000000000L) {
+            return false;
+        }
+        this.budget -= 1000000000L;
+        return true;
+    }
+
+}
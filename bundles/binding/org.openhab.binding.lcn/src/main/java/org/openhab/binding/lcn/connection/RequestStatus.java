@@ -30,9 +30,15 @@ public class RequestStatus {
     /** The time stamp of the next scheduled request or 0. */
     private long nextRequestTimeStamp;
 
+    /** true if the next scheduled request is the forced update (and not requested explicitly). */
+    private boolean isForcedUpdateScheduled;
+
     /** Number of retries left until the request is marked as failed. */
     private int numRetriesLeft;
 
+    /** The module to notify when a request is scheduled or null. */
+    private final ModInfo owner;
+
     /**
      * Constructor.
      * 
@@ -40,8 +46,20 @@ public class RequestStatus {
      * @param numTries the maximum number of tries until the request is marked as failed
      */
     RequestStatus(long maxAgeMSec, int numTries) {
+        this(maxAgeMSec, numTries, null);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param maxAgeMSec the forced-updates interval (-1 if not used)
+     * @param numTries the maximum number of tries until the request is marked as failed
+     * @param owner the module to notify when a request is scheduled (null if not used)
+     */
+    RequestStatus(long maxAgeMSec, int numTries, ModInfo owner) {
         this.maxAgeMSec = maxAgeMSec;
         this.numTries = numTries;
+        this.owner = owner;
         this.reset();
     }
 
@@ -50,6 +68,7 @@ public class RequestStatus {
         this.isActive = false;
         this.currRequestTimeStamp = 0;
         this.nextRequestTimeStamp = 0;
+        this.isForcedUpdateScheduled = false;
         this.numRetriesLeft = 0;
     }
 
@@ -102,6 +121,10 @@ public class RequestStatus {
     public void nextRequestIn(long delayMSec, long currTime) {
         this.isActive = true;
         this.nextRequestTimeStamp = currTime + delayMSec * 1000000L;
+        this.isForcedUpdateScheduled = false;
+        if (this.owner != null) {
+            this.owner.scheduleUpdate(this.nextRequestTimeStamp);
+        }
     }
 
     /**
@@ -124,6 +147,30 @@ public class RequestStatus {
         return false;
     }
 
+    /**
+     * Gets the time {@link #shouldSendNextRequest(long, long)} has to be checked again.
+     * 
+     * @param timeoutMSec the time to wait for a response before retrying the request
+     * @param currTime the current time stamp
+     * @return the time stamp or {@link Long#MAX_VALUE} if there is nothing to do
+     */
+    long getNextCheckTimeStamp(long timeoutMSec, long currTime) {
+        long ret = Long.MAX_VALUE;
+        if (this.isActive) {
+            if (this.nextRequestTimeStamp != 0) {
+                ret = this.nextRequestTimeStamp;
+            }
+            if (this.isPending()) {
+                long timeoutTimeStamp = this.currRequestTimeStamp + timeoutMSec * 1000000L;
+                // A failed request is not checked again
+                if (timeoutTimeStamp > currTime || this.numRetriesLeft > 0) {
+                    ret = Math.min(ret, timeoutTimeStamp);
+                }
+            }
+        }
+        return ret;
+    }
+
     /**
      * Must be called right after a new request has been sent.
      * Must be activated first.
@@ -144,16 +191,27 @@ public class RequestStatus {
         this.currRequestTimeStamp = currTime;
         // Schedule next request
         if (this.maxAgeMSec != -1) {
-            this.nextRequestIn(this.maxAgeMSec, currTime);
+            this.nextRequestTimeStamp = currTime + this.maxAgeMSec * 1000000L;
+            this.isForcedUpdateScheduled = true;
         } else {
             this.nextRequestTimeStamp = 0;
+            this.isForcedUpdateScheduled = false;
         }
     }
 
-    /** Must be called when a response (requested or not) has been received. */
-    public void onResponseReceived() {
+    /**
+     * Must be called when a response (requested or not) has been received.
+     * The value is up-to-date now, so a scheduled forced update is postponed.
+     * Requests scheduled explicitly (e.g. after a command) are kept.
+     * 
+     * @param currTime the current time stamp
+     */
+    public void onResponseReceived(long currTime) {
         if (this.isActive) {
             this.currRequestTimeStamp = 0; // Mark request (if any) as successful
+            if (this.isForcedUpdateScheduled) {
+                this.nextRequestTimeStamp = currTime + this.maxAgeMSec * 1000000L;
+            }
         }
     }
 
@@ -31,7 +31,7 @@ abstract class SendData {
      * @param localSegId the local segment id
      * @return true if everything was set-up correctly and data was written
      * @throws UnsupportedEncodingException if text could not be encoded for LCN-PCHK
-     * @throws BufferOverflowException if target buffer has not enough space left (buffer will not be altered)
+     * @throws BufferOverflowException if target buffer has not enough space left (buffer might be altered)
      */
     abstract boolean write(ByteBuffer buffer, int localSegId)
             throws UnsupportedEncodingException, BufferOverflowException;
@@ -114,7 +114,7 @@ abstract class SendData {
             }
             buffer.put(PckGenerator.generateAddressHeader(this.addr, localSegId, this.wantsAck)
                     .getBytes(LcnDefs.LCN_ENCODING));
-            buffer.put(this.data);
+            buffer.put(this.data.duplicate()); // Keeps the data for retries
             buffer.put(PckGenerator.TERMINATION.getBytes(LcnDefs.LCN_ENCODING));
             return true;
         }
@@ -8,10 +8,6 @@
  */
 package org.openhab.binding.lcn.input;
 
-import java.util.Collection;
-import java.util.LinkedList;
-
-import org.openhab.binding.lcn.common.PckParser;
 import org.openhab.binding.lcn.connection.Connection;
 import org.openhab.core.events.EventPublisher;
 import org.openhab.core.items.Item;
@@ -24,20 +20,6 @@ import org.openhab.core.types.Command;
  */
 public class AuthUsername extends Input {
 
-    /**
-     * Tries to parse the given input received from LCN-PCHK.
-     * 
-     * @param input the input
-     * @return list of {@link AuthUsername} (might be empty, but not null}
-     */
-    static Collection<Input> tryParseInput(String input) {
-        LinkedList<Input> ret = new LinkedList<Input>();
-        if (input.equals(PckParser.AUTH_USERNAME)) {
-            ret.add(new AuthUsername());
-        }
-        return ret;
-    }
-
     /**
      * Sends the user name.
      * {@inheritDoc}
@@ -8,9 +8,7 @@
  */
 package org.openhab.binding.lcn.input;
 
-import java.util.Arrays;
 import java.util.Collection;
-import java.util.LinkedList;
 
 import org.openhab.binding.lcn.connection.Connection;
 import org.openhab.core.events.EventPublisher;
@@ -100,115 +98,6 @@ public abstract class Input {
 
     }
 
-    /** Interface for parsers. */
-    private interface Parser {
-
-        /**
-         * Tries to parse the given input text.
-         * Will return a list of parsed {@link Input}s. The list might be empty (but not null).
-         * 
-         * @param input the input data received from LCN-PCHK
-         * @return the parsed {@link Input}s (never null)
-         */
-        Collection<Input> tryParseInput(String input);
-
-    }
-
-    /**
-     * Registered parsers.
-     * Will be used to create {@link Input} objects from read input.
-     */
-    private static final LinkedList<Parser> inputParsers = new LinkedList<Parser>();
-
-    /** Initializes static data once this class is first used. */
-    static {
-        // Register parsers
-        inputParsers.add(new Parser() {
-            @Override
-            public Collection<Input> tryParseInput(String input) {
-                return AuthUsername.tryParseInput(input);
-            }
-        });
-        inputParsers.add(new Parser() {
-            @Override
-            public Collection<Input> tryParseInput(String input) {
-                return AuthPassword.tryParseInput(input);
-            }
-        });
-        inputParsers.add(new Parser() {
-            @Override
-            public Collection<Input> tryParseInput(String input) {
-                return AuthOk.tryParseInput(input);
-            }
-        });
-        inputParsers.add(new Parser() {
-            @Override
-            public Collection<Input> tryParseInput(String input) {
-                return LcnConnState.tryParseInput(input);
-            }
-        });
-        inputParsers.add(new Parser() {
-            @Override
-            public Collection<Input> tryParseInput(String input) {
-                return ModAck.tryParseInput(input);
-            }
-        });
-        inputParsers.add(new Parser() {
-            @Override
-            public Collection<Input> tryParseInput(String input) {
-                return ModSk.tryParseInput(input);
-            }
-        });
-        inputParsers.add(new Parser() {
-            @Override
-            public Collection<Input> tryParseInput(String input) {
-                return ModSn.tryParseInput(input);
-            }
-        });
-        inputParsers.add(new Parser() {
-            @Override
-            public Collection<Input> tryParseInput(String input) {
-                return ModStatusOutput.tryParseInput(input);
-            }
-        });
-        inputParsers.add(new Parser() {
-            @Override
-            public Collection<Input> tryParseInput(String input) {
-                return ModStatusRelays.tryParseInput(input);
-            }
-        });
-        inputParsers.add(new Parser() {
-            @Override
-            public Collection<Input> tryParseInput(String input) {
-                return ModStatusBinSensors.tryParseInput(input);
-            }
-        });
-        inputParsers.add(new Parser() {
-            @Override
-            public Collection<Input> tryParseInput(String input) {
-                return ModStatusVar.tryParseInput(input);
-            }
-        });
-        inputParsers.add(new Parser() {
-            @Override
-            public Collection<Input> tryParseInput(String input) {
-                return ModStatusLedsAndLogicOps.tryParseInput(input);
-            }
-        });
-        inputParsers.add(new Parser() {
-            @Override
-            public Collection<Input> tryParseInput(String input) {
-                return ModStatusKeyLocks.tryParseInput(input);
-            }
-        });
-        inputParsers.add(new Parser() {
-            @Override
-            public Collection<Input> tryParseInput(String input) {
-                return Arrays.asList((Input) new Unknown(input));
-            } // Will "catch" everything
-        });
-    }
-
     /**
      * Parses the given input (received from LCN-PCHK).
      * 
@@ -216,13 +105,7 @@ public abstract class Input {
      * @return the parsed {@link Input} list. Will always contain at least one element
      */
     public static Collection<Input> parse(String input) {
-        for (Parser p : inputParsers) {
-            Collection<Input> ret = p.tryParseInput(input);
-            if (!ret.isEmpty()) {
-                return ret;
-            }
-        }
-        throw new Error();
+        return PckLexer.parse(input);
     }
 
     /**
@@ -8,11 +8,7 @@
  */
 package org.openhab.binding.lcn.input;
 
-import java.util.Collection;
-import java.util.LinkedList;
-
 import org.openhab.binding.lcn.common.PckGenerator;
-import org.openhab.binding.lcn.common.PckParser;
 import org.openhab.binding.lcn.connection.Connection;
 import org.openhab.core.events.EventPublisher;
 import org.openhab.core.items.Item;
@@ -46,22 +42,6 @@ public class LcnConnState extends Input {
         return this.isLcnConnected;
     }
 
-    /**
-     * Tries to parse the given input received from LCN-PCHK.
-     * 
-     * @param input the input
-     * @return list of {@link LcnConnState} (might be empty, but not null}
-     */
-    static Collection<Input> tryParseInput(String input) {
-        LinkedList<Input> ret = new LinkedList<Input>();
-        if (input.equals(PckParser.LCNCONNSTATE_CONNECTED)) {
-            ret.add(new LcnConnState(true));
-        } else if (input.equals(PckParser.LCNCONNSTATE_DISCONNECTED)) {
-            ret.add(new LcnConnState(false));
-        }
-        return ret;
-    }
-
     /**
      * Notifies the connection about the LCN connection state.
      * {@inheritDoc}
@@ -8,12 +8,7 @@
  */
 package org.openhab.binding.lcn.input;
 
-import java.util.Collection;
-import java.util.LinkedList;
-import java.util.regex.Matcher;
-
 import org.openhab.binding.lcn.common.LcnAddrMod;
-import org.openhab.binding.lcn.common.PckParser;
 import org.openhab.binding.lcn.connection.Connection;
 import org.openhab.core.events.EventPublisher;
 import org.openhab.core.items.Item;
@@ -49,27 +44,6 @@ public class ModAck extends Mod {
         return this.code;
     }
 
-    /**
-     * Tries to parse the given input received from LCN-PCHK.
-     * 
-     * @param input the input
-     * @return list of {@link ModAck} (might be empty, but not null}
-     */
-    static Collection<Input> tryParseInput(String input) {
-        LinkedList<Input> ret = new LinkedList<Input>();
-        Matcher matcher;
-        if ((matcher = PckParser.PATTERN_ACK_POS.matcher(input)).matches()) {
-            ret.add(new ModAck(
-                    new LcnAddrMod(Integer.parseInt(matcher.group("segId")), Integer.parseInt(matcher.group("modId"))),
-                    -1));
-        } else if ((matcher = PckParser.PATTERN_ACK_NEG.matcher(input)).matches()) {
-            ret.add(new ModAck(
-                    new LcnAddrMod(Integer.parseInt(matcher.group("segId")), Integer.parseInt(matcher.group("modId"))),
-                    Integer.parseInt(matcher.group("code"))));
-        }
-        return ret;
-    }
-
     /**
      * Notifies the connection about the acknowledge.
      * {@inheritDoc}
@@ -8,12 +8,7 @@
  */
 package org.openhab.binding.lcn.input;
 
-import java.util.Collection;
-import java.util.LinkedList;
-import java.util.regex.Matcher;
-
 import org.openhab.binding.lcn.common.LcnAddrMod;
-import org.openhab.binding.lcn.common.PckParser;
 import org.openhab.binding.lcn.connection.Connection;
 import org.openhab.core.events.EventPublisher;
 import org.openhab.core.items.Item;
@@ -49,23 +44,6 @@ public class ModSk extends Mod {
         return this.reportedSegId;
     }
 
-    /**
-     * Tries to parse the given input received from LCN-PCHK.
-     * 
-     * @param input the input
-     * @return list of {@link ModSk} (might be empty, but not null}
-     */
-    static Collection<Input> tryParseInput(String input) {
-        LinkedList<Input> ret = new LinkedList<Input>();
-        Matcher matcher = PckParser.PATTERN_SK_RESPONSE.matcher(input);
-        if (matcher.matches()) {
-            ret.add(new ModSk(
-                    new LcnAddrMod(Integer.parseInt(matcher.group("segId")), Integer.parseInt(matcher.group("modId"))),
-                    Integer.parseInt(matcher.group("id"))));
-        }
-        return ret;
-    }
-
     /**
      * Sets the local segment id in the connection.
      * {@inheritDoc}
@@ -8,12 +8,7 @@
  */
 package org.openhab.binding.lcn.input;
 
-import java.util.Collection;
-import java.util.LinkedList;
-import java.util.regex.Matcher;
-
 import org.openhab.binding.lcn.common.LcnAddrMod;
-import org.openhab.binding.lcn.common.PckParser;
 import org.openhab.binding.lcn.connection.Connection;
 import org.openhab.binding.lcn.connection.ModInfo;
 import org.openhab.core.events.EventPublisher;
@@ -51,23 +46,6 @@ public class ModSn extends Mod {
         return this.swAge;
     }
 
-    /**
-     * Tries to parse the given input received from LCN-PCHK.
-     * 
-     * @param input the input
-     * @return list of {@link ModSn} (might be empty, but not null}
-     */
-    static Collection<Input> tryParseInput(String input) {
-        LinkedList<Input> ret = new LinkedList<Input>();
-        Matcher matcher = PckParser.PATTERN_SN.matcher(input);
-        if (matcher.matches()) {
-            ret.add(new ModSn(
-                    new LcnAddrMod(Integer.parseInt(matcher.group("segId")), Integer.parseInt(matcher.group("modId"))),
-                    Integer.parseInt(matcher.group("swAge"), 16)));
-        }
-        return ret;
-    }
-
     /**
      * Updates the module's data cache with the firmware date.
      * {@inheritDoc}
@@ -78,7 +56,7 @@ public class ModSn extends Mod {
         ModInfo info = conn.getModInfo(this.logicalSourceAddr);
         if (info != null) {
             info.setSwAge(this.swAge);
-            info.requestSwAge.onResponseReceived();
+            info.requestSwAge.onResponseReceived(System.nanoTime());
         }
     }
 
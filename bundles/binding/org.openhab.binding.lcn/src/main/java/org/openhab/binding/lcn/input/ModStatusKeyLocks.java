@@ -8,12 +8,7 @@
  */
 package org.openhab.binding.lcn.input;
 
-import java.util.Collection;
-import java.util.LinkedList;
-import java.util.regex.Matcher;
-
 import org.openhab.binding.lcn.common.LcnAddrMod;
-import org.openhab.binding.lcn.common.PckParser;
 import org.openhab.binding.lcn.connection.Connection;
 import org.openhab.binding.lcn.connection.ModInfo;
 import org.openhab.core.events.EventPublisher;
@@ -52,30 +47,6 @@ public class ModStatusKeyLocks extends Mod {
         return this.states[tableId][keyId];
     }
 
-    /**
-     * Tries to parse the given input received from LCN-PCHK.
-     * 
-     * @param input the input
-     * @return list of {@link ModStatusKeyLocks} (might be empty, but not null}
-     */
-    static Collection<Input> tryParseInput(String input) {
-        LinkedList<Input> ret = new LinkedList<Input>();
-        try {
-            Matcher matcher = PckParser.PATTERN_STATUS_KEYLOCKS.matcher(input);
-            if (matcher.matches()) {
-                boolean[][] states = new boolean[4][];
-                for (int i = 0; i < 4; ++i) {
-                    String s = matcher.group(String.format("table%d", i));
-                    states[i] = s != null ? PckParser.getBooleanValue(Integer.parseInt(s)) : new boolean[8];
-                }
-                ret.add(new ModStatusKeyLocks(new LcnAddrMod(Integer.parseInt(matcher.group("segId")),
-                        Integer.parseInt(matcher.group("modId"))), states));
-            }
-        } catch (IllegalArgumentException ex) {
-        }
-        return ret;
-    }
-
     /**
      * Notifies the connection about the received key-locks status.
      * {@inheritDoc}
@@ -85,7 +56,7 @@ public class ModStatusKeyLocks extends Mod {
         super.process(conn); // Will replace source segment 0 with the local segment id
         ModInfo info = conn.getModInfo(this.logicalSourceAddr);
         if (info != null) {
-            info.requestStatusLockedKeys.onResponseReceived();
+            info.requestStatusLockedKeys.onResponseReceived(System.nanoTime());
         }
     }
 
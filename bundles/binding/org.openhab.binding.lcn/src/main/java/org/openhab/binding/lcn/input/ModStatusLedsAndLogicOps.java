@@ -8,13 +8,8 @@
  */
 package org.openhab.binding.lcn.input;
 
-import java.util.Collection;
-import java.util.LinkedList;
-import java.util.regex.Matcher;
-
 import org.openhab.binding.lcn.common.LcnAddrMod;
 import org.openhab.binding.lcn.common.LcnDefs;
-import org.openhab.binding.lcn.common.PckParser;
 import org.openhab.binding.lcn.connection.Connection;
 import org.openhab.binding.lcn.connection.ModInfo;
 import org.openhab.core.events.EventPublisher;
@@ -68,58 +63,6 @@ public class ModStatusLedsAndLogicOps extends Mod {
         return this.statesLogicOps[logicOpId];
     }
 
-    /**
-     * Tries to parse the given input received from LCN-PCHK.
-     * 
-     * @param input the input
-     * @return list of {@link ModStatusLedsAndLogicOps} (might be empty, but not null}
-     */
-    static Collection<Input> tryParseInput(String input) {
-        LinkedList<Input> ret = new LinkedList<Input>();
-        Matcher matcher = PckParser.PATTERN_STATUS_LEDSANDLOGICOPS.matcher(input);
-        if (matcher.matches()) {
-            LcnDefs.LedStatus[] statesLeds = new LcnDefs.LedStatus[12];
-            for (int i = 0; i < 12; ++i) {
-                switch (matcher.group("ledStates").toUpperCase().charAt(i)) {
-                    case 'A':
-                        statesLeds[i] = LcnDefs.LedStatus.OFF;
-                        break;
-                    case 'E':
-                        statesLeds[i] = LcnDefs.LedStatus.ON;
-                        break;
-                    case 'B':
-                        statesLeds[i] = LcnDefs.LedStatus.BLINK;
-                        break;
-                    case 'F':
-                        statesLeds[i] = LcnDefs.LedStatus.FLICKER;
-                        break;
-                    default:
-                        throw new Error();
-                }
-            }
-            LcnDefs.LogicOpStatus[] statesLogicOps = new LcnDefs.LogicOpStatus[4];
-            for (int i = 0; i < 4; ++i) {
-                switch (matcher.group("logicOpStates").toUpperCase().charAt(i)) {
-                    case 'N':
-                        statesLogicOps[i] = LcnDefs.LogicOpStatus.NOT;
-                        break;
-                    case 'T':
-                        statesLogicOps[i] = LcnDefs.LogicOpStatus.OR;
-                        break;
-                    case 'V':
-                        statesLogicOps[i] = LcnDefs.LogicOpStatus.AND;
-                        break;
-                    default:
-                        throw new Error();
-                }
-            }
-            ret.add(new ModStatusLedsAndLogicOps(
-                    new LcnAddrMod(Integer.parseInt(matcher.group("segId")), Integer.parseInt(matcher.group("modId"))),
-                    statesLeds, statesLogicOps));
-        }
-        return ret;
-    }
-
     /**
      * Notifies the connection about the received LEDs and logic-operations status.
      * {@inheritDoc}
@@ -129,7 +72,7 @@ public class ModStatusLedsAndLogicOps extends Mod {
         super.process(conn); // Will replace source segment 0 with the local segment id
         ModInfo info = conn.getModInfo(this.logicalSourceAddr);
         if (info != null) {
-            info.requestStatusLedsAndLogicOps.onResponseReceived();
+            info.requestStatusLedsAndLogicOps.onResponseReceived(System.nanoTime());
         }
     }
 
@@ -8,12 +8,7 @@
  */
 package org.openhab.binding.lcn.input;
 
-import java.util.Collection;
-import java.util.LinkedList;
-import java.util.regex.Matcher;
-
 import org.openhab.binding.lcn.common.LcnAddrMod;
-import org.openhab.binding.lcn.common.PckParser;
 import org.openhab.binding.lcn.connection.Connection;
 import org.openhab.binding.lcn.connection.ModInfo;
 import org.openhab.core.events.EventPublisher;
@@ -64,28 +59,6 @@ public class ModStatusOutput extends Mod {
         return this.percent;
     }
 
-    /**
-     * Tries to parse the given input received from LCN-PCHK.
-     * 
-     * @param input the input
-     * @return list of {@link ModStatusOutput} (might be empty, but not null}
-     */
-    static Collection<Input> tryParseInput(String input) {
-        LinkedList<Input> ret = new LinkedList<Input>();
-        Matcher matcher;
-        if ((matcher = PckParser.PATTERN_STATUS_OUTPUT_PERCENT.matcher(input)).matches()) {
-            ret.add(new ModStatusOutput(
-                    new LcnAddrMod(Integer.parseInt(matcher.group("segId")), Integer.parseInt(matcher.group("modId"))),
-                    Integer.parseInt(matcher.group("outputId")) - 1, Integer.parseInt(matcher.group("percent"))));
-        } else if ((matcher = PckParser.PATTERN_STATUS_OUTPUT_NATIVE.matcher(input)).matches()) {
-            ret.add(new ModStatusOutput(
-                    new LcnAddrMod(Integer.parseInt(matcher.group("segId")), Integer.parseInt(matcher.group("modId"))),
-                    Integer.parseInt(matcher.group("outputId")) - 1,
-                    (double) Integer.parseInt(matcher.group("value")) / 2));
-        }
-        return ret;
-    }
-
     /**
      * Notifies the connection about the received output-port status.
      * {@inheritDoc}
@@ -95,7 +68,7 @@ public class ModStatusOutput extends Mod {
         super.process(conn); // Will replace source segment 0 with the local segment id
         ModInfo info = conn.getModInfo(this.logicalSourceAddr);
         if (info != null) {
-            info.requestStatusOutputs.get(this.outputId).onResponseReceived();
+            info.requestStatusOutputs.get(this.outputId).onResponseReceived(System.nanoTime());
         }
     }
 
@@ -8,12 +8,7 @@
  */
 package org.openhab.binding.lcn.input;
 
-import java.util.Collection;
-import java.util.LinkedList;
-import java.util.regex.Matcher;
-
 import org.openhab.binding.lcn.common.LcnAddrMod;
-import org.openhab.binding.lcn.common.PckParser;
 import org.openhab.binding.lcn.connection.Connection;
 import org.openhab.binding.lcn.connection.ModInfo;
 import org.openhab.core.events.EventPublisher;
@@ -51,27 +46,6 @@ public class ModStatusRelays extends Mod {
         return this.states[relayId];
     }
 
-    /**
-     * Tries to parse the given input received from LCN-PCHK.
-     * 
-     * @param input the input
-     * @return list of {@link ModStatusRelays} (might be empty, but not null}
-     */
-    static Collection<Input> tryParseInput(String input) {
-        LinkedList<Input> ret = new LinkedList<Input>();
-        try {
-            Matcher matcher = PckParser.PATTERN_STATUS_RELAYS.matcher(input);
-            if (matcher.matches()) {
-                ret.add(new ModStatusRelays(
-                        new LcnAddrMod(Integer.parseInt(matcher.group("segId")),
-                                Integer.parseInt(matcher.group("modId"))),
-                        PckParser.getBooleanValue(Integer.parseInt(matcher.group("byteValue")))));
-            }
-        } catch (IllegalArgumentException ex) {
-        }
-        return ret;
-    }
-
     /**
      * Notifies the connection about the received relays status.
      * {@inheritDoc}
@@ -81,7 +55,7 @@ public class ModStatusRelays extends Mod {
         super.process(conn); // Will replace source segment 0 with the local segment id
         ModInfo info = conn.getModInfo(this.logicalSourceAddr);
         if (info != null) {
-            info.requestStatusRelays.onResponseReceived();
+            info.requestStatusRelays.onResponseReceived(System.nanoTime());
         }
     }
 
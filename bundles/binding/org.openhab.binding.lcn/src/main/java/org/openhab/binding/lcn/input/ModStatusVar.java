@@ -8,13 +8,8 @@
  */
 package org.openhab.binding.lcn.input;
 
-import java.util.Collection;
-import java.util.LinkedList;
-import java.util.regex.Matcher;
-
 import org.openhab.binding.lcn.common.LcnAddrMod;
 import org.openhab.binding.lcn.common.LcnDefs;
-import org.openhab.binding.lcn.common.PckParser;
 import org.openhab.binding.lcn.connection.Connection;
 import org.openhab.binding.lcn.connection.ModInfo;
 import org.openhab.core.events.EventPublisher;
@@ -68,60 +63,6 @@ public class ModStatusVar extends Mod {
         return this.value;
     }
 
-    /**
-     * Tries to parse the given input received from LCN-PCHK.
-     * 
-     * @param input the input
-     * @return list of {@link ModStatusVar} (might be empty, but not null}
-     */
-    static Collection<Input> tryParseInput(String input) {
-        LinkedList<Input> ret = new LinkedList<Input>();
-        try {
-            Matcher matcher;
-            if ((matcher = PckParser.PATTERN_STATUS_VAR.matcher(input)).matches()) {
-                ret.add(new ModStatusVar(
-                        new LcnAddrMod(Integer.parseInt(matcher.group("segId")),
-                                Integer.parseInt(matcher.group("modId"))),
-                        LcnDefs.Var.varIdToVar(Integer.parseInt(matcher.group("id")) - 1),
-                        LcnDefs.VarValue.fromNative(Integer.parseInt(matcher.group("value")))));
-            } else if ((matcher = PckParser.PATTERN_STATUS_SETVAR.matcher(input)).matches()) {
-                ret.add(new ModStatusVar(
-                        new LcnAddrMod(Integer.parseInt(matcher.group("segId")),
-                                Integer.parseInt(matcher.group("modId"))),
-                        LcnDefs.Var.setPointIdToVar(Integer.parseInt(matcher.group("id")) - 1),
-                        LcnDefs.VarValue.fromNative(Integer.parseInt(matcher.group("value")))));
-            } else if ((matcher = PckParser.PATTERN_STATUS_THRS.matcher(input)).matches()) {
-                ret.add(new ModStatusVar(
-                        new LcnAddrMod(Integer.parseInt(matcher.group("segId")),
-                                Integer.parseInt(matcher.group("modId"))),
-                        LcnDefs.Var.thrsIdToVar(Integer.parseInt(matcher.group("registerId")) - 1,
-                                Integer.parseInt(matcher.group("thrsId")) - 1),
-                        LcnDefs.VarValue.fromNative(Integer.parseInt(matcher.group("value")))));
-            } else if ((matcher = PckParser.PATTERN_STATUS_S0INPUT.matcher(input)).matches()) {
-                ret.add(new ModStatusVar(
-                        new LcnAddrMod(Integer.parseInt(matcher.group("segId")),
-                                Integer.parseInt(matcher.group("modId"))),
-                        LcnDefs.Var.s0IdToVar(Integer.parseInt(matcher.group("id")) - 1),
-                        LcnDefs.VarValue.fromNative(Integer.parseInt(matcher.group("value")))));
-            } else if ((matcher = PckParser.PATTERN_VAR_GENERIC.matcher(input)).matches()) {
-                ret.add(new ModStatusVar(
-                        new LcnAddrMod(Integer.parseInt(matcher.group("segId")),
-                                Integer.parseInt(matcher.group("modId"))),
-                        LcnDefs.Var.UNKNOWN, LcnDefs.VarValue.fromNative(Integer.parseInt(matcher.group("value")))));
-            } else if ((matcher = PckParser.PATTERN_THRS5.matcher(input)).matches()) {
-                for (int thrsId = 0; thrsId < 5; ++thrsId) {
-                    ret.add(new ModStatusVar(
-                            new LcnAddrMod(Integer.parseInt(matcher.group("segId")),
-                                    Integer.parseInt(matcher.group("modId"))),
-                            LcnDefs.Var.thrsIdToVar(0, thrsId), LcnDefs.VarValue.fromNative(
-                                    Integer.parseInt(matcher.group(String.format("value%d", thrsId + 1))))));
-                }
-            }
-        } catch (IllegalArgumentException ex) {
-        }
-        return ret;
-    }
-
     /**
      * Resolves "unknown" variable types and notifies the connection about the received variable status.
      * {@inheritDoc}
@@ -138,7 +79,7 @@ public class ModStatusVar extends Mod {
                     info.setLastRequestedVarWithoutTypeInResponse(LcnDefs.Var.UNKNOWN); // Reset
                 }
                 if (info.requestStatusVars.containsKey(this.var)) {
-                    info.requestStatusVars.get(this.var).onResponseReceived();
+                    info.requestStatusVars.get(this.var).onResponseReceived(System.nanoTime());
                 }
             }
         }
@@ -0,0 +1,389 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.lcn.input;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.openhab.binding.lcn.common.LcnAddrMod;
+import org.openhab.binding.lcn.common.LcnDefs;
+import org.openhab.binding.lcn.common.PckParser;
+
+/**
+ * Creates {@link Input} objects from the lines received from LCN-PCHK in a single pass.
+ * The line is classified by its leading characters, the fields are read at their fixed positions.
+ * The accepted formats are the ones described by the patterns in {@link PckParser}.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+final class PckLexer {
+
+    /** Position of the first character after the module address ("XMsssmmm"). */
+    private static final int BODY = 8;
+
+    private PckLexer() {
+    }
+
+    /**
+     * Parses a line received from LCN-PCHK.
+     *
+     * @param input the input data received from LCN-PCHK
+     * @return the parsed {@link Input}s, at least one element ({@link Unknown} if the line is not recognized)
+     */
+    static Collection<Input> parse(String input) {
+        Input ret = null;
+        List<Input> multi = null;
+        if (input.length() > 0) {
+            switch (input.charAt(0)) {
+                case '-':
+                    ret = parseAck(input);
+                    break;
+                case '=':
+                    if (isModHeader(input) && input.charAt(BODY) == '.' && input.startsWith("S1", BODY + 1)) {
+                        multi = parseThrs5(input);
+                    } else {
+                        ret = parseModResponse(input);
+                    }
+                    break;
+                case ':':
+                    ret = parseModStatus(input);
+                    break;
+                case '%':
+                    ret = parseVar(input);
+                    break;
+                case 'U':
+                    ret = input.equals(PckParser.AUTH_USERNAME) ? new AuthUsername() : null;
+                    break;
+                case 'P':
+                    ret = input.equals(PckParser.AUTH_PASSWORD) ? new AuthPassword() : null;
+                    break;
+                case 'O':
+                    ret = input.equals(PckParser.AUTH_OK) ? new AuthOk() : null;
+                    break;
+                case '$':
+                    if (input.equals(PckParser.LCNCONNSTATE_CONNECTED)) {
+                        ret = new LcnConnState(true);
+                    } else if (input.equals(PckParser.LCNCONNSTATE_DISCONNECTED)) {
+                        ret = new LcnConnState(false);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (multi != null) {
+            return multi;
+        }
+        return Collections.singletonList(ret != null ? ret : new Unknown(input));
+    }
+
+    /** "-Msssmmm!" or "-Msssmmm<code>" */
+    private static Input parseAck(String input) {
+        if (!isModHeader(input)) {
+            return null;
+        }
+        if (input.length() == BODY + 1 && input.charAt(BODY) == '!') {
+            return new ModAck(getAddr(input), -1);
+        }
+        int code = number(input, BODY);
+        return code >= 0 ? new ModAck(getAddr(input), code) : null;
+    }
+
+    /** "=Msssmmm.SK<id>", "=Msssmmm.SN...", "=Msssmmm.TL..." or "=Msssmmm.TX..." */
+    private static Input parseModResponse(String input) {
+        if (!isModHeader(input)) {
+            return null;
+        }
+        if (input.startsWith("SN", BODY + 1)) {
+            return parseSn(input);
+        }
+        if (input.charAt(BODY) != '.') {
+            return null;
+        }
+        if (input.startsWith("SK", BODY + 1)) {
+            int id = number(input, BODY + 3);
+            return id >= 0 ? new ModSk(getAddr(input), id) : null;
+        } else if (input.startsWith("TL", BODY + 1)) {
+            return parseLedsAndLogicOps(input);
+        } else if (input.startsWith("TX", BODY + 1)) {
+            return parseKeyLocks(input);
+        }
+        return null;
+    }
+
+    /** "=Msssmmm.SN<serial:10><manu:2>FW<swAge:6>HW<hwType>" */
+    private static Input parseSn(String input) {
+        int pos = BODY + 3;
+        if (input.length() <= pos + 22 || !isHex(input, pos, pos + 12) || !input.startsWith("FW", pos + 12)
+                || !isHex(input, pos + 14, pos + 20) || !input.startsWith("HW", pos + 20)
+                || !isDigits(input, pos + 22, input.length())) {
+            return null;
+        }
+        int swAge = 0;
+        for (int i = pos + 14; i < pos + 20; ++i) {
+            int digit = Character.digit(input.charAt(i), 16);
+            if (digit < 0) {
+                return null;
+            }
+            swAge = (swAge << 4) | digit;
+        }
+        return new ModSn(getAddr(input), swAge);
+    }
+
+    /** "=Msssmmm.S1<value1:5>...<value5:5><hyst:5>" */
+    private static List<Input> parseThrs5(String input) {
+        int pos = BODY + 3;
+        if (input.length() != pos + 30 || !isDigits(input, pos, pos + 30)) {
+            return null;
+        }
+        LcnAddrMod addr = getAddr(input);
+        List<Input> ret = new ArrayList<Input>(5);
+        for (int thrsId = 0; thrsId < 5; ++thrsId) {
+            ret.add(new ModStatusVar(addr, LcnDefs.Var.thrsIdToVar(0, thrsId),
+                    LcnDefs.VarValue.fromNative(digits(input, pos + thrsId * 5, pos + thrsId * 5 + 5))));
+        }
+        return ret;
+    }
+
+    /** "=Msssmmm.TL<leds:12><logicOps:4>" */
+    private static Input parseLedsAndLogicOps(String input) {
+        int pos = BODY + 3;
+        if (input.length() != pos + 16) {
+            return null;
+        }
+        LcnDefs.LedStatus[] statesLeds = new LcnDefs.LedStatus[12];
+        for (int i = 0; i < 12; ++i) {
+            switch (input.charAt(pos + i)) {
+                case 'A':
+                    statesLeds[i] = LcnDefs.LedStatus.OFF;
+                    break;
+                case 'E':
+                    statesLeds[i] = LcnDefs.LedStatus.ON;
+                    break;
+                case 'B':
+                    statesLeds[i] = LcnDefs.LedStatus.BLINK;
+                    break;
+                case 'F':
+                    statesLeds[i] = LcnDefs.LedStatus.FLICKER;
+                    break;
+                default:
+                    return null;
+            }
+        }
+        LcnDefs.LogicOpStatus[] statesLogicOps = new LcnDefs.LogicOpStatus[4];
+        for (int i = 0; i < 4; ++i) {
+            switch (input.charAt(pos + 12 + i)) {
+                case 'N':
+                    statesLogicOps[i] = LcnDefs.LogicOpStatus.NOT;
+                    break;
+                case 'T':
+                    statesLogicOps[i] = LcnDefs.LogicOpStatus.OR;
+                    break;
+                case 'V':
+                    statesLogicOps[i] = LcnDefs.LogicOpStatus.AND;
+                    break;
+                default:
+                    return null;
+            }
+        }
+        return new ModStatusLedsAndLogicOps(getAddr(input), statesLeds, statesLogicOps);
+    }
+
+    /** "=Msssmmm.TX<table0:3><table1:3><table2:3>[<table3:3>]" */
+    private static Input parseKeyLocks(String input) {
+        int pos = BODY + 3;
+        int tables = (input.length() - pos) / 3;
+        if ((tables != 3 && tables != 4) || input.length() != pos + tables * 3) {
+            return null;
+        }
+        boolean[][] states = new boolean[4][];
+        for (int i = 0; i < 4; ++i) {
+            if (i < tables) {
+                int value = digits(input, pos + i * 3, pos + i * 3 + 3);
+                if (value < 0 || value > 255) {
+                    return null;
+                }
+                states[i] = PckParser.getBooleanValue(value);
+            } else {
+                states[i] = new boolean[8];
+            }
+        }
+        return new ModStatusKeyLocks(getAddr(input), states);
+    }
+
+    /** ":MsssmmmA<outputId><percent>", ":MsssmmmO<outputId><value>", ":MsssmmmRx<byte>" or ":MsssmmmBx<byte>" */
+    private static Input parseModStatus(String input) {
+        if (!isModHeader(input) || input.length() < BODY + 3) {
+            return null;
+        }
+        switch (input.charAt(BODY)) {
+            case 'A':
+            case 'O': {
+                int outputId = digits(input, BODY + 1, BODY + 2);
+                int value = number(input, BODY + 2);
+                if (outputId < 0 || value < 0) {
+                    return null;
+                }
+                return new ModStatusOutput(getAddr(input), outputId - 1,
+                        input.charAt(BODY) == 'A' ? value : (double) value / 2);
+            }
+            case 'R':
+            case 'B': {
+                int value = number(input, BODY + 2);
+                if (input.charAt(BODY + 1) != 'x' || value < 0 || value > 255) {
+                    return null;
+                }
+                boolean[] states = PckParser.getBooleanValue(value);
+                return input.charAt(BODY) == 'R' ? new ModStatusRelays(getAddr(input), states)
+                        : new ModStatusBinSensors(getAddr(input), states);
+            }
+            default:
+                return null;
+        }
+    }
+
+    /** "%Msssmmm.A<id:3><value>", ".S<id>", ".T<registerId><thrsId>", ".C<id>" or "%Msssmmm.<value>" */
+    private static Input parseVar(String input) {
+        if (!isModHeader(input) || input.length() < BODY + 2 || input.charAt(BODY) != '.') {
+            return null;
+        }
+        try {
+            LcnDefs.Var var;
+            int value;
+            switch (input.charAt(BODY + 1)) {
+                case 'A': {
+                    int id = digits(input, BODY + 2, BODY + 5);
+                    value = number(input, BODY + 5);
+                    if (id < 0 || value < 0) {
+                        return null;
+                    }
+                    var = LcnDefs.Var.varIdToVar(id - 1);
+                    break;
+                }
+                case 'S': {
+                    int id = digits(input, BODY + 2, BODY + 3);
+                    value = number(input, BODY + 3);
+                    if (id < 0 || value < 0) {
+                        return null;
+                    }
+                    var = LcnDefs.Var.setPointIdToVar(id - 1);
+                    break;
+                }
+                case 'T': {
+                    int registerId = digits(input, BODY + 2, BODY + 3);
+                    int thrsId = digits(input, BODY + 3, BODY + 4);
+                    value = number(input, BODY + 4);
+                    if (registerId < 0 || thrsId < 0 || value < 0) {
+                        return null;
+                    }
+                    var = LcnDefs.Var.thrsIdToVar(registerId - 1, thrsId - 1);
+                    break;
+                }
+                case 'C': {
+                    int id = digits(input, BODY + 2, BODY + 3);
+                    value = number(input, BODY + 3);
+                    if (id < 0 || value < 0) {
+                        return null;
+                    }
+                    var = LcnDefs.Var.s0IdToVar(id - 1);
+                    break;
+                }
+                default:
+                    value = number(input, BODY + 1);
+                    if (value < 0) {
+                        return null;
+                    }
+                    var = LcnDefs.Var.UNKNOWN;
+                    break;
+            }
+            return new ModStatusVar(getAddr(input), var, LcnDefs.VarValue.fromNative(value));
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    /** Checks for "?Msssmmm" followed by at least one character. */
+    private static boolean isModHeader(String input) {
+        return input.length() > BODY && input.charAt(1) == 'M' && isDigits(input, 2, BODY);
+    }
+
+    private static LcnAddrMod getAddr(String input) {
+        return new LcnAddrMod(digits(input, 2, 5), digits(input, 5, BODY));
+    }
+
+    private static boolean isDigits(String input, int begin, int end) {
+        if (end > input.length()) {
+            return false;
+        }
+        for (int i = begin; i < end; ++i) {
+            char c = input.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Characters accepted by the "[0-9|A-F]" fields of the serial number response. */
+    private static boolean isHex(String input, int begin, int end) {
+        if (end > input.length()) {
+            return false;
+        }
+        for (int i = begin; i < end; ++i) {
+            char c = input.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'A' || c > 'F') && c != '|') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads a fixed-width decimal field.
+     *
+     * @return the value or -1 if the field is not all digits
+     */
+    private static int digits(String input, int begin, int end) {
+        if (!isDigits(input, begin, end)) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = begin; i < end; ++i) {
+            value = value * 10 + input.charAt(i) - '0';
+        }
+        return value;
+    }
+
+    /**
+     * Reads a decimal field which extends to the end of the line.
+     *
+     * @return the value or -1 if the field is empty, not all digits or does not fit into an int
+     */
+    private static int number(String input, int begin) {
+        int end = input.length();
+        if (begin >= end) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = begin; i < end; ++i) {
+            char c = input.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + c - '0';
+            if (value > Integer.MAX_VALUE) {
+                return -1;
+            }
+        }
+        return (int) value;
+    }
+}
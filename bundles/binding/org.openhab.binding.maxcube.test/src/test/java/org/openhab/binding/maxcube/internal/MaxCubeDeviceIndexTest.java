@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.maxcube.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.maxcube.internal.message.C_Message;
+import org.openhab.binding.maxcube.internal.message.Device;
+import org.openhab.binding.maxcube.internal.message.DeviceInformation;
+import org.openhab.binding.maxcube.internal.message.DeviceType;
+import org.openhab.binding.maxcube.internal.message.L_Message;
+import org.openhab.binding.maxcube.internal.message.M_Message;
+import org.openhab.binding.maxcube.internal.message.Message;
+import org.openhab.binding.maxcube.internal.message.MessageProcessor;
+import org.openhab.binding.maxcube.internal.message.ShutterContact;
+import org.openhab.core.library.types.OpenClosedType;
+
+/**
+ * Replays the messages sent by a cube after the connection is established
+ * through the {@link MessageProcessor} and the {@link MaxCubeDeviceIndex}, the
+ * way the binding processes them line by line.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class MaxCubeDeviceIndexTest {
+
+    private static final String[] DUMP = { "H:KHA0007199,081dd4,0113,00000000,0d524351,10,30,0f0407,1130,03,0000",
+            "M:00,02,VgIMAQpXb2huemltbWVyCvMrAgtUb2lsZXR0ZSBFRwrenQMOVG9pbGV0dGUgMS4gT0cK3rgECkJhZGV6aW1tZXIK3qoFDFNjaGxhZnppbW1lcgresQYDSmFuD4lCBwlDaHJpc3RpbmEPiTYIBEZsdXIPiT0KEEJhZGV6aW1tZXIgMi4gT0cPiRwLBULDvHJvD4k/DAxHw6RzdGV6aW1tZXIPiRoJC1dhc2Noa8O8Y2hlD4lXNgQHOCtLRVEwMTg4NjczCFRlcnJhc3NlAQQHMblLRVEwMTg3MTkwCEZsdXJ0w7xyAQIK8ytLRVEwMzc5NTg3C1dhbmRoZWl6dW5nAQIK9P9LRVEwMzgwMDU1DkZlbnN0ZXJoZWl6dW5nAQQHMbtLRVEwMTg3MTg4CEZsdXJ0w7xyAgQHMuxLRVEwMTg2ODg0B0ZlbnN0ZXICAQrenUtFUTA0MDY5NjIHSGVpenVuZwIBCt64S0VRMDQwNjk4OQdIZWl6dW5nAwQIFGdLRVEwMTkwNTc3B0ZlbnN0ZXIDBAc2l0tFUTAxODU5NDUIRmx1cnTDvHIEAQreqktFUTA0MDY5NzUHSGVpenVuZwQBCt8JS0VRMDQwNzA3MA5IYW5kdHVjaGVpenVuZwQEBzhTS0VRMDE4ODcxMAdGZW5zdGVyBAQIFIxLRVEwMTkwNTQzFkZlbnN0ZXIgU3RyYcOfZSByZWNodHMFAQresUtFUTA0MDY5ODIHSGVpenVuZwUEBzHmS0VRMDE4NzE0NhVGZW5zdGVyIFN0cmHDn2UgbGlua3MFAxBXqUxFUTA5ODIxNTYOV2FuZHRoZXJtb3N0YXQBBA/u1ExFUTA3OTQ3NTIIRmx1cnTDvHIGBA/v6kxFUTA3OTQ0NzQNRmVuc3RlciBsaW5rcwYED/HnTEVRMDc5Mzk2NA5GZW5zdGVyIHJlY2h0cwYBD4lCTEVRMTAwNDYwMAdIZWl6dW5nBgQP9BVMRVEwNzkzNDA2CEZsdXJ0w7xyBwQP79FMRVEwNzk0NDk5B0ZlbnN0ZXIHAQ+JNkxFUTEwMDQ1ODgHSGVpenVuZwcBD4k9TEVRMTAwNDU5NQ1IZWl6dW5nIHVudGVuCAEPiRxMRVExMDA0NTYyB0hlaXp1bmcKBA/yTUxFUTA3OTM4NjIHRmVuc3RlcgoED/F+TEVRMDc5NDA2OQhGbHVydMO8cgoBD4k/TEVRMTAwNDU5NwdIZWl6dW5nCwQP8YdMRVEwNzk0MDYwB0ZlbnN0ZXILBA/xSExFUTA3OTQxMjQIRmx1cnTDvHILBA/yVkxFUTA3OTM4NTMURmVuc3RlciBHYXJ0ZW4gbGlua3MMBA/yI0xFUTA3OTM5MDQVRmVuc3RlciBHYXJ0ZW4gcmVjaHRzDAEPiRpMRVExMDA0NTYwB0hlaXp1bmcMBA/vj0xFUTA3OTQ1NjUPRmVuc3RlciBTdHJhw59lDAQP8CtMRVEwNzk0NDA5BFTDvHIDBAgUa0tFUTAxODcwNjkNRmVuc3RlciBTZWl0ZQUEBzagS0VRMDE4NTkzNhVGZW5zdGVyIFN0cmHDn2UgbGlua3MBBA/wI0xFUTA3OTQ0MTYORmVuc3RlciBLw7xjaGUBAxBV50xFUTA5ODI2NzYOV2FuZHRoZXJtb3N0YXQFAxBW2kxFUTA5ODIzNjgOV2FuZHRoZXJtb3N0YXQEAxBV4kxFUTA5ODI2NzEOV2FuZHRoZXJtb3N0YXQHAxBZWExFUTA5ODE3MjkOV2FuZHRoZXJtb3N0YXQMAxBV6ExFUTA5ODI2NzcOV2FuZHRoZXJtb3N0YXQGAxBV40xFUTA5ODI2NzIOV2FuZHRoZXJtb3N0YXQKBAcxoEtFUTAxODcyMTYLV2FzY2hrw7xjaGUF",
+            "M:01,02,AxBV8ExFUTA5ODI2ODUOV2FuZHRoZXJtb3N0YXQJBA/v50xFUTA3OTQ0NzcNQmFsa29uZmVuc3RlcgkBD4lXTEVRMTAwNDYyMRZIZWl6dW5nIHVudGVybSBGZW5zdGVyCQQP8llMRVEwNzkzODUwDkZlbnN0ZXIgcmVjaHRzCQQP8bxMRVEwNzk0MDA3DUZlbnN0ZXIgbGlua3MJAQ+JOExFUTEwMDQ1OTAOSGVpenVuZyBCYWxrb24JBA/yLExFUTA3OTM4OTUKQmFsa29udMO8cgkED++zTEVRMDc5NDUyOQhGbHVydMO8cgkB",
+            "C:0ff1bc,EQ/xvAQJEAJMRVEwNzk0MDA3", "L:Bg/xvAkAAA==" };
+
+    private static final String SERIAL_NUMBER = "LEQ0794007";
+
+    private MessageProcessor processor;
+    private MaxCubeDeviceIndex index;
+
+    @Before
+    public void setUp() {
+        processor = new MessageProcessor();
+        index = new MaxCubeDeviceIndex();
+    }
+
+    /**
+     * Feeds the lines to the index like the binding does.
+     *
+     * @return the devices of the L messages
+     */
+    private List<Device> replay(String... lines) throws Exception {
+        List<Device> devices = new ArrayList<Device>();
+        for (String line : lines) {
+            processor.addReceivedLine(line);
+            if (!processor.isMessageAvailable()) {
+                continue;
+            }
+            Message message = processor.pull();
+            switch (message.getType()) {
+                case M:
+                    for (DeviceInformation di : ((M_Message) message).devices) {
+                        index.putConfiguration(di);
+                    }
+                    break;
+                case C:
+                    index.updateConfiguration((C_Message) message);
+                    break;
+                case L:
+                    devices.addAll(index.updateDevices((L_Message) message));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return devices;
+    }
+
+    @Test
+    public void devicesCreatedFromDump() throws Exception {
+        List<Device> devices = replay(DUMP);
+
+        assertEquals("Devices in L message", 1, devices.size());
+        Device device = index.getDevice(SERIAL_NUMBER);
+        assertSame(devices.get(0), device);
+        assertEquals(DeviceType.ShutterContact, device.getType());
+        assertEquals("0FF1BC", device.getRFAddress().toUpperCase());
+        assertEquals(OpenClosedType.CLOSED, ((ShutterContact) device).getShutterState());
+        assertTrue(((ShutterContact) device).isShutterStateUpdated());
+    }
+
+    @Test
+    public void unchangedStateNotUpdated() throws Exception {
+        replay(DUMP);
+        Device device = index.getDevice(SERIAL_NUMBER);
+
+        List<Device> devices = replay("L:Bg/xvAkAAA==");
+
+        assertEquals("Devices in L message", 1, devices.size());
+        assertSame("Device must be reused", device, devices.get(0));
+        assertFalse(((ShutterContact) device).isShutterStateUpdated());
+        assertFalse(device.isErrorUpdated());
+        assertFalse(device.battery().isChargeUpdated());
+    }
+
+    @Test
+    public void changedStateUpdated() throws Exception {
+        replay(DUMP);
+
+        List<Device> devices = replay("L:Bg/xvAkAAg==");
+
+        ShutterContact device = (ShutterContact) index.getDevice(SERIAL_NUMBER);
+        assertSame(device, devices.get(0));
+        assertEquals(OpenClosedType.OPEN, device.getShutterState());
+        assertTrue(device.isShutterStateUpdated());
+    }
+
+    @Test
+    public void unknownDeviceIgnored() throws Exception {
+        // no configuration received yet
+        assertTrue(replay("L:Bg/xvAkAAA==").isEmpty());
+        assertNull(index.getDevice(SERIAL_NUMBER));
+        assertTrue(index.getDevices().isEmpty());
+    }
+}
@@ -14,12 +14,12 @@ import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.net.Socket;
 import java.net.UnknownHostException;
-import java.util.ArrayList;
 import java.util.Dictionary;
 import java.util.List;
 
 import org.apache.commons.lang.StringUtils;
 import org.openhab.binding.maxcube.MaxCubeBindingProvider;
+import org.openhab.binding.maxcube.internal.MaxCubeItemIndex.ItemBinding;
 import org.openhab.binding.maxcube.internal.exceptions.IncompleteMessageException;
 import org.openhab.binding.maxcube.internal.exceptions.IncorrectMultilineIndexException;
 import org.openhab.binding.maxcube.internal.exceptions.MessageIsWaitingException;
@@ -27,7 +27,6 @@ import org.openhab.binding.maxcube.internal.exceptions.NoMessageAvailableExcepti
 import org.openhab.binding.maxcube.internal.exceptions.UnprocessableMessageException;
 import org.openhab.binding.maxcube.internal.exceptions.UnsupportedMessageTypeException;
 import org.openhab.binding.maxcube.internal.message.C_Message;
-import org.openhab.binding.maxcube.internal.message.Configuration;
 import org.openhab.binding.maxcube.internal.message.Device;
 import org.openhab.binding.maxcube.internal.message.DeviceInformation;
 import org.openhab.binding.maxcube.internal.message.HeatingThermostat;
@@ -41,6 +40,7 @@ import org.openhab.binding.maxcube.internal.message.S_Message;
 import org.openhab.binding.maxcube.internal.message.ShutterContact;
 import org.openhab.binding.maxcube.internal.message.ThermostatModeType;
 import org.openhab.core.binding.AbstractActiveBinding;
+import org.openhab.core.binding.BindingProvider;
 import org.openhab.core.library.types.DecimalType;
 import org.openhab.core.library.types.OnOffType;
 import org.openhab.core.library.types.StringType;
@@ -106,6 +106,13 @@ public class MaxCubeBinding extends AbstractActiveBinding<MaxCubeBindingProvider
 
     private int requestCount = 0;
 
+    /**
+     * in exclusive mode, how many state requests may be left unanswered until the connection is reopened
+     */
+    private static final int MAX_UNANSWERED_REQUESTS = 3;
+
+    private int unansweredRequestCount = 0;
+
     /** MaxCube's default off temperature */
     private static final DecimalType DEFAULT_OFF_TEMPERATURE = new DecimalType(4.5);
 
@@ -113,11 +120,14 @@ public class MaxCubeBinding extends AbstractActiveBinding<MaxCubeBindingProvider
     private static final DecimalType DEFAULT_ON_TEMPERATURE = new DecimalType(30.5);
 
     /**
-     * Configuration and device lists, kept during the overall lifetime of the
+     * Configurations and devices, kept during the overall lifetime of the
      * binding
      */
-    private List<Configuration> configurations = new ArrayList<Configuration>();
-    private List<Device> devices = new ArrayList<Device>();
+    private final MaxCubeDeviceIndex deviceIndex = new MaxCubeDeviceIndex();
+
+    /** the items by serial number, created on the first L message after a binding change */
+    private MaxCubeItemIndex itemIndex;
+    private final Object itemIndexLock = new Object();
 
     /**
      * connection socket and reader/writer for execute method
@@ -126,6 +136,12 @@ public class MaxCubeBinding extends AbstractActiveBinding<MaxCubeBindingProvider
     private BufferedReader reader = null;
     private OutputStreamWriter writer = null;
 
+    /**
+     * in exclusive mode, reads the messages sent by the cube as long as the
+     * connection is open
+     */
+    private ReaderThread readerThread = null;
+
     /**
      * Processor that handles lines received from MAX!Cube
      */
@@ -171,185 +187,46 @@ public class MaxCubeBinding extends AbstractActiveBinding<MaxCubeBindingProvider
             return;
         }
         try {
-            String raw = null;
-            if (maxRequestsPerConnection > 0 && requestCount >= maxRequestsPerConnection) {
+            if (socket != null && maxRequestsPerConnection > 0 && requestCount >= maxRequestsPerConnection) {
                 logger.debug("maxRequestsPerConnection reached, reconnecting.");
-                socket.close();
-                this.socketConnect();
+                socketClose();
+            }
+            if (socket != null && unansweredRequestCount >= MAX_UNANSWERED_REQUESTS) {
+                logger.info("MAX! Cube lan gateway '{}' did not answer the last {} state requests, reconnecting.", ip,
+                        unansweredRequestCount);
+                socketClose();
             }
             if (socket == null) {
+                // the cube sends the complete state right after the connection is established
                 this.socketConnect();
             } else {
 
                 /*
                  * if the connection is already open (this happens in exclusive mode), just send a "l:\r\n" to get the
-                 * latest live informations
+                 * latest live informations, the answer is processed by the reader thread
                  * note that "L:\r\n" or "l:\n" would not work.
                  */
                 logger.debug("Sending state request #" + this.requestCount + " to Maxcube");
                 writer.write("l:" + '\r' + '\n');
                 writer.flush();
                 requestCount++;
+                unansweredRequestCount++;
             }
 
-            boolean cont = true;
-            while (cont) {
-                raw = reader.readLine();
-                if (raw == null) {
-                    cont = false;
-                    continue;
-                }
-
-                Message message = null;
-                try {
-                    this.messageProcessor.addReceivedLine(raw);
-                    if (this.messageProcessor.isMessageAvailable()) {
-                        message = this.messageProcessor.pull();
-                    } else {
-                        continue;
-                    }
-
-                    message.debug(logger);
-
-                    if (message != null) {
-                        message.debug(logger);
-                        if (message.getType() == MessageType.M) {
-                            M_Message msg = (M_Message) message;
-                            for (DeviceInformation di : msg.devices) {
-                                Configuration c = null;
-                                for (Configuration conf : configurations) {
-                                    if (conf.getSerialNumber().equalsIgnoreCase(di.getSerialNumber())) {
-                                        c = conf;
-                                        break;
-                                    }
-                                }
-
-                                if (c != null) {
-                                    configurations.remove(c);
-                                }
-
-                                c = Configuration.create(di);
-                                configurations.add(c);
-
-                                c.setRoomId(di.getRoomId());
-                            }
-                        } else if (message.getType() == MessageType.C) {
-                            Configuration c = null;
-                            for (Configuration conf : configurations) {
-                                if (conf.getSerialNumber().equalsIgnoreCase(((C_Message) message).getSerialNumber())) {
-                                    c = conf;
-                                    break;
-                                }
-                            }
-
-                            if (c == null) {
-                                configurations.add(Configuration.create(message));
-                            } else {
-                                c.setValues((C_Message) message);
-                            }
-                        } else if (message.getType() == MessageType.S) {
-                            sMessageProcessing((S_Message) message);
-                            cont = false;
-                        } else if (message.getType() == MessageType.L) {
-                            ((L_Message) message).updateDevices(devices, configurations);
-
-                            logger.debug("{} devices found.", devices.size());
-
-                            // the L message is the last one, while the reader
-                            // would hang trying to read a new line and
-                            // eventually the
-                            // cube will fail to establish
-                            // new connections for some time
-                            cont = false;
-                        }
-                    }
-                } catch (IncorrectMultilineIndexException ex) {
-                    logger.info(
-                            "Incorrect MAX!Cube multiline message detected. Stopping processing and continue with next Line.");
-                    this.messageProcessor.reset();
-                } catch (NoMessageAvailableException ex) {
-                    logger.info("Could not process MAX!Cube message. Stopping processing and continue with next Line.");
-                    this.messageProcessor.reset();
-                } catch (IncompleteMessageException ex) {
-                    logger.info(
-                            "Error while parsing MAX!Cube multiline message. Stopping processing, and continue with next Line.");
-                    this.messageProcessor.reset();
-                } catch (UnprocessableMessageException ex) {
-                    logger.info(
-                            "Error while parsing MAX!Cube message. Stopping processing, and continue with next Line.");
-                    this.messageProcessor.reset();
-                } catch (UnsupportedMessageTypeException ex) {
-                    logger.info("Unsupported MAX!Cube message detected. Ignoring and continue with next Line.");
-                    this.messageProcessor.reset();
-                } catch (MessageIsWaitingException ex) {
-                    logger.info("There was an unhandled message waiting. Ignoring and continue with next Line.");
-                    this.messageProcessor.reset();
-                } catch (Exception e) {
-                    logger.info("Failed to process message received by MAX! protocol.");
-                    logger.debug(Utils.getStackTrace(e));
-                    this.messageProcessor.reset();
-                }
-            }
             if (!exclusive) {
-                socketClose();
-            }
-
-            for (MaxCubeBindingProvider provider : providers) {
-                for (String itemName : provider.getItemNames()) {
-                    String serialNumber = provider.getSerialNumber(itemName);
-
-                    Device device = findDevice(serialNumber, devices);
-
-                    if (device == null) {
-                        logger.info("Cannot find MAX!cube device with serial number '{}'", serialNumber);
-                        logAvailableMaxDevices();
-                        continue;
-                    }
-                    // all devices have a battery state, so this is type-independent
-                    if (provider.getBindingType(itemName) == BindingType.BATTERY) {
-                        if (device.battery().isChargeUpdated()) {
-                            eventPublisher.postUpdate(itemName, device.battery().getCharge());
-                        }
-                    } else if (provider.getBindingType(itemName) == BindingType.CONNECTION_ERROR) {
-                        if (device.isErrorUpdated()) {
-                            OnOffType connectionError = device.isError() ? OnOffType.ON : OnOffType.OFF;
-                            eventPublisher.postUpdate(itemName, connectionError);
-                        }
-                    } else {
-                        switch (device.getType()) {
-                            case HeatingThermostatPlus:
-                            case HeatingThermostat:
-                                if (provider.getBindingType(itemName) == BindingType.VALVE
-                                        && ((HeatingThermostat) device).isValvePositionUpdated()) {
-                                    eventPublisher.postUpdate(itemName,
-                                            ((HeatingThermostat) device).getValvePosition());
-                                    break;
-                                }
-                                // omitted break, fall through
-                            case WallMountedThermostat: // and also HeatingThermostat
-                                if (provider.getBindingType(itemName) == BindingType.MODE
-                                        && ((HeatingThermostat) device).isModeUpdated()) {
-                                    eventPublisher.postUpdate(itemName, ((HeatingThermostat) device).getModeString());
-                                } else if (provider.getBindingType(itemName) == BindingType.ACTUAL
-                                        && ((HeatingThermostat) device).isTemperatureActualUpdated()) {
-                                    eventPublisher.postUpdate(itemName,
-                                            ((HeatingThermostat) device).getTemperatureActual());
-                                } else if (((HeatingThermostat) device).isTemperatureSetpointUpdated()
-                                        && provider.getBindingType(itemName) == null) {
-                                    eventPublisher.postUpdate(itemName,
-                                            ((HeatingThermostat) device).getTemperatureSetpoint());
-                                }
-                                break;
-                            case ShutterContact:
-                                if (((ShutterContact) device).isShutterStateUpdated()) {
-                                    eventPublisher.postUpdate(itemName, ((ShutterContact) device).getShutterState());
-                                }
-                                break;
-                            default:
-                                // no further devices supported yet
-                        }
+                String raw;
+                while ((raw = reader.readLine()) != null) {
+                    MessageType type = processLine(raw);
+
+                    // the L message is the last one, while the reader
+                    // would hang trying to read a new line and
+                    // eventually the cube will fail to establish
+                    // new connections for some time
+                    if (type == MessageType.L || type == MessageType.S) {
+                        break;
                     }
                 }
+                socketClose();
             }
         } catch (UnknownHostException e) {
             logger.info("Host error occurred while connecting to MAX! Cube lan gateway '{}': {}", ip, e.getMessage());
@@ -364,11 +241,144 @@ public class MaxCubeBinding extends AbstractActiveBinding<MaxCubeBindingProvider
         }
     }
 
+    /**
+     * Processes a line received from the cube.
+     *
+     * @param raw
+     *            the line
+     * @return the type of the message completed by the line, <code>null</code>
+     *         if no message was completed
+     */
+    private synchronized MessageType processLine(String raw) {
+        try {
+            this.messageProcessor.addReceivedLine(raw);
+            if (!this.messageProcessor.isMessageAvailable()) {
+                return null;
+            }
+
+            Message message = this.messageProcessor.pull();
+            message.debug(logger);
+
+            switch (message.getType()) {
+                case M:
+                    for (DeviceInformation di : ((M_Message) message).devices) {
+                        deviceIndex.putConfiguration(di);
+                    }
+                    break;
+                case C:
+                    deviceIndex.updateConfiguration((C_Message) message);
+                    break;
+                case S:
+                    sMessageProcessing((S_Message) message);
+                    break;
+                case L:
+                    unansweredRequestCount = 0;
+                    List<Device> devices = deviceIndex.updateDevices((L_Message) message);
+                    logger.debug("{} devices found.", devices.size());
+                    publishUpdates(devices);
+                    break;
+                default:
+                    break;
+            }
+            return message.getType();
+        } catch (IncorrectMultilineIndexException ex) {
+            logger.info(
+                    "Incorrect MAX!Cube multiline message detected. Stopping processing and continue with next Line.");
+            this.messageProcessor.reset();
+        } catch (NoMessageAvailableException ex) {
+            logger.info("Could not process MAX!Cube message. Stopping processing and continue with next Line.");
+            this.messageProcessor.reset();
+        } catch (IncompleteMessageException ex) {
+            logger.info(
+                    "Error while parsing MAX!Cube multiline message. Stopping processing, and continue with next Line.");
+            this.messageProcessor.reset();
+        } catch (UnprocessableMessageException ex) {
+            logger.info("Error while parsing MAX!Cube message. Stopping processing, and continue with next Line.");
+            this.messageProcessor.reset();
+        } catch (UnsupportedMessageTypeException ex) {
+            logger.info("Unsupported MAX!Cube message detected. Ignoring and continue with next Line.");
+            this.messageProcessor.reset();
+        } catch (MessageIsWaitingException ex) {
+            logger.info("There was an unhandled message waiting. Ignoring and continue with next Line.");
+            this.messageProcessor.reset();
+        } catch (Exception e) {
+            logger.info("Failed to process message received by MAX! protocol.");
+            logger.debug(Utils.getStackTrace(e));
+            this.messageProcessor.reset();
+        }
+        return null;
+    }
+
+    /**
+     * Posts the changed states of the devices contained in an L message to
+     * their items.
+     *
+     * @param devices
+     *            the devices of the L message
+     */
+    private void publishUpdates(List<Device> devices) {
+        MaxCubeItemIndex index = getItemIndex();
+
+        for (Device device : devices) {
+            for (ItemBinding item : index.getItems(device.getSerialNumber().toUpperCase())) {
+                publishUpdate(item.itemName, item.bindingType, device);
+            }
+        }
+
+        for (String serialNumber : index.getSerialNumbers()) {
+            if (deviceIndex.getDevice(serialNumber) == null) {
+                logger.info("Cannot find MAX!cube device with serial number '{}'", serialNumber);
+                logAvailableMaxDevices();
+            }
+        }
+    }
+
+    private void publishUpdate(String itemName, BindingType bindingType, Device device) {
+        // all devices have a battery state, so this is type-independent
+        if (bindingType == BindingType.BATTERY) {
+            if (device.battery().isChargeUpdated()) {
+                eventPublisher.postUpdate(itemName, device.battery().getCharge());
+            }
+        } else if (bindingType == BindingType.CONNECTION_ERROR) {
+            if (device.isErrorUpdated()) {
+                OnOffType connectionError = device.isError() ? OnOffType.ON : OnOffType.OFF;
+                eventPublisher.postUpdate(itemName, connectionError);
+            }
+        } else {
+            switch (device.getType()) {
+                case HeatingThermostatPlus:
+                case HeatingThermostat:
+                    if (bindingType == BindingType.VALVE && ((HeatingThermostat) device).isValvePositionUpdated()) {
+                        eventPublisher.postUpdate(itemName, ((HeatingThermostat) device).getValvePosition());
+                        break;
+                    }
+                    // omitted break, fall through
+                case WallMountedThermostat: // and also HeatingThermostat
+                    if (bindingType == BindingType.MODE && ((HeatingThermostat) device).isModeUpdated()) {
+                        eventPublisher.postUpdate(itemName, ((HeatingThermostat) device).getModeString());
+                    } else if (bindingType == BindingType.ACTUAL
+                            && ((HeatingThermostat) device).isTemperatureActualUpdated()) {
+                        eventPublisher.postUpdate(itemName, ((HeatingThermostat) device).getTemperatureActual());
+                    } else if (((HeatingThermostat) device).isTemperatureSetpointUpdated() && bindingType == null) {
+                        eventPublisher.postUpdate(itemName, ((HeatingThermostat) device).getTemperatureSetpoint());
+                    }
+                    break;
+                case ShutterContact:
+                    if (((ShutterContact) device).isShutterStateUpdated()) {
+                        eventPublisher.postUpdate(itemName, ((ShutterContact) device).getShutterState());
+                    }
+                    break;
+                default:
+                    // no further devices supported yet
+            }
+        }
+    }
+
     private void logAvailableMaxDevices() {
         if (logger.isDebugEnabled()) {
             StringBuilder sb = new StringBuilder();
             sb.append("Available MAX! devices are:");
-            for (Device d : devices) {
+            for (Device d : deviceIndex.getDevices()) {
                 sb.append("\n\t");
                 sb.append(d.getSerialNumber());
             }
@@ -380,7 +390,7 @@ public class MaxCubeBinding extends AbstractActiveBinding<MaxCubeBindingProvider
      * {@inheritDoc}
      */
     @Override
-    public void internalReceiveCommand(String itemName, Command command) {
+    public synchronized void internalReceiveCommand(String itemName, Command command) {
         logger.debug("Received command from {}", itemName);
 
         // resolve serial number for item
@@ -394,7 +404,7 @@ public class MaxCubeBinding extends AbstractActiveBinding<MaxCubeBindingProvider
             }
 
             // send command to MAX!Cube LAN Gateway
-            Device device = findDevice(serialNumber, devices);
+            Device device = deviceIndex.getDevice(serialNumber);
 
             if (device == null) {
                 logger.debug("Cannot send command to device with serial number {}, device not listed.", serialNumber);
@@ -451,29 +461,15 @@ public class MaxCubeBinding extends AbstractActiveBinding<MaxCubeBindingProvider
                     logger.debug(commandString);
                     writer.flush();
 
-                    Message message = null;
-                    String raw = reader.readLine();
-                    try {
-                        while (!this.messageProcessor.isMessageAvailable()) {
-                            this.messageProcessor.addReceivedLine(raw);
-                            raw = reader.readLine();
-                        }
-
-                        message = this.messageProcessor.pull();
-                    } catch (Exception e) {
-                        logger.info("Error while handling response from MAX! Cube lan gateway!");
-                        logger.debug(Utils.getStackTrace(e));
-                        this.messageProcessor.reset();
-                    }
-
-                    if (message != null) {
-                        if (message.getType() == MessageType.S) {
-                            sMessageProcessing((S_Message) message);
-                        }
-                    }
                     if (!exclusive) {
-                        socket.close();
-                        socket = null;
+                        // the cube sends its state first, the answer to the command follows
+                        String raw;
+                        while ((raw = reader.readLine()) != null) {
+                            if (processLine(raw) == MessageType.S) {
+                                break;
+                            }
+                        }
+                        socketClose();
                     }
                 } catch (UnknownHostException e) {
                     logger.info("Host error occurred while connecting to MAX! Cube lan gateway '{}': {}", ip,
@@ -513,15 +509,21 @@ public class MaxCubeBinding extends AbstractActiveBinding<MaxCubeBindingProvider
 
     private boolean socketConnect() throws UnknownHostException, IOException {
         socket = new Socket(ip, port);
-        socket.setSoTimeout(2000);
+        // the reader thread waits for the messages of the cube as long as the connection is open
+        socket.setSoTimeout(exclusive ? 0 : 2000);
         logger.debug("open new connection... to " + ip + " port " + port);
         reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
         writer = new OutputStreamWriter(socket.getOutputStream());
         requestCount = 0;
+        unansweredRequestCount = 0;
+        if (exclusive) {
+            readerThread = new ReaderThread(socket, reader);
+            readerThread.start();
+        }
         return true;
     }
 
-    private void socketClose() {
+    private synchronized void socketClose() {
         if (socket != null) {
             try {
                 socket.close();
@@ -529,24 +531,53 @@ public class MaxCubeBinding extends AbstractActiveBinding<MaxCubeBindingProvider
                 // Ignore
             }
             socket = null;
+            readerThread = null;
+            // a multiline message of the closed connection is not continued
+            messageProcessor.reset();
         }
     }
 
-    private Device findDevice(String serialNumber, List<Device> devices) {
-        for (Device device : devices) {
-            if (device.getSerialNumber().toUpperCase().equals(serialNumber)) {
-                return device;
+    private synchronized void socketClosed(Socket closedSocket) {
+        if (socket == closedSocket) {
+            socketClose(); // reconnect on next execution
+        }
+    }
+
+    @Override
+    public void bindingChanged(BindingProvider provider, String itemName) {
+        invalidateItemIndex();
+        super.bindingChanged(provider, itemName);
+    }
+
+    @Override
+    public void allBindingsChanged(BindingProvider provider) {
+        invalidateItemIndex();
+        super.allBindingsChanged(provider);
+    }
+
+    private MaxCubeItemIndex getItemIndex() {
+        synchronized (itemIndexLock) {
+            if (itemIndex == null) {
+                itemIndex = new MaxCubeItemIndex(providers);
             }
+            return itemIndex;
+        }
+    }
+
+    private void invalidateItemIndex() {
+        synchronized (itemIndexLock) {
+            itemIndex = null;
         }
-        return null;
     }
 
     protected void addBindingProvider(MaxCubeBindingProvider bindingProvider) {
         super.addBindingProvider(bindingProvider);
+        invalidateItemIndex();
     }
 
     protected void removeBindingProvider(MaxCubeBindingProvider bindingProvider) {
         super.removeBindingProvider(bindingProvider);
+        invalidateItemIndex();
     }
 
     /**
@@ -586,6 +617,9 @@ public class MaxCubeBinding extends AbstractActiveBinding<MaxCubeBindingProvider
             ip = discoveryGatewayIp();
         }
 
+        // the connection is reopened with the new configuration
+        socketClose();
+
         setProperlyConfigured(ip != null);
     }
 
@@ -604,4 +638,40 @@ public class MaxCubeBinding extends AbstractActiveBinding<MaxCubeBindingProvider
         }
         return ip;
     }
+
+    /**
+     * Reads the messages of the cube in exclusive mode. The cube sends its
+     * complete state when the connection is established and the live
+     * information after each state request, the lines are processed as they
+     * come in.
+     */
+    private class ReaderThread extends Thread {
+        private final Socket readerSocket;
+        private final BufferedReader in;
+
+        ReaderThread(Socket readerSocket, BufferedReader in) {
+            super("MAX!Cube reader " + ip);
+            this.readerSocket = readerSocket;
+            this.in = in;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                String raw;
+                while ((raw = in.readLine()) != null) {
+                    processLine(raw);
+                }
+                logger.debug("MAX! Cube lan gateway '{}' closed the connection", ip);
+            } catch (IOException e) {
+                if (!readerSocket.isClosed()) {
+                    logger.info("IO error occurred while reading from MAX! Cube lan gateway '{}': {}", ip,
+                            e.getMessage());
+                }
+            } finally {
+                socketClosed(readerSocket);
+            }
+        }
+    }
 }
@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.maxcube.internal;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openhab.binding.maxcube.internal.message.C_Message;
+import org.openhab.binding.maxcube.internal.message.Configuration;
+import org.openhab.binding.maxcube.internal.message.Device;
+import org.openhab.binding.maxcube.internal.message.DeviceInformation;
+import org.openhab.binding.maxcube.internal.message.L_Message;
+
+/**
+ * The configurations and devices received from the MAX!Cube, by upper case
+ * serial number and RF address. The M and C messages are looked up by serial
+ * number, the L messages by RF address and the items by serial number.
+ *
+ * The index is not thread safe.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+class MaxCubeDeviceIndex {
+
+    private final Map<String, Configuration> configurationsBySerialNumber = new HashMap<String, Configuration>();
+    private final Map<String, Configuration> configurationsByRfAddress = new HashMap<String, Configuration>();
+
+    private final Map<String, Device> devicesBySerialNumber = new HashMap<String, Device>();
+    private final Map<String, Device> devicesByRfAddress = new HashMap<String, Device>();
+
+    /**
+     * Replaces the configuration of a device listed in an M message.
+     *
+     * @param di
+     *            the device information of the M message
+     */
+    void putConfiguration(DeviceInformation di) {
+        Configuration configuration = Configuration.create(di);
+        configuration.setRoomId(di.getRoomId());
+
+        Configuration previous = configurationsBySerialNumber.put(key(configuration.getSerialNumber()), configuration);
+        if (previous != null) {
+            configurationsByRfAddress.remove(key(previous.getRFAddress()));
+        }
+        configurationsByRfAddress.put(key(configuration.getRFAddress()), configuration);
+    }
+
+    /**
+     * Updates the configuration of the device of a C message, it is created if
+     * the device is not known yet.
+     *
+     * @param message
+     *            the C message
+     */
+    void updateConfiguration(C_Message message) {
+        Configuration configuration = configurationsBySerialNumber.get(key(message.getSerialNumber()));
+        if (configuration == null) {
+            configuration = Configuration.create(message);
+            configurationsBySerialNumber.put(key(configuration.getSerialNumber()), configuration);
+        } else {
+            configurationsByRfAddress.remove(key(configuration.getRFAddress()));
+            configuration.setValues(message);
+        }
+        configurationsByRfAddress.put(key(configuration.getRFAddress()), configuration);
+    }
+
+    /**
+     * Updates the devices from an L message, the ones which are not known yet
+     * are created.
+     *
+     * @param message
+     *            the L message
+     * @return the devices contained in the message
+     */
+    List<Device> updateDevices(L_Message message) {
+        List<Device> devices = message.updateDevices(devicesByRfAddress, configurationsByRfAddress);
+        for (Device device : devices) {
+            devicesBySerialNumber.put(key(device.getSerialNumber()), device);
+        }
+        return devices;
+    }
+
+    /**
+     * @param serialNumber
+     *            the upper case serial number
+     * @return the device, <code>null</code> if it is not known
+     */
+    Device getDevice(String serialNumber) {
+        return devicesBySerialNumber.get(serialNumber);
+    }
+
+    /**
+     * @return all known devices
+     */
+    Collection<Device> getDevices() {
+        return devicesBySerialNumber.values();
+    }
+
+    private static String key(String value) {
+        return value != null ? value.toUpperCase() : null;
+    }
+}
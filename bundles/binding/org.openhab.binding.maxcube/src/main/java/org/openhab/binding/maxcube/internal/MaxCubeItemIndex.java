@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.maxcube.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.openhab.binding.maxcube.MaxCubeBindingProvider;
+
+/**
+ * The items by the serial number of their device. Only the items of the
+ * devices contained in an L message are updated.
+ *
+ * The index is not updated, a new one must be created when the bindings
+ * change.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+class MaxCubeItemIndex {
+
+    private final Map<String, List<ItemBinding>> itemsBySerialNumber = new HashMap<String, List<ItemBinding>>();
+
+    MaxCubeItemIndex(Collection<MaxCubeBindingProvider> providers) {
+        for (MaxCubeBindingProvider provider : providers) {
+            for (String itemName : provider.getItemNames()) {
+                String serialNumber = provider.getSerialNumber(itemName);
+                if (serialNumber == null) {
+                    continue;
+                }
+
+                List<ItemBinding> items = itemsBySerialNumber.get(serialNumber);
+                if (items == null) {
+                    items = new ArrayList<ItemBinding>(4);
+                    itemsBySerialNumber.put(serialNumber, items);
+                }
+                items.add(new ItemBinding(itemName, provider.getBindingType(itemName)));
+            }
+        }
+    }
+
+    /**
+     * @param serialNumber
+     *            the upper case serial number of a device
+     * @return the items bound to the device, an empty list if there are none
+     */
+    List<ItemBinding> getItems(String serialNumber) {
+        List<ItemBinding> items = itemsBySerialNumber.get(serialNumber);
+        return items != null ? items : Collections.<ItemBinding> emptyList();
+    }
+
+    /**
+     * @return the serial numbers of all devices with bound items
+     */
+    Set<String> getSerialNumbers() {
+        return itemsBySerialNumber.keySet();
+    }
+
+    static class ItemBinding {
+
+        final String itemName;
+        final BindingType bindingType;
+
+        ItemBinding(String itemName, BindingType bindingType) {
+            this.itemName = itemName;
+            this.bindingType = bindingType;
+        }
+    }
+}
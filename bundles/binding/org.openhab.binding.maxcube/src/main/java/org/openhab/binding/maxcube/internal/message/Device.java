@@ -53,27 +53,30 @@ public abstract class Device {
     public abstract DeviceType getType();
 
     private static Device create(String rfAddress, List<Configuration> configurations) {
-        Device returnValue = null;
         for (Configuration c : configurations) {
             if (c.getRFAddress().toUpperCase().equals(rfAddress.toUpperCase())) {
-                switch (c.getDeviceType()) {
-                    case HeatingThermostatPlus:
-                    case HeatingThermostat:
-                        HeatingThermostat thermostat = new HeatingThermostat(c);
-                        thermostat.setType(c.getDeviceType());
-                        return thermostat;
-                    case EcoSwitch:
-                        return new EcoSwitch(c);
-                    case ShutterContact:
-                        return new ShutterContact(c);
-                    case WallMountedThermostat:
-                        return new WallMountedThermostat(c);
-                    default:
-                        return new UnsupportedDevice(c);
-                }
+                return create(c);
             }
         }
-        return returnValue;
+        return null;
+    }
+
+    private static Device create(Configuration c) {
+        switch (c.getDeviceType()) {
+            case HeatingThermostatPlus:
+            case HeatingThermostat:
+                HeatingThermostat thermostat = new HeatingThermostat(c);
+                thermostat.setType(c.getDeviceType());
+                return thermostat;
+            case EcoSwitch:
+                return new EcoSwitch(c);
+            case ShutterContact:
+                return new ShutterContact(c);
+            case WallMountedThermostat:
+                return new WallMountedThermostat(c);
+            default:
+                return new UnsupportedDevice(c);
+        }
     }
 
     public static Device create(byte[] raw, List<Configuration> configurations) {
@@ -92,10 +95,40 @@ public abstract class Device {
             return null;
         }
 
-        return Device.update(raw, configurations, device);
+        return Device.update(raw, device);
+    }
+
+    /**
+     * Creates a device from its L message data, using the configuration already looked up by its RF address.
+     *
+     * @param raw the L message data of the device
+     * @param configuration the configuration of the device, may be <code>null</code> if it is not known
+     * @return the device, <code>null</code> if it can't be created
+     */
+    public static Device create(byte[] raw, Configuration configuration) {
+        if (raw.length == 0) {
+            return null;
+        }
+        if (configuration == null) {
+            logger.warn("Can't create device from received message, returning NULL.");
+            return null;
+        }
+
+        return Device.update(raw, create(configuration));
     }
 
     public static Device update(byte[] raw, List<Configuration> configurations, Device device) {
+        return update(raw, device);
+    }
+
+    /**
+     * Updates a device from its L message data.
+     *
+     * @param raw the L message data of the device
+     * @param device the device to update
+     * @return the updated device
+     */
+    public static Device update(byte[] raw, Device device) {
 
         String rfAddress = device.getRFAddress();
 
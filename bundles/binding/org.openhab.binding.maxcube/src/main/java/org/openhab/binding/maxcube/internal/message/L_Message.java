@@ -11,6 +11,7 @@ package org.openhab.binding.maxcube.internal.message;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.codec.binary.Base64;
 import org.openhab.binding.maxcube.internal.MaxTokenizer;
@@ -48,7 +49,17 @@ public final class L_Message extends Message {
         return devices;
     }
 
-    public Collection<? extends Device> updateDevices(List<Device> devices, List<Configuration> configurations) {
+    /**
+     * Updates the devices contained in the message, the ones which are not known yet are created. The devices and
+     * configurations are looked up by their upper case RF address.
+     *
+     * @param devices the known devices by RF address, new devices are added
+     * @param configurations the configurations by RF address
+     * @return the devices contained in the message
+     */
+    public List<Device> updateDevices(Map<String, Device> devices, Map<String, Configuration> configurations) {
+
+        List<Device> updatedDevices = new ArrayList<Device>();
 
         byte[] decodedRawMessage = Base64.decodeBase64(getPayload().getBytes());
 
@@ -56,30 +67,25 @@ public final class L_Message extends Message {
 
         while (tokenizer.hasMoreElements()) {
             byte[] token = tokenizer.nextElement();
-            String rfAddress = Utils.toHex(token[0] & 0xFF, token[1] & 0xFF, token[2] & 0xFF);
-            // logger.debug("token: "+token+" rfaddress: "+rfAddress);
-
-            Device foundDevice = null;
-            for (Device device : devices) {
-                // logger.debug(device.getRFAddress().toUpperCase()+ " vs "+rfAddress);
-                if (device.getRFAddress().toUpperCase().equals(rfAddress)) {
-                    // logger.debug("Updating device..."+rfAddress);
-                    foundDevice = device;
-                }
+            if (token.length < 3) {
+                continue;
             }
-            if (foundDevice != null) {
-                foundDevice = Device.update(token, configurations, foundDevice);
-                // devices.remove(token);
-                // devices.add(foundDevice);
+            String rfAddress = Utils.toHex(token[0] & 0xFF, token[1] & 0xFF, token[2] & 0xFF);
+
+            Device device = devices.get(rfAddress);
+            if (device != null) {
+                Device.update(token, device);
             } else {
-                Device tempDevice = Device.create(token, configurations);
-                if (tempDevice != null) {
-                    devices.add(tempDevice);
+                device = Device.create(token, configurations.get(rfAddress));
+                if (device == null) {
+                    continue;
                 }
+                devices.put(rfAddress, device);
             }
+            updatedDevices.add(device);
         }
 
-        return devices;
+        return updatedDevices;
     }
 
     @Override
@@ -42,6 +42,7 @@ import org.openhab.binding.maxcul.internal.messages.WallThermostatStateMsg;
 import org.openhab.io.transport.cul.CULCommunicationException;
 import org.openhab.io.transport.cul.CULHandler;
 import org.openhab.io.transport.cul.CULListener;
+import org.openhab.io.transport.cul.CULSendPriority;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -82,7 +83,7 @@ public class MaxCulMsgHandler implements CULListener {
 
     public MaxCulMsgHandler(String srcAddr, CULHandler cul, Collection<MaxCulBindingProvider> providers) {
         this.cul = cul;
-        cul.registerListener(this);
+        cul.registerListener(this, "Z");
         this.srcAddr = srcAddr;
         this.sequenceRegister = new HashMap<Byte, MessageSequencer>();
         this.sendQueue = new LinkedList<SenderQueueItem>();
@@ -109,8 +110,16 @@ public class MaxCulMsgHandler implements CULListener {
     }
 
     private void transmitMessage(BaseMsg data, SenderQueueItem queueItem) {
+        /*
+         * ACKs and fast sends go to a device which is awake and waiting for
+         * them, so they must not wait behind other queued commands
+         */
+        CULSendPriority priority = CULSendPriority.NORMAL;
+        if (data.msgType == MaxCulMsgType.ACK || data.isFastSend()) {
+            priority = CULSendPriority.HIGH;
+        }
         try {
-            cul.send(data.rawMsg);
+            cul.send(data.rawMsg, priority);
         } catch (CULCommunicationException e) {
             logger.error("Unable to send CUL message " + data + " because: " + e.getMessage());
         }
@@ -8,8 +8,11 @@
  */
 package org.openhab.binding.onewire.internal;
 
+import java.util.Collections;
 import java.util.Dictionary;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
@@ -77,6 +80,7 @@ public class OneWireBinding extends AbstractBinding<OneWireBindingProvider>
     public void deactivate() {
         super.deactivate();
         ivOneWireReaderScheduler.stop();
+        OneWireConnection.shutdown();
     }
 
     protected void addBindingProvider(OneWireBindingProvider bindingProvider) {
@@ -240,11 +244,11 @@ public class OneWireBinding extends AbstractBinding<OneWireBindingProvider>
      */
     @Override
     public void devicePropertyWantsUpdate(OneWireDevicePropertyWantsUpdateEvent pvWantsUpdateEvent) {
-        String lvItemName = pvWantsUpdateEvent.getItemName();
+        List<String> lvItemNames = pvWantsUpdateEvent.getItemNames();
 
-        logger.debug("Item {} wants update!", lvItemName);
+        logger.debug("Items {} want update!", lvItemNames);
 
-        updateItemFromOneWire(lvItemName);
+        updateItemsFromOneWire(lvItemNames);
     }
 
     /**
@@ -278,39 +282,61 @@ public class OneWireBinding extends AbstractBinding<OneWireBindingProvider>
      * @param pvItemName
      */
     public void updateItemFromOneWire(String pvItemName) {
+        updateItemsFromOneWire(Collections.singletonList(pvItemName));
+    }
+
+    /**
+     * Update items with values from 1-wire device properties. The device properties are read in parallel, and a
+     * device property bound to several items is read only once.
+     *
+     * @param pvItemNames
+     */
+    public void updateItemsFromOneWire(List<String> pvItemNames) {
         if (OneWireConnection.getConnection() != null) {
+            Map<String, AbstractOneWireDevicePropertyBindingConfig> lvBindingConfigs = new LinkedHashMap<String, AbstractOneWireDevicePropertyBindingConfig>();
+            for (String lvItemName : pvItemNames) {
+                AbstractOneWireDevicePropertyBindingConfig lvBindingConfig = (AbstractOneWireDevicePropertyBindingConfig) getBindingConfig(
+                        lvItemName);
+
+                if (lvBindingConfig == null) {
+                    logger.error(
+                            "no bindingConfig found for itemName={} cannot update! It will be removed from scheduler",
+                            lvItemName);
+                    ivOneWireReaderScheduler.removeItem(lvItemName);
+                } else {
+                    lvBindingConfigs.put(lvItemName, lvBindingConfig);
+                }
+            }
 
-            AbstractOneWireDevicePropertyBindingConfig pvBindingConfig = (AbstractOneWireDevicePropertyBindingConfig) getBindingConfig(
-                    pvItemName);
+            Map<String, String> lvReadValues = OneWireConnection.readFromOneWire(lvBindingConfigs.values());
 
-            if (pvBindingConfig == null) {
-                logger.error("no bindingConfig found for itemName={} cannot update! It will be removed from scheduler",
-                        pvItemName);
-                ivOneWireReaderScheduler.removeItem(pvItemName);
-                return;
+            for (Map.Entry<String, AbstractOneWireDevicePropertyBindingConfig> lvEntry : lvBindingConfigs.entrySet()) {
+                updateItem(lvEntry.getKey(), lvEntry.getValue(),
+                        lvReadValues.get(lvEntry.getValue().getDevicePropertyPath()));
             }
+        }
+    }
 
-            String lvReadValue = OneWireConnection.readFromOneWire(pvBindingConfig);
-
-            Item lvItem = getItem(pvItemName);
-            if (lvReadValue != null) {
-                Type lvNewType = pvBindingConfig.convertReadValueToType(lvReadValue);
-                if (lvItem != null) {
-                    postUpdate(lvItem, lvNewType);
-                } else {
-                    logger.error("There is no Item for ItemName={}", pvItemName);
-                }
+    private void updateItem(String pvItemName, AbstractOneWireDevicePropertyBindingConfig pvBindingConfig,
+            String pvReadValue) {
+        Item lvItem = getItem(pvItemName);
+        if (pvReadValue != null) {
+            Type lvNewType = pvBindingConfig.convertReadValueToType(pvReadValue);
+            if (lvItem != null) {
+                postUpdate(lvItem, lvNewType);
             } else {
-                String lvLogText = "Set Item for itemName=" + pvItemName
-                        + " to Undefined, because the readvalue is null";
-                if (pvBindingConfig.isIgnoreReadErrors()) {
-                    logger.debug(lvLogText);
-                } else {
-                    logger.error(lvLogText);
-                }
-
-                postUpdate(lvItem, UnDefType.UNDEF);
+                logger.error("There is no Item for ItemName={}", pvItemName);
             }
+        } else {
+            String lvLogText = "Set Item for itemName=" + pvItemName
+                    + " to Undefined, because the readvalue is null";
+            if (pvBindingConfig.isIgnoreReadErrors()) {
+                logger.debug(lvLogText);
+            } else {
+                logger.error(lvLogText);
+            }
+
+            postUpdate(lvItem, UnDefType.UNDEF);
         }
     }
 
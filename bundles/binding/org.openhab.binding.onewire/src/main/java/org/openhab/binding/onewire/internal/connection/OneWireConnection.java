@@ -9,9 +9,25 @@
 package org.openhab.binding.onewire.internal.connection;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Dictionary;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.lang.StringUtils;
 import org.openhab.binding.onewire.internal.deviceproperties.AbstractOneWireDevicePropertyBindingConfig;
@@ -31,6 +47,7 @@ import org.slf4j.LoggerFactory;
  *
  * @author Dennis Riegelbauer
  * @author Chris Carman (added server connection retry logic)
+ * @author agent (added connection pool and simultaneous conversion)
  * @since 1.7.0
  *
  */
@@ -81,7 +98,35 @@ public class OneWireConnection {
     private static boolean cvIsEstablished = false;
 
     /**
-     * Returns an OwfsConnection
+     * The number of connections to the owserver, which are used to read devices in parallel. Optional, defaults to 3.
+     */
+    private static int cvConnectionPoolSize = 3;
+
+    /**
+     * Pool of connections to the owserver, including <code>cvOwConnection</code>
+     */
+    private static volatile OneWireConnectionPool cvConnectionPool = null;
+
+    /**
+     * Executor, which reads the devices of a batch in parallel, one thread per connection
+     */
+    private static ExecutorService cvReadExecutor = null;
+
+    /**
+     * The property, which can be converted on all devices of a bus at once
+     */
+    private static final String cvTemperatureProperty = "temperature";
+
+    /**
+     * Families of the temperature sensors supporting simultaneous conversion (DS18S20, DS1822, DS18B20, DS1825,
+     * DS28EA00)
+     */
+    private static final Set<String> cvSimultaneousTemperatureFamilies = new LinkedHashSet<String>(
+            Arrays.asList("10", "22", "28", "3B", "42"));
+
+    /**
+     * Returns an OwfsConnection. The connection is shared with the connection pool, use
+     * <code>readFromOneWire</code> and <code>writeToOneWire</code> to access the 1-Wire network.
      *
      * @return the OwfsConnection network link
      */
@@ -150,6 +195,12 @@ public class OneWireConnection {
             }
         }
 
+        // further connections are opened when devices are read in parallel
+        if (cvConnectionPool != null) {
+            cvConnectionPool.close();
+        }
+        cvConnectionPool = new OneWireConnectionPool(owfsConnectorFactory, cvConnectionPoolSize, cvOwConnection);
+
         if (!connected) {
             logger.error("Couldn't connect to owserver [IP '{}' Port '{}']", cvIp, cvPort);
             cvIsEstablished = false;
@@ -168,10 +219,10 @@ public class OneWireConnection {
      */
     public static synchronized boolean reconnect() {
         logger.info("Trying to reconnect to owserver...");
-        try {
-            cvOwConnection.disconnect();
-        } catch (Exception lvException) {
-            logger.error("Error while disconnecting from owserver: ", lvException);
+        if (cvConnectionPool != null) {
+            // disconnects cvOwConnection as well, connections in use are disconnected when they are released
+            cvConnectionPool.close();
+            cvConnectionPool = null;
         }
         cvOwConnection = null;
         cvIsEstablished = false;
@@ -238,6 +289,23 @@ public class OneWireConnection {
         }
         logger.debug("onewire:server_retryInterval = {} seconds", cvServerRetryInterval);
 
+        String lvConnectionsString = Objects.toString(pvConfig.get("connections"), null);
+        if (StringUtils.isNotBlank(lvConnectionsString)) {
+            int lvConnections = Integer.parseInt(lvConnectionsString);
+            if (lvConnections < 1) {
+                logger.info("connections was set to {}. Using the minimum allowed value of 1 instead.", lvConnections);
+                lvConnections = 1;
+            }
+            if (lvConnections != cvConnectionPoolSize) {
+                cvConnectionPoolSize = lvConnections;
+                shutdownReadExecutor();
+                if (cvOwConnection != null) {
+                    reconnect();
+                }
+            }
+        }
+        logger.debug("onewire:connections = {}", cvConnectionPoolSize);
+
         if (cvOwConnection == null) {
             logger.debug("Not connected to owserver yet. Trying to connect...");
             if (!connect()) {
@@ -248,6 +316,20 @@ public class OneWireConnection {
         }
     }
 
+    /**
+     * Stops the parallel reads and closes all connections to owserver. The next read or write connects again.
+     */
+    public static synchronized void shutdown() {
+        shutdownReadExecutor();
+        if (cvConnectionPool != null) {
+            // disconnects cvOwConnection as well
+            cvConnectionPool.close();
+            cvConnectionPool = null;
+        }
+        cvOwConnection = null;
+        cvIsEstablished = false;
+    }
+
     /**
      * @return boolean, is the connection to oserver established
      */
@@ -258,19 +340,20 @@ public class OneWireConnection {
     /**
      * Checks if an device exists in 1-Wire network
      *
+     * @param pvConnection
      * @param pvDevicePropertyPath
      * @return
      * @throws IOException
      * @throws OwfsException
      */
-    private static synchronized boolean checkIfDeviceExists(String pvDevicePropertyPath)
+    private static boolean checkIfDeviceExists(OwfsConnection pvConnection, String pvDevicePropertyPath)
             throws IOException, OwfsException {
         String[] pvDevicePropertyPathParts = pvDevicePropertyPath.trim().split("/");
 
         String lvDevicePath = pvDevicePropertyPathParts[0];
         logger.debug("check if device exists '{}': ", new Object[] { lvDevicePath });
 
-        return OneWireConnection.getConnection().exists(lvDevicePath);
+        return pvConnection.exists(lvDevicePath);
     }
 
     /**
@@ -279,16 +362,25 @@ public class OneWireConnection {
      * @param pvDevicePropertyPath
      * @return device property value as String
      */
-    public static synchronized String readFromOneWire(AbstractOneWireDevicePropertyBindingConfig pvBindingConfig) {
+    public static String readFromOneWire(AbstractOneWireDevicePropertyBindingConfig pvBindingConfig) {
         String lvDevicePropertyPath = pvBindingConfig.getDevicePropertyPath();
 
+        OneWireConnectionPool lvPool = cvConnectionPool;
+        if (lvPool == null) {
+            logger.debug("not connected to owserver, cannot read from '{}'", lvDevicePropertyPath);
+            return null;
+        }
+
         int lvAttempt = 1;
         while (lvAttempt <= cvRetry) {
+            OwfsConnection lvConnection = null;
+            boolean lvConnectionFailed = false;
             try {
                 logger.debug("trying to read from '{}', read attempt={}",
                         new Object[] { lvDevicePropertyPath, lvAttempt });
-                if (checkIfDeviceExists(lvDevicePropertyPath)) {
-                    String lvReadValue = OneWireConnection.getConnection().read(lvDevicePropertyPath);
+                lvConnection = lvPool.borrow();
+                if (checkIfDeviceExists(lvConnection, lvDevicePropertyPath)) {
+                    String lvReadValue = lvConnection.read(lvDevicePropertyPath);
                     logger.debug("Read value '{}' from {}, read attempt={}",
                             new Object[] { lvReadValue, lvDevicePropertyPath, lvAttempt });
 
@@ -315,16 +407,17 @@ public class OneWireConnection {
                     logger.debug(lvLogText, oe);
                 } else {
                     logger.error(lvLogText, oe);
-                    reconnect();
+                    lvConnectionFailed = true;
                 }
             } catch (IOException ioe) {
                 logger.error("couldn't establish network connection while read attempt {} '{}'" + " ip:port={}:{}",
                         lvAttempt, lvDevicePropertyPath, cvIp, cvPort, ioe);
-                reconnect();
+                lvConnectionFailed = true;
             } catch (NumberFormatException lvNumberFormatException) {
                 logger.error(
                         "Ignoring 85C PowerOnReset values can only be used with temperature sensors! Read a value, which is not a number");
             } finally {
+                releaseConnection(lvPool, lvConnection, lvConnectionFailed);
                 lvAttempt++;
             }
         }
@@ -332,20 +425,194 @@ public class OneWireConnection {
         return null;
     }
 
+    /**
+     * Reads the values of several device properties from 1-Wire network. Temperature sensors are converted
+     * simultaneously once per bus before, devices are read in parallel, and every device property is read only once,
+     * even if it is bound to several items.
+     *
+     * @param pvBindingConfigs
+     * @return the read values by device property path, properties which couldn't be read are missing
+     */
+    public static Map<String, String> readFromOneWire(
+            Collection<AbstractOneWireDevicePropertyBindingConfig> pvBindingConfigs) {
+        long lvStart = System.currentTimeMillis();
+
+        // one read per device property path, grouped by device
+        Map<String, List<AbstractOneWireDevicePropertyBindingConfig>> lvConfigsByDevice = new LinkedHashMap<String, List<AbstractOneWireDevicePropertyBindingConfig>>();
+        Set<String> lvDevicePropertyPaths = new LinkedHashSet<String>();
+        for (AbstractOneWireDevicePropertyBindingConfig lvBindingConfig : pvBindingConfigs) {
+            if (!lvDevicePropertyPaths.add(lvBindingConfig.getDevicePropertyPath())) {
+                continue;
+            }
+            List<AbstractOneWireDevicePropertyBindingConfig> lvDeviceConfigs = lvConfigsByDevice
+                    .get(lvBindingConfig.getDeviceId());
+            if (lvDeviceConfigs == null) {
+                lvDeviceConfigs = new ArrayList<AbstractOneWireDevicePropertyBindingConfig>();
+                lvConfigsByDevice.put(lvBindingConfig.getDeviceId(), lvDeviceConfigs);
+            }
+            lvDeviceConfigs.add(lvBindingConfig);
+        }
+
+        convertTemperaturesSimultaneously(pvBindingConfigs);
+
+        Map<String, String> lvValues = new HashMap<String, String>();
+        List<Future<Map<String, String>>> lvFutures = new ArrayList<Future<Map<String, String>>>();
+        ExecutorService lvExecutor = getReadExecutor();
+        for (final List<AbstractOneWireDevicePropertyBindingConfig> lvDeviceConfigs : lvConfigsByDevice.values()) {
+            try {
+                lvFutures.add(lvExecutor.submit(new Callable<Map<String, String>>() {
+                    @Override
+                    public Map<String, String> call() {
+                        Map<String, String> lvDeviceValues = new HashMap<String, String>();
+                        for (AbstractOneWireDevicePropertyBindingConfig lvBindingConfig : lvDeviceConfigs) {
+                            String lvValue = readFromOneWire(lvBindingConfig);
+                            if (lvValue != null) {
+                                lvDeviceValues.put(lvBindingConfig.getDevicePropertyPath(), lvValue);
+                            }
+                        }
+                        return lvDeviceValues;
+                    }
+                }));
+            } catch (RejectedExecutionException e) {
+                // the configuration has changed or the binding was deactivated
+                logger.debug("reading from 1-Wire network stopped");
+                break;
+            }
+        }
+        for (Future<Map<String, String>> lvFuture : lvFutures) {
+            try {
+                lvValues.putAll(lvFuture.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.debug("interrupted while reading from 1-Wire network");
+                break;
+            } catch (ExecutionException e) {
+                logger.error("reading from 1-Wire network failed", e.getCause());
+            }
+        }
+
+        logger.debug("Read {} of {} device properties of {} devices in {} ms", lvValues.size(),
+                lvDevicePropertyPaths.size(), lvConfigsByDevice.size(), System.currentTimeMillis() - lvStart);
+        return lvValues;
+    }
+
+    /**
+     * Starts the temperature conversion of all sensors on the buses of the given devices, so that reading their
+     * temperatures afterwards doesn't wait for a conversion of every single sensor.
+     *
+     * @param pvBindingConfigs
+     */
+    private static void convertTemperaturesSimultaneously(
+            Collection<AbstractOneWireDevicePropertyBindingConfig> pvBindingConfigs) {
+        // bus path by device, the root of the 1-Wire network if the device id doesn't contain a bus
+        Map<String, String> lvBusPaths = new HashMap<String, String>();
+        for (AbstractOneWireDevicePropertyBindingConfig lvBindingConfig : pvBindingConfigs) {
+            String lvDeviceId = lvBindingConfig.getDeviceId();
+            if (!cvTemperatureProperty.equals(lvBindingConfig.getPropertyName())) {
+                continue;
+            }
+            int lvSeparator = lvDeviceId.lastIndexOf('/');
+            String lvDevice = lvDeviceId.substring(lvSeparator + 1);
+            if (lvDevice.length() < 2 || !cvSimultaneousTemperatureFamilies.contains(lvDevice.substring(0, 2))) {
+                continue;
+            }
+            lvBusPaths.put(lvDeviceId, lvSeparator >= 0 ? lvDeviceId.substring(0, lvSeparator + 1) : "/");
+        }
+
+        // a single sensor doesn't gain anything
+        if (lvBusPaths.size() < 2) {
+            return;
+        }
+
+        OneWireConnectionPool lvPool = cvConnectionPool;
+        if (lvPool == null) {
+            return;
+        }
+
+        for (String lvBusPath : new LinkedHashSet<String>(lvBusPaths.values())) {
+            String lvSimultaneousPath = lvBusPath + "simultaneous/" + cvTemperatureProperty;
+            OwfsConnection lvConnection = null;
+            boolean lvConnectionFailed = false;
+            try {
+                lvConnection = lvPool.borrow();
+                logger.debug("Starting simultaneous temperature conversion: '{}'", lvSimultaneousPath);
+                lvConnection.write(lvSimultaneousPath, "1");
+            } catch (OwfsException oe) {
+                logger.debug("Simultaneous temperature conversion '{}' failed: {}", lvSimultaneousPath,
+                        oe.getMessage());
+            } catch (IOException ioe) {
+                logger.debug("Simultaneous temperature conversion '{}' failed: {}", lvSimultaneousPath,
+                        ioe.getMessage());
+                lvConnectionFailed = true;
+            } finally {
+                releaseConnection(lvPool, lvConnection, lvConnectionFailed);
+            }
+        }
+    }
+
+    private static synchronized ExecutorService getReadExecutor() {
+        if (cvReadExecutor == null) {
+            cvReadExecutor = Executors.newFixedThreadPool(cvConnectionPoolSize, new ThreadFactory() {
+                private final AtomicInteger ivThreadNumber = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable pvRunnable) {
+                    Thread lvThread = new Thread(pvRunnable,
+                            "OneWireBinding/Reader-" + ivThreadNumber.incrementAndGet());
+                    lvThread.setDaemon(true);
+                    return lvThread;
+                }
+            });
+        }
+        return cvReadExecutor;
+    }
+
+    /**
+     * Shuts down the executor of the parallel reads. Reads already started are completed, the next batch starts a new
+     * executor.
+     */
+    private static synchronized void shutdownReadExecutor() {
+        if (cvReadExecutor != null) {
+            cvReadExecutor.shutdown();
+            cvReadExecutor = null;
+        }
+    }
+
+    private static void releaseConnection(OneWireConnectionPool pvPool, OwfsConnection pvConnection,
+            boolean pvConnectionFailed) {
+        if (pvConnection == null) {
+            return;
+        }
+        if (pvConnectionFailed) {
+            pvPool.invalidate(pvConnection);
+        } else {
+            pvPool.release(pvConnection);
+        }
+    }
+
     /**
      * Writes String to 1-Wire device property
      *
      * @param pvDevicePropertyPath
      * @param pvValue
      */
-    public static synchronized void writeToOneWire(String pvDevicePropertyPath, String pvValue) {
+    public static void writeToOneWire(String pvDevicePropertyPath, String pvValue) {
+        OneWireConnectionPool lvPool = cvConnectionPool;
+        if (lvPool == null) {
+            logger.error("Not connected to owserver, cannot write '{}' to '{}'", pvValue, pvDevicePropertyPath);
+            return;
+        }
+
         int lvAttempt = 1;
         while (lvAttempt <= cvRetry) {
+            OwfsConnection lvConnection = null;
+            boolean lvConnectionFailed = false;
             try {
                 logger.debug("Trying to write '{}' to '{}', write attempt={}", pvValue, pvDevicePropertyPath,
                         lvAttempt);
-                if (checkIfDeviceExists(pvDevicePropertyPath)) {
-                    OneWireConnection.getConnection().write(pvDevicePropertyPath, pvValue);
+                lvConnection = lvPool.borrow();
+                if (checkIfDeviceExists(lvConnection, pvDevicePropertyPath)) {
+                    lvConnection.write(pvDevicePropertyPath, pvValue);
                     return; // Success, exit
                 } else {
                     logger.info("There is no device for path {}, write attempt={}", pvDevicePropertyPath, lvAttempt);
@@ -353,12 +620,13 @@ public class OneWireConnection {
             } catch (OwfsException oe) {
                 logger.error("Writing {} to path {} attempt {} threw an exception", pvValue, pvDevicePropertyPath,
                         lvAttempt, oe);
-                reconnect();
+                lvConnectionFailed = true;
             } catch (IOException ioe) {
                 logger.error("Couldn't establish network connection while write attempt {} to '{}'" + " ip:port={}:{}",
                         lvAttempt, pvDevicePropertyPath, cvIp, cvPort, ioe);
-                reconnect();
+                lvConnectionFailed = true;
             } finally {
+                releaseConnection(lvPool, lvConnection, lvConnectionFailed);
                 lvAttempt++;
             }
         }
@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.onewire.internal.connection;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.owfs.jowfsclient.OwfsConnection;
+import org.owfs.jowfsclient.OwfsConnectionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A pool of connections to one owserver. A connection can only be used by one
+ * thread at a time, the pool allows to read several devices in parallel.
+ * Connections are opened when needed, up to the size of the pool.
+ *
+ * @author agent
+ * @since 1.9.0
+ *
+ */
+class OneWireConnectionPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(OneWireConnectionPool.class);
+
+    /**
+     * Time in seconds to wait for a connection to become available
+     */
+    private static final int cvBorrowTimeout = 30;
+
+    private final OwfsConnectionFactory ivConnectionFactory;
+
+    private final int ivSize;
+
+    private final BlockingQueue<OwfsConnection> ivIdleConnections = new LinkedBlockingQueue<OwfsConnection>();
+
+    /**
+     * number of connections opened by the pool, idle or in use
+     */
+    private int ivOpenConnections = 0;
+
+    private boolean ivClosed = false;
+
+    /**
+     * @param pvConnectionFactory
+     *            factory for new connections
+     * @param pvSize
+     *            maximum number of connections
+     * @param pvInitialConnection
+     *            an already established connection, which is added to the pool
+     */
+    OneWireConnectionPool(OwfsConnectionFactory pvConnectionFactory, int pvSize, OwfsConnection pvInitialConnection) {
+        this.ivConnectionFactory = pvConnectionFactory;
+        this.ivSize = Math.max(1, pvSize);
+        if (pvInitialConnection != null) {
+            ivOpenConnections = 1;
+            ivIdleConnections.add(pvInitialConnection);
+        }
+    }
+
+    int getSize() {
+        return ivSize;
+    }
+
+    /**
+     * Takes a connection from the pool, which must be handed back by
+     * <code>release</code> or <code>invalidate</code>
+     *
+     * @return a connection to the owserver
+     * @throws IOException
+     *             if the pool is closed or no connection became available in
+     *             time
+     */
+    OwfsConnection borrow() throws IOException {
+        long lvDeadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(cvBorrowTimeout);
+        while (true) {
+            OwfsConnection lvConnection = ivIdleConnections.poll();
+            if (lvConnection != null) {
+                return lvConnection;
+            }
+
+            synchronized (this) {
+                if (ivClosed) {
+                    throw new IOException("owserver connection pool is closed");
+                }
+                if (ivOpenConnections < ivSize) {
+                    ivOpenConnections++;
+                    logger.debug("Opening owserver connection {} of {}", ivOpenConnections, ivSize);
+                    return ivConnectionFactory.createNewConnection();
+                }
+            }
+
+            // wait for a connection to be released, or to be invalidated and thus to be opened again
+            long lvRemaining = lvDeadline - System.currentTimeMillis();
+            if (lvRemaining <= 0) {
+                throw new IOException("no owserver connection available within " + cvBorrowTimeout + " seconds");
+            }
+            try {
+                lvConnection = ivIdleConnections.poll(Math.min(lvRemaining, 1000), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while waiting for an owserver connection");
+            }
+            if (lvConnection != null) {
+                return lvConnection;
+            }
+        }
+    }
+
+    /**
+     * Hands a connection back to the pool
+     *
+     * @param pvConnection
+     */
+    void release(OwfsConnection pvConnection) {
+        synchronized (this) {
+            if (!ivClosed) {
+                ivIdleConnections.add(pvConnection);
+                return;
+            }
+        }
+        disconnect(pvConnection);
+    }
+
+    /**
+     * Closes a connection which failed, the next borrower gets a new one
+     *
+     * @param pvConnection
+     */
+    void invalidate(OwfsConnection pvConnection) {
+        synchronized (this) {
+            ivOpenConnections--;
+        }
+        disconnect(pvConnection);
+    }
+
+    /**
+     * Closes all idle connections, connections in use are closed when they
+     * are released
+     */
+    void close() {
+        synchronized (this) {
+            ivClosed = true;
+        }
+        OwfsConnection lvConnection;
+        while ((lvConnection = ivIdleConnections.poll()) != null) {
+            disconnect(lvConnection);
+        }
+    }
+
+    private void disconnect(OwfsConnection pvConnection) {
+        try {
+            pvConnection.disconnect();
+        } catch (Exception lvException) {
+            logger.debug("Error while disconnecting from owserver: {}", lvException.getMessage());
+        }
+    }
+}
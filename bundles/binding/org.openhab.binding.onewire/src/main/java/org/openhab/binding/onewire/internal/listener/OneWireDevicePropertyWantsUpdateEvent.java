@@ -8,7 +8,9 @@
  */
 package org.openhab.binding.onewire.internal.listener;
 
+import java.util.Collections;
 import java.util.EventObject;
+import java.util.List;
 
 /**
  * EventClass for InterfaceOneWireDevicePropertyWantsUpdateListener
@@ -22,24 +24,40 @@ public class OneWireDevicePropertyWantsUpdateEvent extends EventObject {
     private static final long serialVersionUID = -6971853348646127138L;
 
     /**
-     * Item name
+     * Item names
      */
-    private String ivItemName = null;
+    private List<String> ivItemNames = null;
 
     /**
      * @param pvSource
      * @param pvItemName
      */
     public OneWireDevicePropertyWantsUpdateEvent(Object pvSource, String pvItemName) {
+        this(pvSource, Collections.singletonList(pvItemName));
+    }
+
+    /**
+     * @param pvSource
+     * @param pvItemNames
+     *            the items which want to be updated together
+     */
+    public OneWireDevicePropertyWantsUpdateEvent(Object pvSource, List<String> pvItemNames) {
         super(pvSource);
-        this.ivItemName = pvItemName;
+        this.ivItemNames = pvItemNames;
     }
 
     /**
-     * @return name of the item which wants to be updated
+     * @return name of the (first) item which wants to be updated
      */
     public String getItemName() {
-        return ivItemName;
+        return ivItemNames.get(0);
+    }
+
+    /**
+     * @return names of all items which want to be updated
+     */
+    public List<String> getItemNames() {
+        return ivItemNames;
     }
 
 }
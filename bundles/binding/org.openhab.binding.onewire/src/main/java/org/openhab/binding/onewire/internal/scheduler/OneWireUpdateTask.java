@@ -11,6 +11,9 @@
  */
 package org.openhab.binding.onewire.internal.scheduler;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 
 import org.openhab.binding.onewire.internal.listener.InterfaceOneWireDevicePropertyWantsUpdateListener;
@@ -56,9 +59,16 @@ public class OneWireUpdateTask extends Thread {
                 logger.debug("Autorefresh: got new item {} in update queue", lvItemName);
 
                 if (lvItemName != null) {
-                    logger.debug("Autorefresh: Trying to update Item: {}", lvItemName);
-                    ivWantsUpdateListener
-                            .devicePropertyWantsUpdate(new OneWireDevicePropertyWantsUpdateEvent(this, lvItemName));
+                    // update all waiting items together, so that they can be read in parallel
+                    LinkedHashSet<String> lvItemNames = new LinkedHashSet<String>();
+                    lvItemNames.add(lvItemName);
+                    List<String> lvWaitingItemNames = new ArrayList<String>();
+                    ivUpdateQueue.drainTo(lvWaitingItemNames);
+                    lvItemNames.addAll(lvWaitingItemNames);
+
+                    logger.debug("Autorefresh: Trying to update Items: {}", lvItemNames);
+                    ivWantsUpdateListener.devicePropertyWantsUpdate(
+                            new OneWireDevicePropertyWantsUpdateEvent(this, new ArrayList<String>(lvItemNames)));
                 }
             }
         } catch (InterruptedException ex) {
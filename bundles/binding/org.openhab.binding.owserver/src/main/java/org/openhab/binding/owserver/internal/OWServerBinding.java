@@ -9,18 +9,24 @@
 package org.openhab.binding.owserver.internal;
 
 import java.io.IOException;
-import java.io.StringReader;
+import java.io.InputStream;
 import java.util.Dictionary;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
 
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.UsernamePasswordCredentials;
+import org.apache.commons.httpclient.auth.AuthScope;
+import org.apache.commons.httpclient.methods.GetMethod;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
 import org.apache.commons.lang.StringUtils;
 import org.openhab.binding.owserver.OWServerBindingProvider;
 import org.openhab.core.binding.AbstractActiveBinding;
@@ -36,17 +42,10 @@ import org.openhab.core.library.types.PercentType;
 import org.openhab.core.library.types.StringType;
 import org.openhab.core.types.State;
 import org.openhab.core.types.TypeParser;
-import org.openhab.io.net.http.HttpUtil;
 import org.osgi.service.cm.ConfigurationException;
 import org.osgi.service.cm.ManagedService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
 
 /**
  * An active binding which requests the EDS OWServer data.
@@ -86,6 +85,11 @@ public class OWServerBinding extends AbstractActiveBinding<OWServerBindingProvid
 
     private Map<String, OWServerConfig> serverList = new HashMap<String, OWServerConfig>();
 
+    /**
+     * the client to fetch the data, which keeps the connections to the servers open
+     */
+    private final HttpClient httpClient = new HttpClient(new MultiThreadedHttpConnectionManager());
+
     public OWServerBinding() {
     }
 
@@ -96,6 +100,15 @@ public class OWServerBinding extends AbstractActiveBinding<OWServerBindingProvid
         super.activate();
     }
 
+    @Override
+    public void deactivate() {
+        super.deactivate();
+
+        // close the kept-alive connections to the servers
+        ((MultiThreadedHttpConnectionManager) httpClient.getHttpConnectionManager()).shutdown();
+        logger.debug("OWServer: Deactivated");
+    }
+
     /**
      * @{inheritDoc
      */
@@ -109,64 +122,16 @@ public class OWServerBinding extends AbstractActiveBinding<OWServerBindingProvid
         return "OWServer Refresh Service";
     }
 
-    String getVariable(String response, String romId, String name) {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-
-        // Get the DOM Builder
-        DocumentBuilder builder = null;
-        try {
-            builder = factory.newDocumentBuilder();
-        } catch (ParserConfigurationException e) {
-            logger.error("Error parsing OWServer XML response " + e.getMessage());
-        }
-
-        // Load and Parse the XML document
-        // document contains the complete XML as a Tree.
-        Document document = null;
-        try {
-            InputSource is = new InputSource(new StringReader(response));
-            document = builder.parse(is);
-        } catch (SAXException e) {
-            logger.error("Error reading OWServer XML response " + e.getMessage());
-        } catch (IOException e) {
-            logger.error("Error reading OWServer XML response " + e.getMessage());
-        }
-
-        // Iterating through the nodes and extracting the data.
-        NodeList nodeList = document.getDocumentElement().getChildNodes();
-
-        for (int i = 0; i < nodeList.getLength(); i++) {
-            Node node = nodeList.item(i);
-            if (node.getNodeName().startsWith("owd_")) {
-                boolean romMatch = false;
-                NodeList childNodes = node.getChildNodes();
-                for (int j = 0; j < childNodes.getLength(); j++) {
-                    Node cNode = childNodes.item(j);
-
-                    // Identifying the child tag of employee encountered.
-                    if (cNode instanceof Element) {
-                        String content = cNode.getLastChild().getTextContent().trim();
-                        if (cNode.getNodeName().equals("ROMId") & content.equals(romId)) {
-                            romMatch = true;
-                        }
-
-                        String nname = cNode.getNodeName();
-                        if (nname.equals(name) & romMatch == true) {
-                            return content;
-                        }
-                    }
-                }
-            }
-        }
-
-        return null;
-    }
-
     /**
      * @{inheritDoc
      */
     @Override
     public void execute() {
+        long now = System.currentTimeMillis();
+
+        // the items to refresh, by server
+        Map<OWServerConfig, Map<String, OWServerBindingProvider>> dueItems = new HashMap<OWServerConfig, Map<String, OWServerBindingProvider>>();
+
         for (OWServerBindingProvider provider : providers) {
             for (String itemName : provider.getInBindingItemNames()) {
                 int refreshInterval = provider.getRefreshInterval(itemName);
@@ -176,7 +141,7 @@ public class OWServerBinding extends AbstractActiveBinding<OWServerBindingProvid
                     lastUpdateTimeStamp = 0L;
                 }
 
-                long age = System.currentTimeMillis() - lastUpdateTimeStamp;
+                long age = now - lastUpdateTimeStamp;
                 boolean needsUpdate = age >= refreshInterval;
 
                 if (needsUpdate) {
@@ -185,59 +150,93 @@ public class OWServerBinding extends AbstractActiveBinding<OWServerBindingProvid
                     // Get the unit serverId from the binding, and relate that to the config
                     String unit = provider.getServerId(itemName);
                     OWServerConfig server = serverList.get(unit);
-                    needsUpdate = false;
                     if (server == null) {
-                        needsUpdate = false;
                         logger.error("Unknown OW server referenced: " + unit);
-
                         continue;
-                    } else {
-                        age = System.currentTimeMillis() - server.lastUpdate;
-                        if (age >= cacheDuration) {
-                            needsUpdate = true;
-                        }
                     }
 
-                    String response = null;
-                    if (needsUpdate == true) {
-                        String address;
-                        if (server.user == null) {
-                            address = "http://" + server.host + "/details.xml";
-                        } else {
-                            address = "http://" + server.user + ":" + server.password + "@" + server.host
-                                    + "/details.xml";
-                        }
-                        logger.debug("Getting OWSERVER data from " + address);
-                        response = HttpUtil.executeUrl("GET", address, timeout);
-                        server.cache = response;
-
-                        if (response == null) {
-                            server.lastUpdate = (long) 0;
-                            logger.error("No response received from '{}'", address);
-                        } else {
-                            server.lastUpdate = System.currentTimeMillis();
-                        }
-                        serverList.put(address, server);
-                    } else {
-                        logger.debug("Using OWSERVER cache");
-                        response = server.cache;
+                    Map<String, OWServerBindingProvider> items = dueItems.get(server);
+                    if (items == null) {
+                        items = new LinkedHashMap<String, OWServerBindingProvider>();
+                        dueItems.put(server, items);
                     }
+                    items.put(itemName, provider);
+                }
+            }
+        }
 
-                    if (response != null) {
-                        String value = getVariable(response, provider.getRomId(itemName), provider.getName(itemName));
-                        if (value != null) {
-                            Class<? extends Item> itemType = provider.getItemType(itemName);
-                            State state = createState(itemType, value);
-                            eventPublisher.postUpdate(itemName, state);
-                        }
-                    }
+        // fetch every server at most once and serve all its items from the parsed document
+        for (Map.Entry<OWServerConfig, Map<String, OWServerBindingProvider>> entry : dueItems.entrySet()) {
+            OWServerConfig server = entry.getKey();
+            if (now - server.lastUpdate >= server.getCacheDuration(cacheDuration)) {
+                server.cache = fetchDetails(server);
+                server.lastUpdate = server.cache != null ? System.currentTimeMillis() : 0L;
+            } else {
+                logger.debug("Using OWSERVER cache");
+            }
 
-                    lastUpdateMap.put(itemName, System.currentTimeMillis());
+            OWServerDetails details = server.cache;
+            for (Map.Entry<String, OWServerBindingProvider> item : entry.getValue().entrySet()) {
+                String itemName = item.getKey();
+                OWServerBindingProvider provider = item.getValue();
+                if (details != null) {
+                    String value = details.getVariable(provider.getRomId(itemName), provider.getName(itemName));
+                    if (value != null) {
+                        Class<? extends Item> itemType = provider.getItemType(itemName);
+                        State state = createState(itemType, value);
+                        eventPublisher.postUpdate(itemName, state);
+                    }
                 }
+
+                lastUpdateMap.put(itemName, System.currentTimeMillis());
             }
         }
     }
 
+    /**
+     * Fetches and parses the <code>details.xml</code> of a server
+     *
+     * @param server
+     * @return the parsed document, or <code>null</code> if it couldn't be
+     *         fetched
+     */
+    private OWServerDetails fetchDetails(OWServerConfig server) {
+        String address = "http://" + server.host + "/details.xml";
+        logger.debug("Getting OWSERVER data from " + address);
+
+        GetMethod get = new GetMethod(address);
+        try {
+            if (server.user != null) {
+                // send the credentials of this server right away instead of waiting for the challenge
+                get.setDoAuthentication(true);
+                get.getHostAuthState().setPreemptive();
+            } else {
+                get.setDoAuthentication(false);
+            }
+            int statusCode = httpClient.executeMethod(get);
+            if (statusCode != HttpStatus.SC_OK) {
+                logger.error("No response received from '{}': {}", address, get.getStatusLine());
+                return null;
+            }
+
+            InputStream stream = get.getResponseBodyAsStream();
+            try {
+                OWServerDetails details = OWServerDetails.parse(stream);
+                logger.debug("Received {} devices from '{}'", details.size(), address);
+                return details;
+            } finally {
+                stream.close();
+            }
+        } catch (IOException e) {
+            logger.error("No response received from '{}': {}", address, e.getMessage());
+        } catch (XMLStreamException e) {
+            logger.error("Error reading OWServer XML response " + e.getMessage());
+        } finally {
+            get.releaseConnection();
+        }
+        return null;
+    }
+
     /**
      * Returns a {@link State} which is inherited from the {@link Item}s
      * accepted DataTypes. The call is delegated to the {@link TypeParser}. If
@@ -287,6 +286,10 @@ public class OWServerBinding extends AbstractActiveBinding<OWServerBindingProvid
             if (serverList == null) {
                 serverList = new HashMap<String, OWServerConfig>();
             }
+            for (OWServerConfig server : serverList.values()) {
+                // reset the settings, which may have been removed from the configuration
+                server.cacheDuration = null;
+            }
 
             while (keys.hasMoreElements()) {
                 String key = keys.nextElement();
@@ -324,6 +327,8 @@ public class OWServerBinding extends AbstractActiveBinding<OWServerBindingProvid
                     deviceConfig.user = value;
                 } else if ("password".equals(configKey)) {
                     deviceConfig.password = value;
+                } else if ("cache".equals(configKey)) {
+                    deviceConfig.cacheDuration = StringUtils.isNotBlank(value) ? Integer.valueOf(value) : null;
                 } else {
                     throw new ConfigurationException(configKey,
                             "The given OWServer configKey '" + configKey + "' is unknown");
@@ -335,6 +340,21 @@ public class OWServerBinding extends AbstractActiveBinding<OWServerBindingProvid
                 timeout = Integer.parseInt(timeoutString);
             }
 
+            HttpConnectionManagerParams params = httpClient.getHttpConnectionManager().getParams();
+            params.setConnectionTimeout(timeout);
+            params.setSoTimeout(timeout);
+            httpClient.getParams().setConnectionManagerTimeout(timeout);
+
+            for (OWServerConfig server : serverList.values()) {
+                server.cache = null;
+                server.lastUpdate = 0L;
+                if (server.user != null && server.host != null) {
+                    httpClient.getState().setCredentials(
+                            new AuthScope(StringUtils.substringBefore(server.host, ":"), AuthScope.ANY_PORT),
+                            new UsernamePasswordCredentials(server.user, server.password));
+                }
+            }
+
             String granularityString = (String) config.get("granularity");
             if (StringUtils.isNotBlank(granularityString)) {
                 granularity = Integer.parseInt(granularityString);
@@ -359,12 +379,18 @@ public class OWServerBinding extends AbstractActiveBinding<OWServerBindingProvid
         public String user;
         public String password;
         public Long lastUpdate;
-        public String cache;
+        public OWServerDetails cache;
+        /** the maximum duration of the data in the cache, or <code>null</code> for the global setting */
+        public Integer cacheDuration;
 
         OWServerConfig() {
             lastUpdate = (long) 0;
         }
 
+        int getCacheDuration(int defaultDuration) {
+            return cacheDuration != null ? cacheDuration : defaultDuration;
+        }
+
         @Override
         public String toString() {
             return "OWServerCache [host=" + host + " last=" + lastUpdate + ", cache=" + cache + "]";
@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.owserver.internal;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * The content of the <code>details.xml</code> of an EDS OW-Server, i.e. the
+ * properties of every device by its ROM ID.
+ *
+ * The document is read once with a streaming parser. Devices are the
+ * <code>owd_*</code> elements below the root element; their child elements are
+ * the properties, one of them being the <code>ROMId</code>.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+class OWServerDetails {
+
+    private static final String DEVICE_PREFIX = "owd_";
+    private static final String ROM_ID = "ROMId";
+
+    private static final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+
+    static {
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private final Map<String, Map<String, String>> devices;
+
+    private OWServerDetails(Map<String, Map<String, String>> devices) {
+        this.devices = devices;
+    }
+
+    /**
+     * Reads a <code>details.xml</code> document
+     *
+     * @param stream
+     *            the document, which is not closed
+     * @return the properties of the devices in the document
+     * @throws XMLStreamException
+     *             if the document isn't well-formed
+     */
+    static OWServerDetails parse(InputStream stream) throws XMLStreamException {
+        Map<String, Map<String, String>> devices = new HashMap<String, Map<String, String>>();
+
+        XMLStreamReader reader = inputFactory.createXMLStreamReader(stream);
+        try {
+            int depth = 0;
+            Map<String, String> properties = null;
+            String property = null;
+            StringBuilder text = new StringBuilder();
+
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        depth++;
+                        if (depth == 2 && reader.getLocalName().startsWith(DEVICE_PREFIX)) {
+                            properties = new HashMap<String, String>();
+                        } else if (depth == 3 && properties != null) {
+                            property = reader.getLocalName();
+                            text.setLength(0);
+                        }
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                        if (property != null) {
+                            text.append(reader.getText());
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        if (depth == 3 && property != null) {
+                            properties.put(property, text.toString().trim());
+                            property = null;
+                        } else if (depth == 2 && properties != null) {
+                            String romId = properties.get(ROM_ID);
+                            if (romId != null) {
+                                devices.put(romId, properties);
+                            }
+                            properties = null;
+                        }
+                        depth--;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        return new OWServerDetails(devices);
+    }
+
+    /**
+     * @param romId
+     *            the ROM ID of the device
+     * @param name
+     *            the name of the property
+     * @return the value of the property, <code>null</code> if the device or
+     *         property doesn't exist
+     */
+    String getVariable(String romId, String name) {
+        Map<String, String> properties = devices.get(romId);
+        return properties != null ? properties.get(name) : null;
+    }
+
+    int size() {
+        return devices.size();
+    }
+}
@@ -0,0 +1,251 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal.connector;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.junit.Test;
+import org.openhab.binding.rfxcom.RFXComBindingProvider;
+import org.openhab.binding.rfxcom.RFXComValueSelector;
+import org.openhab.binding.rfxcom.internal.RFXComException;
+import org.openhab.binding.rfxcom.internal.RFXComItemIndex;
+import org.openhab.binding.rfxcom.internal.RFXComItemIndex.ItemBinding;
+import org.openhab.binding.rfxcom.internal.messages.RFXComMessageFactory;
+import org.openhab.binding.rfxcom.internal.messages.RFXComMessageInterface;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Replays a recorded stream of a busy 433 MHz environment through the packet
+ * buffer, the message factory and the {@link RFXComItemIndex}, and logs the
+ * time needed per packet.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class RFXComPacketBufferReplayTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(RFXComPacketBufferReplayTest.class);
+
+    private static final String[] PACKETS = { "08500110000180BC69", "0850021DFB0100D770", "08500502770000D389",
+            "0850091A00C3800689", "0A5201800F0201294C0349", "0A520211700200A72D0089", "0A5205D42F000082590379",
+            "0710015242080780", "0710010047010070", "0913000145DD99018870", "0F5C0103002DE4000000000003003280",
+            "135B0106B800000016000000000000006F148889", "0919040600A21B010280" };
+
+    /** the device ids of PACKETS[1] and PACKETS[5] */
+    private static final String OUTSIDE = "64257";
+    private static final String LIVING_ROOM = "28674";
+
+    private static final int REPLAY_COUNT = 20000;
+
+    /**
+     * Returns the recorded data in chunks of random size, like the serial port
+     */
+    private static class ChunkedInputStream extends InputStream {
+        private final byte[] data;
+        private final Random random = new Random(42);
+        private int pos = 0;
+
+        ChunkedInputStream(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return pos < data.length ? data[pos++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (pos >= data.length) {
+                return -1;
+            }
+            int n = Math.min(Math.min(len, 1 + random.nextInt(20)), data.length - pos);
+            System.arraycopy(data, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+    }
+
+    private static byte[] record(int count) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < count; i++) {
+            byte[] packet = DatatypeConverter.parseHexBinary(PACKETS[i % PACKETS.length]);
+            out.write(packet, 0, packet.length);
+        }
+        return out.toByteArray();
+    }
+
+    private static RFXComBindingProvider provider(final Map<String, Object[]> items) {
+        return (RFXComBindingProvider) Proxy.newProxyInstance(RFXComPacketBufferReplayTest.class.getClassLoader(),
+                new Class<?>[] { RFXComBindingProvider.class }, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (method.getName().equals("getItemNames")) {
+                            return items.keySet();
+                        } else if (method.getName().equals("getId")) {
+                            return items.get(args[0])[0];
+                        } else if (method.getName().equals("isInBinding")) {
+                            return items.get(args[0])[1];
+                        } else if (method.getName().equals("getValueSelector")) {
+                            return items.get(args[0])[2];
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    private static String deviceId(String packet) throws RFXComException {
+        return RFXComMessageFactory.getMessageInterface(DatatypeConverter.parseHexBinary(packet)).generateDeviceId();
+    }
+
+    /**
+     * Binds items to the outside and living room sensors, spread over two
+     * providers. The item bound to the device of the first packet only has an
+     * out binding.
+     */
+    private static RFXComItemIndex createIndex() throws RFXComException {
+        Map<String, Object[]> items = new HashMap<String, Object[]>();
+        items.put("OutsideTemperature", new Object[] { OUTSIDE, true, RFXComValueSelector.TEMPERATURE });
+        items.put("OutsideHumidity", new Object[] { OUTSIDE, true, RFXComValueSelector.HUMIDITY });
+        items.put("Command", new Object[] { deviceId(PACKETS[0]), false, RFXComValueSelector.COMMAND });
+        Map<String, Object[]> otherItems = new HashMap<String, Object[]>();
+        otherItems.put("OutsideSignal", new Object[] { OUTSIDE, true, RFXComValueSelector.SIGNAL_LEVEL });
+        otherItems.put("LivingRoomHumidity", new Object[] { LIVING_ROOM, true, RFXComValueSelector.HUMIDITY });
+        return new RFXComItemIndex(Arrays.asList(provider(items), provider(otherItems)));
+    }
+
+    /**
+     * Replays the recording the same way as the binding does and returns the
+     * number of updates by item.
+     */
+    private static Map<String, Integer> replay(byte[] recording, RFXComItemIndex index)
+            throws IOException, RFXComException {
+        RFXComPacketBuffer buffer = new RFXComPacketBuffer();
+        InputStream in = new ChunkedInputStream(recording);
+        Map<String, Integer> updates = new HashMap<String, Integer>();
+        while (buffer.read(in) > 0) {
+            byte[] packet;
+            while ((packet = buffer.nextPacket()) != null) {
+                RFXComMessageInterface msg = RFXComMessageFactory.getMessageInterface(packet);
+                String deviceId = msg.generateDeviceId();
+                if (!index.isBound(deviceId)) {
+                    continue;
+                }
+                List<RFXComValueSelector> supportedValueSelectors = msg.getSupportedValueSelectors();
+                for (ItemBinding item : index.getItems(deviceId)) {
+                    if (supportedValueSelectors.contains(item.valueSelector)) {
+                        assertNotNull(msg.convertToState(item.valueSelector));
+                        Integer count = updates.get(item.itemName);
+                        updates.put(item.itemName, count == null ? 1 : count + 1);
+                    }
+                }
+            }
+        }
+        return updates;
+    }
+
+    @Test
+    public void testPacketsSplitAcrossReads() throws IOException {
+        byte[] recording = record(PACKETS.length * 30);
+        RFXComPacketBuffer buffer = new RFXComPacketBuffer();
+        InputStream in = new ChunkedInputStream(recording);
+
+        int i = 0;
+        while (buffer.read(in) > 0) {
+            byte[] packet;
+            while ((packet = buffer.nextPacket()) != null) {
+                assertEquals("Packet " + i, PACKETS[i % PACKETS.length], DatatypeConverter.printHexBinary(packet));
+                i++;
+            }
+        }
+        assertEquals("Packets", PACKETS.length * 30, i);
+    }
+
+    @Test
+    public void testDiscardBeforeLastRead() throws IOException {
+        RFXComPacketBuffer buffer = new RFXComPacketBuffer();
+
+        // the start of a packet, then a complete packet
+        assertEquals(5, buffer.read(new ByteArrayInputStream(DatatypeConverter.parseHexBinary("0A5201800F"))));
+        assertNull(buffer.nextPacket());
+
+        int len = buffer.read(new ByteArrayInputStream(DatatypeConverter.parseHexBinary("08500110000180BC69")));
+        buffer.discardBeforeLastRead(len);
+        assertEquals("08500110000180BC69", DatatypeConverter.printHexBinary(buffer.nextPacket()));
+        assertNull(buffer.nextPacket());
+    }
+
+    @Test
+    public void testItemIndex() throws RFXComException {
+        RFXComItemIndex index = createIndex();
+
+        assertTrue(index.isBound(OUTSIDE));
+        assertTrue(index.isBound(LIVING_ROOM));
+        assertFalse("Only items with an in binding", index.isBound(deviceId(PACKETS[0])));
+        assertFalse(index.isBound("unknown"));
+        assertTrue(index.getItems("unknown").isEmpty());
+
+        Map<String, RFXComValueSelector> outside = new HashMap<String, RFXComValueSelector>();
+        for (ItemBinding item : index.getItems(OUTSIDE)) {
+            outside.put(item.itemName, item.valueSelector);
+        }
+        assertEquals(3, outside.size());
+        assertEquals(RFXComValueSelector.TEMPERATURE, outside.get("OutsideTemperature"));
+        assertEquals(RFXComValueSelector.HUMIDITY, outside.get("OutsideHumidity"));
+        assertEquals(RFXComValueSelector.SIGNAL_LEVEL, outside.get("OutsideSignal"));
+        assertEquals(1, index.getItems(LIVING_ROOM).size());
+        assertEquals("LivingRoomHumidity", index.getItems(LIVING_ROOM).get(0).itemName);
+    }
+
+    @Test
+    public void testReplay() throws IOException, RFXComException {
+        byte[] recording = record(REPLAY_COUNT);
+        RFXComItemIndex index = createIndex();
+
+        // warm up
+        replay(recording, index);
+
+        long start = System.nanoTime();
+        Map<String, Integer> updates = replay(recording, index);
+        long duration = System.nanoTime() - start;
+
+        int outside = 0;
+        int livingRoom = 0;
+        for (int i = 0; i < REPLAY_COUNT; i++) {
+            if (i % PACKETS.length == 1) {
+                outside++;
+            } else if (i % PACKETS.length == 5) {
+                livingRoom++;
+            }
+        }
+        assertEquals(Integer.valueOf(outside), updates.get("OutsideTemperature"));
+        assertEquals(Integer.valueOf(outside), updates.get("OutsideSignal"));
+        assertEquals(Integer.valueOf(livingRoom), updates.get("LivingRoomHumidity"));
+        // a temperature sensor has no humidity, and out bindings aren't updated
+        assertEquals(3, updates.size());
+
+        logger.debug("RFXCOM replay of {} packets: {} ns per packet", REPLAY_COUNT, duration / REPLAY_COUNT);
+    }
+}
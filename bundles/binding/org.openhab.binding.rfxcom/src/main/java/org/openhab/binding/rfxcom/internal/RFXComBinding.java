@@ -20,6 +20,7 @@ import javax.xml.bind.DatatypeConverter;
 
 import org.openhab.binding.rfxcom.RFXComBindingProvider;
 import org.openhab.binding.rfxcom.RFXComValueSelector;
+import org.openhab.binding.rfxcom.internal.RFXComItemIndex.ItemBinding;
 import org.openhab.binding.rfxcom.internal.connector.RFXComEventListener;
 import org.openhab.binding.rfxcom.internal.connector.RFXComSerialConnector;
 import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage.PacketType;
@@ -27,6 +28,7 @@ import org.openhab.binding.rfxcom.internal.messages.RFXComMessageFactory;
 import org.openhab.binding.rfxcom.internal.messages.RFXComMessageInterface;
 import org.openhab.binding.rfxcom.internal.messages.RFXComTransmitterMessage;
 import org.openhab.core.binding.AbstractBinding;
+import org.openhab.core.binding.BindingProvider;
 import org.openhab.core.events.EventPublisher;
 import org.openhab.core.types.Command;
 import org.openhab.core.types.State;
@@ -55,6 +57,10 @@ public class RFXComBinding extends AbstractBinding<RFXComBindingProvider> {
 
     private final MessageLister eventLister = new MessageLister();
 
+    /** the items by device id, created on the first packet after a binding change */
+    private RFXComItemIndex itemIndex;
+    private final Object itemIndexLock = new Object();
+
     public RFXComBinding() {
     }
 
@@ -86,6 +92,45 @@ public class RFXComBinding extends AbstractBinding<RFXComBindingProvider> {
         this.eventPublisher = null;
     }
 
+    @Override
+    public void addBindingProvider(RFXComBindingProvider provider) {
+        super.addBindingProvider(provider);
+        invalidateItemIndex();
+    }
+
+    @Override
+    public void removeBindingProvider(RFXComBindingProvider provider) {
+        super.removeBindingProvider(provider);
+        invalidateItemIndex();
+    }
+
+    @Override
+    public void bindingChanged(BindingProvider provider, String itemName) {
+        invalidateItemIndex();
+        super.bindingChanged(provider, itemName);
+    }
+
+    @Override
+    public void allBindingsChanged(BindingProvider provider) {
+        invalidateItemIndex();
+        super.allBindingsChanged(provider);
+    }
+
+    private RFXComItemIndex getItemIndex() {
+        synchronized (itemIndexLock) {
+            if (itemIndex == null) {
+                itemIndex = new RFXComItemIndex(providers);
+            }
+            return itemIndex;
+        }
+    }
+
+    private void invalidateItemIndex() {
+        synchronized (itemIndexLock) {
+            itemIndex = null;
+        }
+    }
+
     /**
      * @{inheritDoc
      */
@@ -241,30 +286,27 @@ public class RFXComBinding extends AbstractBinding<RFXComBindingProvider> {
                 } else {
                     final String deviceId = obj.generateDeviceId();
 
+                    RFXComItemIndex index = getItemIndex();
+                    if (!index.isBound(deviceId)) {
+                        // most packets come from devices nobody is interested in, e.g. the
+                        // weather stations of the neighbours
+                        logger.trace("Dropping packet of unbound device {}", deviceId);
+                        return;
+                    }
+
                     final List<RFXComValueSelector> supportedValueSelectors = obj.getSupportedValueSelectors();
 
                     if (supportedValueSelectors != null) {
 
-                        for (RFXComBindingProvider provider : providers) {
-                            for (String itemName : provider.getItemNames()) {
-
-                                String id1 = provider.getId(itemName);
-                                boolean inBinding = provider.isInBinding(itemName);
+                        for (ItemBinding item : index.getItems(deviceId)) {
 
-                                if (id1.equals(deviceId) && inBinding) {
-
-                                    RFXComValueSelector valueSelector = provider.getValueSelector(itemName);
-
-                                    if (supportedValueSelectors.contains(valueSelector)) {
-                                        try {
-                                            State value = obj.convertToState(valueSelector);
-                                            eventPublisher.postUpdate(itemName, value);
-                                        } catch (RFXComException e) {
-                                            logger.warn("Data conversion error", e);
-                                        }
-                                    }
+                            if (supportedValueSelectors.contains(item.valueSelector)) {
+                                try {
+                                    State value = obj.convertToState(item.valueSelector);
+                                    eventPublisher.postUpdate(item.itemName, value);
+                                } catch (RFXComException e) {
+                                    logger.warn("Data conversion error", e);
                                 }
-
                             }
                         }
                     }
@@ -141,6 +141,10 @@ public class RFXComConnection implements ManagedService {
         @Override
         public void packetReceived(EventObject event, byte[] data) {
 
+            if (!logger.isDebugEnabled()) {
+                return;
+            }
+
             try {
                 RFXComMessageInterface obj = RFXComMessageFactory.getMessageInterface(data);
                 logger.debug("Data received:\n{}", obj.toString());
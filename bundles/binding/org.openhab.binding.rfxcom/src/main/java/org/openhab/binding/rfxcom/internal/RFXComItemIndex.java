@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openhab.binding.rfxcom.RFXComBindingProvider;
+import org.openhab.binding.rfxcom.RFXComValueSelector;
+
+/**
+ * The items with an in binding by device id. Received packets of devices which
+ * are not bound to any item are dropped right after the device id is decoded.
+ *
+ * The index is not updated, a new one must be created when the bindings
+ * change.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class RFXComItemIndex {
+
+    private final Map<String, List<ItemBinding>> itemsByDeviceId = new HashMap<String, List<ItemBinding>>();
+
+    public RFXComItemIndex(Collection<RFXComBindingProvider> providers) {
+        for (RFXComBindingProvider provider : providers) {
+            for (String itemName : provider.getItemNames()) {
+                String id = provider.getId(itemName);
+                if (id == null || !provider.isInBinding(itemName)) {
+                    continue;
+                }
+
+                List<ItemBinding> items = itemsByDeviceId.get(id);
+                if (items == null) {
+                    items = new ArrayList<ItemBinding>(2);
+                    itemsByDeviceId.put(id, items);
+                }
+                items.add(new ItemBinding(itemName, provider.getValueSelector(itemName)));
+            }
+        }
+    }
+
+    /**
+     * @param deviceId
+     *            the device id of a received packet
+     * @return true if at least one item is bound to the device
+     */
+    public boolean isBound(String deviceId) {
+        return itemsByDeviceId.containsKey(deviceId);
+    }
+
+    /**
+     * @param deviceId
+     *            the device id of a received packet
+     * @return the items bound to the device, an empty list if there are none
+     */
+    public List<ItemBinding> getItems(String deviceId) {
+        List<ItemBinding> items = itemsByDeviceId.get(deviceId);
+        return items != null ? items : Collections.<ItemBinding> emptyList();
+    }
+
+    public static class ItemBinding {
+
+        public final String itemName;
+        public final RFXComValueSelector valueSelector;
+
+        ItemBinding(String itemName, RFXComValueSelector valueSelector) {
+            this.itemName = itemName;
+            this.valueSelector = valueSelector;
+        }
+    }
+}
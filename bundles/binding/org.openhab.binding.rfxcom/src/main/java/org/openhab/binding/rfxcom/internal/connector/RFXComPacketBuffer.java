@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal.connector;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Ring buffer which splits the bytes received from the RFXCOM controller into
+ * packets. The stream is read straight into the ring, the only copy made is
+ * the packet handed to the listeners.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+class RFXComPacketBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RFXComPacketBuffer.class);
+
+    // a packet is at most 128 bytes long (length byte 0x7F plus the length
+    // byte itself), so the ring always has room for the rest of a packet
+    // whose start has been received
+    private static final int RING_SIZE = 256;
+    private static final int RING_MASK = RING_SIZE - 1;
+
+    private final byte[] ring = new byte[RING_SIZE];
+
+    // positions of the next byte to parse and the next byte to read, counting
+    // up, the index in the ring is position & RING_MASK
+    private int head = 0;
+    private int tail = 0;
+
+    private int msgLen = 0;
+    private boolean startFound = false;
+
+    /**
+     * Reads the available bytes of the stream into the buffer, blocks if
+     * there are none.
+     *
+     * @return the number of bytes read or -1 at the end of the stream
+     */
+    int read(InputStream in) throws IOException {
+        int offset = tail & RING_MASK;
+        int free = Math.min(RING_SIZE - (tail - head), RING_SIZE - offset);
+
+        int len = in.read(ring, offset, free);
+        if (len > 0) {
+            tail += len;
+
+            if (logger.isTraceEnabled()) {
+                logger.trace("Received data (len={}): {}", len,
+                        DatatypeConverter.printHexBinary(Arrays.copyOfRange(ring, offset, offset + len)));
+            }
+        }
+        return len;
+    }
+
+    /**
+     * Discards the unparsed bytes which were received before the last read.
+     */
+    void discardBeforeLastRead(int lastReadLen) {
+        int discard = tail - lastReadLen - head;
+        if (discard > 0) {
+            logger.trace("Ignoring data in receive Buffer : {} bytes", discard);
+            head += discard;
+        }
+        startFound = false;
+    }
+
+    /**
+     * Takes the next complete packet from the buffer.
+     *
+     * @return the packet or null if no complete packet has been received
+     */
+    byte[] nextPacket() {
+        while (head != tail) {
+
+            if (!startFound) {
+                byte first = ring[head & RING_MASK];
+                if (first > 0) {
+                    startFound = true;
+                    msgLen = first + 1;
+                } else {
+                    head++;
+                    continue;
+                }
+            }
+
+            if (tail - head < msgLen) {
+                // wait for the rest of the message
+                return null;
+            }
+
+            byte[] msg = new byte[msgLen];
+            int first = head & RING_MASK;
+            int firstPart = Math.min(msgLen, RING_SIZE - first);
+            System.arraycopy(ring, first, msg, 0, firstPart);
+            System.arraycopy(ring, 0, msg, firstPart, msgLen - firstPart);
+            head += msgLen;
+
+            // find new start
+            startFound = false;
+            return msg;
+        }
+        return null;
+    }
+}
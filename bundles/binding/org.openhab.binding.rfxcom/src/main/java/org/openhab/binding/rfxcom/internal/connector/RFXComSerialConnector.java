@@ -12,14 +12,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.io.OutputStream;
-import java.util.Arrays;
-import java.util.Iterator;
 import java.util.List;
 import java.util.TooManyListenersException;
 import java.util.concurrent.CopyOnWriteArrayList;
 
-import javax.xml.bind.DatatypeConverter;
-
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -145,13 +141,9 @@ public class RFXComSerialConnector implements RFXComConnectorInterface {
 
         @Override
         public void run() {
-            final int dataBufferMaxLen = Byte.MAX_VALUE;
-
-            byte[] dataBuffer = new byte[dataBufferMaxLen];
+            RFXComPacketBuffer buffer = new RFXComPacketBuffer();
 
-            int msgLen = 0;
-            int index = 0;
-            boolean start_found = false;
+            final RFXComMessageReceivedEvent event = new RFXComMessageReceivedEvent(this);
 
             logger.debug("Data listener started");
 
@@ -165,66 +157,28 @@ public class RFXComSerialConnector implements RFXComConnectorInterface {
 
             try {
 
-                byte[] tmpData = new byte[20];
                 int len = -1;
 
-                while ((len = in.read(tmpData)) > 0 && !interrupted) {
-
-                    byte[] logData = Arrays.copyOf(tmpData, len);
-                    logger.trace("Received data (len={}): {}", len, DatatypeConverter.printHexBinary(logData));
+                while ((len = buffer.read(in)) > 0 && !interrupted) {
 
                     if (ignoreReceiveBuffer) {
                         // any data already in receive buffer will be ignored
                         ignoreReceiveBuffer = false;
-                        start_found = false;
-                        if (index > 0) {
-                            logger.trace("Ignoring data in receive Buffer : " + index + " bytes");
-                        }
+                        buffer.discardBeforeLastRead(len);
                     }
-                    for (int i = 0; i < len; i++) {
-
-                        if (index > dataBufferMaxLen) {
-                            // too many bytes received, try to find new start
-                            start_found = false;
-                        }
-
-                        if (start_found == false && tmpData[i] > 0) {
-
-                            start_found = true;
-                            index = 0;
-                            dataBuffer[index++] = tmpData[i];
-                            msgLen = tmpData[i] + 1;
-
-                        } else if (start_found) {
 
-                            dataBuffer[index++] = tmpData[i];
+                    byte[] msg;
+                    while ((msg = buffer.nextPacket()) != null) {
 
-                            if (index == msgLen) {
+                        // whole message received, send an event
 
-                                // whole message received, send an event
-
-                                byte[] msg = new byte[msgLen];
-
-                                for (int j = 0; j < msgLen; j++) {
-                                    msg[j] = dataBuffer[j];
-                                }
-
-                                RFXComMessageReceivedEvent event = new RFXComMessageReceivedEvent(this);
-
-                                try {
-                                    Iterator<RFXComEventListener> iterator = _listeners.iterator();
-
-                                    while (iterator.hasNext()) {
-                                        iterator.next().packetReceived(event, msg);
-                                    }
-
-                                } catch (Exception e) {
-                                    logger.error("Event listener invoking error", e);
-                                }
-
-                                // find new start
-                                start_found = false;
+                        try {
+                            for (RFXComEventListener listener : _listeners) {
+                                listener.packetReceived(event, msg);
                             }
+
+                        } catch (Exception e) {
+                            logger.error("Event listener invoking error", e);
                         }
                     }
                 }
@@ -66,6 +66,14 @@ public abstract class RFXComBaseMessage implements RFXComMessageInterface {
 
         UNKNOWN(255);
 
+        private static final PacketType[] BY_BYTE = new PacketType[256];
+
+        static {
+            for (PacketType packetType : values()) {
+                BY_BYTE[packetType.packetType & 0xFF] = packetType;
+            }
+        }
+
         private final int packetType;
 
         PacketType(int packetType) {
@@ -81,13 +89,8 @@ public abstract class RFXComBaseMessage implements RFXComMessageInterface {
         }
 
         public static PacketType fromByte(int input) {
-            for (PacketType packetType : PacketType.values()) {
-                if (packetType.packetType == input) {
-                    return packetType;
-                }
-            }
-
-            return PacketType.UNKNOWN;
+            PacketType packetType = BY_BYTE[input & 0xFF];
+            return packetType != null ? packetType : PacketType.UNKNOWN;
         }
 
     }
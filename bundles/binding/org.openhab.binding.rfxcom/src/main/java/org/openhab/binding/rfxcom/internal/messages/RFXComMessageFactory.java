@@ -12,6 +12,9 @@ import java.lang.reflect.Constructor;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.openhab.binding.rfxcom.internal.RFXComException;
 import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage.PacketType;
@@ -71,6 +74,15 @@ public class RFXComMessageFactory {
                 }
             });
 
+    /**
+     * Constructors from the raw packet of the implemented message classes, so
+     * the classes are looked up once and not for every received packet.
+     */
+    private static final ConcurrentMap<PacketType, Constructor<?>> packetConstructors = new ConcurrentHashMap<PacketType, Constructor<?>>();
+
+    private static final Set<PacketType> notImplemented = Collections
+            .newSetFromMap(new ConcurrentHashMap<PacketType, Boolean>());
+
     /**
      * Command to reset RFXCOM controller.
      * 
@@ -112,19 +124,40 @@ public class RFXComMessageFactory {
         PacketType packetType = getPacketType(packet[1]);
 
         try {
-            String className = messageClasses.get(packetType);
-            Class<?> cl = Class.forName(classUrl + className);
-            Constructor<?> c = cl.getConstructor(byte[].class);
+            Constructor<?> c = getPacketConstructor(packetType);
+            if (c == null) {
+                throw new RFXComException("Message " + packetType + "(" + packet[1] + ") not implemented");
+            }
             return (RFXComMessageInterface) c.newInstance(packet);
 
         } catch (ClassNotFoundException e) {
             throw new RFXComException("Message " + packetType + "(" + packet[1] + ") not implemented", e);
 
+        } catch (RFXComException e) {
+            throw e;
+
         } catch (Exception e) {
             throw new RFXComException(e);
         }
     }
 
+    private static Constructor<?> getPacketConstructor(PacketType packetType)
+            throws ClassNotFoundException, NoSuchMethodException {
+
+        Constructor<?> c = packetConstructors.get(packetType);
+        if (c == null && !notImplemented.contains(packetType)) {
+            String className = messageClasses.get(packetType);
+            try {
+                c = Class.forName(classUrl + className).getConstructor(byte[].class);
+            } catch (ClassNotFoundException e) {
+                notImplemented.add(packetType);
+                throw e;
+            }
+            packetConstructors.put(packetType, c);
+        }
+        return c;
+    }
+
     public static PacketType convertPacketType(String packetType) throws IllegalArgumentException {
 
         for (PacketType p : PacketType.values()) {
@@ -137,12 +170,6 @@ public class RFXComMessageFactory {
     }
 
     private static PacketType getPacketType(byte packetType) {
-        for (PacketType p : PacketType.values()) {
-            if (p.toByte() == packetType) {
-                return p;
-            }
-        }
-
-        return PacketType.UNKNOWN;
+        return PacketType.fromByte(packetType);
     }
 }
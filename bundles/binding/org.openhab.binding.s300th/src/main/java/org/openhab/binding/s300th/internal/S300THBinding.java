@@ -42,7 +42,7 @@ public class S300THBinding extends AbstractBinding<S300THBindingProvider>impleme
 
     public S300THBinding() {
         culHandlerLifecycle = new CULLifecycleManager(CULMode.SLOW_RF,
-                new CULLifecycleListenerListenerRegisterer(this));
+                new CULLifecycleListenerListenerRegisterer(this, "K"));
     }
 
     @Override
@@ -0,0 +1,288 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.snmp.internal;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.snmp4j.CommunityTarget;
+import org.snmp4j.PDU;
+import org.snmp4j.smi.Address;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.OctetString;
+import org.snmp4j.smi.VariableBinding;
+
+/**
+ * The requests to one SNMP agent, i.e. one address polled with the same
+ * community and SNMP version. The OIDs due in a refresh cycle are combined
+ * into as few GET requests as possible, and only a limited number of requests
+ * is sent to the agent at the same time. The others wait in a queue until a
+ * response arrives or the request times out.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+class SnmpAgent {
+
+    /** the number of requests sent to an agent without having received the response */
+    static final int MAX_REQUESTS_IN_FLIGHT = 2;
+
+    /** the number of requests waiting to be sent, further requests are dropped */
+    static final int MAX_QUEUED_REQUESTS = 64;
+
+    /** the size of a request, and the estimated size of its response, fits into a single ethernet frame */
+    static final int MAX_PDU_SIZE = 1400;
+
+    /** the size of a PDU without variable bindings, apart from the community */
+    private static final int PDU_OVERHEAD = 32;
+
+    /** the size we expect the value of a variable binding to grow the response */
+    private static final int VALUE_SIZE_ESTIMATE = 16;
+
+    private final Address address;
+    private final OctetString community;
+    private final int version;
+
+    private final Deque<PDU> queue = new ArrayDeque<PDU>();
+    private int requestsInFlight;
+
+    /** the OIDs the agent rejected in a combined request, these are requested on their own */
+    private final Set<OID> rejectedOids = new HashSet<OID>();
+
+    private long requestCount;
+    private long variableCount;
+    private long responseCount;
+    private long responseTimeTotal;
+    private long timeoutCount;
+    private long errorCount;
+    private long droppedCount;
+
+    SnmpAgent(Address address, OctetString community, int version) {
+        this.address = address;
+        this.community = community;
+        this.version = version;
+    }
+
+    static String getKey(Address address, OctetString community, int version) {
+        return version + ":" + community + "@" + address;
+    }
+
+    Address getAddress() {
+        return address;
+    }
+
+    CommunityTarget createTarget(int timeout, int retries) {
+        CommunityTarget target = new CommunityTarget();
+        target.setCommunity(community);
+        target.setAddress(address);
+        target.setRetries(retries);
+        target.setTimeout(timeout);
+        target.setVersion(version);
+        return target;
+    }
+
+    /**
+     * Queues GET requests for the given OIDs
+     *
+     * @param oids
+     *            the OIDs to request
+     * @param maxVarbinds
+     *            the maximum number of OIDs in one request
+     * @return the number of requests which have been queued
+     */
+    synchronized int enqueueGet(Collection<OID> oids, int maxVarbinds) {
+        int queued = 0;
+        PDU pdu = null;
+        int size = 0;
+        for (OID oid : oids) {
+            VariableBinding variable = new VariableBinding(oid);
+            int variableSize = variable.getBERLength() + VALUE_SIZE_ESTIMATE;
+            if (rejectedOids.contains(oid)) {
+                queued += enqueue(createGet(variable)) ? 1 : 0;
+                continue;
+            }
+            if (pdu != null && (pdu.size() >= maxVarbinds || size + variableSize > MAX_PDU_SIZE)) {
+                queued += enqueue(pdu) ? 1 : 0;
+                pdu = null;
+            }
+            if (pdu == null) {
+                pdu = createGet();
+                size = PDU_OVERHEAD + community.length();
+            }
+            pdu.add(variable);
+            size += variableSize;
+        }
+        if (pdu != null) {
+            queued += enqueue(pdu) ? 1 : 0;
+        }
+        return queued;
+    }
+
+    private boolean enqueue(PDU pdu) {
+        if (queue.size() >= MAX_QUEUED_REQUESTS) {
+            droppedCount++;
+            return false;
+        }
+        queue.add(pdu);
+        return true;
+    }
+
+    /**
+     * Queues the request again after it failed as a whole. Requests with more
+     * than one variable are split, so that the agent can answer at least the
+     * other variables.
+     *
+     * @param request
+     *            the failed request
+     * @param errorStatus
+     *            the error status of the response
+     * @param errorIndex
+     *            the error index of the response
+     * @return <code>true</code> if the request has been queued again
+     */
+    synchronized boolean retry(PDU request, int errorStatus, int errorIndex) {
+        int size = request.size();
+        if (size <= 1) {
+            return false;
+        }
+        if (errorStatus == PDU.tooBig) {
+            // the response doesn't fit into a single PDU, request both halves on their own
+            PDU second = createGet();
+            for (int i = size / 2; i < size; i++) {
+                second.add(new VariableBinding(request.get(i).getOid()));
+            }
+            PDU first = createGet();
+            for (int i = 0; i < size / 2; i++) {
+                first.add(new VariableBinding(request.get(i).getOid()));
+            }
+            queue.addFirst(second);
+            queue.addFirst(first);
+            return true;
+        }
+        if (errorIndex < 1 || errorIndex > size) {
+            return false;
+        }
+        // a SNMPv1 agent fails the whole request if it doesn't know a single OID
+        rejectedOids.add(request.get(errorIndex - 1).getOid());
+        PDU others = createGet();
+        for (int i = 0; i < size; i++) {
+            if (i != errorIndex - 1) {
+                others.add(new VariableBinding(request.get(i).getOid()));
+            }
+        }
+        queue.addFirst(others);
+        return true;
+    }
+
+    private static PDU createGet(VariableBinding... variables) {
+        PDU pdu = new PDU();
+        pdu.setType(PDU.GET);
+        for (VariableBinding variable : variables) {
+            pdu.add(variable);
+        }
+        return pdu;
+    }
+
+    /**
+     * Takes the next request to send from the queue
+     *
+     * @return the next request, or <code>null</code> if there is none or too
+     *         many requests are waiting for a response
+     */
+    synchronized Request nextRequest() {
+        if (requestsInFlight >= MAX_REQUESTS_IN_FLIGHT || queue.isEmpty()) {
+            return null;
+        }
+        PDU pdu = queue.poll();
+        requestsInFlight++;
+        requestCount++;
+        variableCount += pdu.size();
+        return new Request(this, pdu);
+    }
+
+    /**
+     * Records the outcome of a request
+     *
+     * @param request
+     *            the request returned by {@link #nextRequest()}
+     * @param response
+     *            the response, <code>null</code> if the request timed out
+     */
+    synchronized void requestFinished(Request request, PDU response) {
+        requestsInFlight = Math.max(0, requestsInFlight - 1);
+        if (response == null) {
+            timeoutCount++;
+            return;
+        }
+        responseCount++;
+        responseTimeTotal += System.currentTimeMillis() - request.sentAt;
+        if (response.getErrorStatus() != PDU.noError) {
+            errorCount++;
+        }
+    }
+
+    /**
+     * Records a request which couldn't be sent
+     */
+    synchronized void requestFailed() {
+        requestsInFlight = Math.max(0, requestsInFlight - 1);
+        errorCount++;
+    }
+
+    /**
+     * Discards all queued requests
+     */
+    synchronized void clear() {
+        queue.clear();
+        requestsInFlight = 0;
+    }
+
+    /**
+     * Returns a summary of the requests sent to the agent
+     */
+    synchronized String getStatistics() {
+        return String.format(
+                "%s: %d requests for %d variables, %d responses (avg. %dms), %d timeouts, %d errors, %d dropped, %d queued",
+                address, requestCount, variableCount, responseCount,
+                responseCount > 0 ? responseTimeTotal / responseCount : 0, timeoutCount, errorCount, droppedCount,
+                queue.size());
+    }
+
+    @Override
+    public String toString() {
+        return address.toString();
+    }
+
+    /**
+     * A request sent to an agent, passed to snmp4j as the user object to find
+     * the agent when the response arrives.
+     */
+    static class Request {
+
+        private final SnmpAgent agent;
+        private final PDU pdu;
+        private final long sentAt = System.currentTimeMillis();
+
+        Request(SnmpAgent agent, PDU pdu) {
+            this.agent = agent;
+            this.pdu = pdu;
+        }
+
+        SnmpAgent getAgent() {
+            return agent;
+        }
+
+        PDU getPdu() {
+            return pdu;
+        }
+    }
+}
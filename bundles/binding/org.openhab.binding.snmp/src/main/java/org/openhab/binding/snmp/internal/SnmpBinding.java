@@ -11,11 +11,17 @@ package org.openhab.binding.snmp.internal;
 import java.io.IOException;
 import java.util.Dictionary;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang.StringUtils;
 import org.openhab.binding.snmp.SnmpBindingProvider;
+import org.openhab.binding.snmp.internal.SnmpItemIndex.ItemBinding;
 import org.openhab.core.binding.AbstractActiveBinding;
+import org.openhab.core.binding.BindingProvider;
 import org.openhab.core.items.Item;
 import org.openhab.core.library.items.NumberItem;
 import org.openhab.core.library.items.StringItem;
@@ -76,6 +82,20 @@ public class SnmpBinding extends AbstractActiveBinding<SnmpBindingProvider>
     private static int timeout = 1500;
     private static int retries = 0;
 
+    private static final int DEFAULT_MAX_VARBINDS = 20;
+    /** The maximum number of OIDs requested from an agent in a single GET */
+    private static int maxVarbinds = DEFAULT_MAX_VARBINDS;
+
+    /** the interval to log the request statistics of the agents */
+    private static final long STATISTICS_INTERVAL = 300000;
+    private long lastStatistics = System.currentTimeMillis();
+
+    /** the agents polled by the binding, by address, community and version */
+    private final Map<String, SnmpAgent> agents = new ConcurrentHashMap<String, SnmpAgent>();
+
+    /** the items with an in-binding by address and OID, rebuilt when the bindings change */
+    private SnmpItemIndex itemIndex;
+
     /**
      * the interval to find new refresh candidates (defaults to 1000
      * milliseconds)
@@ -92,6 +112,7 @@ public class SnmpBinding extends AbstractActiveBinding<SnmpBindingProvider>
 
     @Override
     public void deactivate() {
+        logStatistics();
         stopListening();
         logger.debug("SNMP binding deactivated");
     }
@@ -170,6 +191,10 @@ public class SnmpBinding extends AbstractActiveBinding<SnmpBindingProvider>
             }
             snmp = null;
         }
+
+        for (SnmpAgent agent : agents.values()) {
+            agent.clear();
+        }
     }
 
     /**
@@ -200,63 +225,118 @@ public class SnmpBinding extends AbstractActiveBinding<SnmpBindingProvider>
     }
 
     /**
-     * Called when a response from a GET is received
+     * Called when a response from a GET or SET is received, or a GET timed out
      *
      * @see org.snmp4j.event.ResponseListener#onResponse(org.snmp4j.event.ResponseEvent )
      */
     @Override
     public void onResponse(ResponseEvent event) {
-        dispatchPdu(event.getPeerAddress(), event.getResponse());
+        // asynchronous requests have to be cancelled, otherwise snmp4j keeps them
+        ((Snmp) event.getSource()).cancel(event.getRequest(), this);
+
+        if (!(event.getUserObject() instanceof SnmpAgent.Request)) {
+            dispatchPdu(event.getPeerAddress(), event.getResponse());
+            return;
+        }
+
+        SnmpAgent.Request request = (SnmpAgent.Request) event.getUserObject();
+        SnmpAgent agent = request.getAgent();
+        PDU response = event.getResponse();
+        agent.requestFinished(request, response);
+
+        if (response == null) {
+            logger.debug("SNMP request to {} timed out {}", agent, request.getPdu());
+        } else if (response.getErrorStatus() != PDU.noError) {
+            PDU pdu = request.getPdu();
+            int errorIndex = response.getErrorIndex();
+            if (agent.retry(pdu, response.getErrorStatus(), errorIndex)) {
+                logger.debug("SNMP agent {} answered '{}' (index {}), requesting the variables again",
+                        agent, response.getErrorStatusText(), errorIndex);
+            } else {
+                logger.warn("SNMP agent {} answered '{}' to {}", agent, response.getErrorStatusText(), pdu);
+            }
+        } else {
+            dispatchPdu(agent.getAddress(), response);
+        }
+
+        sendRequests(agent);
     }
 
     private void dispatchPdu(Address address, PDU pdu) {
         if (pdu != null & address != null) {
             logger.debug("Received PDU from '{}' '{}'", address, pdu);
-            for (SnmpBindingProvider provider : providers) {
-                for (String itemName : provider.getItemNames()) {
-                    // Check the IP address
-                    if (!provider.getAddress(itemName).equals(address)) {
-                        continue;
+            SnmpItemIndex index = getItemIndex();
+            for (VariableBinding variableBinding : pdu.getVariableBindings()) {
+                OID oid = variableBinding.getOid();
+                Variable variable = variableBinding.getVariable();
+                if (variable == null || variableBinding.isException()) {
+                    logger.debug("Agent {} has no value for OID '{}': {}", address, oid, variable);
+                    continue;
+                }
+
+                for (ItemBinding item : index.getItems(address, oid)) {
+                    String itemName = item.itemName;
+                    SnmpBindingProvider provider = item.provider;
+                    Class<? extends Item> itemType = provider.getItemType(itemName);
+
+                    // Do any transformations
+                    String value = variable.toString();
+                    try {
+                        value = provider.doTransformation(itemName, value);
+                    } catch (TransformationException e) {
+                        logger.error("Transformation error with item {}: {}", itemName, e);
                     }
 
-                    // Check the OID
-                    OID oid = provider.getOID(itemName);
-                    Variable variable = pdu.getVariable(oid);
-                    if (variable != null) {
-                        Class<? extends Item> itemType = provider.getItemType(itemName);
-
-                        // Do any transformations
-                        String value = variable.toString();
-                        try {
-                            value = provider.doTransformation(itemName, value);
-                        } catch (TransformationException e) {
-                            logger.error("Transformation error with item {}: {}", itemName, e);
-                        }
-
-                        // Change to a state
-                        State state = null;
-                        if (itemType.isAssignableFrom(StringItem.class)) {
-                            state = StringType.valueOf(value);
-                        } else if (itemType.isAssignableFrom(NumberItem.class)) {
-                            state = DecimalType.valueOf(value);
-                        } else if (itemType.isAssignableFrom(SwitchItem.class)) {
-                            state = OnOffType.valueOf(value);
-                        }
-
-                        if (state != null) {
-                            eventPublisher.postUpdate(itemName, state);
-                        } else {
-                            logger.debug("'{}' couldn't be parsed to a State. Valid State-Types are String and Number",
-                                    variable.toString());
-                        }
+                    // Change to a state
+                    State state = null;
+                    if (itemType.isAssignableFrom(StringItem.class)) {
+                        state = StringType.valueOf(value);
+                    } else if (itemType.isAssignableFrom(NumberItem.class)) {
+                        state = DecimalType.valueOf(value);
+                    } else if (itemType.isAssignableFrom(SwitchItem.class)) {
+                        state = OnOffType.valueOf(value);
+                    }
+
+                    if (state != null) {
+                        eventPublisher.postUpdate(itemName, state);
                     } else {
-                        logger.trace("PDU doesn't contain a variable with OID '{}'", oid.toString());
+                        logger.debug("'{}' couldn't be parsed to a State. Valid State-Types are String and Number",
+                                variable.toString());
                     }
                 }
             }
         }
     }
 
+    private synchronized SnmpItemIndex getItemIndex() {
+        if (itemIndex == null) {
+            itemIndex = new SnmpItemIndex(providers);
+        }
+        return itemIndex;
+    }
+
+    private synchronized void invalidateItemIndex() {
+        itemIndex = null;
+    }
+
+    /**
+     * @{inheritDoc
+     */
+    @Override
+    public void bindingChanged(BindingProvider provider, String itemName) {
+        invalidateItemIndex();
+        super.bindingChanged(provider, itemName);
+    }
+
+    /**
+     * @{inheritDoc
+     */
+    @Override
+    public void allBindingsChanged(BindingProvider provider) {
+        invalidateItemIndex();
+        super.allBindingsChanged(provider);
+    }
+
     /**
      * @{inheritDoc
      */
@@ -313,6 +393,11 @@ public class SnmpBinding extends AbstractActiveBinding<SnmpBindingProvider>
      */
     @Override
     public void execute() {
+        long now = System.currentTimeMillis();
+
+        // the OIDs to request, by agent
+        Map<SnmpAgent, Set<OID>> dueOids = new LinkedHashMap<SnmpAgent, Set<OID>>();
+
         for (SnmpBindingProvider provider : providers) {
             for (String itemName : provider.getInBindingItemNames()) {
                 int refreshInterval = provider.getRefreshInterval(itemName);
@@ -322,7 +407,7 @@ public class SnmpBinding extends AbstractActiveBinding<SnmpBindingProvider>
                     lastUpdateTimeStamp = 0L;
                 }
 
-                long age = System.currentTimeMillis() - lastUpdateTimeStamp;
+                long age = now - lastUpdateTimeStamp;
                 boolean needsUpdate;
                 if (refreshInterval == 0) {
                     needsUpdate = false;
@@ -333,40 +418,91 @@ public class SnmpBinding extends AbstractActiveBinding<SnmpBindingProvider>
                 if (needsUpdate) {
                     logger.debug("Item '{}' is about to be refreshed", itemName);
 
-                    // Set up the target
-                    CommunityTarget target = new CommunityTarget();
-                    target.setCommunity(provider.getCommunity(itemName));
-                    target.setAddress(provider.getAddress(itemName));
-                    target.setRetries(retries);
-                    target.setTimeout(timeout);
-                    target.setVersion(provider.getSnmpVersion(itemName));
+                    SnmpAgent agent = getAgent(provider.getAddress(itemName), provider.getCommunity(itemName),
+                            provider.getSnmpVersion(itemName));
+                    Set<OID> oids = dueOids.get(agent);
+                    if (oids == null) {
+                        oids = new LinkedHashSet<OID>();
+                        dueOids.put(agent, oids);
+                    }
+                    oids.add(provider.getOID(itemName));
 
-                    // Create the PDU
-                    PDU pdu = new PDU();
-                    pdu.add(new VariableBinding(provider.getOID(itemName)));
-                    pdu.setType(PDU.GET);
+                    lastUpdateMap.put(itemName, now);
+                }
+            }
+        }
 
-                    logger.debug("SNMP: Send PDU {} {}", provider.getAddress(itemName), pdu);
+        if (!dueOids.isEmpty() && snmp == null) {
+            logger.error("SNMP: snmp not initialised - aborting request");
+            return;
+        }
 
-                    if (snmp == null) {
-                        logger.error("SNMP: snmp not initialised - aborting request");
-                    } else {
-                        sendPDU(target, pdu);
-                    }
+        // combine the OIDs of an agent into as few requests as possible
+        for (Map.Entry<SnmpAgent, Set<OID>> entry : dueOids.entrySet()) {
+            SnmpAgent agent = entry.getKey();
+            int requests = agent.enqueueGet(entry.getValue(), maxVarbinds);
+            if (requests == 0) {
+                logger.warn("Too many pending requests to SNMP agent {}, skipping refresh of {} OIDs", agent,
+                        entry.getValue().size());
+            }
+            sendRequests(agent);
+        }
 
-                    lastUpdateMap.put(itemName, System.currentTimeMillis());
-                }
+        if (now - lastStatistics >= STATISTICS_INTERVAL) {
+            lastStatistics = now;
+            logStatistics();
+        }
+    }
+
+    private SnmpAgent getAgent(Address address, OctetString community, int version) {
+        String key = SnmpAgent.getKey(address, community, version);
+        SnmpAgent agent = agents.get(key);
+        if (agent == null) {
+            agent = new SnmpAgent(address, community, version);
+            agents.put(key, agent);
+        }
+        return agent;
+    }
+
+    /**
+     * Sends the queued requests of an agent, as far as it may have requests in
+     * flight
+     */
+    private void sendRequests(SnmpAgent agent) {
+        Snmp session = snmp;
+        if (session == null) {
+            agent.clear();
+            return;
+        }
+
+        SnmpAgent.Request request;
+        while ((request = agent.nextRequest()) != null) {
+            logger.debug("SNMP: Send PDU {} {}", agent, request.getPdu());
+            try {
+                session.send(request.getPdu(), agent.createTarget(timeout, retries), request, this);
+            } catch (IOException e) {
+                agent.requestFailed();
+                logger.error("Error sending PDU", e);
             }
         }
+    }
 
+    private void logStatistics() {
+        if (logger.isDebugEnabled()) {
+            for (SnmpAgent agent : agents.values()) {
+                logger.debug("SNMP statistics {}", agent.getStatistics());
+            }
+        }
     }
 
     protected void addBindingProvider(SnmpBindingProvider bindingProvider) {
         super.addBindingProvider(bindingProvider);
+        invalidateItemIndex();
     }
 
     protected void removeBindingProvider(SnmpBindingProvider bindingProvider) {
         super.removeBindingProvider(bindingProvider);
+        invalidateItemIndex();
     }
 
     /**
@@ -423,6 +559,16 @@ public class SnmpBinding extends AbstractActiveBinding<SnmpBindingProvider>
                         SnmpBinding.retries);
             }
 
+            String maxVarbindsString = (String) config.get("maxVarbinds");
+            if (StringUtils.isNotBlank(maxVarbindsString) && maxVarbindsString.matches("\\d+")
+                    && Integer.parseInt(maxVarbindsString) > 0) {
+                SnmpBinding.maxVarbinds = Integer.parseInt(maxVarbindsString);
+            } else {
+                SnmpBinding.maxVarbinds = DEFAULT_MAX_VARBINDS;
+                logger.debug("Didn't find SNMP maxVarbinds or configuration is invalid -> maxVarbinds set to {}",
+                        SnmpBinding.maxVarbinds);
+            }
+
         }
 
         for (SnmpBindingProvider provider : providers) {
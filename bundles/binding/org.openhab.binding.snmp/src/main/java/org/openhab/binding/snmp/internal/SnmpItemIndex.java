@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.snmp.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openhab.binding.snmp.SnmpBindingProvider;
+import org.snmp4j.smi.Address;
+import org.snmp4j.smi.OID;
+
+/**
+ * The items with an in-binding by agent address and OID, to find the items a
+ * received variable belongs to without looking at all items.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+class SnmpItemIndex {
+
+    private final Map<Address, Map<OID, List<ItemBinding>>> items = new HashMap<Address, Map<OID, List<ItemBinding>>>();
+
+    SnmpItemIndex(Collection<SnmpBindingProvider> providers) {
+        for (SnmpBindingProvider provider : providers) {
+            for (String itemName : provider.getInBindingItemNames()) {
+                Address address = provider.getAddress(itemName);
+                OID oid = provider.getOID(itemName);
+                if (address == null || oid == null) {
+                    continue;
+                }
+                Map<OID, List<ItemBinding>> oids = items.get(address);
+                if (oids == null) {
+                    oids = new HashMap<OID, List<ItemBinding>>();
+                    items.put(address, oids);
+                }
+                List<ItemBinding> bindings = oids.get(oid);
+                if (bindings == null) {
+                    bindings = new ArrayList<ItemBinding>(1);
+                    oids.put(oid, bindings);
+                }
+                bindings.add(new ItemBinding(provider, itemName));
+            }
+        }
+    }
+
+    /**
+     * @param address
+     *            the address of the agent
+     * @param oid
+     *            the OID of the variable
+     * @return the items bound to the variable, an empty list if there are none
+     */
+    List<ItemBinding> getItems(Address address, OID oid) {
+        Map<OID, List<ItemBinding>> oids = items.get(address);
+        List<ItemBinding> bindings = oids != null ? oids.get(oid) : null;
+        return bindings != null ? bindings : Collections.<ItemBinding> emptyList();
+    }
+
+    static class ItemBinding {
+
+        final SnmpBindingProvider provider;
+        final String itemName;
+
+        ItemBinding(SnmpBindingProvider provider, String itemName) {
+            this.provider = provider;
+            this.itemName = itemName;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.sonos.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.teleal.cling.model.state.StateVariableValue;
+import org.xml.sax.SAXException;
+
+/**
+ * Tests that the LastChange events of the AVTransport and RenderingControl
+ * services, parsed against the state of a player, return the same changes as
+ * a full parse whose values are filtered afterwards. Also logs the time
+ * needed for an event pair with both.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class SonosXMLParserTest {
+    private static final Logger logger = LoggerFactory.getLogger(SonosXMLParserTest.class);
+
+    private static final int ROUNDS = 5000;
+
+    private static final String METADATA = "&lt;DIDL-Lite xmlns:dc=&quot;http://purl.org/dc/elements/1.1/&quot; "
+            + "xmlns:upnp=&quot;urn:schemas-upnp-org:metadata-1-0/upnp/&quot; "
+            + "xmlns:r=&quot;urn:schemas-rinconnetworks-com:metadata-1-0/&quot; "
+            + "xmlns=&quot;urn:schemas-upnp-org:metadata-1-0/DIDL-Lite/&quot;&gt;"
+            + "&lt;item id=&quot;-1&quot; parentID=&quot;-1&quot; restricted=&quot;true&quot;&gt;"
+            + "&lt;res protocolInfo=&quot;x-file-cifs:*:audio/x-ms-wma:*&quot; duration=&quot;0:03:02&quot;&gt;"
+            + "x-file-cifs://192.168.1.1/Music/Track%20{0}.wma&lt;/res&gt;&lt;r:streamContent&gt;&lt;/r:streamContent&gt;"
+            + "&lt;dc:title&gt;Track {0}&lt;/dc:title&gt;&lt;upnp:class&gt;object.item.audioItem.musicTrack&lt;/upnp:class&gt;"
+            + "&lt;dc:creator&gt;Artist&lt;/dc:creator&gt;&lt;upnp:album&gt;Album&lt;/upnp:album&gt;"
+            + "&lt;r:albumArtist&gt;Artist&lt;/r:albumArtist&gt;&lt;/item&gt;&lt;/DIDL-Lite&gt;";
+
+    private static String avTransportEvent(String transportState, int track) {
+        String metadata = METADATA.replace("{0}", String.valueOf(track));
+        return "<Event xmlns=\"urn:schemas-upnp-org:metadata-1-0/AVT/\" "
+                + "xmlns:r=\"urn:schemas-rinconnetworks-com:metadata-1-0/\"><InstanceID val=\"0\">"
+                + "<TransportState val=\"" + transportState + "\"/><CurrentPlayMode val=\"NORMAL\"/>"
+                + "<NumberOfTracks val=\"29\"/><CurrentTrack val=\"" + track + "\"/><CurrentSection val=\"0\"/>"
+                + "<CurrentTrackURI val=\"x-file-cifs://192.168.1.1/Music/Track%20" + track + ".wma\"/>"
+                + "<CurrentTrackDuration val=\"0:03:02\"/><CurrentTrackMetaData val=\"" + metadata + "\"/>"
+                + "<r:NextTrackURI val=\"x-file-cifs://192.168.1.1/Music/Track%20" + (track + 1) + ".wma\"/>"
+                + "<PlaybackStorageMedium val=\"NETWORK\"/>"
+                + "<AVTransportURI val=\"x-rincon-queue:RINCON_000E5812BC1801400#0\"/>"
+                + "<AVTransportURIMetaData val=\"\"/>"
+                + "<CurrentTransportActions val=\"Play, Stop, Pause, Seek, Next, Previous\"/>"
+                + "<TransportStatus val=\"OK\"/><r:SleepTimerGeneration val=\"0\"/><r:AlarmRunning val=\"0\"/>"
+                + "<TransportPlaySpeed val=\"NOT_IMPLEMENTED\"/></InstanceID></Event>";
+    }
+
+    private static String renderingControlEvent(int volume, boolean mute) {
+        return "<Event xmlns=\"urn:schemas-upnp-org:metadata-1-0/RCS/\"><InstanceID val=\"0\">"
+                + "<Volume channel=\"Master\" val=\"" + volume + "\"/><Volume channel=\"LF\" val=\"100\"/>"
+                + "<Volume channel=\"RF\" val=\"100\"/><Mute channel=\"Master\" val=\"" + (mute ? 1 : 0) + "\"/>"
+                + "<Mute channel=\"LF\" val=\"0\"/><Mute channel=\"RF\" val=\"0\"/><Bass val=\"0\"/>"
+                + "<Treble val=\"0\"/><Loudness channel=\"Master\" val=\"1\"/><OutputFixed val=\"0\"/>"
+                + "<PresetNameList>FactoryDefaults</PresetNameList></InstanceID></Event>";
+    }
+
+    /**
+     * The filter which was applied to the result of a full parse before.
+     */
+    private static boolean isUpdatedValue(Map<String, StateVariableValue> stateMap, String valueName,
+            StateVariableValue newValue) {
+        if (newValue.getValue() == null) {
+            return false;
+        }
+        StateVariableValue oldValue = stateMap.get(valueName);
+        return oldValue == null || oldValue.getValue() == null || !newValue.getValue().equals(oldValue.getValue());
+    }
+
+    private static Map<String, StateVariableValue> filter(Map<String, StateVariableValue> stateMap,
+            Map<String, StateVariableValue> values) {
+        Map<String, StateVariableValue> changes = new HashMap<String, StateVariableValue>();
+        for (Map.Entry<String, StateVariableValue> entry : values.entrySet()) {
+            if (isUpdatedValue(stateMap, entry.getKey(), entry.getValue())) {
+                changes.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return changes;
+    }
+
+    private static Map<String, Object> toValues(Map<String, StateVariableValue> changes) {
+        Map<String, Object> values = new TreeMap<String, Object>();
+        for (Map.Entry<String, StateVariableValue> entry : changes.entrySet()) {
+            values.put(entry.getKey(), entry.getValue().getValue());
+        }
+        return values;
+    }
+
+    @Test
+    public void testAVTransportChanges() throws SAXException {
+        Map<String, StateVariableValue> stateMap = new HashMap<String, StateVariableValue>();
+
+        Map<String, StateVariableValue> changes = SonosXMLParser.getAVTransportFromXML(avTransportEvent("PLAYING", 12),
+                stateMap);
+        assertEquals("PLAYING", changes.get("TransportState").getValue());
+        assertEquals("12", changes.get("CurrentTrack").getValue());
+        assertTrue(changes.get("CurrentTrackMetaData").getValue().toString().contains("<dc:title>Track 12<"));
+        assertTrue("an empty value is not returned", !changes.containsKey("AVTransportURIMetaData"));
+        stateMap.putAll(changes);
+
+        // the same event doesn't change anything
+        assertEquals(0, SonosXMLParser.getAVTransportFromXML(avTransportEvent("PLAYING", 12), stateMap).size());
+
+        changes = SonosXMLParser.getAVTransportFromXML(avTransportEvent("PAUSED_PLAYBACK", 12), stateMap);
+        assertEquals(1, changes.size());
+        assertEquals("PAUSED_PLAYBACK", changes.get("TransportState").getValue());
+    }
+
+    @Test
+    public void testRenderingControlChanges() throws SAXException {
+        Map<String, StateVariableValue> stateMap = new HashMap<String, StateVariableValue>();
+
+        Map<String, StateVariableValue> changes = SonosXMLParser.getRenderingControlFromXML(
+                renderingControlEvent(20, false), stateMap);
+        assertEquals("20", changes.get("VolumeMaster").getValue());
+        assertEquals("100", changes.get("VolumeLF").getValue());
+        assertEquals("0", changes.get("MuteMaster").getValue());
+        assertEquals("1", changes.get("LoudnessMaster").getValue());
+        assertEquals("FactoryDefaults", changes.get("PresetNameList").getValue());
+        stateMap.putAll(changes);
+
+        changes = SonosXMLParser.getRenderingControlFromXML(renderingControlEvent(25, true), stateMap);
+        assertEquals(2, changes.size());
+        assertEquals("25", changes.get("VolumeMaster").getValue());
+        assertEquals("1", changes.get("MuteMaster").getValue());
+    }
+
+    @Test
+    public void testChangesMatchFilteredFullParse() throws SAXException {
+        Map<String, StateVariableValue> stateMap = new HashMap<String, StateVariableValue>();
+        String[] transportStates = { "TRANSITIONING", "PLAYING", "PLAYING", "PAUSED_PLAYBACK", "STOPPED" };
+
+        for (int i = 0; i < 20; i++) {
+            String avTransport = avTransportEvent(transportStates[i % transportStates.length], 1 + i / 3);
+            Map<String, StateVariableValue> expected = filter(stateMap, SonosXMLParser.getAVTransportFromXML(avTransport));
+            Map<String, StateVariableValue> changes = SonosXMLParser.getAVTransportFromXML(avTransport, stateMap);
+            assertEquals(avTransport, toValues(expected), toValues(changes));
+            stateMap.putAll(changes);
+
+            String renderingControl = renderingControlEvent(20 + i / 2, i % 4 == 0);
+            expected = filter(stateMap, SonosXMLParser.getRenderingControlFromXML(renderingControl));
+            changes = SonosXMLParser.getRenderingControlFromXML(renderingControl, stateMap);
+            assertEquals(renderingControl, toValues(expected), toValues(changes));
+            stateMap.putAll(changes);
+        }
+    }
+
+    @Test
+    public void testPerformance() throws SAXException {
+        String[] avTransport = { avTransportEvent("PLAYING", 3), avTransportEvent("PAUSED_PLAYBACK", 3) };
+        String[] renderingControl = { renderingControlEvent(20, false), renderingControlEvent(21, false) };
+
+        long fullTime = 0;
+        long diffTime = 0;
+        for (int round = 0; round < 2; round++) {
+            // the first round warms up the jvm
+            Map<String, StateVariableValue> stateMap = new HashMap<String, StateVariableValue>();
+            long start = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++) {
+                stateMap.putAll(filter(stateMap, SonosXMLParser.getAVTransportFromXML(avTransport[i % 2])));
+                stateMap.putAll(filter(stateMap, SonosXMLParser.getRenderingControlFromXML(renderingControl[i % 2])));
+            }
+            fullTime = System.nanoTime() - start;
+
+            stateMap = new HashMap<String, StateVariableValue>();
+            start = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++) {
+                stateMap.putAll(SonosXMLParser.getAVTransportFromXML(avTransport[i % 2], stateMap));
+                stateMap.putAll(SonosXMLParser.getRenderingControlFromXML(renderingControl[i % 2], stateMap));
+            }
+            diffTime = System.nanoTime() - start;
+        }
+
+        logger.debug("Sonos LastChange event pair: {} us with full parse and filter, {} us with diffing",
+                fullTime / ROUNDS / 1000, diffTime / ROUNDS / 1000);
+    }
+}
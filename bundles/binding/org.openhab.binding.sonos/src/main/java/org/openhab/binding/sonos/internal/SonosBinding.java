@@ -20,6 +20,8 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -28,6 +30,7 @@ import org.apache.commons.lang.StringUtils;
 import org.openhab.binding.sonos.SonosBindingProvider;
 import org.openhab.binding.sonos.SonosCommandType;
 import org.openhab.core.binding.AbstractActiveBinding;
+import org.openhab.core.binding.BindingProvider;
 import org.openhab.core.library.types.DecimalType;
 import org.openhab.core.library.types.OnOffType;
 import org.openhab.core.library.types.StringType;
@@ -105,6 +108,9 @@ public class SonosBinding extends AbstractActiveBinding<SonosBindingProvider>imp
     private Map<String, SonosZonePlayerState> sonosSavedPlayerState = null;
     private List<SonosZoneGroup> sonosSavedGroupState = null;
 
+    /** the state last posted for each item, to post only states which have changed */
+    private ConcurrentMap<String, State> publishedStates = new ConcurrentHashMap<String, State>();
+
     private class PlayerCache extends ArrayList<SonosZonePlayer> {
 
         private static final long serialVersionUID = 7973128806169191738L;
@@ -285,9 +291,34 @@ public class SonosBinding extends AbstractActiveBinding<SonosBindingProvider>imp
         // Nothing to do here. We start the binding when the first item bindigconfig is processed
     }
 
+    @Override
+    public void bindingChanged(BindingProvider provider, String itemName) {
+        publishedStates.remove(itemName);
+        super.bindingChanged(provider, itemName);
+    }
+
+    @Override
+    public void allBindingsChanged(BindingProvider provider) {
+        publishedStates.clear();
+        super.allBindingsChanged(provider);
+    }
+
+    @Override
+    protected void internalReceiveUpdate(String itemName, State newState) {
+        // the updates posted by this binding are received as well, only an update from elsewhere makes the item
+        // differ from the state last posted, then the next state reported by the player has to be posted
+        State publishedState = publishedStates.get(itemName);
+        if (publishedState != null && !publishedState.equals(newState)) {
+            publishedStates.remove(itemName, publishedState);
+        }
+    }
+
     @Override
     protected void internalReceiveCommand(String itemName, Command command) {
 
+        // the command changes the state of the item, the next state reported by the player has to be posted
+        publishedStates.remove(itemName);
+
         SonosBindingProvider provider = findFirstMatchingBindingProvider(itemName);
         String commandAsString = command.toString();
 
@@ -396,17 +427,23 @@ public class SonosBinding extends AbstractActiveBinding<SonosBindingProvider>imp
 
                 StateVariableValue status = values.get(stateVariable);
 
+                // the states of the variable by type, several commands share the same type
+                Map<Class<? extends Type>, Type> newStates = new HashMap<Class<? extends Type>, Type>();
+
                 for (SonosCommandType sonosCommandType : supportedCommands) {
 
                     // create a new State based on the type of Sonos Command and
                     // the status value in the map
-                    Type newState = null;
-                    try {
-                        newState = createStateForType((Class<? extends State>) sonosCommandType.getTypeClass(),
-                                status.getValue().toString());
-                    } catch (BindingConfigParseException e) {
-                        logger.error("Error parsing a value {} to a state variable of type {}", status.toString(),
-                                sonosCommandType.getTypeClass().toString());
+                    Type newState = newStates.get(sonosCommandType.getTypeClass());
+                    if (newState == null) {
+                        try {
+                            newState = createStateForType((Class<? extends State>) sonosCommandType.getTypeClass(),
+                                    status.getValue().toString());
+                            newStates.put(sonosCommandType.getTypeClass(), newState);
+                        } catch (BindingConfigParseException e) {
+                            logger.error("Error parsing a value {} to a state variable of type {}", status.toString(),
+                                    sonosCommandType.getTypeClass().toString());
+                        }
                     }
 
                     for (SonosBindingProvider provider : providers) {
@@ -429,7 +466,9 @@ public class SonosBinding extends AbstractActiveBinding<SonosBindingProvider>imp
 
                             if (provider.getAcceptedDataTypes(anItem).contains(sonosCommandType.getTypeClass())) {
                                 if (newState != null) {
-                                    eventPublisher.postUpdate(anItem, (State) newState);
+                                    if (!newState.equals(publishedStates.put(anItem, (State) newState))) {
+                                        eventPublisher.postUpdate(anItem, (State) newState);
+                                    }
                                 } else {
                                     throw new IllegalClassException("Cannot process update for the command of type "
                                             + sonosCommandType.toString());
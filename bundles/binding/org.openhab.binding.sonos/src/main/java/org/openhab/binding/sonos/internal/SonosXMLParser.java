@@ -32,6 +32,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.joda.time.DateTime;
 import org.joda.time.LocalTime;
@@ -76,6 +78,14 @@ public class SonosXMLParser {
                     + "<desc id=\"cdudn\" nameSpace=\"urn:schemas-rinconnetworks-com:metadata-1-0/\">" + "{4}</desc>"
                     + "</item></DIDL-Lite>");
 
+    /** the SAX reader of each thread, which is reused for every document the thread parses */
+    private static final ThreadLocal<XMLReader> READERS = new ThreadLocal<XMLReader>();
+
+    private static final DefaultHandler NO_HANDLER = new DefaultHandler();
+
+    /** the variables of the LastChange events by name, they are immutable and shared by all players */
+    private static final ConcurrentMap<String, StateVariable> STATE_VARIABLES = new ConcurrentHashMap<String, StateVariable>();
+
     private enum Element {
         TITLE,
         CLASS,
@@ -101,6 +111,27 @@ public class SonosXMLParser {
         desc;
     }
 
+    /**
+     * Parses the xml string with the SAX reader of the current thread. A
+     * handler which parses another document while it is called gets a reader
+     * of its own.
+     */
+    private static void parse(String xml, DefaultHandler handler) throws SAXException, IOException {
+        XMLReader reader = READERS.get();
+        if (reader == null) {
+            reader = XMLReaderFactory.createXMLReader();
+        } else {
+            READERS.remove();
+        }
+        reader.setContentHandler(handler);
+        try {
+            reader.parse(new InputSource(new StringReader(xml)));
+        } finally {
+            reader.setContentHandler(NO_HANDLER);
+            READERS.set(reader);
+        }
+    }
+
     /**
      * @param xml
      * @return a list of alarms from the given xml string.
@@ -108,11 +139,9 @@ public class SonosXMLParser {
      * @throws SAXException
      */
     public static List<SonosAlarm> getAlarmsFromStringResult(String xml) throws SAXException {
-        XMLReader reader = XMLReaderFactory.createXMLReader();
         AlarmHandler handler = new AlarmHandler();
-        reader.setContentHandler(handler);
         try {
-            reader.parse(new InputSource(new StringReader(xml)));
+            parse(xml, handler);
         } catch (IOException e) {
             logger.error("Could not parse Alarms from String {}", xml);
         }
@@ -126,11 +155,9 @@ public class SonosXMLParser {
      * @throws SAXException
      */
     public static List<SonosEntry> getEntriesFromString(String xml) throws SAXException {
-        XMLReader reader = XMLReaderFactory.createXMLReader();
         EntryHandler handler = new EntryHandler();
-        reader.setContentHandler(handler);
         try {
-            reader.parse(new InputSource(new StringReader(xml)));
+            parse(xml, handler);
         } catch (IOException e) {
             logger.error("Could not parse Entries from String {}", xml);
         }
@@ -146,11 +173,9 @@ public class SonosXMLParser {
      * @throws SAXException
      */
     public static SonosResourceMetaData getEmbededMetaDataFromResource(String xml) throws SAXException {
-        XMLReader reader = XMLReaderFactory.createXMLReader();
         EmbededMetaDataHandler handler = new EmbededMetaDataHandler();
-        reader.setContentHandler(handler);
         try {
-            reader.parse(new InputSource(new StringReader(xml)));
+            parse(xml, handler);
         } catch (IOException e) {
             logger.error("Could not parse Entries from String {}", xml);
         }
@@ -165,11 +190,9 @@ public class SonosXMLParser {
      * @throws SAXException
      */
     public static List<SonosZoneGroup> getZoneGroupFromXML(String xml) throws SAXException {
-        XMLReader reader = XMLReaderFactory.createXMLReader();
         ZoneGroupHandler handler = new ZoneGroupHandler();
-        reader.setContentHandler(handler);
         try {
-            reader.parse(new InputSource(new StringReader(xml)));
+            parse(xml, handler);
         } catch (IOException e) {
             // This should never happen - we're not performing I/O!
             logger.error("Could not parse ZoneGroup from String {}", xml);
@@ -180,11 +203,9 @@ public class SonosXMLParser {
     }
 
     public static List<String> getRadioTimeFromXML(String xml) throws SAXException {
-        XMLReader reader = XMLReaderFactory.createXMLReader();
         OpmlHandler handler = new OpmlHandler();
-        reader.setContentHandler(handler);
         try {
-            reader.parse(new InputSource(new StringReader(xml)));
+            parse(xml, handler);
         } catch (IOException e) {
             // This should never happen - we're not performing I/O!
             logger.error("Could not parse RadioTime from String {}", xml);
@@ -195,11 +216,23 @@ public class SonosXMLParser {
     }
 
     public static Map<String, StateVariableValue> getRenderingControlFromXML(String xml) throws SAXException {
-        XMLReader reader = XMLReaderFactory.createXMLReader();
-        RenderingControlEventHandler handler = new RenderingControlEventHandler();
-        reader.setContentHandler(handler);
+        return getRenderingControlFromXML(xml, null);
+    }
+
+    /**
+     * @param xml
+     *            the LastChange event of the RenderingControl service
+     * @param currentValues
+     *            the values known so far, <code>null</code> to return all
+     *            values of the event
+     * @return the values of the event which differ from the current values
+     * @throws SAXException
+     */
+    public static Map<String, StateVariableValue> getRenderingControlFromXML(String xml,
+            Map<String, StateVariableValue> currentValues) throws SAXException {
+        RenderingControlEventHandler handler = new RenderingControlEventHandler(currentValues);
         try {
-            reader.parse(new InputSource(new StringReader(xml)));
+            parse(xml, handler);
         } catch (IOException e) {
             // This should never happen - we're not performing I/O!
             logger.debug("Could not parse Rendering Control event: {}", e);
@@ -208,11 +241,23 @@ public class SonosXMLParser {
     }
 
     public static Map<String, StateVariableValue> getAVTransportFromXML(String xml) throws SAXException {
-        XMLReader reader = XMLReaderFactory.createXMLReader();
-        AVTransportEventHandler handler = new AVTransportEventHandler();
-        reader.setContentHandler(handler);
+        return getAVTransportFromXML(xml, null);
+    }
+
+    /**
+     * @param xml
+     *            the LastChange event of the AVTransport service
+     * @param currentValues
+     *            the values known so far, <code>null</code> to return all
+     *            values of the event
+     * @return the values of the event which differ from the current values
+     * @throws SAXException
+     */
+    public static Map<String, StateVariableValue> getAVTransportFromXML(String xml,
+            Map<String, StateVariableValue> currentValues) throws SAXException {
+        AVTransportEventHandler handler = new AVTransportEventHandler(currentValues);
         try {
-            reader.parse(new InputSource(new StringReader(xml)));
+            parse(xml, handler);
         } catch (IOException e) {
             // This should never happen - we're not performing I/O!
             logger.error("Could not parse AV Transport Event: {}", e);
@@ -221,12 +266,10 @@ public class SonosXMLParser {
     }
 
     public static SonosMetaData getMetaDataFromXML(String xml) throws SAXException {
-        XMLReader reader = XMLReaderFactory.createXMLReader();
         // logger.debug("getTrackFromXML {}",xml);
         MetaDataHandler handler = new MetaDataHandler();
-        reader.setContentHandler(handler);
         try {
-            reader.parse(new InputSource(new StringReader(xml)));
+            parse(xml, handler);
         } catch (IOException e) {
             // This should never happen - we're not performing I/O!
             logger.error("Could not parse AV Transport Event: {}", e);
@@ -621,7 +664,48 @@ public class SonosXMLParser {
 
     }
 
-    static private class AVTransportEventHandler extends DefaultHandler {
+    /**
+     * Collects the values of a LastChange event in a single pass. Values which
+     * are missing or equal to the value known so far are skipped, without
+     * creating a state variable value for them.
+     */
+    static private abstract class LastChangeEventHandler extends DefaultHandler {
+
+        private final Map<String, StateVariableValue> changes = new HashMap<String, StateVariableValue>();
+        private final Map<String, StateVariableValue> currentValues;
+
+        LastChangeEventHandler(Map<String, StateVariableValue> currentValues) {
+            this.currentValues = currentValues;
+        }
+
+        protected void change(String key, String name, String value) {
+            if (value == null) {
+                return;
+            }
+            if (currentValues != null) {
+                StateVariableValue currentValue = currentValues.get(key);
+                if (currentValue != null && value.equals(currentValue.getValue())) {
+                    return;
+                }
+            }
+            StateVariable stateVariable = STATE_VARIABLES.get(name);
+            if (stateVariable == null) {
+                stateVariable = new StateVariable(name, new StateVariableTypeDetails(new StringDatatype()));
+                STATE_VARIABLES.putIfAbsent(name, stateVariable);
+            }
+            StateVariableValue stateVariableValue = new StateVariableValue(stateVariable, value);
+            if (stateVariableValue.getValue() != null) {
+                // an empty value is not stored
+                changes.put(key, stateVariableValue);
+            }
+        }
+
+        public Map<String, StateVariableValue> getChanges() {
+            return changes;
+        }
+    }
+
+    static private class AVTransportEventHandler extends LastChangeEventHandler {
 
         /*
          * <Event xmlns="urn:schemas-upnp-org:metadata-1-0/AVT/" xmlns:r="urn:schemas-rinconnetworks-com:metadata-1-0/">
@@ -670,7 +754,9 @@ public class SonosXMLParser {
          * </Event>
          */
 
-        private final Map<String, StateVariableValue> changes = new HashMap<String, StateVariableValue>();
+        AVTransportEventHandler(Map<String, StateVariableValue> currentValues) {
+            super(currentValues);
+        }
 
         @Override
         public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
@@ -679,22 +765,13 @@ public class SonosXMLParser {
              * the info we need from here.
              */
             try {
-                if (atts.getValue("val") != null) {
-                    StateVariable stateVariable = new StateVariable(localName,
-                            new StateVariableTypeDetails(new StringDatatype()));
-                    StateVariableValue stateVariableValue = new StateVariableValue(stateVariable, atts.getValue("val"));
-                    changes.put(localName, stateVariableValue);
-                }
+                change(localName, localName, atts.getValue("val"));
             } catch (IllegalArgumentException e) {
                 // this means that localName isn't defined in EventType, which is expected for some elements
                 logger.info("{} is not defined in EventType. ", localName);
             }
         }
 
-        public Map<String, StateVariableValue> getChanges() {
-            return changes;
-        }
-
     }
 
     static private class MetaDataHandler extends DefaultHandler {
@@ -782,31 +859,29 @@ public class SonosXMLParser {
 
     }
 
-    static private class RenderingControlEventHandler extends DefaultHandler {
-
-        private final Map<String, StateVariableValue> changes = new HashMap<String, StateVariableValue>();
+    static private class RenderingControlEventHandler extends LastChangeEventHandler {
 
         private boolean getPresetName = false;
         private String presetName;
 
+        RenderingControlEventHandler(Map<String, StateVariableValue> currentValues) {
+            super(currentValues);
+        }
+
         @Override
         public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
-            StateVariable stateVariable = new StateVariable(localName,
-                    new StateVariableTypeDetails(new StringDatatype()));
-            StateVariableValue stateVariableValue = new StateVariableValue(stateVariable, atts.getValue("val"));
-
             if ("Volume".equals(qName)) {
-                changes.put(qName + atts.getValue("channel"), stateVariableValue);
+                change(qName + atts.getValue("channel"), localName, atts.getValue("val"));
             } else if ("Mute".equals(qName)) {
-                changes.put(qName + atts.getValue("channel"), stateVariableValue);
+                change(qName + atts.getValue("channel"), localName, atts.getValue("val"));
             } else if ("Bass".equals(qName)) {
-                changes.put(qName, stateVariableValue);
+                change(qName, localName, atts.getValue("val"));
             } else if ("Treble".equals(qName)) {
-                changes.put(qName, stateVariableValue);
+                change(qName, localName, atts.getValue("val"));
             } else if ("Loudness".equals(qName)) {
-                changes.put(qName + atts.getValue("channel"), stateVariableValue);
+                change(qName + atts.getValue("channel"), localName, atts.getValue("val"));
             } else if ("OutputFixed".equals(qName)) {
-                changes.put(qName, stateVariableValue);
+                change(qName, localName, atts.getValue("val"));
             } else if ("PresetNameList".equals(qName)) {
                 getPresetName = true;
             }
@@ -823,17 +898,10 @@ public class SonosXMLParser {
         public void endElement(String uri, String localName, String qName) throws SAXException {
             if (getPresetName) {
                 getPresetName = false;
-                StateVariable stateVariable = new StateVariable(localName,
-                        new StateVariableTypeDetails(new StringDatatype()));
-                StateVariableValue stateVariableValue = new StateVariableValue(stateVariable, presetName);
-                changes.put(qName, stateVariableValue);
+                change(qName, localName, presetName);
             }
         }
 
-        public Map<String, StateVariableValue> getChanges() {
-            return changes;
-        }
-
     }
 
     public static String compileMetadataString(SonosEntry entry) {
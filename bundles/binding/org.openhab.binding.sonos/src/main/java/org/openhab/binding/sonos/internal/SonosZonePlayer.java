@@ -208,13 +208,10 @@ class SonosZonePlayer {
             for (String stateVariable : values.keySet()) {
                 if (stateVariable.equals("LastChange") && service.getServiceType().getType().equals("AVTransport")) {
                     try {
-                        parsedValues = SonosXMLParser.getAVTransportFromXML(values.get(stateVariable).toString());
-                        for (String someValue : parsedValues.keySet()) {
-                            // logger.debug("Lastchange parsed into {}:{}",someValue,parsedValues.get(someValue));
-                            if (isUpdatedValue(someValue, parsedValues.get(someValue))) {
-                                mapToProcess.put(someValue, parsedValues.get(someValue));
-                            }
-                        }
+                        // only the values which differ from the stored ones are returned
+                        parsedValues = SonosXMLParser.getAVTransportFromXML(values.get(stateVariable).toString(),
+                                stateMap);
+                        mapToProcess.putAll(parsedValues);
                     } catch (SAXException e) {
                         logger.error("Could not parse AVTransport from String {}",
                                 values.get(stateVariable).toString());
@@ -223,12 +220,9 @@ class SonosZonePlayer {
                 } else if (stateVariable.equals("LastChange")
                         && service.getServiceType().getType().equals("RenderingControl")) {
                     try {
-                        parsedValues = SonosXMLParser.getRenderingControlFromXML(values.get(stateVariable).toString());
-                        for (String someValue : parsedValues.keySet()) {
-                            if (isUpdatedValue(someValue, parsedValues.get(someValue))) {
-                                mapToProcess.put(someValue, parsedValues.get(someValue));
-                            }
-                        }
+                        parsedValues = SonosXMLParser.getRenderingControlFromXML(values.get(stateVariable).toString(),
+                                stateMap);
+                        mapToProcess.putAll(parsedValues);
                     } catch (SAXException e) {
                         logger.error("Could not parse RenderingControl from String {}",
                                 values.get(stateVariable).toString());
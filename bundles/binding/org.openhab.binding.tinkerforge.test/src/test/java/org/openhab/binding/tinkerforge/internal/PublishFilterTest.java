@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.tinkerforge.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.math.BigDecimal;
+
+import org.junit.Test;
+import org.openhab.binding.tinkerforge.internal.config.PublishPolicy;
+import org.openhab.binding.tinkerforge.internal.types.DecimalValue;
+
+/**
+ * Tests the hysteresis, the minimum publish interval and the smoothing of the {@link PublishFilter}.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class PublishFilterTest {
+
+    private static DecimalValue value(String value) {
+        return DecimalValue.valueOf(value);
+    }
+
+    private static PublishFilter hysteresis(String hysteresis) {
+        return new PublishFilter(new PublishPolicy(new BigDecimal(hysteresis), 0, 1));
+    }
+
+    @Test
+    public void testHysteresisSuppressesSmallChanges() {
+        PublishFilter filter = hysteresis("0.2");
+        assertEquals(value("20.0"), filter.offer(value("20.0"), 0));
+        assertNull(filter.offer(value("20.1"), 1000));
+        assertNull(filter.offer(value("19.9"), 2000));
+        assertEquals(value("20.2"), filter.offer(value("20.2"), 3000));
+    }
+
+    @Test
+    public void testHysteresisPublishesSignChange() {
+        PublishFilter filter = hysteresis("0.2");
+        assertEquals(value("-0.5"), filter.offer(value("-0.5"), 0));
+        assertEquals(value("0.5"), filter.offer(value("0.5"), 1000));
+        assertEquals(value("-0.5"), filter.offer(value("-0.5"), 2000));
+    }
+
+    @Test
+    public void testHysteresisAroundZero() {
+        PublishFilter filter = hysteresis("0.2");
+        assertEquals(value("0.1"), filter.offer(value("0.1"), 0));
+        assertNull(filter.offer(value("-0.05"), 1000));
+        assertEquals(value("-0.1"), filter.offer(value("-0.1"), 2000));
+    }
+
+    @Test
+    public void testMinPublishIntervalHoldsBackValue() {
+        PublishFilter filter = new PublishFilter(new PublishPolicy(null, 1000, 1));
+        assertEquals(value("1"), filter.offer(value("1"), 0));
+        assertNull(filter.offer(value("2"), 100));
+        assertNull(filter.offer(value("3"), 200));
+        assertEquals(800, filter.getPendingDelay(200));
+
+        assertNull(filter.flush(900));
+        assertEquals(value("3"), filter.flush(1000));
+        assertEquals(-1, filter.getPendingDelay(1000));
+    }
+
+    @Test
+    public void testSmoothing() {
+        PublishFilter filter = new PublishFilter(new PublishPolicy(null, 0, 3));
+        assertEquals(value("3"), filter.offer(value("3"), 0));
+        assertEquals(value("4"), filter.offer(value("5"), 1));
+        assertEquals(value("5"), filter.offer(value("7"), 2));
+        assertEquals(value("7"), filter.offer(value("9"), 3));
+    }
+}
@@ -0,0 +1,250 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.tinkerforge.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+import org.openhab.binding.tinkerforge.TinkerforgeBindingProvider;
+import org.openhab.binding.tinkerforge.internal.TinkerforgeItemIndex.ItemBinding;
+import org.openhab.binding.tinkerforge.internal.model.OHConfig;
+import org.openhab.binding.tinkerforge.internal.model.OHTFDevice;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tests that the {@link TinkerforgeItemIndex} finds the same items for a device as a scan of all
+ * items of all providers, with items bound by uid and subid and by symbolic device name. Also
+ * logs the time needed for the lookup of a device callback with both.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class TinkerforgeItemIndexTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(TinkerforgeItemIndexTest.class);
+
+    private static final String[] SUB_IDS = { null, "temperature", "humidity", "in0", "out0" };
+
+    private static final int CALLBACKS = 200000;
+
+    private final Random random = new Random(4711);
+
+    /** the uid and subid of each configured symbolic device name */
+    private final Map<String, String[]> namedDevices = new HashMap<String, String[]>();
+
+    private final List<String[]> devices = new ArrayList<String[]>();
+
+    private final List<TinkerforgeBindingProvider> providers = new ArrayList<TinkerforgeBindingProvider>();
+
+    /**
+     * Binds the given number of items to random devices, a quarter of them by a symbolic device
+     * name. The items are spread over two providers.
+     */
+    private void bindItems(int deviceCount, int itemCount) {
+        for (int i = 0; i < deviceCount; i++) {
+            devices.add(new String[] { "uid" + i, SUB_IDS[random.nextInt(SUB_IDS.length)] });
+        }
+        List<Map<String, String[]>> itemsByProvider = Arrays.asList(new HashMap<String, String[]>(),
+                new HashMap<String, String[]>());
+        for (int i = 0; i < itemCount; i++) {
+            String[] device = devices.get(random.nextInt(devices.size()));
+            String[] binding;
+            if (i % 4 == 0) {
+                String name = "device" + i;
+                namedDevices.put(name, device);
+                binding = new String[] { null, null, name };
+            } else {
+                binding = new String[] { device[0], device[1], null };
+            }
+            itemsByProvider.get(i % 2).put("item" + i, binding);
+        }
+        for (Map<String, String[]> items : itemsByProvider) {
+            providers.add(provider(items));
+        }
+    }
+
+    private static TinkerforgeBindingProvider provider(final Map<String, String[]> items) {
+        return (TinkerforgeBindingProvider) Proxy.newProxyInstance(TinkerforgeItemIndexTest.class.getClassLoader(),
+                new Class<?>[] { TinkerforgeBindingProvider.class }, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (method.getName().equals("getItemNames")) {
+                            return items.keySet();
+                        } else if (method.getName().equals("getUid")) {
+                            return items.get(args[0])[0];
+                        } else if (method.getName().equals("getSubId")) {
+                            return items.get(args[0])[1];
+                        } else if (method.getName().equals("getName")) {
+                            return items.get(args[0])[2];
+                        } else if (method.getName().equals("hashCode")) {
+                            return System.identityHashCode(proxy);
+                        } else if (method.getName().equals("equals")) {
+                            return proxy == args[0];
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    private OHConfig ohConfig() {
+        return (OHConfig) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { OHConfig.class },
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (method.getName().equals("getConfigByOHId")) {
+                            String[] device = namedDevices.get(args[0]);
+                            return device == null ? null : ohtfDevice(device[0], device[1]);
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    private static OHTFDevice<?, ?> ohtfDevice(final String uid, final String subId) {
+        return (OHTFDevice<?, ?>) Proxy.newProxyInstance(TinkerforgeItemIndexTest.class.getClassLoader(),
+                new Class<?>[] { OHTFDevice.class }, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (method.getName().equals("getUid")) {
+                            return uid;
+                        } else if (method.getName().equals("getSubid")) {
+                            return subId;
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    /**
+     * The scan of all items of all providers, as it was done for every device callback before.
+     */
+    private static Map<String, TinkerforgeBindingProvider> scan(List<TinkerforgeBindingProvider> providers,
+            OHConfig ohConfig, String uid, String subId) {
+        Map<String, TinkerforgeBindingProvider> providerMap = new HashMap<String, TinkerforgeBindingProvider>();
+        for (TinkerforgeBindingProvider provider : providers) {
+            for (String itemName : provider.getItemNames()) {
+                String deviceUid = provider.getUid(itemName);
+                String subDeviceId = provider.getSubId(itemName);
+                String deviceName = provider.getName(itemName);
+                if (deviceName != null) {
+                    OHTFDevice<?, ?> ohtfDevice = ohConfig.getConfigByOHId(deviceName);
+                    deviceUid = ohtfDevice.getUid();
+                    subDeviceId = ohtfDevice.getSubid();
+                }
+                if (uid.equals(deviceUid)) {
+                    if (subId == null && subDeviceId == null) {
+                        providerMap.put(itemName, provider);
+                    } else if (subId != null && subId.equals(subDeviceId)) {
+                        providerMap.put(itemName, provider);
+                    }
+                }
+            }
+        }
+        return providerMap;
+    }
+
+    @Test
+    public void testItemsMatchScan() {
+        bindItems(50, 400);
+        OHConfig ohConfig = ohConfig();
+        TinkerforgeItemIndex index = new TinkerforgeItemIndex(providers, ohConfig);
+
+        int found = 0;
+        for (String[] device : devices) {
+            for (String subId : SUB_IDS) {
+                Map<String, TinkerforgeBindingProvider> expected = scan(providers, ohConfig, device[0], subId);
+                assertEquals(device[0] + ":" + subId, expected,
+                        new HashMap<String, TinkerforgeBindingProvider>(index.getItems(device[0], subId)));
+                found += expected.size();
+            }
+        }
+        assertTrue("Items found " + found, found >= 400);
+        assertTrue(index.getItems("unknown", null).isEmpty());
+    }
+
+    @Test
+    public void testBindingOfItem() {
+        bindItems(20, 100);
+        TinkerforgeItemIndex index = new TinkerforgeItemIndex(providers, ohConfig());
+
+        for (TinkerforgeBindingProvider provider : providers) {
+            for (String itemName : provider.getItemNames()) {
+                ItemBinding binding = index.getBinding(itemName);
+                String deviceName = provider.getName(itemName);
+                String[] device = deviceName != null ? namedDevices.get(deviceName)
+                        : new String[] { provider.getUid(itemName), provider.getSubId(itemName) };
+                assertTrue(itemName, binding.provider == provider);
+                assertEquals(itemName, device[0], binding.uid);
+                assertEquals(itemName, device[1], binding.subId);
+            }
+        }
+        assertNull(index.getBinding("unknown"));
+    }
+
+    @Test
+    public void testUnknownDeviceName() {
+        bindItems(20, 100);
+        String[] device = devices.get(0);
+        int items = new TinkerforgeItemIndex(providers, ohConfig()).getItems(device[0], device[1]).size();
+
+        // the named items are skipped without a configuration, or if their name is not configured
+        TinkerforgeItemIndex index = new TinkerforgeItemIndex(providers, null);
+        assertNull(index.getBinding("item0"));
+        assertEquals(index.getBinding("item1").uid, providers.get(1).getUid("item1"));
+
+        namedDevices.clear();
+        index = new TinkerforgeItemIndex(providers, ohConfig());
+        assertNull(index.getBinding("item0"));
+        assertTrue(index.getItems(device[0], device[1]).size() <= items);
+    }
+
+    @Test
+    public void testPerformance() {
+        bindItems(200, 600);
+        OHConfig ohConfig = ohConfig();
+        TinkerforgeItemIndex index = new TinkerforgeItemIndex(providers, ohConfig);
+
+        long scanTime = 0;
+        long indexTime = 0;
+        int matches = 0;
+        for (int round = 0; round < 2; round++) {
+            // the first round warms up the jvm
+            long start = System.nanoTime();
+            for (int i = 0; i < CALLBACKS / 10; i++) {
+                String[] device = devices.get(i % devices.size());
+                matches += scan(providers, ohConfig, device[0], device[1]).size();
+            }
+            scanTime = (System.nanoTime() - start) * 10;
+
+            start = System.nanoTime();
+            for (int i = 0; i < CALLBACKS; i++) {
+                String[] device = devices.get(i % devices.size());
+                matches += index.getItems(device[0], device[1]).size();
+            }
+            indexTime = System.nanoTime() - start;
+        }
+
+        assertTrue(matches > 0);
+        logger.debug("Tinkerforge callback lookup of {} items on {} devices: scan {} ns, index {} ns", 600, 200,
+                scanTime / CALLBACKS, indexTime / CALLBACKS);
+    }
+}
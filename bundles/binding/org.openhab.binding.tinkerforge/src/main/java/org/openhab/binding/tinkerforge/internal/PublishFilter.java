@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.tinkerforge.internal;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import org.openhab.binding.tinkerforge.internal.config.PublishPolicy;
+import org.openhab.binding.tinkerforge.internal.types.DecimalValue;
+
+/**
+ * Applies a {@link PublishPolicy} to the values of one device. Every value received from the
+ * device is offered to the filter, which smoothes it and decides whether it is published now,
+ * later or not at all.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+class PublishFilter {
+
+    private final PublishPolicy policy;
+
+    /** the last values received, for the moving average */
+    private final BigDecimal[] samples;
+    private int sampleCount;
+    private int nextSample;
+    private BigDecimal sampleSum = BigDecimal.ZERO;
+    private int scale;
+
+    private DecimalValue lastPublished;
+    private long lastPublishTime;
+    private DecimalValue pending;
+    private boolean flushScheduled;
+
+    PublishFilter(PublishPolicy policy) {
+        this.policy = policy;
+        this.samples = new BigDecimal[policy.getSmoothing()];
+    }
+
+    /**
+     * Offers a value received from the device.
+     *
+     * @param value The value received from the device.
+     * @param now The current time in milliseconds.
+     * @return The (smoothed) value to publish now or {@code null} if nothing is published now. If
+     *         the value is held back by the minimum publish interval, {@link #getPendingDelay(long)}
+     *         tells when it is due.
+     */
+    synchronized DecimalValue offer(DecimalValue value, long now) {
+        DecimalValue smoothed = smooth(value.bigDecimalValue());
+        if (lastPublished != null && policy.getHysteresis() != null && smoothed.bigDecimalValue()
+                .subtract(lastPublished.bigDecimalValue()).abs().compareTo(policy.getHysteresis()) < 0) {
+            // back within the band around the published value, an older pending value is obsolete
+            pending = null;
+            return null;
+        }
+        if (lastPublished != null && now - lastPublishTime < policy.getMinPublishInterval()) {
+            pending = smoothed;
+            return null;
+        }
+        return publish(smoothed, now);
+    }
+
+    /**
+     * @param now The current time in milliseconds.
+     * @return The milliseconds until the pending value is due or -1 if there is no pending value.
+     */
+    synchronized long getPendingDelay(long now) {
+        if (pending == null) {
+            return -1;
+        }
+        return Math.max(0, lastPublishTime + policy.getMinPublishInterval() - now);
+    }
+
+    /**
+     * Marks that a flush of the pending value is scheduled.
+     *
+     * @return {@code true} if no flush was scheduled before.
+     */
+    synchronized boolean scheduleFlush() {
+        if (flushScheduled) {
+            return false;
+        }
+        flushScheduled = true;
+        return true;
+    }
+
+    /**
+     * Takes the pending value when the minimum publish interval has elapsed.
+     *
+     * @param now The current time in milliseconds.
+     * @return The value to publish or {@code null} if there is none.
+     */
+    synchronized DecimalValue flush(long now) {
+        flushScheduled = false;
+        if (pending == null || now - lastPublishTime < policy.getMinPublishInterval()) {
+            return null;
+        }
+        return publish(pending, now);
+    }
+
+    /**
+     * Forgets the received values, e.g. if the device is gone or sent a value which is not
+     * numeric, and a scheduled flush.
+     */
+    synchronized void reset() {
+        flushScheduled = false;
+        sampleCount = 0;
+        nextSample = 0;
+        sampleSum = BigDecimal.ZERO;
+        scale = 0;
+        lastPublished = null;
+        pending = null;
+    }
+
+    private DecimalValue publish(DecimalValue value, long now) {
+        lastPublished = value;
+        lastPublishTime = now;
+        pending = null;
+        return value;
+    }
+
+    private DecimalValue smooth(BigDecimal value) {
+        if (samples.length == 1) {
+            return DecimalValue.valueOf(value);
+        }
+        if (sampleCount == samples.length) {
+            sampleSum = sampleSum.subtract(samples[nextSample]);
+        } else {
+            sampleCount++;
+        }
+        samples[nextSample] = value;
+        nextSample = (nextSample + 1) % samples.length;
+        sampleSum = sampleSum.add(value);
+        scale = Math.max(scale, value.scale());
+        return DecimalValue.valueOf(sampleSum.divide(BigDecimal.valueOf(sampleCount), scale, RoundingMode.HALF_UP));
+    }
+}
@@ -9,10 +9,23 @@
 package org.openhab.binding.tinkerforge.internal;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Dictionary;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.lang.StringUtils;
 import org.eclipse.emf.common.notify.Notification;
@@ -22,7 +35,9 @@ import org.eclipse.emf.ecore.util.EContentAdapter;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.openhab.binding.tinkerforge.TinkerforgeBindingProvider;
 import org.openhab.binding.tinkerforge.ecosystem.TinkerforgeContextImpl;
+import org.openhab.binding.tinkerforge.internal.TinkerforgeItemIndex.ItemBinding;
 import org.openhab.binding.tinkerforge.internal.config.ConfigurationHandler;
+import org.openhab.binding.tinkerforge.internal.config.PublishPolicy;
 import org.openhab.binding.tinkerforge.internal.model.ColorActor;
 import org.openhab.binding.tinkerforge.internal.model.DigitalActor;
 import org.openhab.binding.tinkerforge.internal.model.DimmableActor;
@@ -158,6 +173,34 @@ public class TinkerforgeBinding extends AbstractActiveBinding<TinkerforgeBinding
     private boolean isConnected;
     private TinkerforgeContextImpl context = (TinkerforgeContextImpl) TinkerforgeContextImpl.getInstance();
 
+    /**
+     * the devices of the {@link Ecosystem} by uid and subid, maintained by the model listener
+     */
+    private final ConcurrentMap<String, MBaseDevice> devices = new ConcurrentHashMap<String, MBaseDevice>();
+
+    /**
+     * the items by device, created on demand and dropped when the bindings or the configuration
+     * change
+     */
+    private TinkerforgeItemIndex itemIndex;
+    private final Object itemIndexLock = new Object();
+
+    /**
+     * the publish filters of the devices which have a publish policy in openhab.cfg, by uid and
+     * subid
+     */
+    private final ConcurrentMap<String, PublishFilter> publishFilters = new ConcurrentHashMap<String, PublishFilter>();
+
+    /**
+     * publishes values which were held back by the minimum publish interval of a device
+     */
+    private ScheduledExecutorService publishScheduler;
+
+    /**
+     * polls the devices of the brickds in parallel, one task per brickd
+     */
+    private ExecutorService pollExecutor;
+
     public TinkerforgeBinding() {
         modelFactory = ModelFactory.eINSTANCE;
     }
@@ -180,6 +223,13 @@ public class TinkerforgeBinding extends AbstractActiveBinding<TinkerforgeBinding
             tinkerforgeEcosystem.disconnect();
             tinkerforgeEcosystem = null;
             context.setEcosystem(null);
+            devices.clear();
+            publishScheduler.shutdownNow();
+            // the flushes of the pending values were dropped with the scheduler
+            for (PublishFilter filter : publishFilters.values()) {
+                filter.reset();
+            }
+            pollExecutor.shutdownNow();
             isConnected = false;
         }
     }
@@ -190,11 +240,27 @@ public class TinkerforgeBinding extends AbstractActiveBinding<TinkerforgeBinding
     private void connectModel() {
         tinkerforgeEcosystem = modelFactory.createEcosystem();
         context.setEcosystem(tinkerforgeEcosystem);
+        devices.clear();
+        publishScheduler = Executors.newSingleThreadScheduledExecutor(createThreadFactory("publish"));
+        pollExecutor = Executors.newCachedThreadPool(createThreadFactory("poll"));
         listen2Model(tinkerforgeEcosystem);
         logger.debug("{} connectModel called", LoggerConstants.TFINIT);
         isConnected = true;
     }
 
+    private ThreadFactory createThreadFactory(final String name) {
+        return new ThreadFactory() {
+            private final AtomicInteger threadNumber = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "Tinkerforge " + name + "-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
     /**
      * Searches for a brickd with the given {@code host} and {@code port} in the Ecosystem. If there
      * is no brickd found a new Brickd object is created, added to the Ecosystem an the IpConnection
@@ -341,6 +407,7 @@ public class TinkerforgeBinding extends AbstractActiveBinding<TinkerforgeBinding
             if (featureID == ModelPackage.MBRICKD__MDEVICES) {
                 if (notification.getEventType() == Notification.ADD) {
                     MDevice<?> mDevice = (MDevice<?>) notification.getNewValue();
+                    indexDevice(mDevice);
                     addMDevice(mDevice, mDevice.getUid(), null);
                 } else if (notification.getEventType() == Notification.ADD_MANY) {
                     logger.debug("{} Notifier: add many called: ", LoggerConstants.TFINIT);
@@ -349,9 +416,10 @@ public class TinkerforgeBinding extends AbstractActiveBinding<TinkerforgeBinding
                     if (notification.getOldValue() instanceof MBaseDevice) {
                         logger.debug("{} Notifier: remove called for MBaseDevice", LoggerConstants.TFINIT);
                         MBaseDevice mDevice = (MBaseDevice) notification.getOldValue();
+                        unindexDevice(mDevice);
                         String uid = mDevice.getUid();
                         String subId = null;
-                        if (searchConfiguredItemName(uid, subId) != null) {
+                        if (!getItemIndex().getItems(uid, subId).isEmpty()) {
                             logger.debug("{} Notifier: removing device: uid {} subid {}", LoggerConstants.TFINIT, uid,
                                     subId);
                             postUpdate(uid, subId, UnDefValue.UNDEF);
@@ -369,6 +437,7 @@ public class TinkerforgeBinding extends AbstractActiveBinding<TinkerforgeBinding
                 logger.debug("{} MSubdevices Notifier called", LoggerConstants.TFINITSUB);
                 if (notification.getEventType() == Notification.ADD) {
                     MSubDevice<?> mSubDevice = (MSubDevice<?>) notification.getNewValue();
+                    indexDevice(mSubDevice);
                     addMDevice(mSubDevice, mSubDevice.getUid(), mSubDevice.getSubId());
 
                 }
@@ -376,9 +445,10 @@ public class TinkerforgeBinding extends AbstractActiveBinding<TinkerforgeBinding
                     logger.debug("{} remove notification from subdeviceholder", LoggerConstants.TFINIT);
                     logger.debug("{} Notifier: remove called for MSubDevice", LoggerConstants.TFINIT);
                     MSubDevice<?> mDevice = (MSubDevice<?>) notification.getOldValue();
+                    unindexDevice(mDevice);
                     String uid = mDevice.getUid();
                     String subId = mDevice.getSubId();
-                    if (searchConfiguredItemName(uid, subId) != null) {
+                    if (!getItemIndex().getItems(uid, subId).isEmpty()) {
                         logger.debug("{} Notifier: removing device: uid {} subid {}", LoggerConstants.TFINIT, uid,
                                 subId);
                         postUpdate(uid, subId, UnDefValue.UNDEF);
@@ -497,68 +567,80 @@ public class TinkerforgeBinding extends AbstractActiveBinding<TinkerforgeBinding
     }
 
     /**
-     * Searches the name of an item which is bound to the device with the given uid and subid.
+     * Adds a device and its sub devices to the device index.
      *
-     * @param uid The device uid as {@code String}.
-     * @param subId The device subid as {@code String} or {@code null} if it is not a sub device.
-     * @return The name of the item which is bound to the device as {@code String} or {@code null} if
-     *         no item was found.
+     * @param device The {@link MBaseDevice} which was added to the {@link Ecosystem}.
      */
-    private String searchConfiguredItemName(String uid, String subId) {
-        for (TinkerforgeBindingProvider provider : providers) {
-            for (String itemName : provider.getItemNames()) {
-                String deviceUid = provider.getUid(itemName);
-                String subDeviceId = provider.getSubId(itemName);
-                String deviceName = provider.getName(itemName);
-                if (deviceName != null) {
-                    logger.trace("found item for command: name {}", deviceName);
-                    OHTFDevice<?, ?> ohtfDevice = ohConfig.getConfigByOHId(deviceName);
-                    deviceUid = ohtfDevice.getUid();
-                    deviceName = ohtfDevice.getSubid();
+    private void indexDevice(MBaseDevice device) {
+        devices.put(deviceKey(device), device);
+        if (device instanceof MSubDeviceHolder<?>) {
+            for (Object subDevice : ((MSubDeviceHolder<?>) device).getMsubdevices()) {
+                if (subDevice instanceof MSubDevice<?>) {
+                    devices.put(deviceKey((MSubDevice<?>) subDevice), (MSubDevice<?>) subDevice);
                 }
-                if (uid.equals(deviceUid)) {
-                    if (subId == null && subDeviceId == null) {
-                        return itemName;
-                    } else if (subId != null && subId.equals(subDeviceId)) {
-                        return itemName;
-                    }
+            }
+        }
+    }
+
+    /**
+     * Removes a device and its sub devices from the device index.
+     *
+     * @param device The {@link MBaseDevice} which was removed from the {@link Ecosystem}.
+     */
+    private void unindexDevice(MBaseDevice device) {
+        devices.remove(deviceKey(device), device);
+        if (device instanceof MSubDeviceHolder<?>) {
+            for (Object subDevice : ((MSubDeviceHolder<?>) device).getMsubdevices()) {
+                if (subDevice instanceof MSubDevice<?>) {
+                    devices.remove(deviceKey((MSubDevice<?>) subDevice), subDevice);
                 }
             }
         }
-        return null;
+    }
+
+    private String deviceKey(MBaseDevice device) {
+        String subId = device instanceof MSubDevice<?> ? ((MSubDevice<?>) device).getSubId() : null;
+        return TinkerforgeItemIndex.deviceKey(device.getUid(), subId);
     }
 
     /**
-     * Searches the provider which is bound to the device with the given uid and subid.
+     * Gets the device with the given uid and subid from the device index. Devices which are not
+     * indexed yet are searched in the {@link Ecosystem}.
      *
      * @param uid The device uid as {@code String}.
      * @param subId The device subid as {@code String} or {@code null} if it is not a sub device.
-     * @return The {@code TinkerforgeBindingProvider} which is bound to the device as {@code Item} or
-     *         {@code null} if no item was found.
+     * @return The {@link MBaseDevice} or {@code null} if no device was found.
      */
-    private Map<String, TinkerforgeBindingProvider> getBindingProviders(String uid, String subId) {
-        Map<String, TinkerforgeBindingProvider> providerMap = new HashMap<String, TinkerforgeBindingProvider>();
-        for (TinkerforgeBindingProvider provider : providers) {
-            for (String itemName : provider.getItemNames()) {
-                String deviceUid = provider.getUid(itemName);
-                String subDeviceId = provider.getSubId(itemName);
-                String deviceName = provider.getName(itemName);
-                if (deviceName != null) {
-                    OHTFDevice<?, ?> ohtfDevice = ohConfig.getConfigByOHId(deviceName);
-                    deviceUid = ohtfDevice.getUid();
-                    subDeviceId = ohtfDevice.getSubid();
-                    logger.trace("found deviceName {}, uid={}, subId {}", deviceName, deviceUid, subDeviceId);
-                }
-                if (uid.equals(deviceUid)) {
-                    if (subId == null && subDeviceId == null) {
-                        providerMap.put(itemName, provider);
-                    } else if (subId != null && subId.equals(subDeviceId)) {
-                        providerMap.put(itemName, provider);
-                    }
-                }
+    private MBaseDevice getDevice(String uid, String subId) {
+        MBaseDevice mDevice = devices.get(TinkerforgeItemIndex.deviceKey(uid, subId));
+        if (mDevice == null && tinkerforgeEcosystem != null) {
+            mDevice = tinkerforgeEcosystem.getDevice(uid, subId);
+            if (mDevice != null) {
+                devices.putIfAbsent(TinkerforgeItemIndex.deviceKey(uid, subId), mDevice);
             }
         }
-        return providerMap;
+        return mDevice;
+    }
+
+    /**
+     * Gets the index of the items by device, the index is created if the bindings or the
+     * configuration have changed.
+     *
+     * @return The {@link TinkerforgeItemIndex}.
+     */
+    private TinkerforgeItemIndex getItemIndex() {
+        synchronized (itemIndexLock) {
+            if (itemIndex == null) {
+                itemIndex = new TinkerforgeItemIndex(providers, ohConfig);
+            }
+            return itemIndex;
+        }
+    }
+
+    private void invalidateItemIndex() {
+        synchronized (itemIndexLock) {
+            itemIndex = null;
+        }
     }
 
     /**
@@ -580,18 +662,100 @@ public class TinkerforgeBinding extends AbstractActiveBinding<TinkerforgeBinding
     /**
      * The working method which is called by the refresh thread.
      *
-     * Triggers an update of state values for all devices. The update is propagated through the
-     * {@link Ecosystem} listeners. All OutActors are ignored, they may only send updates if the
-     * hardware device has updates (think of a pressed switch).
+     * Triggers an update of state values for all devices which don't support callback listeners.
+     * The update is propagated through the {@link Ecosystem} listeners. All OutActors are ignored,
+     * they may only send updates if the hardware device has updates (think of a pressed switch).
      *
+     * Each device is fetched once, even if several items are bound to it. The devices of different
+     * brickds are fetched in parallel, the devices of one brickd one after the other as they share
+     * its IpConnection.
      */
     @Override
     protected void execute() {
+        if (tinkerforgeEcosystem == null) {
+            logger.warn("tinkerforge ecosystem not yet ready");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        TinkerforgeItemIndex index = getItemIndex();
+        Map<MBrickd, Map<MBaseDevice, Item>> pollDevices = new LinkedHashMap<MBrickd, Map<MBaseDevice, Item>>();
+        int deviceCount = 0;
         for (TinkerforgeBindingProvider provider : providers) {
             for (String itemName : provider.getItemNames()) {
-                updateItemValues(provider, itemName, true);
+                ItemBinding binding = index.getBinding(itemName);
+                if (binding == null) {
+                    continue;
+                }
+                MBaseDevice mDevice = getDevice(binding.uid, binding.subId);
+                if (mDevice == null || !mDevice.getEnabledA().get() || !mDevice.isPoll()) {
+                    continue;
+                }
+                MBrickd brickd = getBrickd(mDevice);
+                Map<MBaseDevice, Item> brickdDevices = pollDevices.get(brickd);
+                if (brickdDevices == null) {
+                    brickdDevices = new LinkedHashMap<MBaseDevice, Item>();
+                    pollDevices.put(brickd, brickdDevices);
+                }
+                Item item = provider.getItem(itemName);
+                if (!brickdDevices.containsKey(mDevice)) {
+                    brickdDevices.put(mDevice, item);
+                    deviceCount++;
+                } else if (item instanceof SwitchItem) {
+                    brickdDevices.put(mDevice, item);
+                }
+            }
+        }
+
+        List<Future<?>> futures = new ArrayList<Future<?>>(pollDevices.size());
+        try {
+            for (final Map<MBaseDevice, Item> brickdDevices : pollDevices.values()) {
+                futures.add(pollExecutor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (Entry<MBaseDevice, Item> entry : brickdDevices.entrySet()) {
+                            fetchValue(entry.getKey(), entry.getValue());
+                        }
+                    }
+                }));
+            }
+        } catch (RejectedExecutionException e) {
+            // the binding disconnected in between, the devices are gone with the ecosystem
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+            logger.debug("{} skipping poll, poll executor is shut down", LoggerConstants.ITEMUPDATE);
+            return;
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.debug("{} interrupted while polling devices", LoggerConstants.ITEMUPDATE);
+                return;
+            } catch (ExecutionException e) {
+                logger.error("{} polling devices failed", LoggerConstants.ITEMUPDATE, e.getCause());
             }
         }
+        logger.debug("{} polled {} devices of {} brickds in {} ms", LoggerConstants.ITEMUPDATE, deviceCount,
+                pollDevices.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Gets the brickd a device is connected to.
+     *
+     * @param mDevice The device or sub device as {@link MBaseDevice}.
+     * @return The {@link MBrickd} or {@code null} if the device is not connected.
+     */
+    private MBrickd getBrickd(MBaseDevice mDevice) {
+        if (mDevice instanceof MDevice<?>) {
+            return ((MDevice<?>) mDevice).getBrickd();
+        }
+        EObject container = mDevice.eContainer();
+        if (container instanceof MDevice<?>) {
+            return ((MDevice<?>) container).getBrickd();
+        }
+        return null;
     }
 
     /**
@@ -608,43 +772,117 @@ public class TinkerforgeBinding extends AbstractActiveBinding<TinkerforgeBinding
             logger.warn("tinkerforge ecosystem not yet ready");
             return;
         }
-        String deviceUid = provider.getUid(itemName);
+        ItemBinding binding = getItemIndex().getBinding(itemName);
+        if (binding == null) {
+            logger.debug("{} found no device for item {}", LoggerConstants.ITEMUPDATE, itemName);
+            return;
+        }
+        String deviceUid = binding.uid;
+        String deviceSubId = binding.subId;
         Item item = provider.getItem(itemName);
-        String deviceSubId = provider.getSubId(itemName);
-        String deviceName = provider.getName(itemName);
-        if (deviceName != null) {
-            String[] ids = getDeviceIdsForDeviceName(deviceName);
-            deviceUid = ids[0];
-            deviceSubId = ids[1];
-        }
-        MBaseDevice mDevice = tinkerforgeEcosystem.getDevice(deviceUid, deviceSubId);
+        MBaseDevice mDevice = getDevice(deviceUid, deviceSubId);
         if (mDevice != null && mDevice.getEnabledA().get()) {
             if (only_poll_enabled && !mDevice.isPoll()) {
                 // do nothing
                 logger.debug("{} omitting fetch value for no poll{}:{}", LoggerConstants.ITEMUPDATE, deviceUid,
                         deviceSubId);
             } else {
-                if (mDevice instanceof MSensor) {
-                    ((MSensor<?>) mDevice).fetchSensorValue();
-                } else if (mDevice instanceof SwitchSensor && item instanceof SwitchItem) {
-                    ((SwitchSensor) mDevice).fetchSwitchState();
-                } else if (mDevice instanceof DigitalActor) {
-                    ((DigitalActor) mDevice).fetchDigitalValue();
-                }
+                fetchValue(mDevice, item);
             }
         }
     }
 
+    /**
+     * Fetches the current value of a device, the value is propagated through the {@link Ecosystem}
+     * listeners.
+     *
+     * @param mDevice The device as {@link MBaseDevice}.
+     * @param item The {@code Item} which is bound to the device.
+     */
+    private void fetchValue(MBaseDevice mDevice, Item item) {
+        if (mDevice instanceof MSensor) {
+            ((MSensor<?>) mDevice).fetchSensorValue();
+        } else if (mDevice instanceof SwitchSensor && item instanceof SwitchItem) {
+            ((SwitchSensor) mDevice).fetchSwitchState();
+        } else if (mDevice instanceof DigitalActor) {
+            ((DigitalActor) mDevice).fetchDigitalValue();
+        }
+    }
+
     @Override
     public void bindingChanged(BindingProvider provider, String itemName) {
         logger.debug("{} bindingChanged item {}", LoggerConstants.ITEMUPDATE, itemName);
+        invalidateItemIndex();
         updateItemValues((TinkerforgeBindingProvider) provider, itemName, false);
     }
 
+    @Override
+    public void allBindingsChanged(BindingProvider provider) {
+        invalidateItemIndex();
+        super.allBindingsChanged(provider);
+    }
+
+    /**
+     * Posts a device value to the items bound to the device. Numeric values of devices with a
+     * {@link PublishPolicy} are passed through the {@link PublishFilter} of the device first.
+     *
+     * @param uid The device uid as {@code String}.
+     * @param subId The device subid as {@code String} or {@code null} if it is not a sub device.
+     * @param sensorValue The new value of the device.
+     */
     private void postUpdate(String uid, String subId, TinkerforgeValue sensorValue) {
+        PublishFilter filter = publishFilters.get(TinkerforgeItemIndex.deviceKey(uid, subId));
+        if (filter != null) {
+            if (sensorValue instanceof DecimalValue) {
+                long now = System.currentTimeMillis();
+                DecimalValue value = filter.offer((DecimalValue) sensorValue, now);
+                if (value == null) {
+                    logger.trace("{} holding back value {} for uid {} subid {}", LoggerConstants.TFMODELUPDATE,
+                            sensorValue, uid, subId);
+                    schedulePendingValue(filter, uid, subId, now);
+                    return;
+                }
+                sensorValue = value;
+            } else {
+                filter.reset();
+            }
+        }
+        publishValue(uid, subId, sensorValue);
+    }
+
+    /**
+     * Schedules the publishing of a value which was held back by the minimum publish interval.
+     */
+    private void schedulePendingValue(final PublishFilter filter, final String uid, final String subId, long now) {
+        long delay = filter.getPendingDelay(now);
+        if (delay < 0 || !filter.scheduleFlush()) {
+            return;
+        }
+        try {
+            publishScheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    long now = System.currentTimeMillis();
+                    DecimalValue value = filter.flush(now);
+                    if (value != null) {
+                        publishValue(uid, subId, value);
+                    } else {
+                        schedulePendingValue(filter, uid, subId, now);
+                    }
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // the binding disconnected in between, the pending value is dropped
+            filter.reset();
+            logger.debug("{} dropping pending value for uid {} subid {}, publisher is shut down",
+                    LoggerConstants.TFMODELUPDATE, uid, subId);
+        }
+    }
+
+    private void publishValue(String uid, String subId, TinkerforgeValue sensorValue) {
         // TODO undef handling
         logger.trace("postUpdate called for uid {} subid {}", uid, subId);
-        Map<String, TinkerforgeBindingProvider> providerMap = getBindingProviders(uid, subId);
+        Map<String, TinkerforgeBindingProvider> providerMap = getItemIndex().getItems(uid, subId);
         if (providerMap.size() == 0) {
             logger.debug("{} found no item for uid {}, subid {}", LoggerConstants.TFMODELUPDATE, uid, subId);
         }
@@ -722,20 +960,6 @@ public class TinkerforgeBinding extends AbstractActiveBinding<TinkerforgeBinding
         }
     }
 
-    /**
-     * Gets the uid and the subid of a device from the openhab.cfg, using the device name as input.
-     *
-     * @param deviceName The symbolic device name as {@code String}.
-     * @return A String array with the device uid as first element as {@code String} and the device
-     *         subid as second element as {@code String} or {@code null}.
-     */
-    private String[] getDeviceIdsForDeviceName(String deviceName) {
-        logger.trace("searching ids for name {}", deviceName);
-        OHTFDevice<?, ?> ohtfDevice = ohConfig.getConfigByOHId(deviceName);
-        String[] ids = { ohtfDevice.getUid(), ohtfDevice.getSubid() };
-        return ids;
-    }
-
     /**
      * {@inheritDoc}
      *
@@ -757,13 +981,17 @@ public class TinkerforgeBinding extends AbstractActiveBinding<TinkerforgeBinding
                     String deviceSubId = provider.getSubId(itemName);
                     String deviceName = provider.getName(itemName);
                     if (deviceName != null) {
-                        String[] ids = getDeviceIdsForDeviceName(deviceName);
-                        deviceUid = ids[0];
-                        deviceSubId = ids[1];
+                        ItemBinding binding = getItemIndex().getBinding(itemName);
+                        if (binding == null) {
+                            logger.debug("{} found no device for item {}", LoggerConstants.COMMAND, itemName);
+                            continue;
+                        }
+                        deviceUid = binding.uid;
+                        deviceSubId = binding.subId;
                     }
                     logger.trace("{} found item for command: uid: {}, subid: {}", LoggerConstants.COMMAND, deviceUid,
                             deviceSubId);
-                    MBaseDevice mDevice = tinkerforgeEcosystem.getDevice(deviceUid, deviceSubId);
+                    MBaseDevice mDevice = getDevice(deviceUid, deviceSubId);
                     if (mDevice != null && mDevice.getEnabledA().get()) {
                         if (command instanceof OnOffType) {
                             logger.trace("{} found onoff command", LoggerConstants.COMMAND);
@@ -860,10 +1088,12 @@ public class TinkerforgeBinding extends AbstractActiveBinding<TinkerforgeBinding
 
     protected void addBindingProvider(TinkerforgeBindingProvider bindingProvider) {
         super.addBindingProvider(bindingProvider);
+        invalidateItemIndex();
     }
 
     protected void removeBindingProvider(TinkerforgeBindingProvider bindingProvider) {
         super.removeBindingProvider(bindingProvider);
+        invalidateItemIndex();
     }
 
     /**
@@ -889,6 +1119,8 @@ public class TinkerforgeBinding extends AbstractActiveBinding<TinkerforgeBinding
 
             ConfigurationHandler configurationHandler = new ConfigurationHandler();
             ohConfig = configurationHandler.createConfig(config);
+            invalidateItemIndex();
+            createPublishFilters(configurationHandler.getPublishPolicies());
 
             // read further config parameters here ...
             logger.debug("{} updated called", LoggerConstants.CONFIG);
@@ -899,6 +1131,22 @@ public class TinkerforgeBinding extends AbstractActiveBinding<TinkerforgeBinding
         }
     }
 
+    /**
+     * Creates the publish filters for the devices with a publish policy.
+     *
+     * @param publishPolicies The {@link PublishPolicy} by symbolic device name.
+     */
+    private void createPublishFilters(Map<String, PublishPolicy> publishPolicies) {
+        publishFilters.clear();
+        for (OHTFDevice<?, ?> ohtfDevice : ohConfig.getOhTfDevices()) {
+            PublishPolicy publishPolicy = publishPolicies.get(ohtfDevice.getOhid());
+            if (publishPolicy != null) {
+                publishFilters.put(TinkerforgeItemIndex.deviceKey(ohtfDevice.getUid(), ohtfDevice.getSubid()),
+                        new PublishFilter(publishPolicy));
+            }
+        }
+    }
+
     /**
      * Parses the the hosts line from openhab.cfg into hosts and port parts and connects the
      * appropriate brickds by calling {@link #connectBrickd(String, int) connectBrickd}.
@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.tinkerforge.internal;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.openhab.binding.tinkerforge.TinkerforgeBindingProvider;
+import org.openhab.binding.tinkerforge.internal.model.OHConfig;
+import org.openhab.binding.tinkerforge.internal.model.OHTFDevice;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The items bound to the Tinkerforge devices by device uid and subid. Items which are bound by a
+ * symbolic device name are resolved once through the {@link OHConfig}, so a changed device value
+ * can be posted without looking at every item of every provider.
+ *
+ * The index is not updated, a new one must be created when the bindings or the configuration
+ * change.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+class TinkerforgeItemIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(TinkerforgeItemIndex.class);
+
+    private final Map<String, Map<String, TinkerforgeBindingProvider>> itemsByDevice = new HashMap<String, Map<String, TinkerforgeBindingProvider>>();
+
+    private final Map<String, ItemBinding> bindingsByItem = new HashMap<String, ItemBinding>();
+
+    /**
+     * @param providers The binding providers.
+     * @param ohConfig The device configuration from openhab.cfg or {@code null} if there is none
+     *            yet.
+     */
+    TinkerforgeItemIndex(Collection<TinkerforgeBindingProvider> providers, OHConfig ohConfig) {
+        for (TinkerforgeBindingProvider provider : providers) {
+            for (String itemName : provider.getItemNames()) {
+                String uid = provider.getUid(itemName);
+                String subId = provider.getSubId(itemName);
+                String deviceName = provider.getName(itemName);
+                if (deviceName != null) {
+                    OHTFDevice<?, ?> ohtfDevice = ohConfig != null ? ohConfig.getConfigByOHId(deviceName) : null;
+                    if (ohtfDevice == null) {
+                        logger.debug("{} found no device configuration for name {} of item {}",
+                                LoggerConstants.CONFIG, deviceName, itemName);
+                        continue;
+                    }
+                    uid = ohtfDevice.getUid();
+                    subId = ohtfDevice.getSubid();
+                }
+                if (uid == null) {
+                    continue;
+                }
+                bindingsByItem.put(itemName, new ItemBinding(provider, uid, subId));
+                String key = deviceKey(uid, subId);
+                Map<String, TinkerforgeBindingProvider> items = itemsByDevice.get(key);
+                if (items == null) {
+                    items = new LinkedHashMap<String, TinkerforgeBindingProvider>(2);
+                    itemsByDevice.put(key, items);
+                }
+                items.put(itemName, provider);
+            }
+        }
+    }
+
+    /**
+     * Creates the key of a device for the lookup in maps.
+     *
+     * @param uid The device uid as {@code String}.
+     * @param subId The device subid as {@code String} or {@code null} if it is not a sub device.
+     * @return The key of the device.
+     */
+    static String deviceKey(String uid, String subId) {
+        return subId == null ? uid : uid + '\u0000' + subId;
+    }
+
+    /**
+     * @param uid The device uid as {@code String}.
+     * @param subId The device subid as {@code String} or {@code null} if it is not a sub device.
+     * @return The providers of the items bound to the device by item name, an empty map if there
+     *         are none.
+     */
+    Map<String, TinkerforgeBindingProvider> getItems(String uid, String subId) {
+        Map<String, TinkerforgeBindingProvider> items = itemsByDevice.get(deviceKey(uid, subId));
+        return items != null ? items : Collections.<String, TinkerforgeBindingProvider> emptyMap();
+    }
+
+    /**
+     * @param itemName The name of the item.
+     * @return The provider and the device ids of the item or {@code null} if the item is not bound
+     *         to a device.
+     */
+    ItemBinding getBinding(String itemName) {
+        return bindingsByItem.get(itemName);
+    }
+
+    static class ItemBinding {
+
+        final TinkerforgeBindingProvider provider;
+        final String uid;
+        final String subId;
+
+        ItemBinding(TinkerforgeBindingProvider provider, String uid, String subId) {
+            this.provider = provider;
+            this.uid = uid;
+            this.subId = subId;
+        }
+    }
+}
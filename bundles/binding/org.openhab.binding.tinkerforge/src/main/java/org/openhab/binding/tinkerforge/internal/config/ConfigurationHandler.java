@@ -104,6 +104,7 @@ public class ConfigurationHandler {
 
     private ModelFactory modelFactory;
     private OHConfig ohConfig;
+    private final Map<String, PublishPolicy> publishPolicies = new HashMap<String, PublishPolicy>();
     private static final Logger logger = LoggerFactory.getLogger(ConfigurationHandler.class);
 
     private static final Pattern UID_PATTERN = Pattern.compile(String.format("^(.*?)\\.(%s)$", ConfigKey.uid.name()));
@@ -218,11 +219,27 @@ public class ConfigurationHandler {
         for (Map<String, String> deviceConfig : configContainer.values()) {
             logger.debug("deviceConfig {}", deviceConfig);
             createOHTFDeviceConfig(deviceConfig);
+            String ohId = deviceConfig.get(ConfigKeyAdmin.ohId.name());
+            PublishPolicy publishPolicy = PublishPolicy.create(ohId, deviceConfig);
+            if (publishPolicy != null) {
+                logger.debug("{} publish policy for {}: {}", LoggerConstants.CONFIG, ohId, publishPolicy);
+                publishPolicies.put(ohId, publishPolicy);
+            }
         }
         return ohConfig;
 
     }
 
+    /**
+     * Gets the policies for publishing the values of the devices, which were found by
+     * {@link #createConfig(Dictionary) createConfig}.
+     *
+     * @return The {@link PublishPolicy} by symbolic device name.
+     */
+    public Map<String, PublishPolicy> getPublishPolicies() {
+        return publishPolicies;
+    }
+
     /**
      * Parses the configuration received from configManagement service and caches it in a map. This
      * map is added to another map with the openhab symbolic device name as key. The symbolic name is
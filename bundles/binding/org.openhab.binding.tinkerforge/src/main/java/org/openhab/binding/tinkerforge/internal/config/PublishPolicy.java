@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.tinkerforge.internal.config;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import org.osgi.service.cm.ConfigurationException;
+
+/**
+ * Decides which numeric values of a device are published to the openHAB event bus. The policy is
+ * configured per device in openhab.cfg, next to the {@code TFConfig} properties of the device:
+ * <ul>
+ * <li>hysteresis: the minimum difference to the last published value, smaller changes are not
+ * published</li>
+ * <li>minPublishInterval: the minimum time in milliseconds between two updates, a value received
+ * in between is published when the interval has elapsed</li>
+ * <li>smoothing: the number of values of which the moving average is published</li>
+ * </ul>
+ * e.g. "tinkerforge:temp_living.hysteresis=0.2"
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class PublishPolicy {
+
+    enum ConfigKey {
+        hysteresis,
+        minPublishInterval,
+        smoothing
+    }
+
+    private final BigDecimal hysteresis;
+    private final long minPublishInterval;
+    private final int smoothing;
+
+    public PublishPolicy(BigDecimal hysteresis, long minPublishInterval, int smoothing) {
+        this.hysteresis = hysteresis;
+        this.minPublishInterval = minPublishInterval;
+        this.smoothing = smoothing;
+    }
+
+    /**
+     * Creates the policy from the configuration of a device.
+     *
+     * @param ohId The symbolic name of the device as {@code String}.
+     * @param deviceConfig The device configuration as {@code Map} of {@code Strings}.
+     * @return The {@link PublishPolicy} or {@code null} if none of the policy keys is configured.
+     * @throws ConfigurationException if a value is not a valid number or negative.
+     */
+    static PublishPolicy create(String ohId, Map<String, String> deviceConfig) throws ConfigurationException {
+        String hysteresisValue = deviceConfig.get(ConfigKey.hysteresis.name());
+        String intervalValue = deviceConfig.get(ConfigKey.minPublishInterval.name());
+        String smoothingValue = deviceConfig.get(ConfigKey.smoothing.name());
+        if (hysteresisValue == null && intervalValue == null && smoothingValue == null) {
+            return null;
+        }
+        try {
+            BigDecimal hysteresis = hysteresisValue != null ? new BigDecimal(hysteresisValue.trim()) : null;
+            long minPublishInterval = intervalValue != null ? Long.parseLong(intervalValue.trim()) : 0;
+            int smoothing = smoothingValue != null ? Integer.parseInt(smoothingValue.trim()) : 1;
+            if (hysteresis != null && hysteresis.signum() < 0) {
+                throw new ConfigurationException(ohId + "." + ConfigKey.hysteresis, "must not be negative");
+            }
+            if (minPublishInterval < 0) {
+                throw new ConfigurationException(ohId + "." + ConfigKey.minPublishInterval, "must not be negative");
+            }
+            if (smoothing < 1) {
+                throw new ConfigurationException(ohId + "." + ConfigKey.smoothing, "must be at least 1");
+            }
+            return new PublishPolicy(hysteresis, minPublishInterval, smoothing);
+        } catch (NumberFormatException e) {
+            throw new ConfigurationException(ohId, "invalid publish policy: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return The minimum difference to the last published value or {@code null} if every change
+     *         is published.
+     */
+    public BigDecimal getHysteresis() {
+        return hysteresis;
+    }
+
+    /**
+     * @return The minimum time in milliseconds between two published values, 0 for no limit.
+     */
+    public long getMinPublishInterval() {
+        return minPublishInterval;
+    }
+
+    /**
+     * @return The number of values which are averaged, 1 for no smoothing.
+     */
+    public int getSmoothing() {
+        return smoothing;
+    }
+
+    @Override
+    public String toString() {
+        return "PublishPolicy [hysteresis=" + hysteresis + ", minPublishInterval=" + minPublishInterval
+                + ", smoothing=" + smoothing + "]";
+    }
+}
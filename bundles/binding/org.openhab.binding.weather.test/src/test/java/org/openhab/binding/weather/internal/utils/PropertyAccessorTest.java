@@ -0,0 +1,248 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.weather.internal.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.reflect.FieldUtils;
+import org.apache.commons.lang.reflect.MethodUtils;
+import org.junit.Test;
+import org.openhab.binding.weather.internal.model.Forecast;
+import org.openhab.binding.weather.internal.model.ProviderName;
+import org.openhab.binding.weather.internal.model.Weather;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tests that the {@link PropertyAccessor} reads and writes the same values as
+ * the reflection calls by property name, which were used before. Also logs
+ * the time needed for a get and set of all properties with both.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class PropertyAccessorTest {
+    private static final Logger logger = LoggerFactory.getLogger(PropertyAccessorTest.class);
+
+    private static final String MODEL_PACKAGE = StringUtils.substringBeforeLast(Weather.class.getName(), ".");
+    private static final String WEATHER_PREFIX = Weather.class.getSimpleName().toLowerCase() + ".";
+
+    private static final int ROUNDS = 20000;
+
+    /**
+     * Returns the properties of the weather model, the same way as they are
+     * named in item bindings and by the MetadataHandler.
+     */
+    private static List<String> getProperties() {
+        List<String> properties = new ArrayList<String>();
+        for (Field field : Weather.class.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            if (isModel(field.getType())) {
+                for (Field nestedField : field.getType().getDeclaredFields()) {
+                    if (!Modifier.isStatic(nestedField.getModifiers())) {
+                        properties.add(field.getName() + "." + nestedField.getName());
+                    }
+                }
+            } else {
+                properties.add(WEATHER_PREFIX + field.getName());
+            }
+        }
+        return properties;
+    }
+
+    private static boolean isModel(Class<?> type) {
+        return type.getName().startsWith(MODEL_PACKAGE) && !type.isEnum();
+    }
+
+    /**
+     * Returns a distinct sample value for the type of the field.
+     */
+    private static Object sampleValue(Class<?> type, int index) {
+        if (type == Double.class) {
+            return Double.valueOf(index + 0.5);
+        } else if (type == Integer.class) {
+            return Integer.valueOf(index);
+        } else if (type == String.class) {
+            return "value" + index;
+        } else if (type == Calendar.class) {
+            Calendar calendar = Calendar.getInstance();
+            calendar.setTimeInMillis(index * 1000L);
+            return calendar;
+        } else if (type == ProviderName.class) {
+            return ProviderName.values()[index % ProviderName.values().length];
+        } else if (type == List.class) {
+            return new ArrayList<Forecast>();
+        }
+        throw new IllegalArgumentException("No sample value for " + type);
+    }
+
+    /**
+     * Fills the weather with sample values, through the field writes by
+     * property name.
+     */
+    private static void fill(Weather weather, List<String> properties) throws Exception {
+        for (int i = 0; i < properties.size(); i++) {
+            String property = properties.get(i);
+            Object target = Reflection.getNestedObject(weather, property);
+            Field field = FieldUtils.getField(target.getClass(), PropertyResolver.last(property), true);
+            Reflection.setFieldValue(weather, property, sampleValue(field.getType(), i));
+        }
+    }
+
+    @Test
+    public void testGetValue() throws Exception {
+        for (Weather weather : new Weather[] { new Weather(ProviderName.YAHOO), new Forecast(ProviderName.YAHOO) }) {
+            List<String> properties = getProperties();
+            fill(weather, properties);
+
+            int getters = 0;
+            for (String property : properties) {
+                PropertyAccessor accessor = PropertyAccessor.getInstance(weather.getClass(), property);
+                assertTrue(property, accessor.getNestedObject(weather) == Reflection.getNestedObject(weather, property));
+
+                Object expected;
+                try {
+                    expected = Reflection.getPropertyValue(weather, property);
+                } catch (NoSuchMethodException ex) {
+                    // a field without getter
+                    assertFalse(property, PropertyUtils.hasProperty(weather, property));
+                    continue;
+                }
+                assertNotNull(property, expected);
+                assertEquals(property, expected, accessor.getValue(weather));
+                assertEquals(property, expected, PropertyUtils.getPropertyValue(weather, property));
+                assertEquals(property, Reflection.getPropertyTypeName(weather, property),
+                        PropertyUtils.getPropertyTypeName(weather, property));
+                getters++;
+            }
+            assertTrue("Properties with getter " + getters, getters > 30);
+        }
+    }
+
+    @Test
+    public void testSetFieldValue() throws Exception {
+        List<String> properties = getProperties();
+        Weather expected = new Weather(ProviderName.WUNDERGROUND);
+        fill(expected, properties);
+
+        Weather weather = new Weather(ProviderName.WUNDERGROUND);
+        for (String property : properties) {
+            Object value = Reflection.readFieldValue(expected, property);
+            PropertyAccessor.getInstance(Weather.class, property).setFieldValue(weather, value);
+            assertTrue(property, value == Reflection.readFieldValue(weather, property));
+        }
+    }
+
+    @Test
+    public void testUnknownProperty() throws Exception {
+        Weather weather = new Weather(ProviderName.YAHOO);
+        for (String property : new String[] { "temperature.unknown", "unknown.current", WEATHER_PREFIX + "unknown" }) {
+            assertFalse(property, PropertyUtils.hasProperty(weather, property));
+            try {
+                PropertyAccessor.getInstance(Weather.class, property);
+                fail("IllegalArgumentException expected for " + property);
+            } catch (IllegalArgumentException ex) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testPerformance() throws Exception {
+        List<String> properties = getProperties();
+        Weather weather = new Weather(ProviderName.YAHOO);
+        fill(weather, properties);
+
+        List<String> readable = new ArrayList<String>();
+        List<PropertyAccessor> accessors = new ArrayList<PropertyAccessor>();
+        for (String property : properties) {
+            if (PropertyUtils.hasProperty(weather, property)) {
+                readable.add(property);
+                accessors.add(PropertyAccessor.getInstance(Weather.class, property));
+            }
+        }
+
+        long reflectionTime = 0;
+        long accessorTime = 0;
+        for (int round = 0; round < 2; round++) {
+            // the first round warms up the jvm
+            long start = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++) {
+                for (String property : readable) {
+                    Reflection.setFieldValue(weather, property, Reflection.getPropertyValue(weather, property));
+                }
+            }
+            reflectionTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++) {
+                for (PropertyAccessor accessor : accessors) {
+                    accessor.setFieldValue(weather, accessor.getValue(weather));
+                }
+            }
+            accessorTime = System.nanoTime() - start;
+        }
+
+        long count = (long) ROUNDS * readable.size();
+        logger.debug("Weather property get and set: {} ns by name, {} ns with accessor", reflectionTime / count,
+                accessorTime / count);
+    }
+
+    /**
+     * The reflection calls by property name, as used before the
+     * {@link PropertyAccessor}.
+     */
+    private static class Reflection {
+
+        static Object getNestedObject(Object instance, String property) throws IllegalAccessException {
+            if (PropertyUtils.isWeatherProperty(property)) {
+                return instance;
+            }
+            while (PropertyResolver.hasNested(property)) {
+                instance = FieldUtils.readField(instance, PropertyResolver.first(property), true);
+                property = PropertyResolver.removeFirst(property);
+            }
+            return instance;
+        }
+
+        static Object getPropertyValue(Object instance, String property) throws Exception {
+            Object object = getNestedObject(instance, property);
+            String name = PropertyResolver.last(property);
+            String getter = "get" + Character.toTitleCase(name.charAt(0)) + name.substring(1);
+            return MethodUtils.invokeMethod(object, getter, null);
+        }
+
+        static String getPropertyTypeName(Object instance, String property) throws IllegalAccessException {
+            Object object = getNestedObject(instance, property);
+            Field field = FieldUtils.getField(object.getClass(), PropertyResolver.last(property), true);
+            return field.getType().getCanonicalName();
+        }
+
+        static Object readFieldValue(Object instance, String property) throws IllegalAccessException {
+            return FieldUtils.readField(getNestedObject(instance, property), PropertyResolver.last(property), true);
+        }
+
+        static void setFieldValue(Object instance, String property, Object value) throws IllegalAccessException {
+            FieldUtils.writeField(getNestedObject(instance, property), PropertyResolver.last(property), value, true);
+        }
+    }
+}
@@ -25,6 +25,7 @@ import org.openhab.binding.weather.internal.converter.ConverterFactory;
 import org.openhab.binding.weather.internal.converter.ConverterType;
 import org.openhab.binding.weather.internal.model.ProviderName;
 import org.openhab.binding.weather.internal.model.Weather;
+import org.openhab.binding.weather.internal.utils.PropertyAccessor;
 import org.openhab.binding.weather.internal.utils.PropertyResolver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -61,13 +62,21 @@ public class MetadataHandler {
      * Scans the class and generates metadata.
      */
     public void generate(Class<?> clazz) throws IllegalAccessException {
+        generate(clazz, clazz);
+    }
+
+    /**
+     * Scans the class and generates metadata, the accessors of the mapped
+     * properties are compiled for the root class.
+     */
+    private void generate(Class<?> rootClass, Class<?> clazz) throws IllegalAccessException {
         if (clazz == null) {
             return;
         }
 
         for (Field field : clazz.getDeclaredFields()) {
             if (field.getType().getName().startsWith(PACKAGE_TO_SCAN) && !field.isEnumConstant()) {
-                generate(field.getType());
+                generate(rootClass, field.getType());
             } else {
                 for (Annotation annotation : field.getAnnotations()) {
                     if (annotation.annotationType().equals(ProviderMappings.class)) {
@@ -82,7 +91,9 @@ public class MetadataHandler {
 
                             Converter<?> converter = getConverter(field, provider.converter());
                             String target = clazz.getSimpleName().toLowerCase() + "." + field.getName();
-                            ProviderMappingInfo pm = new ProviderMappingInfo(provider.property(), target, converter);
+                            PropertyAccessor accessor = PropertyAccessor.getInstance(rootClass, target);
+                            ProviderMappingInfo pm = new ProviderMappingInfo(provider.property(), target, converter,
+                                    accessor);
                             mappings.put(pm.getSource(), pm);
                             logger.trace("Added provider mapping {}: {}", provider.name(), pm);
                         }
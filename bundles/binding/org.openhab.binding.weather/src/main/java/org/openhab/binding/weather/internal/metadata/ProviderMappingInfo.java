@@ -11,6 +11,7 @@ package org.openhab.binding.weather.internal.metadata;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.apache.commons.lang.builder.ToStringStyle;
 import org.openhab.binding.weather.internal.converter.Converter;
+import org.openhab.binding.weather.internal.utils.PropertyAccessor;
 
 /**
  * Holds property mapping infos.
@@ -22,11 +23,13 @@ public class ProviderMappingInfo {
     private String source;
     private String target;
     private Converter<?> converter;
+    private PropertyAccessor accessor;
 
-    public ProviderMappingInfo(String source, String target, Converter<?> converter) {
+    public ProviderMappingInfo(String source, String target, Converter<?> converter, PropertyAccessor accessor) {
         this.source = source;
         this.target = target;
         this.converter = converter;
+        this.accessor = accessor;
     }
 
     /**
@@ -50,6 +53,13 @@ public class ProviderMappingInfo {
         return converter;
     }
 
+    /**
+     * Returns the precompiled accessor of the target property.
+     */
+    public PropertyAccessor getAccessor() {
+        return accessor;
+    }
+
     @Override
     public String toString() {
         return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE).append("source", source)
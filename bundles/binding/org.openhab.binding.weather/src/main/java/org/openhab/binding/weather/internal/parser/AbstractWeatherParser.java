@@ -11,7 +11,6 @@ package org.openhab.binding.weather.internal.parser;
 import java.io.InputStream;
 
 import org.apache.commons.lang.StringUtils;
-import org.apache.commons.lang.reflect.FieldUtils;
 import org.openhab.binding.weather.internal.converter.Converter;
 import org.openhab.binding.weather.internal.converter.property.PressureTrendConverter;
 import org.openhab.binding.weather.internal.metadata.MetadataHandler;
@@ -23,8 +22,6 @@ import org.openhab.binding.weather.internal.model.ProviderName;
 import org.openhab.binding.weather.internal.model.Temperature;
 import org.openhab.binding.weather.internal.model.Weather;
 import org.openhab.binding.weather.internal.model.Wind;
-import org.openhab.binding.weather.internal.utils.PropertyResolver;
-import org.openhab.binding.weather.internal.utils.PropertyUtils;
 import org.openhab.binding.weather.internal.utils.UnitUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -64,15 +61,12 @@ public abstract class AbstractWeatherParser implements WeatherParser {
             logger.trace("Setting property '{} ({})' with value '{}'", providerMappingInfo.getTarget(), propertyName,
                     value);
             try {
-                String targetProperty = providerMappingInfo.getTarget();
-                Object target = PropertyUtils.getNestedObject(weather, targetProperty);
-                String objectProperty = PropertyResolver.last(targetProperty);
                 String preparedValue = stripEmptyValues(value);
 
                 Converter<?> converter = providerMappingInfo.getConverter();
                 Object valueToSet = preparedValue == null ? null : converter.convert(preparedValue);
                 if (valueToSet != null) {
-                    FieldUtils.writeField(target, objectProperty, valueToSet, true);
+                    providerMappingInfo.getAccessor().setFieldValue(weather, valueToSet);
                 }
 
             } catch (Exception ex) {
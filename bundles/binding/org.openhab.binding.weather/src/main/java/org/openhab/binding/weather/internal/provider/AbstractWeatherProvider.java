@@ -124,7 +124,10 @@ public abstract class AbstractWeatherProvider implements WeatherProvider {
             }
 
             if (get.getStatusCode() == HttpStatus.SC_OK) {
+                long start = System.nanoTime();
                 parser.parseInto(is, weather);
+                logger.debug("{}[{}]: parsed in {} ms", getProviderName(), locationConfig.getLocationId(),
+                        (System.nanoTime() - start) / 1000000.0);
             }
             // special handling because of bad OpenWeatherMap json structure
             if (weather.getProvider() == ProviderName.OPENWEATHERMAP && weather.getResponseCode() != null
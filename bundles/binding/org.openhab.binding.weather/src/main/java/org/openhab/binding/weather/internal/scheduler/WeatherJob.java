@@ -47,7 +47,11 @@ public class WeatherJob implements Job {
             WeatherProvider weatherProvider = WeatherProviderFactory
                     .createWeatherProvider(locationConfig.getProviderName());
             context.setWeather(locationId, weatherProvider.getWeather(locationConfig));
+
+            long start = System.nanoTime();
             weatherPublisher.publish(locationId);
+            logger.debug("Published weather for location '{}' in {} ms", locationId,
+                    (System.nanoTime() - start) / 1000000.0);
 
         } catch (Exception ex) {
             logger.error(ex.getMessage(), ex);
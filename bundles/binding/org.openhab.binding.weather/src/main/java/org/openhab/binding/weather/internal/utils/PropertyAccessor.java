@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.weather.internal.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.reflect.FieldUtils;
+
+/**
+ * Precompiled access to a (nested) property of a class. The fields on the
+ * path to the property, the field of the property and its getter method are
+ * looked up once and bound to method handles. The accessors are cached by
+ * class and property name.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class PropertyAccessor {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final ConcurrentMap<Class<?>, ConcurrentMap<String, PropertyAccessor>> CACHE = new ConcurrentHashMap<Class<?>, ConcurrentMap<String, PropertyAccessor>>();
+
+    private final String property;
+    private final MethodHandle[] path;
+    private final Field field;
+    private final MethodHandle fieldSetter;
+    private final MethodHandle getter;
+
+    private PropertyAccessor(Class<?> clazz, String property) throws IllegalAccessException {
+        this.property = property;
+
+        List<MethodHandle> pathHandles = new ArrayList<MethodHandle>();
+        Class<?> type = clazz;
+        String nestedProperty = property;
+        if (!PropertyUtils.isWeatherProperty(property)) {
+            while (PropertyResolver.hasNested(nestedProperty)) {
+                Field nestedField = findField(type, PropertyResolver.first(nestedProperty));
+                pathHandles.add(LOOKUP.unreflectGetter(nestedField).asType(GETTER_TYPE));
+                type = nestedField.getType();
+                nestedProperty = PropertyResolver.removeFirst(nestedProperty);
+            }
+        }
+        this.path = pathHandles.toArray(new MethodHandle[pathHandles.size()]);
+
+        String name = PropertyResolver.last(property);
+        this.field = StringUtils.isEmpty(name) ? null : FieldUtils.getField(type, name, true);
+        if (field != null) {
+            field.setAccessible(true);
+            this.fieldSetter = LOOKUP.unreflectSetter(field).asType(SETTER_TYPE);
+        } else {
+            this.fieldSetter = null;
+        }
+
+        Method getterMethod = null;
+        if (StringUtils.isNotEmpty(name)) {
+            try {
+                getterMethod = type.getMethod("get" + Character.toTitleCase(name.charAt(0)) + name.substring(1));
+            } catch (NoSuchMethodException ex) {
+                // property without getter, only field access is possible
+            }
+        }
+        this.getter = getterMethod == null ? null : LOOKUP.unreflect(getterMethod).asType(GETTER_TYPE);
+
+        if (field == null && getter == null) {
+            throw new IllegalArgumentException("Unknown property '" + property + "' in " + clazz.getName());
+        }
+    }
+
+    /**
+     * Returns the accessor for the (nested) property of the class, the
+     * accessor is created on the first call and cached.
+     */
+    public static PropertyAccessor getInstance(Class<?> clazz, String property) throws IllegalAccessException {
+        ConcurrentMap<String, PropertyAccessor> accessors = CACHE.get(clazz);
+        if (accessors == null) {
+            accessors = new ConcurrentHashMap<String, PropertyAccessor>();
+            ConcurrentMap<String, PropertyAccessor> existing = CACHE.putIfAbsent(clazz, accessors);
+            if (existing != null) {
+                accessors = existing;
+            }
+        }
+
+        PropertyAccessor accessor = accessors.get(property);
+        if (accessor == null) {
+            accessor = new PropertyAccessor(clazz, property);
+            accessors.put(property, accessor);
+        }
+        return accessor;
+    }
+
+    private static Field findField(Class<?> clazz, String name) {
+        Field field = FieldUtils.getField(clazz, name, true);
+        if (field == null) {
+            throw new IllegalArgumentException("Unknown field '" + name + "' in " + clazz.getName());
+        }
+        field.setAccessible(true);
+        return field;
+    }
+
+    /**
+     * Returns the object which holds the property.
+     */
+    public Object getNestedObject(Object instance) throws Exception {
+        Object object = instance;
+        try {
+            for (MethodHandle handle : path) {
+                object = (Object) handle.invokeExact(object);
+            }
+        } catch (Exception ex) {
+            throw ex;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+        return object;
+    }
+
+    /**
+     * Returns the value of the property by calling its getter method.
+     */
+    public Object getValue(Object instance) throws Exception {
+        if (getter == null) {
+            throw new NoSuchMethodException("No getter for property '" + property + "'");
+        }
+        Object object = getNestedObject(instance);
+        try {
+            return (Object) getter.invokeExact(object);
+        } catch (Exception ex) {
+            throw ex;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /**
+     * Sets the field of the property to the value.
+     */
+    public void setFieldValue(Object instance, Object value) throws Exception {
+        if (fieldSetter == null) {
+            throw new NoSuchFieldException("No field for property '" + property + "'");
+        }
+        Object object = getNestedObject(instance);
+        try {
+            fieldSetter.invokeExact(object, value);
+        } catch (Exception ex) {
+            throw ex;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /**
+     * Returns the field of the property, null if the property has only a
+     * getter method.
+     */
+    public Field getField() {
+        return field;
+    }
+
+    /**
+     * Returns the (nested) property name.
+     */
+    public String getProperty() {
+        return property;
+    }
+}
@@ -11,12 +11,12 @@ package org.openhab.binding.weather.internal.utils;
 import java.lang.reflect.Field;
 
 import org.apache.commons.lang.StringUtils;
-import org.apache.commons.lang.reflect.FieldUtils;
-import org.apache.commons.lang.reflect.MethodUtils;
 import org.openhab.binding.weather.internal.model.Weather;
 
 /**
  * Methods to get the value from a property or a getter method of an object.
+ * The properties are accessed through the cached {@link PropertyAccessor} of
+ * the class of the object.
  *
  * @author Gerhard Riegler
  * @since 1.6.0
@@ -27,16 +27,8 @@ public class PropertyUtils {
     /**
      * Returns the object of the (nested) property.
      */
-    public static Object getNestedObject(Object instance, String propertyName) throws IllegalAccessException {
-        if (PropertyUtils.isWeatherProperty(propertyName)) {
-            return instance;
-        }
-
-        while (PropertyResolver.hasNested(propertyName)) {
-            instance = FieldUtils.readField(instance, PropertyResolver.first(propertyName), true);
-            propertyName = PropertyResolver.removeFirst(propertyName);
-        }
-        return instance;
+    public static Object getNestedObject(Object instance, String propertyName) throws Exception {
+        return PropertyAccessor.getInstance(instance.getClass(), propertyName).getNestedObject(instance);
     }
 
     /**
@@ -62,8 +54,7 @@ public class PropertyUtils {
      * Returns the type name of the property of the instance.
      */
     public static String getPropertyTypeName(Object instance, String property) throws IllegalAccessException {
-        Object object = getNestedObject(instance, property);
-        Field field = FieldUtils.getField(object.getClass(), PropertyResolver.last(property), true);
+        Field field = PropertyAccessor.getInstance(instance.getClass(), property).getField();
         return field.getType().getCanonicalName();
     }
 
@@ -73,20 +64,7 @@ public class PropertyUtils {
      * methods getTemperature().getCurrent() are called.
      */
     public static Object getPropertyValue(Object instance, String property) throws Exception {
-        Object object = getNestedObject(instance, property);
-        String getMethod = toGetterString(PropertyResolver.last(property));
-        return MethodUtils.invokeMethod(object, getMethod, null);
-    }
-
-    /**
-     * Converts the string to a getter property.
-     */
-    private static String toGetterString(String str) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("get");
-        sb.append(Character.toTitleCase(str.charAt(0)));
-        sb.append(str.substring(1));
-        return sb.toString();
+        return PropertyAccessor.getInstance(instance.getClass(), property).getValue(instance);
     }
 
 }
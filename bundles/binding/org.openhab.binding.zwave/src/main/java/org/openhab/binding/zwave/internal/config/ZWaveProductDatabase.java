@@ -12,7 +12,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.osgi.framework.FrameworkUtil;
 import org.slf4j.Logger;
@@ -70,38 +73,15 @@ public class ZWaveProductDatabase {
     }
 
     private void loadDatabase() {
-        URL entry = FrameworkUtil.getBundle(ZWaveProductDatabase.class).getEntry("database/products.xml");
-        if (entry == null) {
-            database = null;
-            logger.error("Unable to load ZWave product database!");
-            return;
-        }
-
-        XStream xstream = new XStream(new StaxDriver());
-        xstream.alias("Manufacturers", ZWaveDbRoot.class);
-        xstream.alias("Manufacturer", ZWaveDbManufacturer.class);
-        xstream.alias("Product", ZWaveDbProduct.class);
-        xstream.alias("Reference", ZWaveDbProductReference.class);
-
-        xstream.processAnnotations(ZWaveDbRoot.class);
-
-        try {
-            // this.Manufacturer = (ZWaveDbManufacturer)
-            InputStream x = entry.openStream();
-            database = (ZWaveDbRoot) xstream.fromXML(x);
-            if (database == null) {
-                return;
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        database = ProductIndex.INSTANCE.root;
     }
 
     /**
      * Loads the product file relating to the requested version.
+     * Product files are shared between all database instances and kept in a
+     * bounded cache so that repeated lookups don't parse the XML again.
      *
-     * @param version the required device version
-     * @return filename of the product file
+     * @return the product file, or null if none is available
      */
     private ZWaveDbProductFile LoadProductFile() {
         // If the file is already loaded, then just return the class
@@ -119,33 +99,7 @@ public class ZWaveProductDatabase {
             return null;
         }
 
-        URL entry = FrameworkUtil.getBundle(ZWaveProductDatabase.class).getEntry("database/" + cfgFile);
-        if (entry == null) {
-            database = null;
-            logger.error("Unable to load ZWave product file: '{}'", cfgFile);
-            return null;
-        }
-
-        XStream xstream = new XStream(new StaxDriver());
-        xstream.alias("Product", ZWaveDbProductFile.class);
-        xstream.alias("Configuration", ZWaveDbProductFile.ZWaveDbConfiguration.class);
-        xstream.alias("Parameter", ZWaveDbConfigurationParameter.class);
-        xstream.alias("Item", ZWaveDbConfigurationListItem.class);
-        xstream.alias("Associations", ZWaveDbProductFile.ZWaveDbAssociation.class);
-        xstream.alias("Group", ZWaveDbAssociationGroup.class);
-        xstream.alias("CommandClass", ZWaveDbProductFile.ZWaveDbCommandClassList.class);
-        xstream.alias("Class", ZWaveDbCommandClass.class);
-
-        xstream.processAnnotations(ZWaveDbProductFile.class);
-
-        try {
-            // this.Manufacturer = (ZWaveDbManufacturer)
-            InputStream x = entry.openStream();
-            productFile = (ZWaveDbProductFile) xstream.fromXML(x);
-        } catch (IOException e) {
-            logger.error("Unable to load ZWave product file '{}' : {}", cfgFile, e.toString());
-        }
-
+        productFile = ProductIndex.INSTANCE.getProductFile(cfgFile);
         return productFile;
     }
 
@@ -179,13 +133,8 @@ public class ZWaveProductDatabase {
         selProduct = null;
         productFile = null;
 
-        for (ZWaveDbManufacturer manufacturer : database.Manufacturer) {
-            if (manufacturer.Id == manufacturerId) {
-                selManufacturer = manufacturer;
-                return true;
-            }
-        }
-        return false;
+        selManufacturer = ProductIndex.INSTANCE.manufacturers.get(manufacturerId);
+        return selManufacturer != null;
     }
 
     /**
@@ -222,16 +171,16 @@ public class ZWaveProductDatabase {
             return false;
         }
         productVersion = version;
+        productFile = null;
 
-        for (ZWaveDbProduct product : selManufacturer.Product) {
-            for (ZWaveDbProductReference reference : product.Reference) {
-                if (reference.Type == productType && reference.Id == productId) {
-                    selProduct = product;
-                    return true;
-                }
-            }
+        ZWaveDbProduct product = ProductIndex.INSTANCE.products
+                .get(ProductIndex.getProductKey(selManufacturer.Id, productType, productId));
+        if (product == null) {
+            return false;
         }
-        return false;
+
+        selProduct = product;
+        return true;
     }
 
     /**
@@ -379,6 +328,162 @@ public class ZWaveProductDatabase {
         List<ZWaveDbManufacturer> Manufacturer;
     }
 
+    /**
+     * Holds the parsed product database which is shared by all instances of
+     * {@link ZWaveProductDatabase}. The database is loaded lazily the first
+     * time it is used and indexed by manufacturer and product reference so
+     * lookups don't have to walk the full manufacturer/product tree.
+     * Parsed product files are kept in a bounded LRU cache.
+     */
+    private static class ProductIndex {
+        private static final ProductIndex INSTANCE = new ProductIndex();
+
+        private static final int PRODUCT_FILE_CACHE_SIZE = 64;
+
+        private final ZWaveDbRoot root;
+        private final Map<Integer, ZWaveDbManufacturer> manufacturers;
+        private final Map<Long, ZWaveDbProduct> products;
+
+        private final XStream productFileXStream;
+        private final Map<String, ZWaveDbProductFile> productFiles = new LinkedHashMap<String, ZWaveDbProductFile>(
+                PRODUCT_FILE_CACHE_SIZE, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ZWaveDbProductFile> eldest) {
+                return size() > PRODUCT_FILE_CACHE_SIZE;
+            }
+        };
+
+        private ProductIndex() {
+            long start = System.currentTimeMillis();
+            root = loadRoot();
+
+            Map<Integer, ZWaveDbManufacturer> manufacturerMap = new HashMap<Integer, ZWaveDbManufacturer>();
+            Map<Long, ZWaveDbProduct> productMap = new HashMap<Long, ZWaveDbProduct>();
+            if (root != null && root.Manufacturer != null) {
+                for (ZWaveDbManufacturer manufacturer : root.Manufacturer) {
+                    if (manufacturer.Id == null || manufacturerMap.containsKey(manufacturer.Id)) {
+                        continue;
+                    }
+                    manufacturerMap.put(manufacturer.Id, manufacturer);
+
+                    if (manufacturer.Product == null) {
+                        continue;
+                    }
+                    for (ZWaveDbProduct product : manufacturer.Product) {
+                        if (product.Reference == null) {
+                            continue;
+                        }
+                        for (ZWaveDbProductReference reference : product.Reference) {
+                            if (reference.Type == null || reference.Id == null) {
+                                continue;
+                            }
+                            // Keep the first match to preserve the original search order
+                            Long key = getProductKey(manufacturer.Id, reference.Type, reference.Id);
+                            if (!productMap.containsKey(key)) {
+                                productMap.put(key, product);
+                            }
+                        }
+                    }
+                }
+            }
+            manufacturers = Collections.unmodifiableMap(manufacturerMap);
+            products = Collections.unmodifiableMap(productMap);
+
+            productFileXStream = new XStream(new StaxDriver());
+            productFileXStream.alias("Product", ZWaveDbProductFile.class);
+            productFileXStream.alias("Configuration", ZWaveDbProductFile.ZWaveDbConfiguration.class);
+            productFileXStream.alias("Parameter", ZWaveDbConfigurationParameter.class);
+            productFileXStream.alias("Item", ZWaveDbConfigurationListItem.class);
+            productFileXStream.alias("Associations", ZWaveDbProductFile.ZWaveDbAssociation.class);
+            productFileXStream.alias("Group", ZWaveDbAssociationGroup.class);
+            productFileXStream.alias("CommandClass", ZWaveDbProductFile.ZWaveDbCommandClassList.class);
+            productFileXStream.alias("Class", ZWaveDbCommandClass.class);
+            productFileXStream.processAnnotations(ZWaveDbProductFile.class);
+
+            logger.debug("ZWave product database indexed {} manufacturers and {} products in {}ms",
+                    manufacturers.size(), products.size(), System.currentTimeMillis() - start);
+        }
+
+        private static Long getProductKey(int manufacturerId, int productType, int productId) {
+            return ((long) (manufacturerId & 0xFFFF) << 32) | ((long) (productType & 0xFFFF) << 16)
+                    | (productId & 0xFFFF);
+        }
+
+        private static ZWaveDbRoot loadRoot() {
+            URL entry = FrameworkUtil.getBundle(ZWaveProductDatabase.class).getEntry("database/products.xml");
+            if (entry == null) {
+                logger.error("Unable to load ZWave product database!");
+                return null;
+            }
+
+            XStream xstream = new XStream(new StaxDriver());
+            xstream.alias("Manufacturers", ZWaveDbRoot.class);
+            xstream.alias("Manufacturer", ZWaveDbManufacturer.class);
+            xstream.alias("Product", ZWaveDbProduct.class);
+            xstream.alias("Reference", ZWaveDbProductReference.class);
+
+            xstream.processAnnotations(ZWaveDbRoot.class);
+
+            InputStream x = null;
+            try {
+                x = entry.openStream();
+                return (ZWaveDbRoot) xstream.fromXML(x);
+            } catch (IOException e) {
+                logger.error("Unable to load ZWave product database : {}", e.toString());
+                return null;
+            } finally {
+                closeQuietly(x);
+            }
+        }
+
+        private static void closeQuietly(InputStream stream) {
+            if (stream == null) {
+                return;
+            }
+            try {
+                stream.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+
+        private ZWaveDbProductFile getProductFile(String cfgFile) {
+            synchronized (productFiles) {
+                ZWaveDbProductFile file = productFiles.get(cfgFile);
+                if (file != null) {
+                    return file;
+                }
+            }
+
+            URL entry = FrameworkUtil.getBundle(ZWaveProductDatabase.class).getEntry("database/" + cfgFile);
+            if (entry == null) {
+                logger.error("Unable to load ZWave product file: '{}'", cfgFile);
+                return null;
+            }
+
+            ZWaveDbProductFile file = null;
+            InputStream x = null;
+            try {
+                x = entry.openStream();
+                file = (ZWaveDbProductFile) productFileXStream.fromXML(x);
+            } catch (IOException e) {
+                logger.error("Unable to load ZWave product file '{}' : {}", cfgFile, e.toString());
+                return null;
+            } finally {
+                closeQuietly(x);
+            }
+
+            if (file != null) {
+                synchronized (productFiles) {
+                    productFiles.put(cfgFile, file);
+                }
+            }
+            return file;
+        }
+    }
+
     /**
      * Helper function to find the label associated with the specified database
      * language If no language is defined, or if the label cant be found in the
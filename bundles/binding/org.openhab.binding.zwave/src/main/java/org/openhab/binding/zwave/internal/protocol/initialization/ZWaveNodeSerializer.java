@@ -8,14 +8,28 @@
  */
 package org.openhab.binding.zwave.internal.protocol.initialization;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import org.openhab.binding.zwave.internal.protocol.ZWaveDeviceClass;
 import org.openhab.binding.zwave.internal.protocol.ZWaveEndpoint;
@@ -27,11 +41,27 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.thoughtworks.xstream.XStream;
-import com.thoughtworks.xstream.io.xml.PrettyPrintWriter;
+import com.thoughtworks.xstream.io.xml.CompactWriter;
 import com.thoughtworks.xstream.io.xml.StaxDriver;
 
 /**
- * ZWaveNodeSerializer class. Serializes nodes to XML and back again.
+ * ZWaveNodeSerializer class. Serializes nodes to a compact binary node store
+ * and back again.
+ *
+ * Each node is stored in its own versioned file (node%d.zwn) consisting of a
+ * small header (magic, format version, node id, payload length and CRC)
+ * followed by the GZIP compressed node tree. A node is only rewritten if its
+ * content has changed since it was last read or written by this serializer.
+ * Files are written to a temporary file, synced to disk and then atomically
+ * moved over the previous file, so a power loss leaves either the old or the
+ * new node behind.
+ *
+ * Existing node%d.xml files from earlier versions are imported once on
+ * startup and renamed to node%d.xml.bak.
+ *
+ * The configured {@link XStream} instance is shared between all serializers
+ * as setting it up processes the annotations of every command class. XStream
+ * is thread safe once configured, so nodes can be read in parallel.
  *
  * @author Jan-Willem Spuij
  * @since 1.4.0
@@ -39,7 +69,23 @@ import com.thoughtworks.xstream.io.xml.StaxDriver;
 public class ZWaveNodeSerializer {
 
     private static final Logger logger = LoggerFactory.getLogger(ZWaveNodeSerializer.class);
-    private final XStream stream = new XStream(new StaxDriver());
+
+    private static final int STORE_MAGIC = 0x5A574E53; // "ZWNS"
+    private static final int STORE_VERSION = 1;
+
+    private static XStream stream = null;
+
+    /**
+     * CRC of the last content read or written for each node by this
+     * serializer. Used to skip rewriting nodes that haven't changed.
+     */
+    private final Map<Integer, Long> nodeChecksums = new ConcurrentHashMap<Integer, Long>();
+
+    /**
+     * Per node locks so that different nodes can be written concurrently.
+     */
+    private final Map<Integer, Object> nodeLocks = new ConcurrentHashMap<Integer, Object>();
+
     private String folderName = "etc/zwave";
 
     /**
@@ -47,8 +93,6 @@ public class ZWaveNodeSerializer {
      * class.
      */
     public ZWaveNodeSerializer() {
-        logger.trace("Initializing ZWaveNodeSerializer.");
-
         // Change the folder for OH2
         // ConfigConstants.getUserDataFolder();
         final String USERDATA_DIR_PROG_ARGUMENT = "smarthome.userdata";
@@ -64,11 +108,25 @@ public class ZWaveNodeSerializer {
             logger.debug("Creating directory {}", folderName);
             folder.mkdirs();
         }
-        stream.processAnnotations(ZWaveNode.class);
-        stream.processAnnotations(ZWaveEndpoint.class);
-        stream.processAnnotations(ZWaveDeviceClass.class);
-        stream.processAnnotations(ZWaveCommandClass.class);
-        stream.processAnnotations(CommandClass.class);
+    }
+
+    /**
+     * Returns the shared {@link XStream} instance, configuring it on first use.
+     *
+     * @return the configured stream
+     */
+    private static synchronized XStream getStream() {
+        if (stream != null) {
+            return stream;
+        }
+
+        logger.trace("Initializing ZWaveNodeSerializer.");
+        XStream xstream = new XStream(new StaxDriver());
+        xstream.processAnnotations(ZWaveNode.class);
+        xstream.processAnnotations(ZWaveEndpoint.class);
+        xstream.processAnnotations(ZWaveDeviceClass.class);
+        xstream.processAnnotations(ZWaveCommandClass.class);
+        xstream.processAnnotations(CommandClass.class);
         for (CommandClass commandClass : CommandClass.values()) {
             Class<? extends ZWaveCommandClass> cc = commandClass.getCommandClassClass();
 
@@ -76,86 +134,106 @@ public class ZWaveNodeSerializer {
                 continue;
             }
 
-            stream.processAnnotations(cc);
+            xstream.processAnnotations(cc);
             for (Class<?> inner : cc.getDeclaredClasses()) {
-                stream.processAnnotations(inner);
+                xstream.processAnnotations(inner);
             }
         }
-        stream.processAnnotations(MeterScale.class);
+        xstream.processAnnotations(MeterScale.class);
         logger.trace("Initialized ZWaveNodeSerializer.");
+
+        stream = xstream;
+        return stream;
+    }
+
+    private Object getNodeLock(int nodeId) {
+        Object lock = nodeLocks.get(nodeId);
+        if (lock == null) {
+            synchronized (nodeLocks) {
+                lock = nodeLocks.get(nodeId);
+                if (lock == null) {
+                    lock = new Object();
+                    nodeLocks.put(nodeId, lock);
+                }
+            }
+        }
+        return lock;
+    }
+
+    private File getStoreFile(int nodeId) {
+        return new File(this.folderName, String.format("node%d.zwn", nodeId));
+    }
+
+    private File getXmlFile(int nodeId) {
+        return new File(this.folderName, String.format("node%d.xml", nodeId));
     }
 
     /**
-     * Serializes an XML tree of a {@link ZWaveNode}
+     * Serializes a {@link ZWaveNode} to the node store. The node is only
+     * written if its content has changed.
      *
      * @param node
      *            the node to serialize
      */
     public void SerializeNode(ZWaveNode node) {
-        synchronized (stream) {
-            // Don't serialise if the stage is not at least finished static
-            // If we do serialise when we haven't completed the static stages
-            // then when the binding starts it will have incomplete information!
-            if (node.getNodeInitializationStage().isStaticComplete() == false) {
-                logger.debug("NODE {}: Serialise aborted as static stages not complete", node.getNodeId());
+        // Don't serialise if the stage is not at least finished static
+        // If we do serialise when we haven't completed the static stages
+        // then when the binding starts it will have incomplete information!
+        if (node.getNodeInitializationStage().isStaticComplete() == false) {
+            logger.debug("NODE {}: Serialise aborted as static stages not complete", node.getNodeId());
+            return;
+        }
+
+        int nodeId = node.getNodeId();
+        synchronized (getNodeLock(nodeId)) {
+            byte[] payload;
+            try {
+                payload = marshal(node);
+            } catch (IOException e) {
+                logger.error("NODE {}: Error serializing node: {}", nodeId, e.getMessage());
                 return;
             }
 
-            File file = new File(this.folderName, String.format("node%d.xml", node.getNodeId()));
-            BufferedWriter writer = null;
-
-            logger.debug("NODE {}: Serializing to file {}", node.getNodeId(), file.getPath());
+            long checksum = checksum(payload);
+            File file = getStoreFile(nodeId);
+            Long previous = nodeChecksums.get(nodeId);
+            if (previous != null && previous == checksum && file.exists()) {
+                logger.trace("NODE {}: Serialise skipped as node is unchanged", nodeId);
+                return;
+            }
 
-            try {
-                writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
-                stream.marshal(node, new PrettyPrintWriter(writer));
-                writer.flush();
-            } catch (IOException e) {
-                logger.error("NODE {}: Error serializing to file: {}", node.getNodeId(), e.getMessage());
-            } finally {
-                if (writer != null) {
-                    try {
-                        writer.close();
-                    } catch (IOException e) {
-                    }
-                }
+            logger.debug("NODE {}: Serializing to file {}", nodeId, file.getPath());
+            if (writeStore(nodeId, file, payload, checksum)) {
+                nodeChecksums.put(nodeId, checksum);
             }
         }
     }
 
     /**
-     * Deserializes an XML tree of a {@link ZWaveNode}
+     * Deserializes a {@link ZWaveNode} from the node store. If no store exists
+     * for the node, but an XML file from an earlier version does, it is
+     * imported into the store.
      *
      * @param nodeId
      *            the number of the node to deserialize
      * @return returns the Node or null in case Serialization failed.
      */
     public ZWaveNode DeserializeNode(int nodeId) {
-        synchronized (stream) {
-            File file = new File(this.folderName, String.format("node%d.xml", nodeId));
-            BufferedReader reader = null;
+        synchronized (getNodeLock(nodeId)) {
+            long start = System.currentTimeMillis();
+            File file = getStoreFile(nodeId);
 
             logger.debug("NODE {}: Serializing from file {}", nodeId, file.getPath());
 
-            if (!file.exists()) {
-                logger.debug("NODE {}: Error serializing from file: file does not exist.", nodeId);
-                return null;
+            ZWaveNode node;
+            if (file.exists()) {
+                node = readStore(nodeId, file);
+            } else {
+                node = importXml(nodeId);
             }
 
-            try {
-                reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
-                return (ZWaveNode) stream.fromXML(reader);
-            } catch (IOException e) {
-                logger.error("NODE {}: Error serializing from file: {}", nodeId, e.getMessage());
-            } finally {
-                if (reader != null) {
-                    try {
-                        reader.close();
-                    } catch (IOException e) {
-                    }
-                }
-            }
-            return null;
+            logger.debug("NODE {}: Deserialized in {}ms", nodeId, System.currentTimeMillis() - start);
+            return node;
         }
     }
 
@@ -166,10 +244,184 @@ public class ZWaveNodeSerializer {
      * @return true if the file was deleted
      */
     public boolean DeleteNode(int nodeId) {
-        synchronized (stream) {
-            File file = new File(this.folderName, String.format("node%d.xml", nodeId));
+        synchronized (getNodeLock(nodeId)) {
+            nodeChecksums.remove(nodeId);
+
+            // Remove any XML file that hasn't been imported yet
+            File xmlFile = getXmlFile(nodeId);
+            boolean deleted = xmlFile.exists() && xmlFile.delete();
+
+            return getStoreFile(nodeId).delete() || deleted;
+        }
+    }
 
-            return file.delete();
+    private ZWaveNode readStore(int nodeId, File file) {
+        DataInputStream input = null;
+        try {
+            input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (input.readInt() != STORE_MAGIC) {
+                logger.error("NODE {}: Error serializing from file: invalid file header.", nodeId);
+                return null;
+            }
+            int version = input.readUnsignedByte();
+            if (version != STORE_VERSION) {
+                logger.error("NODE {}: Error serializing from file: unsupported version {}.", nodeId, version);
+                return null;
+            }
+            if (input.readUnsignedByte() != nodeId) {
+                logger.error("NODE {}: Error serializing from file: node id mismatch.", nodeId);
+                return null;
+            }
+            long checksum = input.readInt() & 0xFFFFFFFFL;
+            int length = input.readInt();
+            if (length < 0 || length > file.length() * 64) {
+                logger.error("NODE {}: Error serializing from file: invalid length {}.", nodeId, length);
+                return null;
+            }
+
+            byte[] payload = new byte[length];
+            DataInputStream unzip = new DataInputStream(new GZIPInputStream(input));
+            unzip.readFully(payload);
+
+            if (checksum(payload) != checksum) {
+                logger.error("NODE {}: Error serializing from file: checksum mismatch.", nodeId);
+                return null;
+            }
+
+            ZWaveNode node = (ZWaveNode) getStream()
+                    .fromXML(new InputStreamReader(new ByteArrayInputStream(payload), "UTF-8"));
+            nodeChecksums.put(nodeId, checksum);
+            return node;
+        } catch (IOException e) {
+            logger.error("NODE {}: Error serializing from file: {}", nodeId, e.getMessage());
+        } finally {
+            if (input != null) {
+                try {
+                    input.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean writeStore(int nodeId, File file, byte[] payload, long checksum) {
+        File tmpFile = null;
+        DataOutputStream output = null;
+        try {
+            // Other serializers may write the same node, so each write uses its own file
+            tmpFile = File.createTempFile(file.getName() + ".", ".tmp", file.getParentFile());
+            FileOutputStream fileOutput = new FileOutputStream(tmpFile);
+            output = new DataOutputStream(new BufferedOutputStream(fileOutput));
+            output.writeInt(STORE_MAGIC);
+            output.writeByte(STORE_VERSION);
+            output.writeByte(nodeId);
+            output.writeInt((int) checksum);
+            output.writeInt(payload.length);
+
+            GZIPOutputStream zip = new GZIPOutputStream(output);
+            zip.write(payload);
+            zip.finish();
+            output.flush();
+            fileOutput.getFD().sync();
+            output.close();
+            output = null;
+
+            try {
+                Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                logger.debug("NODE {}: Atomic move not supported, replacing {}", nodeId, file.getPath());
+                Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            tmpFile = null;
+            return true;
+        } catch (IOException e) {
+            logger.error("NODE {}: Error serializing to file: {}", nodeId, e.getMessage());
+        } finally {
+            if (output != null) {
+                try {
+                    output.close();
+                } catch (IOException e) {
+                }
+            }
+            if (tmpFile != null && tmpFile.exists() && !tmpFile.delete()) {
+                logger.warn("NODE {}: Unable to delete {}", nodeId, tmpFile.getPath());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Imports a node from the XML file written by earlier versions of the
+     * binding. If the import succeeds the node is written to the store and the
+     * XML file is renamed so that it isn't imported again.
+     *
+     * @param nodeId the node to import
+     * @return the node or null if there is no XML file or it can't be read
+     */
+    private ZWaveNode importXml(int nodeId) {
+        File xmlFile = getXmlFile(nodeId);
+        if (!xmlFile.exists()) {
+            logger.debug("NODE {}: Error serializing from file: file does not exist.", nodeId);
+            return null;
+        }
+
+        logger.info("NODE {}: Importing node from {}", nodeId, xmlFile.getPath());
+
+        ZWaveNode node = null;
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(xmlFile), "UTF-8"));
+            node = (ZWaveNode) getStream().fromXML(reader);
+        } catch (IOException e) {
+            logger.error("NODE {}: Error serializing from file: {}", nodeId, e.getMessage());
+            return null;
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+
+        if (node == null) {
+            return null;
         }
+
+        try {
+            byte[] payload = marshal(node);
+            long checksum = checksum(payload);
+
+            if (writeStore(nodeId, getStoreFile(nodeId), payload, checksum)) {
+                nodeChecksums.put(nodeId, checksum);
+                File backup = new File(xmlFile.getPath() + ".bak");
+                if (backup.exists()) {
+                    backup.delete();
+                }
+                if (!xmlFile.renameTo(backup)) {
+                    logger.warn("NODE {}: Unable to rename imported file {}", nodeId, xmlFile.getPath());
+                }
+            }
+        } catch (IOException e) {
+            logger.error("NODE {}: Error importing node: {}", nodeId, e.getMessage());
+        }
+
+        return node;
+    }
+
+    private static byte[] marshal(ZWaveNode node) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+        Writer writer = new OutputStreamWriter(bytes, "UTF-8");
+        getStream().marshal(node, new CompactWriter(writer));
+        writer.flush();
+        return bytes.toByteArray();
+    }
+
+    private static long checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return crc.getValue();
     }
 }
@@ -123,7 +123,7 @@ import org.slf4j.LoggerFactory;
  */
 public class ZWaveNodeStageAdvancer implements ZWaveEventListener {
 
-    private static final ZWaveNodeSerializer nodeSerializer = new ZWaveNodeSerializer();
+    private final ZWaveNodeSerializer nodeSerializer = new ZWaveNodeSerializer();
     private static final Logger logger = LoggerFactory.getLogger(ZWaveNodeStageAdvancer.class);
 
     private ZWaveNode node;
@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.openhabcloud.internal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.eclipse.jetty.io.Buffer;
+import org.eclipse.jetty.io.ByteArrayBuffer;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tests that the response content is passed from the Jetty buffer to Socket.IO
+ * without a copy if Jetty doesn't reuse the buffer, and copied otherwise. Also
+ * logs the time needed per chunk of response content with both.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class CloudClientTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(CloudClientTest.class);
+
+    private static final int CHUNK_SIZE = 16 * 1024;
+    private static final int CHUNKS = 20000;
+
+    private static byte[] content(int length) {
+        byte[] content = new byte[length];
+        new Random(4711).nextBytes(content);
+        return content;
+    }
+
+    @Test
+    public void testOwnedArrayIsPassedOn() {
+        byte[] content = content(CHUNK_SIZE);
+        Buffer buffer = new ByteArrayBuffer(content);
+
+        assertSame(content, CloudClient.getContentArray(buffer));
+    }
+
+    @Test
+    public void testVolatileBufferIsCopied() {
+        byte[] content = content(CHUNK_SIZE);
+        Buffer buffer = new ByteArrayBuffer(content, 0, content.length, Buffer.READWRITE, Buffer.VOLATILE);
+
+        byte[] array = CloudClient.getContentArray(buffer);
+        assertTrue(array != content);
+        assertArrayEquals(content, array);
+    }
+
+    @Test
+    public void testPartOfArrayIsCopied() {
+        byte[] content = content(CHUNK_SIZE);
+        Buffer buffer = new ByteArrayBuffer(content, 100, 1000, Buffer.READWRITE);
+
+        assertArrayEquals(Arrays.copyOfRange(content, 100, 1100), CloudClient.getContentArray(buffer));
+    }
+
+    @Test
+    public void testPerformance() {
+        byte[] content = content(CHUNK_SIZE);
+        Buffer owned = new ByteArrayBuffer(content);
+        Buffer reused = new ByteArrayBuffer(content, 0, content.length, Buffer.READWRITE, Buffer.VOLATILE);
+
+        long copyTime = 0;
+        long ownedTime = 0;
+        long reusedTime = 0;
+        long length = 0;
+        for (int round = 0; round < 2; round++) {
+            // the first round warms up the jvm
+            long start = System.nanoTime();
+            for (int i = 0; i < CHUNKS; i++) {
+                length += owned.asArray().length;
+            }
+            copyTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < CHUNKS; i++) {
+                length += CloudClient.getContentArray(owned).length;
+            }
+            ownedTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < CHUNKS; i++) {
+                length += CloudClient.getContentArray(reused).length;
+            }
+            reusedTime = System.nanoTime() - start;
+        }
+
+        assertTrue(length > 0);
+        logger.debug("openHAB Cloud response content of {} bytes: copy {} ns, owned buffer {} ns, reused buffer {} ns",
+                CHUNK_SIZE, copyTime / CHUNKS, ownedTime / CHUNKS, reusedTime / CHUNKS);
+    }
+}
@@ -12,18 +12,28 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URLEncoder;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.client.ContentExchange;
 import org.eclipse.jetty.io.Buffer;
 import org.eclipse.jetty.io.ByteArrayBuffer;
 import org.eclipse.jetty.util.URIUtil;
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.slf4j.Logger;
@@ -66,6 +76,24 @@ public class CloudClient {
      */
     private static final int HTTP_CLIENT_TIMEOUT = 30000;
 
+    /*
+     * This constant defines the default interval in milliseconds in which buffered
+     * item updates are sent to openHAB Cloud
+     */
+    public static final long DEFAULT_ITEM_UPDATE_INTERVAL = 1000;
+
+    /*
+     * This constant defines the maximum number of remote requests which are proxied
+     * to local openHAB at the same time, further requests are queued
+     */
+    private static final int MAX_RUNNING_REQUESTS = 50;
+
+    /*
+     * This constant defines the maximum number of queued remote requests, further
+     * requests are rejected
+     */
+    private static final int MAX_QUEUED_REQUESTS = 200;
+
     /*
      * This variable holds base URL for the openHAB Cloud connections
      */
@@ -89,13 +117,23 @@ public class CloudClient {
      */
     private HttpClient mJettyClient;
     /*
-     * This hashmap holds HTTP requests to local openHAB which are currently running
+     * This map holds HTTP requests to local openHAB which are currently running or queued.
+     * It is accessed from the Socket.IO thread and the Jetty threads.
      */
-    private HashMap<Integer, OHCloudExchange> mRunningRequests;
+    private final ConcurrentMap<Integer, OHCloudExchange> mRunningRequests;
+    /*
+     * This queue holds HTTP requests waiting for one of the running requests to finish
+     */
+    private final Queue<OHCloudExchange> mQueuedRequests = new LinkedList<OHCloudExchange>();
+    /*
+     * This variable holds the number of requests sent to local openHAB and not finished yet,
+     * guarded by mQueuedRequests
+     */
+    private int mRunningCount;
     /*
      * This variable indicates if connection to openHAB Cloud cloud is currently in an established state
      */
-    private boolean mIsConnected;
+    private volatile boolean mIsConnected;
     
     /*
      * This variable holds version of local openHAB
@@ -116,6 +154,24 @@ public class CloudClient {
     private boolean remoteAccessEnabled;
     private Set<String> exposedItems;
 
+    /*
+     * This variable holds the item updates which have not been sent to openHAB Cloud yet
+     */
+    private final ItemUpdateBuffer mItemUpdates = new ItemUpdateBuffer();
+    /*
+     * This variable holds the interval in milliseconds in which item updates are sent,
+     * 0 sends every update immediately
+     */
+    private long mItemUpdateInterval = DEFAULT_ITEM_UPDATE_INTERVAL;
+    /*
+     * This variable indicates if several item updates are sent in one 'itemupdates' frame
+     */
+    private boolean mItemUpdateBatching = false;
+    /*
+     * This variable holds the scheduler which sends the buffered item updates
+     */
+    private ScheduledExecutorService mItemUpdateScheduler;
+
     /**
      * Constructor of CloudClient
      * 
@@ -130,7 +186,7 @@ public class CloudClient {
         this.baseURL = baseURL;
         this.remoteAccessEnabled = remoteAccessEnabled;
         this.exposedItems = exposedItems;
-        mRunningRequests = new HashMap<Integer, OHCloudExchange>();
+        mRunningRequests = new ConcurrentHashMap<Integer, OHCloudExchange>();
     }
 
     /**
@@ -168,6 +224,8 @@ public class CloudClient {
                 logger.debug("Socket.IO connected");
                 mIsConnected = true;
                 onConnect();
+                // send the updates which were buffered while disconnected
+                scheduleItemUpdateFlush(0);
             }
         }).on(Socket.EVENT_DISCONNECT, new Emitter.Listener() {
             @Override
@@ -198,9 +256,43 @@ public class CloudClient {
                 onEvent("command", (JSONObject) args[0]);
             }
         });
+        startItemUpdateScheduler();
         mSocket.connect();
     }
 
+    private void startItemUpdateScheduler() {
+        if (mItemUpdateScheduler == null) {
+            mItemUpdateScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "openHAB Cloud item updates");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        if (mItemUpdateInterval > 0) {
+            mItemUpdateScheduler.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    flushItemUpdates();
+                }
+            }, mItemUpdateInterval, mItemUpdateInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void scheduleItemUpdateFlush(long delay) {
+        ScheduledExecutorService scheduler = mItemUpdateScheduler;
+        if (scheduler != null && !scheduler.isShutdown()) {
+            scheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    flushItemUpdates();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
     @SuppressWarnings("restriction")
     private void startJetty() {
         stopJetty();
@@ -247,6 +339,7 @@ public class CloudClient {
                 this.mOHBaseUrl);
         mIsConnected = false;
         // Stop Jetty client to shut down ongoing remote requests - we will never be able to serve them after disconnect
+        abortRequests();
         stopJetty();
     }
 
@@ -297,25 +390,24 @@ public class CloudClient {
             JSONObject requestQueryJson = data.getJSONObject("query");
             Iterator<String> headersIterator = requestHeadersJson.keys();
             // Create URI builder with base request URI of openHAB and path from request
-            String newPath = URIUtil.addPaths(mOHBaseUrl, requestPath);
+            StringBuilder newPath = new StringBuilder(URIUtil.addPaths(mOHBaseUrl, requestPath));
             Iterator<String> queryIterator = requestQueryJson.keys();
             // Add query parameters to URI builder, if any
-            newPath += "?";
+            newPath.append('?');
             while (queryIterator.hasNext()) {
                 String queryName = queryIterator.next();
-                newPath += queryName;
-                newPath += "=";
-                newPath += URLEncoder.encode(requestQueryJson.getString(queryName), "UTF-8");
+                newPath.append(queryName).append('=');
+                newPath.append(URLEncoder.encode(requestQueryJson.getString(queryName), "UTF-8"));
                 if (queryIterator.hasNext()) {
-                    newPath += "&";
+                    newPath.append('&');
                 }
             }
             // Finally get the future request URI
-            URI requestUri = new URI(newPath);
+            URI requestUri = new URI(newPath.toString());
             // All preparations which are common for different methods are done
             // Now perform the request to openHAB
             // If method is GET
-            logger.debug("Request method is " + requestMethod);
+            logger.debug("Request method is {}", requestMethod);
             OHCloudExchange exchange = new OHCloudExchange(requestId);
             exchange.setURI(requestUri);
             exchange.setRequestHeaders(requestHeadersJson);
@@ -335,10 +427,7 @@ public class CloudClient {
                 logger.error("Unsupported request method " + requestMethod);
                 return;
             }
-            mJettyClient.send(exchange);
-            // If successfully submitted request to http client, add it to the list of currently
-            // running requests to be able to cancel it if needed
-            mRunningRequests.put(requestId, exchange);
+            submitRequest(exchange);
         } catch (JSONException e) {
             logger.error(e.getMessage());
         } catch (IOException e) {
@@ -348,15 +437,114 @@ public class CloudClient {
         }
     }
 
+    /**
+     * Sends a request to local openHAB or queues it if too many requests are running.
+     * Requests are added to the list of running requests before they are sent,
+     * to be able to cancel them even before the response arrives.
+     */
+
+    private void submitRequest(OHCloudExchange exchange) {
+        synchronized (mQueuedRequests) {
+            if (mRunningCount >= MAX_RUNNING_REQUESTS) {
+                if (mQueuedRequests.size() >= MAX_QUEUED_REQUESTS) {
+                    logger.warn("Too many requests from openHAB Cloud, rejecting request {}", exchange.mRequestId);
+                    sendResponseError(exchange.mRequestId, "openHAB is busy, too many requests");
+                    return;
+                }
+                logger.debug("Queueing request {}, {} requests running", exchange.mRequestId, mRunningCount);
+                mRunningRequests.put(exchange.mRequestId, exchange);
+                mQueuedRequests.add(exchange);
+                return;
+            }
+            mRunningCount++;
+            exchange.mStarted = true;
+        }
+        mRunningRequests.put(exchange.mRequestId, exchange);
+        startRequest(exchange);
+    }
+
+    private void startRequest(OHCloudExchange exchange) {
+        HttpClient jettyClient = mJettyClient;
+        try {
+            if (jettyClient == null) {
+                throw new IOException("HTTP client is not running");
+            }
+            jettyClient.send(exchange);
+        } catch (IOException e) {
+            logger.error(e.getMessage());
+            sendResponseError(exchange.mRequestId, "openHAB connection error: " + e.getMessage());
+            requestFinished(exchange);
+        }
+    }
+
+    /**
+     * Removes a finished, failed or cancelled request from the list of running requests
+     * and sends the next queued request. Does nothing if the request has been finished before.
+     */
+
+    private void requestFinished(OHCloudExchange exchange) {
+        if (!exchange.mFinished.compareAndSet(false, true)) {
+            return;
+        }
+        mRunningRequests.remove(exchange.mRequestId, exchange);
+        OHCloudExchange next;
+        synchronized (mQueuedRequests) {
+            if (!exchange.mStarted) {
+                mQueuedRequests.remove(exchange);
+                return;
+            }
+            next = mQueuedRequests.poll();
+            if (next == null) {
+                mRunningCount--;
+                return;
+            }
+            next.mStarted = true;
+        }
+        startRequest(next);
+    }
+
+    /**
+     * Cancels all queued and running requests
+     */
+
+    private void abortRequests() {
+        List<OHCloudExchange> queued;
+        synchronized (mQueuedRequests) {
+            queued = new ArrayList<OHCloudExchange>(mQueuedRequests);
+            mQueuedRequests.clear();
+        }
+        // finish the queued requests first, so no queued request is started for a finished one
+        for (OHCloudExchange exchange : queued) {
+            requestFinished(exchange);
+        }
+        for (OHCloudExchange exchange : mRunningRequests.values()) {
+            exchange.cancel();
+            requestFinished(exchange);
+        }
+    }
+
+    private void sendResponseError(int requestId, String responseStatusText) {
+        JSONObject responseJson = new JSONObject();
+        try {
+            responseJson.put("id", requestId);
+            responseJson.put("responseStatusText", responseStatusText);
+            if (mSocket != null) {
+                mSocket.emit("responseError", responseJson);
+            }
+        } catch (JSONException e) {
+            logger.error(e.getMessage());
+        }
+    }
+
     private void handleCancelEvent(JSONObject data) {
         try {
             int requestId = data.getInt("id");
             logger.debug("Received cancel for request {}", requestId);
-            // Find and cancel running request
-            if (mRunningRequests.containsKey(requestId)) {
-                OHCloudExchange requestExchange = mRunningRequests.get(requestId);
+            // Find and cancel running or queued request
+            OHCloudExchange requestExchange = mRunningRequests.get(requestId);
+            if (requestExchange != null) {
                 requestExchange.cancel();
-                mRunningRequests.remove(requestId);
+                requestFinished(requestExchange);
             }
         } catch (JSONException e) {
             logger.error(e.getMessage());
@@ -460,18 +648,57 @@ public class CloudClient {
      */
 
     public void sendItemUpdate(String itemName, String itemStatus) {
-        if (isConnected()) {
-            JSONObject itemUpdateMessage = new JSONObject();
-            try {
-                itemUpdateMessage.put("itemName", itemName);
-                itemUpdateMessage.put("itemStatus", itemStatus);
-                mSocket.emit("itemupdate", itemUpdateMessage);
-            } catch (JSONException e) {
-                logger.error(e.getMessage());
+        mItemUpdates.add(itemName, itemStatus);
+        if (mItemUpdateInterval <= 0) {
+            scheduleItemUpdateFlush(0);
+        } else if (!isConnected()) {
+            logger.debug("No connection, Item update is buffered until reconnect");
+        }
+    }
+
+    /**
+     * Send the buffered item updates to openHAB Cloud. While there is no connection
+     * the updates stay in the buffer, only the latest state of every item is kept.
+     */
+
+    private synchronized void flushItemUpdates() {
+        if (!isConnected() || mItemUpdates.size() == 0) {
+            return;
+        }
+        Map<String, String> updates = mItemUpdates.drain();
+        try {
+            if (mItemUpdateBatching && updates.size() > 1) {
+                JSONArray itemUpdatesArray = new JSONArray();
+                for (Map.Entry<String, String> update : updates.entrySet()) {
+                    itemUpdatesArray.put(createItemUpdateMessage(update.getKey(), update.getValue()));
+                }
+                JSONObject itemUpdatesMessage = new JSONObject();
+                itemUpdatesMessage.put("itemUpdates", itemUpdatesArray);
+                mSocket.emit("itemupdates", itemUpdatesMessage);
+                mItemUpdates.sent(itemUpdatesMessage.toString().length());
+            } else {
+                for (Map.Entry<String, String> update : updates.entrySet()) {
+                    JSONObject itemUpdateMessage = createItemUpdateMessage(update.getKey(), update.getValue());
+                    mSocket.emit("itemupdate", itemUpdateMessage);
+                    mItemUpdates.sent(itemUpdateMessage.toString().length());
+                }
             }
-        } else {
-            logger.debug("No connection, Item update is not sent");
+        } catch (JSONException e) {
+            logger.error(e.getMessage());
+        } catch (RuntimeException e) {
+            // keep the updates for the next attempt
+            logger.warn("Error sending item updates to openHAB Cloud: {}", e.getMessage());
+            mItemUpdates.restore(updates);
+            return;
         }
+        logger.debug("Sent {} item updates to openHAB Cloud, {}", updates.size(), mItemUpdates.getStatistics());
+    }
+
+    private JSONObject createItemUpdateMessage(String itemName, String itemStatus) throws JSONException {
+        JSONObject itemUpdateMessage = new JSONObject();
+        itemUpdateMessage.put("itemName", itemName);
+        itemUpdateMessage.put("itemStatus", itemStatus);
+        return itemUpdateMessage;
     }
 
     /**
@@ -488,6 +715,11 @@ public class CloudClient {
 
     public void shutdown() {
         logger.info("Shutting down openHAB Cloud service connection");
+        if (mItemUpdateScheduler != null) {
+            mItemUpdateScheduler.shutdownNow();
+            mItemUpdateScheduler = null;
+        }
+        logger.info("openHAB Cloud item updates: {}", mItemUpdates.getStatistics());
         try {
             mJettyClient.stop();
         } catch (Exception e) {
@@ -515,10 +747,52 @@ public class CloudClient {
         this.mOpenHABVersion = mOpenHABVersion;
     }
 
+    /**
+     * Set the interval in which item updates are sent to openHAB Cloud. Must be set
+     * before connecting.
+     *
+     * @param itemUpdateInterval interval in milliseconds, 0 to send every update immediately
+     *
+     */
+
+    public void setItemUpdateInterval(long itemUpdateInterval) {
+        this.mItemUpdateInterval = itemUpdateInterval;
+    }
+
+    /**
+     * Set whether several item updates are sent in one 'itemupdates' frame instead of
+     * one 'itemupdate' frame per item. This requires an openHAB Cloud server which
+     * supports the 'itemupdates' event.
+     *
+     * @param itemUpdateBatching true to send batched frames
+     *
+     */
+
+    public void setItemUpdateBatching(boolean itemUpdateBatching) {
+        this.mItemUpdateBatching = itemUpdateBatching;
+    }
+
     public void setListener(CloudClientListener mListener) {
         this.mListener = mListener;
     }
 
+    /**
+     * Returns the content of a Jetty buffer as array to be sent by Socket.IO. Socket.IO sends
+     * the array asynchronously, so the backing array of the buffer is only passed on as is if
+     * it holds exactly the content and the buffer is not volatile, i.e. Jetty doesn't reuse it
+     * after the content callback. Otherwise the content is copied once.
+     *
+     * @param content the response content received by Jetty
+     * @return the content as array
+     */
+    static byte[] getContentArray(Buffer content) {
+        byte[] array = content.array();
+        if (array != null && !content.isVolatile() && content.getIndex() == 0 && content.length() == array.length) {
+            return array;
+        }
+        return content.asArray();
+    }
+
     /*
      * An internal class which extends ContentExchange and forwards response
      * headers and data back to openHAB Cloud
@@ -527,12 +801,21 @@ public class CloudClient {
 
     private class OHCloudExchange extends ContentExchange {
 
-        private int mRequestId;
-        private HashMap<String, String> mResponseHeaders;
+        private final int mRequestId;
+        private final JSONObject mResponseHeaders = new JSONObject();
+        /*
+         * Indicates if the request has been sent to local openHAB, guarded by mQueuedRequests
+         */
+        private boolean mStarted;
+        private final AtomicBoolean mFinished = new AtomicBoolean();
 
         public OHCloudExchange(int requestId) {
             mRequestId = requestId;
-            mResponseHeaders = new HashMap<String, String>();
+        }
+
+        private boolean isCancelled() {
+            int status = getStatus();
+            return status == STATUS_CANCELLING || status == STATUS_CANCELLED;
         }
 
         public void setRequestHeaders(JSONObject requestHeadersJson) {
@@ -543,7 +826,7 @@ public class CloudClient {
                 String headerValue;
                 try {
                     headerValue = requestHeadersJson.getString(headerName);
-                    logger.debug("Jetty set header " + headerName + " = " + headerValue);
+                    logger.debug("Jetty set header {} = {}", headerName, headerValue);
                     if (!headerName.equalsIgnoreCase("Content-Length")) {
                         this.setRequestHeader(headerName, headerValue);
                     }
@@ -554,15 +837,7 @@ public class CloudClient {
         }
 
         public JSONObject getJSONHeaders() {
-            JSONObject headersJSON = new JSONObject();
-            try {
-                for (Map.Entry<String, String> responseHeader : mResponseHeaders.entrySet()) {
-                    headersJSON.put(responseHeader.getKey(), responseHeader.getValue());
-                }
-            } catch (JSONException e) {
-                logger.error("Error forming response headers: {}", e.getMessage());
-            }
-            return headersJSON;
+            return mResponseHeaders;
         }
 
         /*
@@ -593,14 +868,15 @@ public class CloudClient {
 
         @Override
         public void onResponseContent(Buffer content) {
-            logger.debug("Jetty received response content of size " + String.valueOf(content.length()));
+            logger.debug("Jetty received response content of size {}", content.length());
+            if (isCancelled()) {
+                return;
+            }
             JSONObject responseJson = new JSONObject();
             try {
                 responseJson.put("id", mRequestId);
-                responseJson.put("body", content.asArray());
-                if (this.getStatus() != STATUS_CANCELLING && this.getStatus() != STATUS_CANCELLED) {
-                    mSocket.emit("responseContentBinary", responseJson);
-                }
+                responseJson.put("body", getContentArray(content));
+                mSocket.emit("responseContentBinary", responseJson);
                 logger.debug("Sent content to request {}", mRequestId);
             } catch (JSONException e) {
                 logger.error(e.getMessage());
@@ -609,8 +885,14 @@ public class CloudClient {
 
         @Override
         public void onResponseHeader(Buffer name, Buffer value) {
-            mResponseHeaders.put(name.toString(), value.toString());
-            logger.debug("Jetty received header " + name.toString() + " = " + value.toString());
+            String headerName = name.toString();
+            String headerValue = value.toString();
+            try {
+                mResponseHeaders.put(headerName, headerValue);
+            } catch (JSONException e) {
+                logger.error("Error forming response headers: {}", e.getMessage());
+            }
+            logger.debug("Jetty received header {} = {}", headerName, headerValue);
         }
 
         @Override
@@ -622,7 +904,7 @@ public class CloudClient {
                 responseJson.put("headers", getJSONHeaders());
                 responseJson.put("responseStatusCode", getResponseStatus());
                 responseJson.put("responseStatusText", "OK");
-                if (this.getStatus() != STATUS_CANCELLING && this.getStatus() != STATUS_CANCELLED) {
+                if (!isCancelled()) {
                     mSocket.emit("responseHeader", responseJson);
                 }
                 logger.debug("Sent headers to request {}", mRequestId);
@@ -636,11 +918,11 @@ public class CloudClient {
             int status = getResponseStatus();
             logger.debug("Jetty request complete {} with status {}", mRequestId, status);
             // Remove this request from list of running requests
-            mRunningRequests.remove(mRequestId);
+            requestFinished(this);
             JSONObject responseJson = new JSONObject();
             try {
                 responseJson.put("id", mRequestId);
-                if (this.getStatus() != STATUS_CANCELLING && this.getStatus() != STATUS_CANCELLED) {
+                if (!isCancelled()) {
                     mSocket.emit("responseFinished", responseJson);
                 }
                 logger.debug("Finished responding to request {}", mRequestId);
@@ -653,15 +935,27 @@ public class CloudClient {
         @Override
         protected void onConnectionFailed(Throwable x) {
             logger.error(x.getMessage());
-            JSONObject responseJson = new JSONObject();
-            try {
-                responseJson.put("id", mRequestId);
-                responseJson.put("responseStatusText", "openHAB connection error: " + x.getMessage());
-                if (this.getStatus() != STATUS_CANCELLING && this.getStatus() != STATUS_CANCELLED) {
-                    mSocket.emit("responseError", responseJson);
-                }
-            } catch (JSONException e) {
-                logger.error(e.getMessage());
+            requestFinished(this);
+            if (!isCancelled()) {
+                sendResponseError(mRequestId, "openHAB connection error: " + x.getMessage());
+            }
+        }
+
+        @Override
+        protected void onException(Throwable x) {
+            logger.error("Error proxying request {}: {}", mRequestId, x.getMessage());
+            requestFinished(this);
+            if (!isCancelled()) {
+                sendResponseError(mRequestId, "openHAB connection error: " + x.getMessage());
+            }
+        }
+
+        @Override
+        protected void onExpire() {
+            logger.debug("Request {} expired", mRequestId);
+            requestFinished(this);
+            if (!isCancelled()) {
+                sendResponseError(mRequestId, "openHAB request timed out");
             }
         }
 
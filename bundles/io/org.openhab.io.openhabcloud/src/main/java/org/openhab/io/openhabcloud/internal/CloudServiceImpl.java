@@ -66,6 +66,8 @@ public class CloudServiceImpl implements NotificationAction, ActionService, Clou
 	private static final String CFG_BASE_URL = "baseURL";
 	private static final String CFG_MODE = "mode";
 	private static final String CFG_PORT = "localPort";
+	private static final String CFG_UPDATE_INTERVAL = "updateInterval";
+	private static final String CFG_BATCH_UPDATES = "batchUpdates";
 	private static final String STATIC_CONTENT_DIR = "webapps" + File.separator + "static";
 	private static final String UUID_FILE_NAME = "uuid";
 	private static final String SECRET_FILE_NAME = "secret";
@@ -76,6 +78,8 @@ public class CloudServiceImpl implements NotificationAction, ActionService, Clou
 	private String cloudBaseUrl;
 	private int mLocalPort = 8080;
 	private boolean remoteAccessEnabled = true;
+	private long itemUpdateInterval = CloudClient.DEFAULT_ITEM_UPDATE_INTERVAL;
+	private boolean itemUpdateBatching = false;
 	private Set<String> exposedItems = null;
 
 	protected ItemUIRegistry mItemUIRegistry = null;
@@ -159,6 +163,24 @@ public class CloudServiceImpl implements NotificationAction, ActionService, Clou
 			logger.debug("local port set to '{}'", mLocalPort);
 		}
 
+		String updateIntervalString = (String) config.get(CFG_UPDATE_INTERVAL);
+		if (StringUtils.isNotBlank(updateIntervalString)) {
+			try {
+				itemUpdateInterval = Long.parseLong(updateIntervalString.trim());
+				logger.debug("item update interval set to '{}'", itemUpdateInterval);
+			} catch (NumberFormatException e) {
+				logger.warn("Invalid item update interval '{}', using {}ms", updateIntervalString,
+						CloudClient.DEFAULT_ITEM_UPDATE_INTERVAL);
+				itemUpdateInterval = CloudClient.DEFAULT_ITEM_UPDATE_INTERVAL;
+			}
+		}
+
+		String batchUpdatesString = (String) config.get(CFG_BATCH_UPDATES);
+		if (StringUtils.isNotBlank(batchUpdatesString)) {
+			itemUpdateBatching = Boolean.parseBoolean(batchUpdatesString.trim());
+			logger.debug("item update batching set to '{}'", itemUpdateBatching);
+		}
+
 		if (config.get(CFG_BASE_URL) != null) {
 			cloudBaseUrl = (String) config.get(CFG_BASE_URL);
 		} else {
@@ -198,6 +220,8 @@ public class CloudServiceImpl implements NotificationAction, ActionService, Clou
 			cloudClient.setOHBaseUrl("http://localhost:" + String.valueOf(mLocalPort));
 		}
 		cloudClient.setOpenHABVersion(getVersion());
+		cloudClient.setItemUpdateInterval(itemUpdateInterval);
+		cloudClient.setItemUpdateBatching(itemUpdateBatching);
 		cloudClient.connect();
 		cloudClient.setListener(this);
 		CloudService.notificationAction = this;
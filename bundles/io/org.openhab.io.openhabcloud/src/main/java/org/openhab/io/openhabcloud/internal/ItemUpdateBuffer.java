@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.openhabcloud.internal;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class collects item updates until they are sent to openHAB Cloud. Only
+ * the latest state of every item is kept, so an item which changes several
+ * times between two flushes causes only one update. As there is at most one
+ * pending update per exposed item, the buffer can hold the updates while the
+ * connection to openHAB Cloud is down without growing unbounded.
+ *
+ * It also counts the updates and what has been sent, to report the frames and
+ * bytes saved compared to sending every single update.
+ *
+ * @author agent
+ * @since 1.9.0
+ *
+ */
+class ItemUpdateBuffer {
+
+    /*
+     * Size of the JSON of a single update without item name and status: {"itemName":"","itemStatus":""}
+     */
+    private static final int SINGLE_UPDATE_OVERHEAD = 29;
+
+    private Map<String, String> pendingUpdates = new LinkedHashMap<String, String>();
+
+    private long updateCount;
+    private long unbufferedBytes;
+    private long sentFrameCount;
+    private long sentBytes;
+
+    /**
+     * Adds an update, replacing a pending update of the same item
+     *
+     * @param itemName the name of the item
+     * @param itemStatus the new state of the item
+     */
+    public synchronized void add(String itemName, String itemStatus) {
+        // a pending update keeps its position, so items are sent in the order they first changed
+        pendingUpdates.put(itemName, itemStatus);
+        updateCount++;
+        unbufferedBytes += SINGLE_UPDATE_OVERHEAD + itemName.length() + itemStatus.length();
+    }
+
+    /**
+     * Removes all pending updates from the buffer
+     *
+     * @return the pending updates by item name, in the order they were first added
+     */
+    public synchronized Map<String, String> drain() {
+        if (pendingUpdates.isEmpty()) {
+            return pendingUpdates;
+        }
+        Map<String, String> updates = pendingUpdates;
+        pendingUpdates = new LinkedHashMap<String, String>();
+        return updates;
+    }
+
+    /**
+     * Puts updates which could not be sent back into the buffer. Updates added
+     * in the meantime are newer and take precedence.
+     *
+     * @param updates the updates returned by {@link #drain()}
+     */
+    public synchronized void restore(Map<String, String> updates) {
+        Map<String, String> merged = new LinkedHashMap<String, String>(updates);
+        merged.putAll(pendingUpdates);
+        pendingUpdates = merged;
+    }
+
+    /**
+     * Records a frame sent to openHAB Cloud
+     *
+     * @param bytes the size of the frame
+     */
+    public synchronized void sent(int bytes) {
+        sentFrameCount++;
+        sentBytes += bytes;
+    }
+
+    public synchronized int size() {
+        return pendingUpdates.size();
+    }
+
+    /**
+     * Returns a summary of the updates and the frames and bytes saved
+     */
+    public synchronized String getStatistics() {
+        return String.format("%d item updates sent in %d frames (%d frames saved), %d bytes (%d bytes saved)",
+                updateCount - pendingUpdates.size(), sentFrameCount,
+                Math.max(0, updateCount - pendingUpdates.size() - sentFrameCount), sentBytes,
+                Math.max(0, unbufferedBytes - sentBytes));
+    }
+}
@@ -0,0 +1,233 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.cul.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.openhab.io.transport.cul.CULFrame;
+import org.openhab.io.transport.cul.CULFrameListener;
+import org.openhab.io.transport.cul.CULListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class CULReceiveDispatcherTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(CULReceiveDispatcherTest.class);
+
+    /** lines as captured from a CUL in SLOW_RF mode with FS20, FHT, EM and MAX! devices around */
+    private static final String[] CAPTURED_LOG = { "F12340111", "T3E4F00A64A", "F5678011126", "E020DB0F101AE0000D2",
+            "K01225510", "T3E4F42A629", "F12340100", "H1A2B0100F0001A", "Z0B0102044F18A8B123456000", "F9ABC1311",
+            "T3E4F43A60A", "F56780100", "Z0E02020242ABCD123456001900FA", "E020DB1F101AF0000D2", "F12340111" };
+
+    /** the lines the replay may be ahead of the listener, well below the capacity of a lane */
+    private static final int MAX_BACKLOG = 64;
+
+    private CULReceiveDispatcher dispatcher;
+
+    @After
+    public void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    public void frame_parsesAddressAndFields() {
+        CULFrame fs20 = new CULFrame("F12340111");
+        assertEquals('F', fs20.getProtocol());
+        assertEquals("123401", fs20.getAddress());
+        assertEquals(0x11, fs20.getHexValue(7, 2));
+        assertEquals(new CULFrame("F12340100").getDeviceHash(), fs20.getDeviceHash());
+
+        CULFrame max = new CULFrame("Z0B0102044F18A8B123456000");
+        assertEquals("4F18A8", max.getAddress());
+
+        assertNull(new CULFrame("V 1.61").getAddress());
+        assertNull(new CULFrame("F12").getAddress());
+        assertEquals(0, new CULFrame("").getProtocol());
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void frame_rejectsInvalidHex() {
+        new CULFrame("F1234XX11").getHexValue(5, 2);
+    }
+
+    @Test
+    public void registry_routesByPrefix() {
+        CULListenerRegistry registry = new CULListenerRegistry();
+        CULListener fs20 = new RecordingListener();
+        CULListener maxcul = new RecordingListener();
+        CULListener all = new RecordingListener();
+        registry.register(fs20, "F");
+        registry.register(maxcul, "Z");
+        registry.register(all);
+
+        assertEquals(listOf(all, fs20), registry.getListeners(new CULFrame("F12340111")));
+        assertEquals(listOf(all, maxcul), registry.getListeners(new CULFrame("Z0B0102044F18A8B123456000")));
+        assertEquals(listOf(all), registry.getListeners(new CULFrame("T3E4F00A64A")));
+        assertEquals(3, registry.getAll().size());
+
+        registry.unregister(fs20);
+        assertEquals(listOf(all), registry.getListeners(new CULFrame("F12340111")));
+
+        registry.unregister(all);
+        registry.unregister(maxcul);
+        assertTrue(registry.isEmpty());
+    }
+
+    @Test
+    public void registry_matchesLongerPrefixes() {
+        CULListenerRegistry registry = new CULListenerRegistry();
+        CULListener listener = new RecordingListener();
+        registry.register(listener, "Zs", "T3E");
+
+        assertEquals(listOf(listener), registry.getListeners(new CULFrame("Zs0B01")));
+        assertEquals(listOf(listener), registry.getListeners(new CULFrame("T3E4F00A64A")));
+        assertTrue(registry.getListeners(new CULFrame("Z0B01")).isEmpty());
+        assertTrue(registry.getListeners(new CULFrame("T1111")).isEmpty());
+    }
+
+    @Test
+    public void dispatch_keepsOrderPerDevice() throws Exception {
+        dispatcher = new CULReceiveDispatcher("test");
+        int rounds = 200;
+        RecordingListener listener = new RecordingListener(rounds * CAPTURED_LOG.length);
+
+        replay(listener, rounds);
+        assertTrue(listener.latch.await(10, TimeUnit.SECONDS));
+
+        Map<Integer, List<String>> expected = new HashMap<Integer, List<String>>();
+        for (int i = 0; i < rounds; i++) {
+            for (String line : CAPTURED_LOG) {
+                CULFrame frame = new CULFrame(line);
+                List<String> lines = expected.get(frame.getDeviceHash());
+                if (lines == null) {
+                    lines = new ArrayList<String>();
+                    expected.put(frame.getDeviceHash(), lines);
+                }
+                lines.add(line);
+            }
+        }
+        assertEquals(expected, listener.getByDevice());
+        assertEquals(0, dispatcher.getDroppedCount());
+    }
+
+    @Test
+    public void dispatch_dropsWhenLaneIsFull() throws Exception {
+        dispatcher = new CULReceiveDispatcher("test", 1, 10);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        CULListener slow = new RecordingListener() {
+            @Override
+            public void frameReceived(CULFrame frame) {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        List<CULListener> listeners = listOf(slow);
+        for (int i = 0; i < 20; i++) {
+            dispatcher.dispatch(new CULFrame("F12340111"), listeners);
+        }
+        blocked.countDown();
+        assertTrue(dispatcher.getDroppedCount() >= 9);
+    }
+
+    @Test
+    public void dispatch_replayThroughput() throws Exception {
+        dispatcher = new CULReceiveDispatcher("test");
+        int rounds = 20000;
+        RecordingListener listener = new RecordingListener(rounds * CAPTURED_LOG.length);
+
+        long start = System.nanoTime();
+        replay(listener, rounds);
+        assertTrue(listener.latch.await(30, TimeUnit.SECONDS));
+        long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        logger.info("Dispatched {} captured lines in {}ms ({} lines/s), {} dropped", rounds * CAPTURED_LOG.length,
+                millis, rounds * CAPTURED_LOG.length * 1000L / millis, dispatcher.getDroppedCount());
+    }
+
+    private void replay(RecordingListener listener, int rounds) throws InterruptedException {
+        CULListenerRegistry registry = new CULListenerRegistry();
+        registry.register(listener);
+        long total = listener.latch.getCount();
+        long dispatched = 0;
+        for (int i = 0; i < rounds; i++) {
+            for (String line : CAPTURED_LOG) {
+                // the CUL delivers lines at the speed of the serial line, don't let the replay outrun the lanes
+                while (dispatched - (total - listener.latch.getCount()) >= MAX_BACKLOG) {
+                    Thread.sleep(1);
+                }
+                CULFrame frame = new CULFrame(line);
+                dispatcher.dispatch(frame, registry.getListeners(frame));
+                dispatched++;
+            }
+        }
+    }
+
+    private static List<CULListener> listOf(CULListener... listeners) {
+        List<CULListener> list = new ArrayList<CULListener>();
+        Collections.addAll(list, listeners);
+        return list;
+    }
+
+    private static class RecordingListener implements CULFrameListener {
+
+        private final Map<Integer, List<String>> byDevice = new HashMap<Integer, List<String>>();
+        private final CountDownLatch latch;
+
+        RecordingListener() {
+            this(0);
+        }
+
+        RecordingListener(int expected) {
+            latch = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void frameReceived(CULFrame frame) {
+            synchronized (byDevice) {
+                List<String> lines = byDevice.get(frame.getDeviceHash());
+                if (lines == null) {
+                    lines = new ArrayList<String>();
+                    byDevice.put(frame.getDeviceHash(), lines);
+                }
+                lines.add(frame.getData());
+            }
+            latch.countDown();
+        }
+
+        Map<Integer, List<String>> getByDevice() {
+            synchronized (byDevice) {
+                return new HashMap<Integer, List<String>>(byDevice);
+            }
+        }
+
+        @Override
+        public void dataReceived(String data) {
+            fail("frame listeners must not receive raw data");
+        }
+
+        @Override
+        public void error(Exception e) {
+        }
+    }
+}
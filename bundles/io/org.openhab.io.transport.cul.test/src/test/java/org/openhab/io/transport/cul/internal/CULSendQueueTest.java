@@ -0,0 +1,313 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.cul.internal;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PipedReader;
+import java.io.PipedWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Test;
+import org.openhab.io.transport.cul.CULCommunicationException;
+import org.openhab.io.transport.cul.CULDeviceException;
+import org.openhab.io.transport.cul.CULMode;
+import org.openhab.io.transport.cul.CULSendPriority;
+
+public class CULSendQueueTest {
+
+    @Test
+    public void take_byPriorityAndArrival() throws Exception {
+        CULSendQueue queue = new CULSendQueue();
+        queue.add("F12340111", CULSendPriority.LOW);
+        queue.add("F56780111", CULSendPriority.NORMAL);
+        queue.add("Zs0B01", CULSendPriority.HIGH);
+        queue.add("F9ABC0111", CULSendPriority.NORMAL);
+
+        assertEquals("Zs0B01", queue.take());
+        assertEquals("F56780111", queue.take());
+        assertEquals("F9ABC0111", queue.take());
+        assertEquals("F12340111", queue.take());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void add_coalescesAbsoluteFS20Commands() throws Exception {
+        CULSendQueue queue = new CULSendQueue();
+        queue.add("F12340111", CULSendPriority.NORMAL);
+        queue.add("F56780111", CULSendPriority.NORMAL);
+        queue.add("F12340100", CULSendPriority.NORMAL);
+
+        assertEquals(2, queue.size());
+        assertEquals(1, queue.getCoalescedCount());
+        assertEquals("F12340100", queue.take());
+        assertEquals("F56780111", queue.take());
+    }
+
+    @Test
+    public void add_keepsRelativeCommands() throws Exception {
+        CULSendQueue queue = new CULSendQueue();
+        queue.add("F12340112", CULSendPriority.NORMAL);
+        queue.add("F12340112", CULSendPriority.NORMAL);
+        queue.add("Zs0B0100", CULSendPriority.NORMAL);
+        queue.add("Zs0B0100", CULSendPriority.NORMAL);
+
+        assertEquals(4, queue.size());
+        assertEquals(0, queue.getCoalescedCount());
+    }
+
+    @Test
+    public void add_coalescedCommandKeepsHigherPriority() throws Exception {
+        CULSendQueue queue = new CULSendQueue();
+        queue.add("F12340111", CULSendPriority.LOW);
+        queue.add("F56780111", CULSendPriority.NORMAL);
+        queue.add("F12340100", CULSendPriority.HIGH);
+
+        assertEquals("F12340100", queue.take());
+        assertEquals("F56780111", queue.take());
+    }
+
+    @Test
+    public void poll_waitsForCredits() throws Exception {
+        FakeClock clock = new FakeClock();
+        CULSendQueue queue = new CULSendQueue(clock);
+        queue.creditsReported(0);
+        queue.add("F12340111", CULSendPriority.NORMAL);
+
+        assertNull(queue.poll());
+        clock.advance((CULSendQueue.estimateCost("F12340111") - 1) * 1000);
+        assertNull(queue.poll());
+        clock.advance(1000);
+        assertEquals("F12340111", queue.poll());
+    }
+
+    @Test
+    public void take_wakesUpOnCreditReport() throws Exception {
+        CULSendQueue queue = new CULSendQueue(new FakeClock());
+        queue.creditsReported(0);
+        queue.add("F12340111", CULSendPriority.NORMAL);
+
+        TakeThread taker = new TakeThread(queue);
+        taker.start();
+        queue.creditsReported(100);
+        taker.join(5000);
+        assertEquals("F12340111", taker.command);
+    }
+
+    @Test
+    public void poll_sendsCommandsWithoutAirTime() throws Exception {
+        CULSendQueue queue = new CULSendQueue(new FakeClock());
+        queue.creditsReported(0);
+        queue.add("V", CULSendPriority.NORMAL);
+
+        assertEquals("V", queue.poll());
+    }
+
+    @Test
+    public void poll_commandsWithoutAirTimePassCommandWaitingForCredits() throws Exception {
+        FakeClock clock = new FakeClock();
+        CULSendQueue queue = new CULSendQueue(clock);
+        queue.creditsReported(0);
+        queue.add("Zs0B0100", CULSendPriority.HIGH);
+        queue.add("F12340111", CULSendPriority.HIGH);
+        queue.add("V", CULSendPriority.LOW);
+        queue.add("X21", CULSendPriority.NORMAL);
+
+        assertEquals("X21", queue.poll());
+        assertEquals("V", queue.poll());
+        assertNull(queue.poll());
+        assertEquals(2, queue.size());
+
+        clock.advance(CULSendQueue.estimateCost("Zs0B0100") * 1000);
+        assertEquals("Zs0B0100", queue.poll());
+    }
+
+    @Test
+    public void poll_lowPriorityLeavesReserve() throws Exception {
+        CULSendQueue queue = new CULSendQueue(new FakeClock());
+        queue.creditsReported(CULSendQueue.LOW_PRIORITY_RESERVE);
+        queue.add("F12340111", CULSendPriority.LOW);
+
+        assertNull(queue.poll());
+
+        queue.add("F56780111", CULSendPriority.NORMAL);
+        assertEquals("F56780111", queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void sent_deductsEstimatedCredits() throws Exception {
+        FakeClock clock = new FakeClock();
+        CULSendQueue queue = new CULSendQueue(clock);
+        queue.creditsReported(CULSendQueue.estimateCost("F12340111"));
+        queue.add("F12340111", CULSendPriority.NORMAL);
+        queue.sent(queue.poll());
+        queue.add("F56780111", CULSendPriority.NORMAL);
+
+        assertNull(queue.poll());
+        assertEquals(1, queue.getSentCount());
+
+        clock.advance(CULSendQueue.estimateCost("F56780111") * 1000);
+        assertEquals("F56780111", queue.poll());
+    }
+
+    @Test
+    public void handler_pacesCommandsByReportedCredits() throws Exception {
+        StubCULHandler cul = new StubCULHandler(0);
+        cul.openHardware();
+
+        // the first command gets the credit report in which the stick has run out of credits
+        cul.send("V");
+        cul.send("F12340111");
+        cul.send("F12340100");
+        cul.writeSendableCommands();
+
+        assertTrue(cul.written.contains("V"));
+        assertFalse(cul.written.contains("F12340100"));
+        assertEquals(1, cul.getSendQueueSize());
+        assertEquals(1, cul.getCoalescedCount());
+        assertEquals(0, cul.getCredit10ms());
+
+        // an internal command jumps the queue and gets a new credit report
+        cul.reportedCredits = 900;
+        cul.sendWithoutCheck("V");
+        cul.writeSendableCommands();
+
+        assertTrue(cul.written.contains("F12340100"));
+        assertFalse(cul.written.contains("F12340111"));
+        assertEquals(0, cul.getSendQueueSize());
+    }
+
+    @Test
+    public void send_discardsModeChanges() throws Exception {
+        StubCULHandler cul = new StubCULHandler(900);
+        cul.send("X21");
+        cul.send("Ar");
+        assertEquals(0, cul.getSendQueueSize());
+    }
+
+    private static class FakeClock implements CULSendQueue.Clock {
+        private long now = 1000000;
+
+        void advance(long millis) {
+            now += millis;
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+    }
+
+    private static class TakeThread extends Thread {
+        private final CULSendQueue queue;
+        private volatile String command;
+
+        TakeThread(CULSendQueue queue) {
+            this.queue = queue;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                command = queue.take();
+            } catch (InterruptedException e) {
+            }
+        }
+    }
+
+    private static class StubConfig extends CULConfig {
+        StubConfig() {
+            super("stub", "stub", CULMode.SLOW_RF);
+        }
+    }
+
+    /**
+     * Simulates a culfw device which answers every credit report request with
+     * the credits currently set in <code>reportedCredits</code>.
+     */
+    private static class StubCULHandler extends AbstractCULHandler<CULConfig> {
+
+        private final List<String> written = new CopyOnWriteArrayList<String>();
+        private volatile int reportedCredits;
+        private PipedWriter device;
+
+        StubCULHandler(int reportedCredits) {
+            super(new StubConfig());
+            this.reportedCredits = reportedCredits;
+            this.sendQueue = new CULSendQueue(new FakeClock());
+        }
+
+        /**
+         * Does what the send thread does, for the commands which can be sent
+         * without waiting for credits.
+         */
+        private void writeSendableCommands() throws CULCommunicationException {
+            String command;
+            while ((command = sendQueue.poll()) != null) {
+                writeQueuedCommand(command);
+            }
+        }
+
+        @Override
+        protected void openHardware() throws CULDeviceException {
+            try {
+                device = new PipedWriter();
+                br = new BufferedReader(new PipedReader(device));
+            } catch (IOException e) {
+                throw new CULDeviceException(e);
+            }
+            bw = new BufferedWriter(new Writer() {
+                private final StringBuilder line = new StringBuilder();
+
+                @Override
+                public void write(char[] cbuf, int off, int len) throws IOException {
+                    line.append(cbuf, off, len);
+                    int end;
+                    while ((end = line.indexOf("\r\n")) >= 0) {
+                        received(line.substring(0, end));
+                        line.delete(0, end + 2);
+                    }
+                }
+
+                @Override
+                public void flush() {
+                }
+
+                @Override
+                public void close() {
+                }
+            });
+        }
+
+        private void received(String command) throws IOException {
+            if ("X".equals(command)) {
+                device.write("21  " + reportedCredits + "\r\n");
+                device.flush();
+                try {
+                    processNextLine();
+                } catch (CULCommunicationException e) {
+                    throw new IOException(e);
+                }
+            } else {
+                written.add(command);
+            }
+        }
+
+        @Override
+        protected void closeHardware() {
+        }
+    }
+}
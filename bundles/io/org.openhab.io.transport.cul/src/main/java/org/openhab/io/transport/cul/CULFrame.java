@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.cul;
+
+/**
+ * A line received from the CUL. The line is parsed once when it is received
+ * and the frame is handed to all listeners, which can read the hex encoded
+ * fields directly from the line without creating substrings.
+ *
+ * Frames are immutable, so they can be passed between threads.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public final class CULFrame {
+
+    private final String data;
+    private final int addressStart;
+    private final int addressEnd;
+    private final int deviceHash;
+
+    /**
+     * Parses a line received from the CUL.
+     *
+     * @param data
+     *            the line without line terminator
+     */
+    public CULFrame(String data) {
+        this.data = data;
+
+        // the position of the sender address depends on the protocol
+        int start = 0;
+        int end = 0;
+        if (data.length() > 0) {
+            switch (data.charAt(0)) {
+                case 'F':
+                    // FS20: F <housecode:4> <address:2> <command:2>
+                    start = 1;
+                    end = 7;
+                    break;
+                case 'T':
+                    // FHT: T <housecode:4> <command:2> ...
+                    start = 1;
+                    end = 5;
+                    break;
+                case 'Z':
+                    // MAX!: Z <length:2> <counter:2> <flags:2> <type:2> <source:6> ...
+                    start = 9;
+                    end = 15;
+                    break;
+                case 'H':
+                    // HMS: H <address:4> ...
+                    start = 1;
+                    end = 5;
+                    break;
+                case 'E':
+                    // EM: E <type:2> <address:2> ...
+                    start = 1;
+                    end = 5;
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (end > data.length()) {
+            start = 0;
+            end = 0;
+        }
+        this.addressStart = start;
+        this.addressEnd = end;
+
+        int hash = data.length() > 0 ? data.charAt(0) : 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + data.charAt(i);
+        }
+        this.deviceHash = hash;
+    }
+
+    /**
+     * @return the line as received from the CUL
+     */
+    public String getData() {
+        return data;
+    }
+
+    /**
+     * @return the first character of the line, which identifies the protocol,
+     *         or 0 for an empty line
+     */
+    public char getProtocol() {
+        return data.length() > 0 ? data.charAt(0) : 0;
+    }
+
+    /**
+     * @return the sender address of the frame or <code>null</code> if the
+     *         protocol has no known address field
+     */
+    public String getAddress() {
+        return addressEnd > addressStart ? data.substring(addressStart, addressEnd) : null;
+    }
+
+    /**
+     * Returns a hash of the protocol and sender address. Frames from the same
+     * device have the same hash; frames of protocols without a known address
+     * field share the hash of their protocol.
+     *
+     * @return the hash of the sending device
+     */
+    public int getDeviceHash() {
+        return deviceHash;
+    }
+
+    /**
+     * @return the length of the line
+     */
+    public int length() {
+        return data.length();
+    }
+
+    /**
+     * Parses a hex encoded field of the line.
+     *
+     * @param offset
+     *            the position of the first hex digit
+     * @param length
+     *            the number of hex digits, at most 7
+     * @return the value of the field
+     * @throws NumberFormatException
+     *             if the field is out of bounds or contains a non hex digit
+     */
+    public int getHexValue(int offset, int length) {
+        if (offset < 0 || length < 1 || length > 7 || offset + length > data.length()) {
+            throw new NumberFormatException("Invalid field " + offset + "+" + length + " in '" + data + "'");
+        }
+        int value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            int digit = Character.digit(data.charAt(i), 16);
+            if (digit < 0) {
+                throw new NumberFormatException("Invalid hex digit at " + i + " in '" + data + "'");
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    /**
+     * Checks whether the line starts with the given prefix.
+     *
+     * @param prefix
+     * @return true if the line starts with the prefix
+     */
+    public boolean startsWith(String prefix) {
+        return data.startsWith(prefix);
+    }
+
+    @Override
+    public String toString() {
+        return data;
+    }
+}
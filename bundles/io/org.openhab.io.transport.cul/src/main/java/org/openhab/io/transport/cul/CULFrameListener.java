@@ -0,0 +1,30 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.cul;
+
+/**
+ * A {@link CULListener} which receives the parsed frames instead of the raw
+ * lines. {@link #dataReceived(String)} isn't called for listeners
+ * implementing this interface.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public interface CULFrameListener extends CULListener {
+
+    /**
+     * Called for every frame received from the CUL which matches the prefixes
+     * this listener was registered with.
+     *
+     * @param frame
+     *            the received frame
+     */
+    public void frameReceived(CULFrame frame);
+
+}
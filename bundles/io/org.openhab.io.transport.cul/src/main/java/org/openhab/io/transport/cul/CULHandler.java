@@ -24,6 +24,17 @@ public interface CULHandler {
      */
     public void registerListener(CULListener listener);
 
+    /**
+     * Register a listener which only receives the lines starting with one of
+     * the given prefixes, like "F" for FS20 messages. Errors are reported to
+     * all listeners.
+     *
+     * @param listener
+     * @param prefixes
+     *            the prefixes of the lines to receive, all lines if empty
+     */
+    public void registerListener(CULListener listener, String... prefixes);
+
     /**
      * Unregister a previous registered listener. If you don't need the
      * CULHanlder anymore and want to close it, unregister your listener first.
@@ -41,6 +52,17 @@ public interface CULHandler {
      */
     public void send(String command) throws CULCommunicationException;
 
+    /**
+     * Send a String representing a culfw command to the CULHandler with the
+     * given priority. Note that Strings changing the RF mode will be discarded
+     * silently.
+     *
+     * @param command
+     * @param priority
+     * @throws CULCommunicationException
+     */
+    public void send(String command, CULSendPriority priority) throws CULCommunicationException;
+
     /**
      * Get the number of transmit credits remaining. This
      * value is updated every time data is RX'd or TX'd
@@ -49,4 +71,26 @@ public interface CULHandler {
      */
     public int getCredit10ms();
 
+    /**
+     * Get the number of commands waiting to be sent.
+     *
+     * @return number of queued commands
+     */
+    public int getSendQueueSize();
+
+    /**
+     * Get the number of commands written to the CUL since it was opened.
+     *
+     * @return number of sent commands
+     */
+    public long getSentCount();
+
+    /**
+     * Get the number of queued commands which were replaced by a later command
+     * to the same device before they were sent.
+     *
+     * @return number of coalesced commands
+     */
+    public long getCoalescedCount();
+
 }
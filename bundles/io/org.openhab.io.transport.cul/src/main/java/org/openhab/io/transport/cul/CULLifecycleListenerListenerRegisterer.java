@@ -11,14 +11,30 @@ package org.openhab.io.transport.cul;
 public class CULLifecycleListenerListenerRegisterer implements CULLifecycleListener {
 
     private CULListener listener;
+    private String[] prefixes;
 
     public CULLifecycleListenerListenerRegisterer(CULListener listener) {
+        this(listener, new String[0]);
+    }
+
+    /**
+     * @param listener
+     * @param prefixes
+     *            the prefixes of the lines the listener receives, see
+     *            {@link CULHandler#registerListener(CULListener, String...)}
+     */
+    public CULLifecycleListenerListenerRegisterer(CULListener listener, String... prefixes) {
         this.listener = listener;
+        this.prefixes = prefixes;
     }
 
     @Override
     public void open(CULHandler cul) throws CULCommunicationException {
-        cul.registerListener(listener);
+        if (prefixes.length == 0) {
+            cul.registerListener(listener);
+        } else {
+            cul.registerListener(listener, prefixes);
+        }
 
     }
 
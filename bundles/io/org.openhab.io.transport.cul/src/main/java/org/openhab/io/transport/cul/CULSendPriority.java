@@ -0,0 +1,36 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.cul;
+
+/**
+ * The priority with which a command is sent to the CUL. Commands with a higher
+ * priority are sent first and may use the transmit credits which are reserved
+ * while the duty cycle budget runs low.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public enum CULSendPriority {
+
+    /**
+     * Time critical commands, like acknowledges or answers within a protocol
+     * exchange.
+     */
+    HIGH,
+    /**
+     * Regular commands, like switching a device.
+     */
+    NORMAL,
+    /**
+     * Commands which can wait, like periodic status updates. These are held
+     * back while the transmit credits are low.
+     */
+    LOW;
+
+}
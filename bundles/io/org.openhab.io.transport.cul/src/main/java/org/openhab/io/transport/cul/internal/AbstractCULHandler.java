@@ -12,16 +12,12 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.net.SocketException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 import org.openhab.io.transport.cul.CULCommunicationException;
 import org.openhab.io.transport.cul.CULDeviceException;
+import org.openhab.io.transport.cul.CULFrame;
 import org.openhab.io.transport.cul.CULListener;
+import org.openhab.io.transport.cul.CULSendPriority;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -50,88 +46,66 @@ public abstract class AbstractCULHandler<T extends CULConfig> implements CULHand
         @Override
         public void run() {
             while (!isInterrupted()) {
-                String command = sendQueue.poll();
-                if (command != null) {
-                    if (!command.endsWith("\r\n")) {
-                        command = command + "\r\n";
-                    }
-                    try {
-                        writeMessage(command);
-                    } catch (CULCommunicationException e) {
-                        logger.error("Error while writing command to CUL", e);
-                    }
-                }
+                String command;
                 try {
-                    Thread.sleep(10);
+                    command = sendQueue.take();
                 } catch (InterruptedException e) {
-                    logger.debug("Error while sleeping in SendThread", e);
+                    logger.debug("SendThread interrupted, stopping");
+                    return;
+                }
+                try {
+                    writeQueuedCommand(command);
+                } catch (CULCommunicationException e) {
+                    logger.error("Error while writing command to CUL", e);
                 }
             }
         }
     }
 
     /**
-     * Wrapper class wraps a CULListener and a received Strings and gets
-     * executed by a executor in its own thread.
-     *
-     * @author Till Klocke
-     * @since 1.4.0
-     *
-     */
-    private static class NotifyDataReceivedRunner implements Runnable {
-
-        private String message;
-        private CULListener listener;
-
-        public NotifyDataReceivedRunner(CULListener listener, String message) {
-            this.message = message;
-            this.listener = listener;
-        }
-
-        @Override
-        public void run() {
-            listener.dataReceived(message);
-        }
-
-    }
-
-    /**
-     * Executor to handle received messages. Every listern should be called in
-     * its own thread.
+     * Delivers received frames to the listeners, ordered per device.
      */
-    protected Executor receiveExecutor = Executors.newCachedThreadPool();
+    protected CULReceiveDispatcher receiveDispatcher;
     protected SendThread sendThread = new SendThread();
 
     protected T config;
 
-    protected List<CULListener> listeners = new ArrayList<CULListener>();
+    protected CULListenerRegistry listeners = new CULListenerRegistry();
 
-    protected Queue<String> sendQueue = new ConcurrentLinkedQueue<String>();
+    protected CULSendQueue sendQueue = new CULSendQueue();
     protected int credit10ms = 0;
     protected BufferedReader br;
     protected BufferedWriter bw;
 
     protected AbstractCULHandler(T config) {
         this.config = config;
+        this.receiveDispatcher = new CULReceiveDispatcher(String.valueOf(config.getDeviceAddress()));
     }
 
     @Override
     public void registerListener(CULListener listener) {
         if (listener != null) {
-            listeners.add(listener);
+            listeners.register(listener);
+        }
+    }
+
+    @Override
+    public void registerListener(CULListener listener, String... prefixes) {
+        if (listener != null) {
+            listeners.register(listener, prefixes);
         }
     }
 
     @Override
     public void unregisterListener(CULListener listener) {
         if (listener != null) {
-            listeners.remove(listener);
+            listeners.unregister(listener);
         }
     }
 
     @Override
     public boolean hasListeners() {
-        return listeners.size() > 0;
+        return !listeners.isEmpty();
     }
 
     @Override
@@ -143,6 +117,8 @@ public abstract class AbstractCULHandler<T extends CULConfig> implements CULHand
     @Override
     public void close() {
         sendThread.interrupt();
+        sendQueue.clear();
+        receiveDispatcher.shutdown();
         closeHardware();
     }
 
@@ -160,14 +136,19 @@ public abstract class AbstractCULHandler<T extends CULConfig> implements CULHand
 
     @Override
     public void send(String command) {
+        send(command, CULSendPriority.NORMAL);
+    }
+
+    @Override
+    public void send(String command, CULSendPriority priority) {
         if (isMessageAllowed(command)) {
-            sendQueue.add(command);
+            sendQueue.add(command, priority);
         }
     }
 
     @Override
     public void sendWithoutCheck(String message) throws CULCommunicationException {
-        sendQueue.add(message);
+        sendQueue.add(message, CULSendPriority.HIGH);
     }
 
     /**
@@ -188,18 +169,18 @@ public abstract class AbstractCULHandler<T extends CULConfig> implements CULHand
     }
 
     /**
-     * Notifies each CULListener about the received data in its own thread.
+     * Parses the received data once and queues it for the listeners
+     * registered for its prefix.
      *
      * @param data
      */
     protected void notifyDataReceived(String data) {
-        for (final CULListener listener : listeners) {
-            receiveExecutor.execute(new NotifyDataReceivedRunner(listener, data));
-        }
+        CULFrame frame = new CULFrame(data);
+        receiveDispatcher.dispatch(frame, listeners.getListeners(frame));
     }
 
     protected void notifyError(Exception e) {
-        for (CULListener listener : listeners) {
+        for (CULListener listener : listeners.getAll()) {
             listener.error(e);
         }
     }
@@ -227,6 +208,7 @@ public abstract class AbstractCULHandler<T extends CULConfig> implements CULHand
             } else if ("LOVF".equals(data)) {
                 log.warn(
                         "(LOVF) Limit Overflow: Last message lost. You are using more than 1% transmitting time. Reduce the number of rf messages");
+                sendQueue.creditsReported(0);
                 return;
             } else if (data.matches("^\\d+\\s+\\d+")) {
                 processCreditReport(data);
@@ -261,6 +243,7 @@ public abstract class AbstractCULHandler<T extends CULConfig> implements CULHand
         String[] report = data.split(" ");
         credit10ms = Integer.parseInt(report[report.length - 1]);
         log.debug("credit10ms = " + credit10ms);
+        sendQueue.creditsReported(credit10ms);
     }
 
     /**
@@ -274,6 +257,35 @@ public abstract class AbstractCULHandler<T extends CULConfig> implements CULHand
         return credit10ms;
     }
 
+    @Override
+    public int getSendQueueSize() {
+        return sendQueue.size();
+    }
+
+    @Override
+    public long getSentCount() {
+        return sendQueue.getSentCount();
+    }
+
+    @Override
+    public long getCoalescedCount() {
+        return sendQueue.getCoalescedCount();
+    }
+
+    /**
+     * Write a command taken from the send queue to the CUL.
+     *
+     * @param command
+     * @throws CULCommunicationException
+     */
+    void writeQueuedCommand(String command) throws CULCommunicationException {
+        sendQueue.sent(command);
+        if (!command.endsWith("\r\n")) {
+            command = command + "\r\n";
+        }
+        writeMessage(command);
+    }
+
     /**
      * write out request for a credit report directly to CUL
      */
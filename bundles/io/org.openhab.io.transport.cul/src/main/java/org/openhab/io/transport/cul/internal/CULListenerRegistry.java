@@ -0,0 +1,152 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.cul.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.openhab.io.transport.cul.CULFrame;
+import org.openhab.io.transport.cul.CULListener;
+
+/**
+ * The listeners registered with a CUL handler, indexed by the first character
+ * of the prefixes they are registered for. Looking up the listeners of a
+ * frame doesn't need any locking; registering and unregistering replaces the
+ * index.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+class CULListenerRegistry {
+
+    private final List<Registration> registrations = new ArrayList<Registration>();
+
+    /** listeners registered for all lines */
+    private volatile List<CULListener> unfiltered = Collections.emptyList();
+
+    /** registrations by the first character of their prefixes */
+    private volatile Map<Character, List<Registration>> byFirstChar = Collections.emptyMap();
+
+    /** every registered listener once */
+    private volatile List<CULListener> all = Collections.emptyList();
+
+    /**
+     * Registers a listener, replacing a previous registration of the same
+     * listener.
+     *
+     * @param listener
+     * @param prefixes
+     *            the prefixes of the lines to receive, all lines if empty
+     */
+    synchronized void register(CULListener listener, String... prefixes) {
+        removeRegistrations(listener);
+        registrations.add(new Registration(listener, prefixes == null ? new String[0] : prefixes));
+        rebuild();
+    }
+
+    synchronized void unregister(CULListener listener) {
+        removeRegistrations(listener);
+        rebuild();
+    }
+
+    boolean isEmpty() {
+        return all.isEmpty();
+    }
+
+    /**
+     * @return all registered listeners
+     */
+    List<CULListener> getAll() {
+        return all;
+    }
+
+    /**
+     * Returns the listeners for a frame, in registration order.
+     *
+     * @param frame
+     * @return the listeners which registered for a prefix of the frame
+     */
+    List<CULListener> getListeners(CULFrame frame) {
+        List<Registration> candidates = byFirstChar.get(frame.getProtocol());
+        if (candidates == null) {
+            return unfiltered;
+        }
+        List<CULListener> result = new ArrayList<CULListener>(unfiltered.size() + candidates.size());
+        result.addAll(unfiltered);
+        for (Registration registration : candidates) {
+            if (registration.matches(frame) && !result.contains(registration.listener)) {
+                result.add(registration.listener);
+            }
+        }
+        return result;
+    }
+
+    private void removeRegistrations(CULListener listener) {
+        for (int i = registrations.size() - 1; i >= 0; i--) {
+            if (registrations.get(i).listener.equals(listener)) {
+                registrations.remove(i);
+            }
+        }
+    }
+
+    private void rebuild() {
+        List<CULListener> newUnfiltered = new ArrayList<CULListener>();
+        Map<Character, List<Registration>> newByFirstChar = new HashMap<Character, List<Registration>>();
+        Set<CULListener> newAll = new LinkedHashSet<CULListener>();
+
+        for (Registration registration : registrations) {
+            newAll.add(registration.listener);
+            if (registration.prefixes.length == 0) {
+                newUnfiltered.add(registration.listener);
+                continue;
+            }
+            for (String prefix : registration.prefixes) {
+                if (prefix.isEmpty()) {
+                    continue;
+                }
+                List<Registration> list = newByFirstChar.get(prefix.charAt(0));
+                if (list == null) {
+                    list = new ArrayList<Registration>();
+                    newByFirstChar.put(prefix.charAt(0), list);
+                }
+                if (!list.contains(registration)) {
+                    list.add(registration);
+                }
+            }
+        }
+
+        unfiltered = newUnfiltered;
+        byFirstChar = newByFirstChar;
+        all = new ArrayList<CULListener>(newAll);
+    }
+
+    private static class Registration {
+        private final CULListener listener;
+        private final String[] prefixes;
+
+        Registration(CULListener listener, String[] prefixes) {
+            this.listener = listener;
+            this.prefixes = prefixes;
+        }
+
+        boolean matches(CULFrame frame) {
+            for (String prefix : prefixes) {
+                if (!prefix.isEmpty() && frame.startsWith(prefix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
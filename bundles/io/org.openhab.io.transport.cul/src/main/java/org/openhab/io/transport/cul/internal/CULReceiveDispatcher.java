@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.cul.internal;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openhab.io.transport.cul.CULFrame;
+import org.openhab.io.transport.cul.CULFrameListener;
+import org.openhab.io.transport.cul.CULListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hands received frames to the listeners on a fixed number of lanes. All
+ * frames of one device go through the same lane, so they are delivered in the
+ * order they were received, while a slow listener only holds up the devices
+ * sharing its lane. Each lane has one thread and a bounded queue; when a lane
+ * falls behind, new frames for it are dropped instead of starting more
+ * threads.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+class CULReceiveDispatcher {
+
+    private final static Logger logger = LoggerFactory.getLogger(CULReceiveDispatcher.class);
+
+    static final int DEFAULT_LANES = 4;
+    static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+    private final ThreadPoolExecutor[] lanes;
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    CULReceiveDispatcher(final String name) {
+        this(name, DEFAULT_LANES, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    CULReceiveDispatcher(final String name, int laneCount, int queueCapacity) {
+        lanes = new ThreadPoolExecutor[laneCount];
+        RejectedExecutionHandler dropPolicy = new RejectedExecutionHandler() {
+            @Override
+            public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+                if (executor.isShutdown()) {
+                    return;
+                }
+                droppedCount.incrementAndGet();
+                logger.warn("Receive queue of CUL {} is full, dropping '{}'", name, task);
+            }
+        };
+        for (int i = 0; i < laneCount; i++) {
+            final String threadName = "CUL " + name + " receive " + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<Runnable>(queueCapacity), new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            Thread thread = new Thread(runnable, threadName);
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    }, dropPolicy);
+            // idle lanes don't keep a thread
+            lanes[i].allowCoreThreadTimeOut(true);
+        }
+    }
+
+    /**
+     * Queues a frame for delivery to the given listeners.
+     *
+     * @param frame
+     * @param listeners
+     */
+    void dispatch(CULFrame frame, List<CULListener> listeners) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        int lane = (frame.getDeviceHash() & Integer.MAX_VALUE) % lanes.length;
+        try {
+            lanes[lane].execute(new Delivery(frame, listeners));
+        } catch (RejectedExecutionException e) {
+            logger.debug("Dropping '{}', the CUL is closed", frame);
+        }
+    }
+
+    /**
+     * @return the number of frames dropped because a lane was full
+     */
+    long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Stops all lanes. Queued frames are discarded.
+     */
+    void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdownNow();
+        }
+    }
+
+    private static class Delivery implements Runnable {
+
+        private final CULFrame frame;
+        private final List<CULListener> listeners;
+
+        Delivery(CULFrame frame, List<CULListener> listeners) {
+            this.frame = frame;
+            this.listeners = listeners;
+        }
+
+        @Override
+        public void run() {
+            for (CULListener listener : listeners) {
+                try {
+                    if (listener instanceof CULFrameListener) {
+                        ((CULFrameListener) listener).frameReceived(frame);
+                    } else {
+                        listener.dataReceived(frame.getData());
+                    }
+                } catch (RuntimeException e) {
+                    logger.error("Error while processing '" + frame + "'", e);
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return frame.toString();
+        }
+    }
+}
@@ -0,0 +1,333 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.cul.internal;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.openhab.io.transport.cul.CULSendPriority;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Queue of the commands waiting to be sent to the CUL.
+ *
+ * Commands are taken by priority and in arrival order within the same
+ * priority. The queue keeps track of the transmit credits (10ms units of air
+ * time) reported by the CUL and holds back RF commands until enough credits
+ * are available, so the 1% duty cycle of the 868MHz band isn't exceeded and
+ * culfw doesn't drop commands with LOVF. Between two credit reports the
+ * credits are estimated from the commands sent and the regeneration rate of
+ * one credit per second. Commands with low priority leave a reserve of credits
+ * for commands with higher priority. Commands which don't transmit (like
+ * requesting the version) are passed on while the first command waits for
+ * credits.
+ *
+ * An FS20 command which sets an absolute state replaces a command to the same
+ * device which is still queued, as the later command supersedes it anyway.
+ * Other commands are never coalesced, as they are either relative (toggle,
+ * dim up) or part of a protocol exchange (MAX!, FHT).
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+class CULSendQueue {
+
+    private final static Logger logger = LoggerFactory.getLogger(CULSendQueue.class);
+
+    /** the maximum credits the CUL accumulates, 1% of an hour */
+    static final int MAX_CREDITS = 3600;
+
+    /** the credits kept for commands with high or normal priority */
+    static final int LOW_PRIORITY_RESERVE = 300;
+
+    /** the time in milliseconds it takes to regenerate one credit */
+    private static final long CREDIT_REGENERATION_TIME = 1000;
+
+    /**
+     * Source of the current time, replaced in tests.
+     */
+    interface Clock {
+        long currentTimeMillis();
+    }
+
+    private static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    private final Clock clock;
+    private final PriorityQueue<QueuedCommand> queue = new PriorityQueue<QueuedCommand>();
+    private final Map<String, QueuedCommand> queuedByDevice = new HashMap<String, QueuedCommand>();
+
+    private long sequence = 0;
+    private long sentCount = 0;
+    private long coalescedCount = 0;
+
+    /** the last credits reported or estimated, -1 while unknown */
+    private int credits = -1;
+    private long creditsTimestamp;
+
+    CULSendQueue() {
+        this(SYSTEM_CLOCK);
+    }
+
+    CULSendQueue(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Adds a command to the queue.
+     *
+     * @param command
+     *            the culfw command
+     * @param priority
+     *            the priority of the command
+     */
+    synchronized void add(String command, CULSendPriority priority) {
+        String deviceKey = getCoalescingKey(command);
+        if (deviceKey != null) {
+            QueuedCommand queued = queuedByDevice.get(deviceKey);
+            if (queued != null) {
+                logger.debug("Replacing queued command '{}' with '{}'", queued.command, command);
+                coalescedCount++;
+                queued.command = command;
+                if (priority.ordinal() < queued.priority.ordinal()) {
+                    // the position in the queue depends on the priority
+                    queue.remove(queued);
+                    queued.priority = priority;
+                    queue.add(queued);
+                }
+                notifyAll();
+                return;
+            }
+        }
+
+        QueuedCommand queued = new QueuedCommand(command, priority, deviceKey, sequence++);
+        queue.add(queued);
+        if (deviceKey != null) {
+            queuedByDevice.put(deviceKey, queued);
+        }
+        notifyAll();
+    }
+
+    /**
+     * Takes the next command from the queue, waiting until a command is queued
+     * and enough credits are available to send it.
+     *
+     * @return the command to send
+     * @throws InterruptedException
+     *             if the thread was interrupted while waiting
+     */
+    synchronized String take() throws InterruptedException {
+        while (true) {
+            String command = poll();
+            if (command != null) {
+                return command;
+            }
+
+            QueuedCommand next = queue.peek();
+            if (next == null) {
+                wait();
+            } else {
+                long delay = getDelay(next);
+                logger.debug("Delaying command '{}' for {}ms to stay within the duty cycle", next.command, delay);
+                wait(delay);
+            }
+        }
+    }
+
+    /**
+     * Takes the next command which can be sent now from the queue. If the
+     * first command has to wait for credits, the first command which doesn't
+     * transmit is taken instead.
+     *
+     * @return the command to send or <code>null</code> if no command can be
+     *         sent now
+     */
+    synchronized String poll() {
+        QueuedCommand next = queue.peek();
+        if (next == null) {
+            return null;
+        }
+        if (getDelay(next) > 0) {
+            next = getFirstWithoutAirTime();
+            if (next == null) {
+                return null;
+            }
+        }
+
+        queue.remove(next);
+        if (next.deviceKey != null) {
+            queuedByDevice.remove(next.deviceKey);
+        }
+        return next.command;
+    }
+
+    /**
+     * Records that a command has been written to the CUL, so its air time is
+     * deducted from the estimated credits until the next credit report.
+     *
+     * @param command
+     *            the command written
+     */
+    synchronized void sent(String command) {
+        sentCount++;
+        if (credits >= 0) {
+            credits = Math.max(0, getAvailableCredits() - estimateCost(command));
+            creditsTimestamp = clock.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Updates the credits with the value reported by the CUL.
+     *
+     * @param credit10ms
+     *            the credits reported
+     */
+    synchronized void creditsReported(int credit10ms) {
+        credits = credit10ms;
+        creditsTimestamp = clock.currentTimeMillis();
+        notifyAll();
+    }
+
+    /**
+     * Removes all queued commands.
+     */
+    synchronized void clear() {
+        queue.clear();
+        queuedByDevice.clear();
+    }
+
+    synchronized int size() {
+        return queue.size();
+    }
+
+    synchronized long getSentCount() {
+        return sentCount;
+    }
+
+    synchronized long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    /**
+     * Returns the time in milliseconds until enough credits are available to
+     * send the command.
+     */
+    private long getDelay(QueuedCommand next) {
+        if (credits < 0) {
+            // no credit report received yet, so let the CUL decide
+            return 0;
+        }
+        int required = estimateCost(next.command);
+        if (required == 0) {
+            return 0;
+        }
+        if (next.priority == CULSendPriority.LOW) {
+            required += LOW_PRIORITY_RESERVE;
+        }
+        int missing = required - getAvailableCredits();
+        return missing <= 0 ? 0 : missing * CREDIT_REGENERATION_TIME;
+    }
+
+    /**
+     * Returns the queued command with the highest priority which doesn't
+     * transmit, or <code>null</code> if there is none.
+     */
+    private QueuedCommand getFirstWithoutAirTime() {
+        QueuedCommand first = null;
+        for (QueuedCommand queued : queue) {
+            if (estimateCost(queued.command) == 0 && (first == null || queued.compareTo(first) < 0)) {
+                first = queued;
+            }
+        }
+        return first;
+    }
+
+    private int getAvailableCredits() {
+        long regenerated = (clock.currentTimeMillis() - creditsTimestamp) / CREDIT_REGENERATION_TIME;
+        return (int) Math.min(MAX_CREDITS, credits + regenerated);
+    }
+
+    /**
+     * Estimates the air time of a command in 10ms units. The estimates err on
+     * the high side, they are only used until the next credit report.
+     *
+     * @param command
+     *            the culfw command
+     * @return the estimated credits used, 0 for commands which don't transmit
+     */
+    static int estimateCost(String command) {
+        if (command.startsWith("Zs")) {
+            // MAX! sends with a 1s preamble to wake up the device
+            return 103;
+        } else if (command.startsWith("Zf")) {
+            return 3;
+        } else if (command.startsWith("F") || command.startsWith("T") || command.startsWith("is")) {
+            return 23;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the device of an FS20 command which sets an absolute state
+     * (off, dim level, on), or <code>null</code> if the command must not be
+     * coalesced.
+     *
+     * @param command
+     *            the culfw command
+     * @return the housecode and address of the device
+     */
+    static String getCoalescingKey(String command) {
+        String trimmed = command.trim();
+        if (trimmed.length() != 9 || trimmed.charAt(0) != 'F') {
+            return null;
+        }
+        try {
+            int fs20Command = Integer.parseInt(trimmed.substring(7, 9), 16);
+            if (fs20Command > 0x11) {
+                return null;
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return trimmed.substring(0, 7);
+    }
+
+    /**
+     * A queued command, ordered by priority and arrival.
+     */
+    private static class QueuedCommand implements Comparable<QueuedCommand> {
+
+        private String command;
+        private CULSendPriority priority;
+        private final String deviceKey;
+        private final long sequence;
+
+        QueuedCommand(String command, CULSendPriority priority, String deviceKey, long sequence) {
+            this.command = command;
+            this.priority = priority;
+            this.deviceKey = deviceKey;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(QueuedCommand other) {
+            int result = priority.compareTo(other.priority);
+            if (result == 0) {
+                result = sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+            }
+            return result;
+        }
+    }
+}